@@ -1,26 +1,66 @@
 package org.openkilda.floodlight.kafka;
 
+import static org.openkilda.messaging.Utils.MAPPER;
+import static org.openkilda.messaging.Utils.PAYLOAD;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 public class Consumer implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(Consumer.class);
+    private static final String SWITCH_ID_PROPERTY = "switch_id";
+    private static final long METRICS_INTERVAL = TimeUnit.MINUTES.toMillis(1);
 
     private final List<String> topics;
     private final ConsumerContext context;
-    private final ExecutorService handlersPool;
+    private final KeyedExecutor<String> handlersPool;
     private final RecordHandler.Factory handlerFactory;
 
+    /**
+     * Records of the current kafka consumer being processed, a new consumer starts from the last commit.
+     */
+    private OffsetTracker offsets;
+
+    /**
+     * Handlers rejected by the full queue of their switch, by partition. The partitions are paused until their
+     * handlers are queued, so the poll loop keeps running while a switch is slow.
+     */
+    private Map<TopicPartition, Queue<PendingHandler>> backlog;
+    private long metricsLogTime;
+
+    /**
+     * Instance constructor.
+     *
+     * @param context        consumer context
+     * @param handlersPool   executor running the record handlers, ordered by switch
+     * @param handlerFactory record handler factory
+     * @param topic          topic to consume
+     * @param moreTopics     more topics to consume
+     */
     public Consumer(
-            ConsumerContext context, ExecutorService handlersPool, RecordHandler.Factory handlerFactory,
+            ConsumerContext context, KeyedExecutor<String> handlersPool, RecordHandler.Factory handlerFactory,
             String topic, String ...moreTopics) {
         this.topics = new ArrayList<>(moreTopics.length + 1);
         this.topics.add(topic);
@@ -45,19 +85,30 @@ public class Consumer implements Runnable {
              */
             KafkaConsumer<String, String> consumer = null;
             try {
-                consumer = new KafkaConsumer<>(context.getKafkaConfig());
-                consumer.subscribe(topics);
+                // records are committed once processed, see commit()
+                Properties config = new Properties();
+                config.putAll(context.getKafkaConfig());
+                config.put("enable.auto.commit", "false");
+
+                consumer = new KafkaConsumer<>(config);
+                offsets = new OffsetTracker();
+                backlog = new HashMap<>();
+                consumer.subscribe(topics, new CommitOnRevoke(consumer, offsets, backlog));
 
                 while (true) {
+                    drainBacklog(consumer);
+
                     ConsumerRecords<String, String> batch = consumer.poll(100);
-                    if (batch.count() < 1) {
-                        continue;
+                    if (batch.count() > 0) {
+                        logger.debug("Received records batch contain {} messages", batch.count());
+                        for (ConsumerRecord<String, String> record : batch) {
+                            handle(record);
+                        }
+                        consumer.pause(backlog.keySet());
                     }
 
-                    logger.debug("Received records batch contain {} messages", batch.count());
-                    for (ConsumerRecord<String, String> record : batch) {
-                        handle(record);
-                    }
+                    commit(consumer);
+                    logMetrics();
                 }
             } catch (Exception e) {
                 /*
@@ -74,6 +125,164 @@ public class Consumer implements Runnable {
 
     protected void handle(ConsumerRecord<String, String> record) {
         logger.trace("received message: {} - {}", record.offset(), record.value());
-        handlersPool.execute(handlerFactory.produce(record));
+        RecordHandler handler = handlerFactory.produce(record);
+        OffsetTracker tracker = offsets;
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+
+        tracker.add(partition, record.offset());
+        PendingHandler pending = new PendingHandler(getSwitchId(record), () -> {
+            try {
+                handler.run();
+            } finally {
+                tracker.complete(partition, record.offset());
+            }
+        });
+
+        // handlers of a paused partition are queued after the ones already waiting
+        Queue<PendingHandler> waiting = backlog.get(partition);
+        if (waiting == null && handlersPool.offer(pending.switchId, pending.task)) {
+            return;
+        }
+        if (waiting == null) {
+            logger.debug("Queue of {} is full, pausing partition {}", pending.switchId, partition);
+            waiting = new ArrayDeque<>();
+            backlog.put(partition, waiting);
+        }
+        waiting.add(pending);
+    }
+
+    /**
+     * Queues the handlers of the paused partitions, resumes the partitions with no handlers left.
+     */
+    private void drainBacklog(KafkaConsumer<String, String> consumer) {
+        Iterator<Map.Entry<TopicPartition, Queue<PendingHandler>>> iterator = backlog.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<TopicPartition, Queue<PendingHandler>> entry = iterator.next();
+            Queue<PendingHandler> waiting = entry.getValue();
+            PendingHandler pending;
+            while ((pending = waiting.peek()) != null && handlersPool.offer(pending.switchId, pending.task)) {
+                waiting.remove();
+            }
+
+            if (waiting.isEmpty()) {
+                iterator.remove();
+                consumer.resume(Collections.singleton(entry.getKey()));
+                logger.debug("Partition {} resumed", entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Marks the record processed without running its handler.
+     */
+    protected void skip(ConsumerRecord<String, String> record) {
+        OffsetTracker tracker = offsets;
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        tracker.add(partition, record.offset());
+        tracker.complete(partition, record.offset());
+    }
+
+    /**
+     * Peeks the switch id of the command payload, records of the same switch are handled in order.
+     *
+     * @return switch id or null if the record is not addressed to a switch
+     */
+    static String getSwitchId(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return null;
+        }
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(record.value())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (PAYLOAD.equals(field) && token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        field = parser.getCurrentName();
+                        parser.nextToken();
+                        if (SWITCH_ID_PROPERTY.equals(field)) {
+                            return parser.getValueAsString();
+                        }
+                        parser.skipChildren();
+                    }
+                    return null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // the handler reports the malformed record
+            logger.trace("Can not peek switch id of record {}", record.offset(), e);
+        }
+        return null;
+    }
+
+    private void commit(KafkaConsumer<String, String> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> processed = offsets.collect();
+        if (processed.isEmpty()) {
+            return;
+        }
+
+        consumer.commitAsync(processed, (committed, exception) -> {
+            if (exception != null) {
+                logger.warn("Can not commit offsets {}", committed, exception);
+            }
+        });
+    }
+
+    private void logMetrics() {
+        long now = System.currentTimeMillis();
+        if (now - metricsLogTime >= METRICS_INTERVAL) {
+            metricsLogTime = now;
+            logger.info("Handlers: {}, uncommitted={}, paused={}", handlersPool, offsets.getPendingCount(),
+                    backlog.keySet());
+        }
+    }
+
+    /**
+     * Handler waiting for the queue space of its switch.
+     */
+    private static class PendingHandler {
+        private final String switchId;
+        private final Runnable task;
+
+        PendingHandler(String switchId, Runnable task) {
+            this.switchId = switchId;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Commits processed records of the partitions taken away from the consumer, drops their waiting handlers: the
+     * new owner of a partition reads them again from the commit.
+     */
+    private static class CommitOnRevoke implements ConsumerRebalanceListener {
+        private final KafkaConsumer<String, String> consumer;
+        private final OffsetTracker offsets;
+        private final Map<TopicPartition, Queue<PendingHandler>> backlog;
+
+        CommitOnRevoke(KafkaConsumer<String, String> consumer, OffsetTracker offsets,
+                       Map<TopicPartition, Queue<PendingHandler>> backlog) {
+            this.consumer = consumer;
+            this.offsets = offsets;
+            this.backlog = backlog;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            try {
+                consumer.commitSync(offsets.collect());
+            } catch (Exception e) {
+                logger.warn("Can not commit offsets on rebalance", e);
+            }
+            offsets.remove(partitions);
+            backlog.keySet().removeAll(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
     }
 }
@@ -32,6 +32,7 @@ import java.util.concurrent.Executors;
 
 public class KafkaMessageCollector implements IFloodlightModule {
     private static int EXEC_POOL_SIZE = 10;
+    private static int SWITCH_QUEUE_SIZE = 1000;
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaMessageCollector.class);
     private static final String INPUT_TOPIC = Topic.SPEAKER;
@@ -66,7 +67,8 @@ public class KafkaMessageCollector implements IFloodlightModule {
 
         logger.info("Starting {}", this.getClass().getCanonicalName());
         try {
-            ExecutorService parseRecordExecutor = Executors.newFixedThreadPool(EXEC_POOL_SIZE);
+            ExecutorService handlersPool = Executors.newFixedThreadPool(EXEC_POOL_SIZE);
+            KeyedExecutor<String> parseRecordExecutor = new KeyedExecutor<>(handlersPool, SWITCH_QUEUE_SIZE);
 
             Consumer consumer;
             if (! "YES".equals(context.configLookup("testing-mode"))) {
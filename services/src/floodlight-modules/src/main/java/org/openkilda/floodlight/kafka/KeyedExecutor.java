@@ -0,0 +1,211 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs tasks of the same key one at a time in submission order, and tasks of different keys in parallel.
+ *
+ * <p>Every key has a bounded queue drained by at most one worker of the shared pool at a time, so a slow key holds
+ * a single worker however many tasks it has queued. Workers give up a key after {@link #DRAIN_BATCH} tasks to let
+ * the other keys run. {@link #offer(Object, Runnable)} rejects the task while the queue of the key is full, it never
+ * blocks the caller. The queue of a key is dropped once it is drained. Tasks without a key are run by the pool
+ * directly, with no ordering.
+ *
+ * @param <K> key type
+ */
+public class KeyedExecutor<K> {
+    private static final Logger logger = LoggerFactory.getLogger(KeyedExecutor.class);
+
+    /**
+     * Maximum number of tasks of a key run by a worker in a row.
+     */
+    static final int DRAIN_BATCH = 16;
+
+    private final ExecutorService workers;
+    private final int queueCapacity;
+    private final Map<K, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * Instance constructor.
+     *
+     * @param workers       pool running the tasks
+     * @param queueCapacity maximum number of queued tasks of a key
+     */
+    public KeyedExecutor(ExecutorService workers, int queueCapacity) {
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Queues the task after the other tasks of the key if the queue of the key has space.
+     *
+     * @param key  task key, null if the task is not ordered with any other task
+     * @param task task
+     * @return true if the task is queued, false if the queue of the key is full
+     */
+    public boolean offer(K key, Runnable task) {
+        if (key == null) {
+            submitted.increment();
+            workers.execute(() -> run(task));
+            return true;
+        }
+
+        // lanes are created, filled and dropped under the map lock of the key, see Lane.run()
+        boolean[] queued = new boolean[1];
+        Lane lane = lanes.compute(key, (k, current) -> {
+            Lane target = current != null ? current : new Lane(k);
+            queued[0] = target.queue.offer(task);
+            return queued[0] ? target : current;
+        });
+        if (!queued[0]) {
+            blocked.increment();
+            return false;
+        }
+        submitted.increment();
+        lane.schedule();
+        return true;
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            failed.increment();
+            logger.error("Unhandled exception in task {}", task, e);
+        } finally {
+            completed.increment();
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets number of submissions that found the queue of the key full.
+     *
+     * @return number of blocked submissions
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * Gets number of keys with queued or running tasks.
+     *
+     * @return number of keys
+     */
+    public int getKeyCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Gets number of tasks queued for the key.
+     *
+     * @param key task key
+     * @return number of queued tasks
+     */
+    public int getQueueSize(K key) {
+        Lane lane = lanes.get(key);
+        return lane == null ? 0 : lane.queue.size();
+    }
+
+    /**
+     * Gets number of tasks queued for all keys.
+     *
+     * @return number of queued tasks
+     */
+    public int getQueueSize() {
+        return lanes.values().stream().mapToInt(lane -> lane.queue.size()).sum();
+    }
+
+    /**
+     * Gets the largest number of tasks queued for a key.
+     *
+     * @return number of queued tasks
+     */
+    public int getMaxQueueSize() {
+        return lanes.values().stream().mapToInt(lane -> lane.queue.size()).max().orElse(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("keys=%d, queued=%d, max-queued=%d, submitted=%d, completed=%d, failed=%d, blocked=%d",
+                getKeyCount(), getQueueSize(), getMaxQueueSize(), getSubmittedCount(), getCompletedCount(),
+                getFailedCount(), getBlockedCount());
+    }
+
+    /**
+     * Task queue of a key.
+     */
+    private final class Lane implements Runnable {
+        private final K key;
+        private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Lane(K key) {
+            this.key = key;
+        }
+
+        boolean schedule() {
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                for (int i = 0; i < DRAIN_BATCH && (task = queue.poll()) != null; i++) {
+                    KeyedExecutor.this.run(task);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!schedule()) {
+                    lanes.computeIfPresent(key, (k, lane) ->
+                            lane == this && queue.isEmpty() && !scheduled.get() ? null : lane);
+                }
+            }
+        }
+    }
+}
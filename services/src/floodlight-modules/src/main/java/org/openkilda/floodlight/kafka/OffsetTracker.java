@@ -0,0 +1,102 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks records processed out of order and finds the offsets safe to commit.
+ *
+ * <p>The committable offset of a partition is the lowest offset still being processed, or the offset after the
+ * last received record if all of them are processed, so a record is never committed before it and all the records
+ * before it in the partition are processed.
+ */
+class OffsetTracker {
+    private final Map<TopicPartition, Partition> partitions = new HashMap<>();
+
+    /**
+     * Registers received record.
+     *
+     * @param partition record partition
+     * @param offset    record offset
+     */
+    synchronized void add(TopicPartition partition, long offset) {
+        Partition state = partitions.computeIfAbsent(partition, key -> new Partition());
+        state.pending.add(offset);
+        state.next = Math.max(state.next, offset + 1);
+    }
+
+    /**
+     * Marks record processed.
+     *
+     * @param partition record partition
+     * @param offset    record offset
+     */
+    synchronized void complete(TopicPartition partition, long offset) {
+        Partition state = partitions.get(partition);
+        if (state != null) {
+            state.pending.remove(offset);
+        }
+    }
+
+    /**
+     * Collects the offsets that advanced since the previous call.
+     *
+     * @return offsets to commit by partition
+     */
+    synchronized Map<TopicPartition, OffsetAndMetadata> collect() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, Partition> entry : partitions.entrySet()) {
+            Partition state = entry.getValue();
+            long offset = state.pending.isEmpty() ? state.next : state.pending.first();
+            if (offset > state.committed) {
+                state.committed = offset;
+                offsets.put(entry.getKey(), new OffsetAndMetadata(offset));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Forgets revoked partitions.
+     *
+     * @param revoked partitions
+     */
+    synchronized void remove(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    /**
+     * Gets number of records being processed.
+     *
+     * @return number of records
+     */
+    synchronized int getPendingCount() {
+        return partitions.values().stream().mapToInt(state -> state.pending.size()).sum();
+    }
+
+    private static class Partition {
+        private final TreeSet<Long> pending = new TreeSet<>();
+        private long next = -1;
+        private long committed = -1;
+    }
+}
@@ -2,6 +2,7 @@ package org.openkilda.floodlight.kafka;
 
 import static org.openkilda.messaging.Utils.MAPPER;
 
+import org.openkilda.floodlight.switchmanager.FlowModBatch;
 import org.openkilda.floodlight.switchmanager.ISwitchManager;
 import org.openkilda.floodlight.switchmanager.MeterPool;
 import org.openkilda.floodlight.switchmanager.SwitchEventCollector;
@@ -18,6 +19,8 @@ import org.openkilda.messaging.command.flow.InstallIngressFlow;
 import org.openkilda.messaging.command.flow.InstallOneSwitchFlow;
 import org.openkilda.messaging.command.flow.InstallTransitFlow;
 import org.openkilda.messaging.command.flow.RemoveFlow;
+import org.openkilda.messaging.command.switches.DumpRulesRequest;
+import org.openkilda.messaging.error.ErrorData;
 import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.error.ErrorType;
 import org.openkilda.messaging.info.InfoMessage;
@@ -26,24 +29,35 @@ import org.openkilda.messaging.info.event.PortChangeType;
 import org.openkilda.messaging.info.event.PortInfoData;
 import org.openkilda.messaging.info.event.SwitchInfoData;
 import org.openkilda.messaging.info.event.SwitchState;
+import org.openkilda.messaging.info.rule.FlowEntry;
+import org.openkilda.messaging.info.rule.SwitchFlowEntries;
 import org.openkilda.messaging.payload.flow.OutputVlanType;
 
 import net.floodlightcontroller.core.IOFSwitch;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+import org.projectfloodlight.openflow.protocol.match.Match;
+import org.projectfloodlight.openflow.protocol.match.MatchField;
 import org.projectfloodlight.openflow.types.DatapathId;
 import org.projectfloodlight.openflow.types.OFPort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 class RecordHandler implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(RecordHandler.class);
     private static final String OUTPUT_FLOW_TOPIC = Topic.FLOW;
     private static final String OUTPUT_DISCO_TOPIC = Topic.TOPO_DISCO;
+    private static final String OUTPUT_NORTHBOUND_TOPIC = Topic.NORTHBOUND;
+    private static final int DEFAULT_RULES_CHUNK_SIZE = 500;
 
     private final ConsumerContext context;
     private final ConsumerRecord<String, String> record;
@@ -73,19 +87,25 @@ class RecordHandler implements Runnable {
                 doDeleteFlow(message);
             } else if (data instanceof NetworkCommandData) {
                 doNetworkDump(message);
+            } else if (data instanceof DumpRulesRequest) {
+                doDumpRules(message);
             } else {
                 logger.error("unknown data type: {}", data.toString());
             }
         } catch (FlowCommandException e) {
-            ErrorMessage error = new ErrorMessage(
-                    e.makeErrorResponse(),
-                    System.currentTimeMillis(), message.getCorrelationId(), Destination.WFM_TRANSACTION);
-            context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, error);
+            replyError(message, e);
         } catch (Exception e) {
             logger.error("Unhandled exception: {}", e);
         }
     }
 
+    private void replyError(final CommandMessage message, final FlowCommandException e) {
+        ErrorMessage error = new ErrorMessage(
+                e.makeErrorResponse(),
+                System.currentTimeMillis(), message.getCorrelationId(), Destination.WFM_TRANSACTION);
+        context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, error);
+    }
+
     private void doDiscoverIslCommand(CommandData data) {
         DiscoverIslCommandData command = (DiscoverIslCommandData) data;
         logger.debug("sending discover ISL to {}", command);
@@ -118,23 +138,18 @@ class RecordHandler implements Runnable {
         int meterId = meterPool.allocate(command.getSwitchId(), command.getId());
 
         try {
-            context.getSwitchManager().installMeter(
-                    DatapathId.of(command.getSwitchId()),
-                    command.getBandwidth(), 1024, meterId);
-
-            context.getSwitchManager().installIngressFlow(
-                    DatapathId.of(command.getSwitchId()),
-                    command.getId(),
-                    command.getCookie(),
-                    command.getInputPort(),
-                    command.getOutputPort(),
-                    command.getInputVlanId(),
-                    command.getTransitVlanId(),
-                    command.getOutputVlanType(),
-                    meterId);
-
-            message.setDestination(Destination.WFM_TRANSACTION);
-            context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, message);
+            FlowModBatch batch = context.getSwitchManager().startBatch(DatapathId.of(command.getSwitchId()))
+                    .installMeter(command.getBandwidth(), 1024, meterId)
+                    .installIngressFlow(
+                            command.getId(),
+                            command.getCookie(),
+                            command.getInputPort(),
+                            command.getOutputPort(),
+                            command.getInputVlanId(),
+                            command.getTransitVlanId(),
+                            command.getOutputVlanType(),
+                            meterId);
+            installBatch(message, command.getId(), batch);
         } catch (SwitchOperationException e) {
             throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
         }
@@ -150,18 +165,16 @@ class RecordHandler implements Runnable {
         logger.debug("Creating an egress flow: {}", command);
 
         try {
-            context.getSwitchManager().installEgressFlow(
-                    DatapathId.of(command.getSwitchId()),
-                    command.getId(),
-                    command.getCookie(),
-                    command.getInputPort(),
-                    command.getOutputPort(),
-                    command.getTransitVlanId(),
-                    command.getOutputVlanId(),
-                    command.getOutputVlanType());
-
-            message.setDestination(Destination.WFM_TRANSACTION);
-            context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, message);
+            FlowModBatch batch = context.getSwitchManager().startBatch(DatapathId.of(command.getSwitchId()))
+                    .installEgressFlow(
+                            command.getId(),
+                            command.getCookie(),
+                            command.getInputPort(),
+                            command.getOutputPort(),
+                            command.getTransitVlanId(),
+                            command.getOutputVlanId(),
+                            command.getOutputVlanType());
+            installBatch(message, command.getId(), batch);
         } catch (SwitchOperationException e) {
             throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
         }
@@ -177,16 +190,14 @@ class RecordHandler implements Runnable {
         logger.debug("Creating a transit flow: {}", command);
 
         try {
-            context.getSwitchManager().installTransitFlow(
-                    DatapathId.of(command.getSwitchId()),
-                    command.getId(),
-                    command.getCookie(),
-                    command.getInputPort(),
-                    command.getOutputPort(),
-                    command.getTransitVlanId());
-
-            message.setDestination(Destination.WFM_TRANSACTION);
-            context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, message);
+            FlowModBatch batch = context.getSwitchManager().startBatch(DatapathId.of(command.getSwitchId()))
+                    .installTransitFlow(
+                            command.getId(),
+                            command.getCookie(),
+                            command.getInputPort(),
+                            command.getOutputPort(),
+                            command.getTransitVlanId());
+            installBatch(message, command.getId(), batch);
         } catch (SwitchOperationException e) {
             throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
         }
@@ -204,29 +215,52 @@ class RecordHandler implements Runnable {
         int meterId = meterPool.allocate(command.getSwitchId(), command.getId());
 
         try {
-            context.getSwitchManager().installMeter(
-                    DatapathId.of(command.getSwitchId()),
-                    command.getBandwidth(), 1024, meterId);
-
             OutputVlanType directOutputVlanType = command.getOutputVlanType();
-            context.getSwitchManager().installOneSwitchFlow(
-                    DatapathId.of(command.getSwitchId()),
-                    command.getId(),
-                    command.getCookie(),
-                    command.getInputPort(),
-                    command.getOutputPort(),
-                    command.getInputVlanId(),
-                    command.getOutputVlanId(),
-                    directOutputVlanType,
-                    meterId);
-
-            message.setDestination(Destination.WFM_TRANSACTION);
-            context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, message);
+            FlowModBatch batch = context.getSwitchManager().startBatch(DatapathId.of(command.getSwitchId()))
+                    .installMeter(command.getBandwidth(), 1024, meterId)
+                    .installOneSwitchFlow(
+                            command.getId(),
+                            command.getCookie(),
+                            command.getInputPort(),
+                            command.getOutputPort(),
+                            command.getInputVlanId(),
+                            command.getOutputVlanId(),
+                            directOutputVlanType,
+                            meterId);
+            installBatch(message, command.getId(), batch);
         } catch (SwitchOperationException e) {
             throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
         }
     }
 
+    /**
+     * Submits the batch, replies to the command once the switch confirms or fails the batch. The handler does not
+     * wait for the confirmation.
+     *
+     * @param message command message for flow installation
+     * @param flowId  flow id
+     * @param batch   flow and meter installations, the meter is installed before the flow using it
+     * @throws SwitchOperationException if the commands could not be written
+     */
+    private void installBatch(final CommandMessage message, final String flowId, final FlowModBatch batch)
+            throws SwitchOperationException {
+        batch.submit().whenComplete((xids, error) -> {
+            if (error == null) {
+                message.setDestination(Destination.WFM_TRANSACTION);
+                context.getKafkaProducer().postMessage(OUTPUT_FLOW_TOPIC, message);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof SwitchOperationException) {
+                replyError(message, new FlowCommandException(
+                        flowId, ErrorType.CREATION_FAILURE, (SwitchOperationException) cause));
+            } else {
+                logger.error("Unhandled exception: {}", cause);
+            }
+        });
+    }
+
     /**
      * Removes flow.
      *
@@ -287,6 +321,72 @@ class RecordHandler implements Runnable {
         context.getKafkaProducer().postMessage(OUTPUT_DISCO_TOPIC, infoMessage);
     }
 
+    /**
+     * Dumps the flow table of the switch, sends the rules in chunks to the northbound as they arrive.
+     *
+     * @param message DumpRulesRequest
+     */
+    private void doDumpRules(final CommandMessage message) {
+        DumpRulesRequest command = (DumpRulesRequest) message.getData();
+        String switchId = command.getSwitchId();
+        int chunkSize = command.getChunkSize() == null ? DEFAULT_RULES_CHUNK_SIZE : command.getChunkSize();
+        logger.debug("Dumping rules of switch {} in chunks of {}", switchId, chunkSize);
+
+        AtomicInteger chunkNumber = new AtomicInteger();
+        context.getSwitchManager().dumpFlowTable(DatapathId.of(switchId), chunkSize,
+                chunk -> postFlowEntries(message, switchId, chunk, chunkNumber.getAndIncrement(), false))
+                .whenComplete((chunk, error) -> {
+                    if (error == null) {
+                        postFlowEntries(message, switchId, chunk, chunkNumber.get(), true);
+                        logger.debug("Dumped {} chunks of switch {} rules", chunkNumber.get() + 1, switchId);
+                        return;
+                    }
+
+                    logger.error("Could not dump rules of switch {}", switchId, error);
+                    ErrorMessage response = new ErrorMessage(
+                            new ErrorData(ErrorType.INTERNAL_ERROR, "Could not dump switch rules", error.getMessage()),
+                            System.currentTimeMillis(), message.getCorrelationId(), Destination.NORTHBOUND);
+                    context.getKafkaProducer().postMessage(OUTPUT_NORTHBOUND_TOPIC, response);
+                });
+    }
+
+    private void postFlowEntries(CommandMessage request, String switchId, List<OFFlowStatsEntry> chunk,
+                                 int chunkNumber, boolean lastChunk) {
+        List<FlowEntry> entries = chunk.stream()
+                .map(this::buildFlowEntry)
+                .collect(Collectors.toList());
+        SwitchFlowEntries data = new SwitchFlowEntries(switchId, entries, chunkNumber, lastChunk);
+        InfoMessage response = new InfoMessage(data, System.currentTimeMillis(), request.getCorrelationId(),
+                Destination.NORTHBOUND);
+        context.getKafkaProducer().postMessage(OUTPUT_NORTHBOUND_TOPIC, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private FlowEntry buildFlowEntry(final OFFlowStatsEntry entry) {
+        Match match = entry.getMatch();
+        Map<String, String> fields = new HashMap<>();
+        for (MatchField field : match.getMatchFields()) {
+            Object value = match.isPartiallyMasked(field) ? match.getMasked(field) : match.get(field);
+            fields.put(field.getName(), String.valueOf(value));
+        }
+
+        List<String> instructions = entry.getInstructions().stream()
+                .map(Object::toString)
+                .collect(Collectors.toList());
+
+        return new FlowEntry(
+                entry.getCookie().getValue(),
+                entry.getTableId().getValue(),
+                entry.getPriority(),
+                entry.getDurationSec(),
+                entry.getIdleTimeout(),
+                entry.getHardTimeout(),
+                entry.getPacketCount().getValue(),
+                entry.getByteCount().getValue(),
+                fields,
+                instructions);
+    }
+
     private void parseRecord(ConsumerRecord<String, String> record) {
         try {
             String value = (String) record.value();
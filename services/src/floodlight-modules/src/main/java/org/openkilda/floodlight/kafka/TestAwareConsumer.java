@@ -10,7 +10,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
 
 public class TestAwareConsumer extends Consumer {
     private static final Logger logger = LoggerFactory.getLogger(TestAwareConsumer.class);
@@ -18,7 +17,7 @@ public class TestAwareConsumer extends Consumer {
     private KafkaBreakTrigger breakTrigger;
     private List<KafkaBreakTrigger> expectedTriggers;
 
-    public TestAwareConsumer(ConsumerContext context, ExecutorService handlersPool,
+    public TestAwareConsumer(ConsumerContext context, KeyedExecutor<String> handlersPool,
             Factory handlerFactory, String topic, String... moreTopics) {
         super(context, handlersPool, handlerFactory, topic, moreTopics);
 
@@ -43,11 +42,14 @@ public class TestAwareConsumer extends Consumer {
             break;
         }
 
-        if (isHandled)
+        if (isHandled) {
+            skip(record);
             return;
+        }
 
         if (! breakTrigger.isCommunicationEnabled()) {
             logger.info("Suppress record - key: {}, value: {}", record.key(), record.value());
+            skip(record);
             return;
         }
 
@@ -0,0 +1,167 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Polls every target once per interval, spreading the polls evenly across the interval.
+ *
+ * <p>Every round the targets are sorted and the N-th of them gets the N-th time slot of the interval, so a target
+ * keeps its slot while the set of targets is stable and the replies do not arrive all at once. A target is skipped
+ * while its previous poll is outstanding, unless the poll is older than the stale timeout.
+ *
+ * @param <K> target type
+ */
+class PollScheduler<K extends Comparable<? super K>> {
+    private static final Logger logger = LoggerFactory.getLogger(PollScheduler.class);
+
+    private final String name;
+    private final ScheduledExecutorService executor;
+    private final long intervalMicros;
+    private final long staleNanos;
+    private final Supplier<Collection<K>> targets;
+    private final Function<K, CompletableFuture<?>> poll;
+
+    /**
+     * Start times of the outstanding polls by target.
+     */
+    private final Map<K, Long> outstanding = new ConcurrentHashMap<>();
+
+    private final LongAdder polled = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ScheduledFuture<?> rounds;
+
+    /**
+     * Instance constructor.
+     *
+     * @param name     name used in the logs
+     * @param executor executor running the polls
+     * @param interval time between two polls of a target
+     * @param stale    time after which an outstanding poll does not hold back the next one
+     * @param unit     unit of the interval and stale timeout
+     * @param targets  supplies the targets for each round
+     * @param poll     starts the poll of a target, returns a future completed when the poll is done
+     */
+    PollScheduler(String name, ScheduledExecutorService executor, long interval, long stale, TimeUnit unit,
+                  Supplier<Collection<K>> targets, Function<K, CompletableFuture<?>> poll) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid %s poll interval %d", name, interval));
+        }
+        this.name = name;
+        this.executor = executor;
+        this.intervalMicros = Math.max(unit.toMicros(interval), 1);
+        this.staleNanos = unit.toNanos(stale);
+        this.targets = targets;
+        this.poll = poll;
+    }
+
+    /**
+     * Starts polling, the first round begins after an interval.
+     */
+    synchronized void start() {
+        if (rounds == null) {
+            rounds = executor.scheduleAtFixedRate(this::round, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Stops polling, the polls already started are not cancelled.
+     */
+    synchronized void stop() {
+        if (rounds != null) {
+            rounds.cancel(false);
+            rounds = null;
+        }
+    }
+
+    /**
+     * Schedules a poll of every target into its time slot of the interval.
+     */
+    void round() {
+        List<K> round = new ArrayList<>(targets.get());
+        Collections.sort(round);
+        int count = round.size();
+        for (int slot = 0; slot < count; slot++) {
+            K target = round.get(slot);
+            executor.schedule(() -> poll(target), intervalMicros * slot / count, TimeUnit.MICROSECONDS);
+        }
+
+        logger.debug("Scheduled {} {} polls, polled={}, skipped={}, failed={}, outstanding={}",
+                count, name, polled.sum(), skipped.sum(), failed.sum(), outstanding.size());
+    }
+
+    /**
+     * Starts the poll of the target unless its previous poll is still outstanding.
+     *
+     * @param target target
+     */
+    void poll(K target) {
+        Long started = System.nanoTime();
+        Long previous = outstanding.putIfAbsent(target, started);
+        if (previous != null) {
+            if (started - previous < staleNanos || !outstanding.replace(target, previous, started)) {
+                skipped.increment();
+                logger.debug("Skip {} poll of {}, the previous one is outstanding", name, target);
+                return;
+            }
+            logger.warn("Previous {} poll of {} is stale, polling again", name, target);
+        }
+
+        polled.increment();
+        try {
+            poll.apply(target).whenComplete((result, error) -> {
+                outstanding.remove(target, started);
+                if (error != null) {
+                    failed.increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            outstanding.remove(target, started);
+            failed.increment();
+            logger.error("Could not start {} poll of {}", name, target, e);
+        }
+    }
+
+    long getPolledCount() {
+        return polled.sum();
+    }
+
+    long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    long getFailedCount() {
+        return failed.sum();
+    }
+}
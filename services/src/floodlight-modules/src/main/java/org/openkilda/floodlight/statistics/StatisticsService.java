@@ -19,6 +19,7 @@ import static java.util.stream.Collectors.toList;
 import static org.openkilda.messaging.Utils.SYSTEM_CORRELATION_ID;
 
 import org.openkilda.floodlight.kafka.KafkaMessageProducer;
+import org.openkilda.floodlight.switchmanager.ISwitchManager;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Topic;
 import org.openkilda.messaging.info.InfoData;
@@ -26,6 +27,8 @@ import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.stats.FlowStatsData;
 import org.openkilda.messaging.info.stats.FlowStatsEntry;
 import org.openkilda.messaging.info.stats.FlowStatsReply;
+import org.openkilda.messaging.info.stats.MeterConfigReply;
+import org.openkilda.messaging.info.stats.MeterConfigStatsData;
 import org.openkilda.messaging.info.stats.PortStatsData;
 import org.openkilda.messaging.info.stats.PortStatsEntry;
 import org.openkilda.messaging.info.stats.PortStatsReply;
@@ -33,6 +36,7 @@ import org.openkilda.messaging.info.stats.PortStatsReply;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import net.floodlightcontroller.core.IFloodlightProviderService;
+import net.floodlightcontroller.core.IOFSwitch;
 import net.floodlightcontroller.core.internal.IOFSwitchService;
 import net.floodlightcontroller.core.module.FloodlightModuleContext;
 import net.floodlightcontroller.core.module.FloodlightModuleException;
@@ -41,11 +45,15 @@ import net.floodlightcontroller.core.module.IFloodlightService;
 import net.floodlightcontroller.threadpool.IThreadPoolService;
 import org.projectfloodlight.openflow.protocol.OFFactory;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMeterConfig;
+import org.projectfloodlight.openflow.protocol.OFMeterConfigStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFPortStatsProp;
 import org.projectfloodlight.openflow.protocol.OFPortStatsPropEthernet;
 import org.projectfloodlight.openflow.protocol.OFPortStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.DatapathId;
 import org.projectfloodlight.openflow.types.OFGroup;
 import org.projectfloodlight.openflow.types.OFPort;
 import org.projectfloodlight.openflow.types.U64;
@@ -57,6 +65,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -69,10 +79,17 @@ public class StatisticsService implements IStatisticsService, IFloodlightModule
     private static final long OFPM_ALL = 0xffffffffL;
     private static final String STATISTICS_TOPIC = Topic.STATS;
 
+    /**
+     * Number of poll intervals after which an outstanding request does not hold back the next one.
+     */
+    private static final int STALE_POLL_INTERVALS = 3;
+
     private IOFSwitchService switchService;
     private KafkaMessageProducer kafkaProducer;
     private IThreadPoolService threadPoolService;
-    private int interval;
+    private int portInterval;
+    private int flowInterval;
+    private int meterInterval;
 
     @Override
     public Collection<Class<? extends IFloodlightService>> getModuleServices() {
@@ -99,113 +116,183 @@ public class StatisticsService implements IStatisticsService, IFloodlightModule
         threadPoolService = context.getServiceImpl(IThreadPoolService.class);
         kafkaProducer = context.getServiceImpl(KafkaMessageProducer.class);
         Map<String, String> configParameters = context.getConfigParams(this);
-        interval = Integer.valueOf(configParameters.get("interval"));
+        int interval = Integer.valueOf(configParameters.get("interval"));
+        portInterval = getInterval(configParameters, "port-interval", interval);
+        flowInterval = getInterval(configParameters, "flow-interval", interval);
+        meterInterval = getInterval(configParameters, "meter-interval", interval);
+    }
+
+    private static int getInterval(Map<String, String> configParameters, String name, int interval) {
+        String value = configParameters.get(name);
+        return value == null ? interval : Integer.valueOf(value);
     }
 
     @Override
     public void startUp(FloodlightModuleContext context) throws FloodlightModuleException {
-        if (interval > 0) {
-            threadPoolService.getScheduledExecutor().scheduleAtFixedRate(
-                    () -> switchService.getAllSwitchMap().values().forEach(iofSwitch -> {
-                        OFFactory factory = iofSwitch.getOFFactory();
-                        final String switchId = iofSwitch.getId().toString();
-
-                        OFPortStatsRequest portStatsRequest = factory
-                                .buildPortStatsRequest()
-                                .setPortNo(OFPort.ANY)
-                                .build();
-
-                        OFFlowStatsRequest flowStatsRequest = factory
-                                .buildFlowStatsRequest()
-                                .setOutGroup(OFGroup.ANY)
-                                .setCookieMask(SYSTEM_MASK)
-                                .build();
-
-                        logger.info("Getting port stats for switch={}", iofSwitch.getId());
-
-                        Futures.addCallback(iofSwitch.writeStatsRequest(portStatsRequest),
-                                new RequestCallback<>(data -> {
-                                    List<PortStatsReply> replies = data.stream().map(reply -> {
-                                        List<PortStatsEntry> entries = reply.getEntries().stream()
-                                                .map(entry -> {
-                                                    if (entry.getVersion().compareTo(OFVersion.OF_13) > 0) {
-                                                        long rxFrameErr, rxOverErr, rxCrcErr, collisions;
-                                                        rxFrameErr = rxOverErr = rxCrcErr = collisions = 0;
-
-                                                        for (OFPortStatsProp property : entry.getProperties()) {
-                                                            if (property.getType() == 0x0) {
-                                                                OFPortStatsPropEthernet etherProps =
-                                                                        (OFPortStatsPropEthernet) property;
-                                                                rxFrameErr = etherProps.getRxFrameErr().getValue();
-                                                                rxOverErr = etherProps.getRxOverErr().getValue();
-                                                                rxCrcErr = etherProps.getRxCrcErr().getValue();
-                                                                collisions = etherProps.getCollisions().getLength();
-                                                            }
-                                                        }
-
-                                                        return new PortStatsEntry(
-                                                                entry.getPortNo().getPortNumber(),
-                                                                entry.getRxPackets().getValue(),
-                                                                entry.getTxPackets().getValue(),
-                                                                entry.getRxBytes().getValue(),
-                                                                entry.getTxBytes().getValue(),
-                                                                entry.getRxDropped().getValue(),
-                                                                entry.getTxDropped().getValue(),
-                                                                entry.getRxErrors().getValue(),
-                                                                entry.getTxErrors().getValue(),
-                                                                rxFrameErr,
-                                                                rxOverErr,
-                                                                rxCrcErr,
-                                                                collisions);
-                                                    } else {
-                                                        return new PortStatsEntry(
-                                                                entry.getPortNo().getPortNumber(),
-                                                                entry.getRxPackets().getValue(),
-                                                                entry.getTxPackets().getValue(),
-                                                                entry.getRxBytes().getValue(),
-                                                                entry.getTxBytes().getValue(),
-                                                                entry.getRxDropped().getValue(),
-                                                                entry.getTxDropped().getValue(),
-                                                                entry.getRxErrors().getValue(),
-                                                                entry.getTxErrors().getValue(),
-                                                                entry.getRxFrameErr().getValue(),
-                                                                entry.getRxOverErr().getValue(),
-                                                                entry.getRxCrcErr().getValue(),
-                                                                entry.getCollisions().getValue());
-                                                    }
-                                                })
-                                                .collect(toList());
-                                        return new PortStatsReply(reply.getXid(), entries);
-                                    }).collect(toList());
-                                    return new PortStatsData(switchId, replies);
-                                }, "port"));
-
-                        if (factory.getVersion().compareTo(OFVersion.OF_15) != 0) {
-                            // skip flow stats for OF 1.5 protocol version
-                            logger.info("Getting flow stats for switch={}", iofSwitch.getId());
-
-                            Futures.addCallback(iofSwitch.writeStatsRequest(flowStatsRequest),
-                                    new RequestCallback<>(data -> {
-                                        List<FlowStatsReply> replies = data.stream().map(reply -> {
-                                            List<FlowStatsEntry> entries = reply.getEntries().stream()
-                                                    .map(entry -> new FlowStatsEntry(
-                                                            entry.getTableId().getValue(),
-                                                            entry.getCookie().getValue(),
-                                                            entry.getPacketCount().getValue(),
-                                                            entry.getByteCount().getValue()))
-                                                    .collect(toList());
-                                            return new FlowStatsReply(reply.getXid(), entries);
-                                        }).collect(toList());
-                                        return new FlowStatsData(switchId, replies);
-                                    }, "flow"));
-                        }
-                    }), interval, interval, TimeUnit.SECONDS);
+        ScheduledExecutorService executor = threadPoolService.getScheduledExecutor();
+        startPolling("port", executor, portInterval, this::requestPortStats);
+        startPolling("flow", executor, flowInterval, this::requestFlowStats);
+        startPolling("meter", executor, meterInterval, this::requestMeterStats);
+    }
+
+    /**
+     * Starts polling every switch once per interval, the polls are spread evenly across the interval.
+     *
+     * @param type     stats type
+     * @param executor executor running the polls
+     * @param interval seconds between two polls of a switch, 0 to disable polling
+     * @param request  requests the stats of a switch
+     */
+    private void startPolling(String type, ScheduledExecutorService executor, int interval,
+                              Function<IOFSwitch, CompletableFuture<?>> request) {
+        if (interval <= 0) {
+            logger.info("Polling {} stats is disabled", type);
+            return;
+        }
+
+        new PollScheduler<DatapathId>(type, executor, interval, STALE_POLL_INTERVALS * interval, TimeUnit.SECONDS,
+                switchService::getAllSwitchDpids,
+                dpid -> {
+                    IOFSwitch iofSwitch = switchService.getSwitch(dpid);
+                    return iofSwitch == null ? CompletableFuture.completedFuture(null) : request.apply(iofSwitch);
+                }).start();
+    }
+
+    private CompletableFuture<?> requestPortStats(IOFSwitch iofSwitch) {
+        final String switchId = iofSwitch.getId().toString();
+        OFPortStatsRequest portStatsRequest = iofSwitch.getOFFactory()
+                .buildPortStatsRequest()
+                .setPortNo(OFPort.ANY)
+                .build();
+
+        logger.info("Getting port stats for switch={}", iofSwitch.getId());
+
+        return request(iofSwitch, portStatsRequest, data -> {
+            List<PortStatsReply> replies = data.stream().map(reply -> {
+                List<PortStatsEntry> entries = reply.getEntries().stream()
+                        .map(entry -> {
+                            if (entry.getVersion().compareTo(OFVersion.OF_13) > 0) {
+                                long rxFrameErr, rxOverErr, rxCrcErr, collisions;
+                                rxFrameErr = rxOverErr = rxCrcErr = collisions = 0;
+
+                                for (OFPortStatsProp property : entry.getProperties()) {
+                                    if (property.getType() == 0x0) {
+                                        OFPortStatsPropEthernet etherProps =
+                                                (OFPortStatsPropEthernet) property;
+                                        rxFrameErr = etherProps.getRxFrameErr().getValue();
+                                        rxOverErr = etherProps.getRxOverErr().getValue();
+                                        rxCrcErr = etherProps.getRxCrcErr().getValue();
+                                        collisions = etherProps.getCollisions().getLength();
+                                    }
+                                }
+
+                                return new PortStatsEntry(
+                                        entry.getPortNo().getPortNumber(),
+                                        entry.getRxPackets().getValue(),
+                                        entry.getTxPackets().getValue(),
+                                        entry.getRxBytes().getValue(),
+                                        entry.getTxBytes().getValue(),
+                                        entry.getRxDropped().getValue(),
+                                        entry.getTxDropped().getValue(),
+                                        entry.getRxErrors().getValue(),
+                                        entry.getTxErrors().getValue(),
+                                        rxFrameErr,
+                                        rxOverErr,
+                                        rxCrcErr,
+                                        collisions);
+                            } else {
+                                return new PortStatsEntry(
+                                        entry.getPortNo().getPortNumber(),
+                                        entry.getRxPackets().getValue(),
+                                        entry.getTxPackets().getValue(),
+                                        entry.getRxBytes().getValue(),
+                                        entry.getTxBytes().getValue(),
+                                        entry.getRxDropped().getValue(),
+                                        entry.getTxDropped().getValue(),
+                                        entry.getRxErrors().getValue(),
+                                        entry.getTxErrors().getValue(),
+                                        entry.getRxFrameErr().getValue(),
+                                        entry.getRxOverErr().getValue(),
+                                        entry.getRxCrcErr().getValue(),
+                                        entry.getCollisions().getValue());
+                            }
+                        })
+                        .collect(toList());
+                return new PortStatsReply(reply.getXid(), entries);
+            }).collect(toList());
+            return new PortStatsData(switchId, replies);
+        }, "port");
+    }
+
+    private CompletableFuture<?> requestFlowStats(IOFSwitch iofSwitch) {
+        OFFactory factory = iofSwitch.getOFFactory();
+        if (factory.getVersion().compareTo(OFVersion.OF_15) == 0) {
+            // skip flow stats for OF 1.5 protocol version
+            return CompletableFuture.completedFuture(null);
         }
+
+        final String switchId = iofSwitch.getId().toString();
+        OFFlowStatsRequest flowStatsRequest = factory
+                .buildFlowStatsRequest()
+                .setOutGroup(OFGroup.ANY)
+                .setCookieMask(SYSTEM_MASK)
+                .build();
+
+        logger.info("Getting flow stats for switch={}", iofSwitch.getId());
+
+        return request(iofSwitch, flowStatsRequest, data -> {
+            List<FlowStatsReply> replies = data.stream().map(reply -> {
+                List<FlowStatsEntry> entries = reply.getEntries().stream()
+                        .map(entry -> new FlowStatsEntry(
+                                entry.getTableId().getValue(),
+                                entry.getCookie().getValue(),
+                                entry.getPacketCount().getValue(),
+                                entry.getByteCount().getValue()))
+                        .collect(toList());
+                return new FlowStatsReply(reply.getXid(), entries);
+            }).collect(toList());
+            return new FlowStatsData(switchId, replies);
+        }, "flow");
+    }
+
+    private CompletableFuture<?> requestMeterStats(IOFSwitch iofSwitch) {
+        OFFactory factory = iofSwitch.getOFFactory();
+        if (factory.getVersion().compareTo(OFVersion.OF_13) < 0 || ISwitchManager.OVS_MANUFACTURER.equals(
+                iofSwitch.getSwitchDescription().getManufacturerDescription())) {
+            // meters are not installed on these switches
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final String switchId = iofSwitch.getId().toString();
+        OFMeterConfigStatsRequest meterConfigStatsRequest = factory
+                .buildMeterConfigStatsRequest()
+                .setMeterId(OFPM_ALL)
+                .build();
+
+        logger.info("Getting meter config stats for switch={}", iofSwitch.getId());
+
+        return request(iofSwitch, meterConfigStatsRequest, data -> {
+            List<MeterConfigReply> replies = data.stream()
+                    .map(reply -> new MeterConfigReply(reply.getXid(), reply.getEntries().stream()
+                            .map(OFMeterConfig::getMeterId)
+                            .collect(toList())))
+                    .collect(toList());
+            return new MeterConfigStatsData(switchId, replies);
+        }, "meter config");
+    }
+
+    private <T extends OFStatsReply> CompletableFuture<?> request(IOFSwitch iofSwitch, OFStatsRequest<T> request,
+                                                                  Function<List<T>, InfoData> transform,
+                                                                  String type) {
+        RequestCallback<T> callback = new RequestCallback<>(transform, type);
+        Futures.addCallback(iofSwitch.writeStatsRequest(request), callback);
+        return callback.done;
     }
 
     private class RequestCallback<T extends OFStatsReply> implements FutureCallback<List<T>> {
         private Function<List<T>, InfoData> transform;
         private String type;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
 
         RequestCallback(Function<List<T>, InfoData> transform, String type) {
             this.transform = transform;
@@ -214,14 +301,21 @@ public class StatisticsService implements IStatisticsService, IFloodlightModule
 
         @Override
         public void onSuccess(List<T> data) {
-            InfoMessage infoMessage = new InfoMessage(transform.apply(data),
-                    System.currentTimeMillis(), SYSTEM_CORRELATION_ID, Destination.WFM_STATS);
-            kafkaProducer.postMessage(STATISTICS_TOPIC, infoMessage);
+            try {
+                InfoMessage infoMessage = new InfoMessage(transform.apply(data),
+                        System.currentTimeMillis(), SYSTEM_CORRELATION_ID, Destination.WFM_STATS);
+                kafkaProducer.postMessage(STATISTICS_TOPIC, infoMessage);
+                done.complete(null);
+            } catch (Exception e) {
+                logger.error("Exception sending {} stats", type, e);
+                done.completeExceptionally(e);
+            }
         }
 
         @Override
         public void onFailure(Throwable throwable) {
             logger.error("Exception reading {} stats", type, throwable);
+            done.completeExceptionally(throwable);
         }
     }
 }
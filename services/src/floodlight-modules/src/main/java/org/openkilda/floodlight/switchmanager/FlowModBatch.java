@@ -0,0 +1,120 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.switchmanager;
+
+import org.openkilda.messaging.payload.flow.OutputVlanType;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Flow and meter installations for a single switch, written in one go and confirmed by a barrier.
+ *
+ * <p>Commands are queued in the order they are added and sent by {@link #submit()} as a single write followed by
+ * an OpenFlow barrier request. The switch processes the commands before replying to the barrier, so the barrier
+ * reply confirms all of them, and an error reported for any of them fails the batch.
+ *
+ * @see ISwitchManager#startBatch(org.projectfloodlight.openflow.types.DatapathId)
+ */
+public interface FlowModBatch {
+    /**
+     * Adds flow installation on ingress switch.
+     *
+     * @param flowId         flow id
+     * @param cookie         flow cookie
+     * @param inputPort      port to expect the packet on
+     * @param outputPort     port to forward the packet out
+     * @param inputVlanId    input vlan to match on, 0 means not to match on vlan
+     * @param transitVlanId  vlan to add before outputing on outputPort
+     * @param outputVlanType type of action to apply to the input vlan
+     * @param meterId        meter to apply, 0 means no meter
+     * @return this batch
+     */
+    FlowModBatch installIngressFlow(String flowId, Long cookie, int inputPort, int outputPort, int inputVlanId,
+                                    int transitVlanId, OutputVlanType outputVlanType, long meterId);
+
+    /**
+     * Adds flow installation on egress switch.
+     *
+     * @param flowId         flow id
+     * @param cookie         flow cookie
+     * @param inputPort      port to expect the packet on
+     * @param outputPort     port to forward the packet out
+     * @param transitVlanId  vlan to match on the ingressPort
+     * @param outputVlanId   set vlan on packet before forwarding via outputPort; 0 means not to set
+     * @param outputVlanType type of action to apply to the outputVlanId if greater than 0
+     * @return this batch
+     */
+    FlowModBatch installEgressFlow(String flowId, Long cookie, int inputPort, int outputPort, int transitVlanId,
+                                   int outputVlanId, OutputVlanType outputVlanType);
+
+    /**
+     * Adds flow installation on transit switch.
+     *
+     * @param flowId        flow id
+     * @param cookie        flow cookie
+     * @param inputPort     port to expect packet on
+     * @param outputPort    port to forward packet out
+     * @param transitVlanId vlan to match on inputPort
+     * @return this batch
+     */
+    FlowModBatch installTransitFlow(String flowId, Long cookie, int inputPort, int outputPort, int transitVlanId);
+
+    /**
+     * Adds flow installation through one switch.
+     *
+     * @param flowId         flow id
+     * @param cookie         flow cookie
+     * @param inputPort      port to expect packet on
+     * @param outputPort     port to forward packet out
+     * @param inputVlanId    vlan to match on inputPort
+     * @param outputVlanId   set vlan on packet before forwarding via outputPort; 0 means not to set
+     * @param outputVlanType type of action to apply to the outputVlanId if greater than 0
+     * @param meterId        meter to apply, 0 means no meter
+     * @return this batch
+     */
+    FlowModBatch installOneSwitchFlow(String flowId, Long cookie, int inputPort, int outputPort, int inputVlanId,
+                                      int outputVlanId, OutputVlanType outputVlanType, long meterId);
+
+    /**
+     * Adds meter installation, skipped for the switches meters are not installed on.
+     *
+     * @param bandwidth the bandwidth limit value
+     * @param burstSize the size of the burst
+     * @param meterId   the meter ID, 0 means no meter
+     * @return this batch
+     */
+    FlowModBatch installMeter(long bandwidth, long burstSize, long meterId);
+
+    /**
+     * Gets number of queued commands.
+     *
+     * @return number of commands
+     */
+    int size();
+
+    /**
+     * Writes the queued commands and the barrier request to the switch.
+     *
+     * <p>The batch is written once, calls after it is completed return the completed future.
+     *
+     * @return future completed with the transaction ids of the commands when the barrier reply arrives, or failed
+     *         with {@link OFInstallException} if the switch reports an error for a command or the barrier reply
+     *         does not arrive within the "batch-barrier-timeout" module parameter
+     * @throws OFInstallException if the commands could not be written
+     */
+    CompletableFuture<List<Long>> submit() throws OFInstallException;
+}
@@ -19,11 +19,16 @@ import org.openkilda.messaging.payload.flow.OutputVlanType;
 
 import net.floodlightcontroller.core.IOFSwitch;
 import net.floodlightcontroller.core.module.IFloodlightService;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFMeterConfig;
 import org.projectfloodlight.openflow.protocol.OFMeterConfigStatsReply;
 import org.projectfloodlight.openflow.types.DatapathId;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Created by jonv on 29/3/17.
@@ -104,6 +109,15 @@ public interface ISwitchManager extends IFloodlightService {
                                                       int outputVlanId, final OutputVlanType outputVlanType,
                                                       final long meterId) throws SwitchOperationException;
 
+    /**
+     * Starts batch of flow and meter installations on the switch.
+     *
+     * @param dpid datapathId of the switch
+     * @return empty {@link FlowModBatch} instance
+     * @throws SwitchOperationException if the switch is not found
+     */
+    FlowModBatch startBatch(final DatapathId dpid) throws SwitchOperationException;
+
     /**
      * Returns list of installed flows
      *
@@ -112,6 +126,22 @@ public interface ISwitchManager extends IFloodlightService {
      */
     OFFlowStatsReply dumpFlowTable(final DatapathId dpid);
 
+    /**
+     * Dumps installed flows in chunks without blocking the caller.
+     *
+     * <p>The flow table is requested in slices of the cookie space, so only the reply to one slice is kept in
+     * memory at a time. The entries of all the parts of each multipart reply are passed on in chunks of the given
+     * size as they arrive. The chunks are passed on one at a time, in order, and must not be changed.
+     *
+     * @param dpid          switch id
+     * @param chunkSize     number of entries in a chunk
+     * @param chunkConsumer receives the full chunks
+     * @return future completed with the last chunk, holding the remaining entries, possibly none, or failed as
+     *         {@link #dumpFlowTableAsync(DatapathId)}
+     */
+    CompletableFuture<List<OFFlowStatsEntry>> dumpFlowTable(final DatapathId dpid, final int chunkSize,
+                                                            final Consumer<List<OFFlowStatsEntry>> chunkConsumer);
+
     /**
      * Returns list of installed meters
      *
@@ -120,6 +150,26 @@ public interface ISwitchManager extends IFloodlightService {
      */
     OFMeterConfigStatsReply dumpMeters(final DatapathId dpid) throws SwitchOperationException;
 
+    /**
+     * Requests installed flows without blocking the caller.
+     *
+     * <p>The entries of all the parts of the multipart reply are collected. The number of dumps in flight is limited
+     * by the "max-concurrent-dumps" module parameter, the dumps over the limit wait for their turn.
+     *
+     * @param dpid switch id
+     * @return future completed with OF flow stats entries, or failed with {@link SwitchNotFoundException} if the
+     *         switch is not found, or with {@link java.util.concurrent.TimeoutException} if the switch does not reply
+     */
+    CompletableFuture<List<OFFlowStatsEntry>> dumpFlowTableAsync(final DatapathId dpid);
+
+    /**
+     * Requests installed meters without blocking the caller.
+     *
+     * @param dpid switch id
+     * @return future completed with OF meter configs, failed the same way as {@link #dumpFlowTableAsync(DatapathId)}
+     */
+    CompletableFuture<List<OFMeterConfig>> dumpMetersAsync(final DatapathId dpid);
+
     /**
      * Installs a meter on ingress switch OF_13.
      * TODO: describe params meaning in accordance with OF
@@ -0,0 +1,131 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.switchmanager;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of asynchronous requests in flight without blocking the callers.
+ *
+ * <p>Requests over the limit are queued and started in submission order when the running ones complete. The
+ * request is started by the thread submitting it or by a thread completing a previous request. Requests completed
+ * while starting the queued ones are released in a loop, not recursively, so a long queue of requests completing
+ * on the starting thread does not grow the stack.
+ */
+class RequestLimiter {
+    private final int limit;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+    /**
+     * Completed requests whose slots are not yet handed over, see {@link #release()}.
+     */
+    private int releases;
+    private boolean releasing;
+
+    /**
+     * Instance constructor.
+     *
+     * @param limit maximum number of requests in flight
+     */
+    RequestLimiter(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(String.format("Invalid request limit %d", limit));
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Starts the request now or once the number of requests in flight drops below the limit.
+     *
+     * @param request starts the request and returns its future
+     * @param <T>     result type
+     * @return future completed with the request result
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = request.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            future.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        synchronized (this) {
+            if (running >= limit) {
+                waiting.add(start);
+                return result;
+            }
+            running++;
+        }
+        start.run();
+        return result;
+    }
+
+    /**
+     * Hands the slot of the completed request over to the next waiting request, or frees it.
+     *
+     * <p>Only one thread hands the slots over at a time, the other threads leave their slots to it.
+     */
+    private void release() {
+        synchronized (this) {
+            releases++;
+            if (releasing) {
+                return;
+            }
+            releasing = true;
+        }
+
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (releases == 0) {
+                    releasing = false;
+                    return;
+                }
+                releases--;
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    continue;
+                }
+            }
+            next.run();
+        }
+    }
+
+    synchronized int getRunningCount() {
+        return running;
+    }
+
+    synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+}
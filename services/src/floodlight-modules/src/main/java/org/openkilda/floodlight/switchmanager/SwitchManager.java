@@ -21,10 +21,13 @@ import static org.openkilda.floodlight.pathverification.PathVerificationService.
 import static org.openkilda.floodlight.pathverification.PathVerificationService.VERIFICATION_BCAST_PACKET_DST_MASK;
 import static org.openkilda.messaging.Utils.DEFAULT_CORRELATION_ID;
 import static org.openkilda.messaging.Utils.ETH_TYPE;
+import static org.projectfloodlight.openflow.protocol.OFVersion.OF_10;
 import static org.projectfloodlight.openflow.protocol.OFVersion.OF_12;
 import static org.projectfloodlight.openflow.protocol.OFVersion.OF_13;
 import static org.projectfloodlight.openflow.protocol.OFVersion.OF_15;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import net.floodlightcontroller.core.FloodlightContext;
 import net.floodlightcontroller.core.IFloodlightProviderService;
@@ -44,10 +47,12 @@ import org.openkilda.messaging.error.ErrorData;
 import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.error.ErrorType;
 import org.openkilda.messaging.payload.flow.OutputVlanType;
+import org.projectfloodlight.openflow.protocol.OFBarrierReply;
 import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFFactory;
 import org.projectfloodlight.openflow.protocol.OFFlowDelete;
 import org.projectfloodlight.openflow.protocol.OFFlowMod;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFLegacyMeterBandDrop;
@@ -55,11 +60,14 @@ import org.projectfloodlight.openflow.protocol.OFLegacyMeterFlags;
 import org.projectfloodlight.openflow.protocol.OFLegacyMeterMod;
 import org.projectfloodlight.openflow.protocol.OFLegacyMeterModCommand;
 import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFMeterConfig;
 import org.projectfloodlight.openflow.protocol.OFMeterConfigStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMeterConfigStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFMeterFlags;
 import org.projectfloodlight.openflow.protocol.OFMeterMod;
 import org.projectfloodlight.openflow.protocol.OFMeterModCommand;
+import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFType;
 import org.projectfloodlight.openflow.protocol.action.OFAction;
 import org.projectfloodlight.openflow.protocol.action.OFActions;
@@ -88,12 +96,22 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Created by jonv on 29/3/17.
@@ -103,6 +121,33 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
     static final U64 NON_SYSTEM_MASK = U64.of(0x80000000FFFFFFFFL);
     private static final long DROP_COOKIE = 0x8000000000000001L;
     private static final Logger logger = LoggerFactory.getLogger(SwitchManager.class);
+    /**
+     * Transaction ids of the batched commands, kept apart from the low ids of the controller requests.
+     */
+    private static final long BATCH_XID_BASE = 0x40000000L;
+    private static final long BATCH_XID_RANGE = 0x3FFFFFFFL;
+    /**
+     * Flow and meter dumps allowed in flight by default, across all the switches.
+     */
+    private static final int DEFAULT_MAX_CONCURRENT_DUMPS = 16;
+    /**
+     * Seconds a submitted batch waits for the barrier reply by default.
+     */
+    private static final long DEFAULT_BATCH_BARRIER_TIMEOUT = 10;
+    private static final long FLOW_DUMP_TIMEOUT = 10;
+    private static final long METER_DUMP_TIMEOUT = 5;
+    /**
+     * Number of cookie space slices the flow table is dumped in, must be a power of two.
+     */
+    private static final int FLOW_DUMP_SLICES = 16;
+    private final AtomicLong batchXid = new AtomicLong();
+    /**
+     * Submitted batches waiting for the barrier reply, by switch and command transaction id.
+     */
+    private final Map<DatapathId, Map<Long, SwitchFlowModBatch>> pendingBatches = new ConcurrentHashMap<>();
+    private RequestLimiter dumpLimiter;
+    private ScheduledExecutorService dumpTimer;
+    private long batchBarrierTimeout;
     private IFloodlightProviderService floodlightProvider;
     private IOFSwitchService ofSwitchService;
     private IRestApiService restApiService;
@@ -174,6 +219,19 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         restApiService = context.getServiceImpl(IRestApiService.class);
         kafkaProducer = context.getServiceImpl(KafkaMessageProducer.class);
         // TODO: Ensure Kafka Topics are created..
+
+        Map<String, String> configParameters = context.getConfigParams(this);
+        String maxConcurrentDumps = configParameters.get("max-concurrent-dumps");
+        dumpLimiter = new RequestLimiter(maxConcurrentDumps == null
+                ? DEFAULT_MAX_CONCURRENT_DUMPS : Integer.valueOf(maxConcurrentDumps));
+        String batchBarrierTimeout = configParameters.get("batch-barrier-timeout");
+        this.batchBarrierTimeout = batchBarrierTimeout == null
+                ? DEFAULT_BATCH_BARRIER_TIMEOUT : Long.valueOf(batchBarrierTimeout);
+        dumpTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "switch-manager-dump-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -192,6 +250,9 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
     @Override
     public Command receive(IOFSwitch sw, OFMessage msg, FloodlightContext cntx) {
         logger.debug("OF_ERROR: {}", msg);
+        if (OFType.ERROR.equals(msg.getType()) && failBatch(sw.getId(), (OFErrorMsg) msg)) {
+            return Command.CONTINUE;
+        }
         // TODO: track xid for flow id
         if (OFType.ERROR.equals(msg.getType())) {
             ErrorMessage error = new ErrorMessage(
@@ -257,8 +318,17 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
             final Long cookie, final int inputPort, final int outputPort,
             final int inputVlanId, final int transitVlanId,
             final OutputVlanType outputVlanType, final long meterId) throws SwitchOperationException {
-        List<OFAction> actionList = new ArrayList<>();
         IOFSwitch sw = lookupSwitch(dpid);
+        OFFlowMod flowMod = buildIngressFlowMod(sw, cookie, inputPort, outputPort, inputVlanId, transitVlanId,
+                outputVlanType, meterId);
+        return pushFlow(sw, "--InstallIngressFlow--", flowMod);
+    }
+
+    private OFFlowMod buildIngressFlowMod(
+            final IOFSwitch sw, final Long cookie, final int inputPort, final int outputPort,
+            final int inputVlanId, final int transitVlanId,
+            final OutputVlanType outputVlanType, final long meterId) {
+        List<OFAction> actionList = new ArrayList<>();
 
         // build match by input port and input vlan id
         Match match = matchFlow(sw, inputPort, inputVlanId);
@@ -285,10 +355,8 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         OFInstructionApplyActions actions = buildInstructionApplyActions(sw, actionList);
 
         // build FLOW_MOD command with meter
-        OFFlowMod flowMod = buildFlowMod(sw, match, meter, actions,
+        return buildFlowMod(sw, match, meter, actions,
                 cookie & FLOW_COOKIE_MASK, FlowModUtils.PRIORITY_VERY_HIGH);
-
-        return pushFlow(sw, "--InstallIngressFlow--", flowMod);
     }
 
     /**
@@ -300,8 +368,16 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
             final int inputPort, final int outputPort,
             final int transitVlanId, final int outputVlanId,
             final OutputVlanType outputVlanType) throws SwitchOperationException {
-        List<OFAction> actionList = new ArrayList<>();
         IOFSwitch sw = lookupSwitch(dpid);
+        OFFlowMod flowMod = buildEgressFlowMod(sw, cookie, inputPort, outputPort, transitVlanId, outputVlanId,
+                outputVlanType);
+        return pushFlow(sw, "--InstallEgressFlow--", flowMod);
+    }
+
+    private OFFlowMod buildEgressFlowMod(
+            final IOFSwitch sw, final Long cookie, final int inputPort, final int outputPort,
+            final int transitVlanId, final int outputVlanId, final OutputVlanType outputVlanType) {
+        List<OFAction> actionList = new ArrayList<>();
 
         // build match by input port and transit vlan id
         Match match = matchFlow(sw, inputPort, transitVlanId);
@@ -316,10 +392,8 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         OFInstructionApplyActions actions = buildInstructionApplyActions(sw, actionList);
 
         // build FLOW_MOD command, no meter
-        OFFlowMod flowMod = buildFlowMod(sw, match, null, actions,
+        return buildFlowMod(sw, match, null, actions,
                 cookie & FLOW_COOKIE_MASK, FlowModUtils.PRIORITY_VERY_HIGH);
-
-        return pushFlow(sw, "--InstallEgressFlow--", flowMod);
     }
 
     /**
@@ -330,8 +404,15 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
             final DatapathId dpid, final String flowId,
             final Long cookie, final int inputPort, final int outputPort,
             final int transitVlanId) throws SwitchOperationException {
-        List<OFAction> actionList = new ArrayList<>();
         IOFSwitch sw = lookupSwitch(dpid);
+        OFFlowMod flowMod = buildTransitFlowMod(sw, cookie, inputPort, outputPort, transitVlanId);
+        return pushFlow(sw, flowId, flowMod);
+    }
+
+    private OFFlowMod buildTransitFlowMod(
+            final IOFSwitch sw, final Long cookie, final int inputPort, final int outputPort,
+            final int transitVlanId) {
+        List<OFAction> actionList = new ArrayList<>();
 
         // build match by input port and transit vlan id
         Match match = matchFlow(sw, inputPort, transitVlanId);
@@ -343,10 +424,8 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         OFInstructionApplyActions actions = buildInstructionApplyActions(sw, actionList);
 
         // build FLOW_MOD command, no meter
-        OFFlowMod flowMod = buildFlowMod(sw, match, null, actions,
+        return buildFlowMod(sw, match, null, actions,
                 cookie & FLOW_COOKIE_MASK, FlowModUtils.PRIORITY_VERY_HIGH);
-
-        return pushFlow(sw, flowId, flowMod);
     }
 
     /**
@@ -363,8 +442,20 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         //          As with any set of tests, the more we test the same code path, the better.
         //          Based on brief glance, this looks 90% the same as IngressFlow.
 
-        List<OFAction> actionList = new ArrayList<>();
         IOFSwitch sw = lookupSwitch(dpid);
+        OFFlowMod flowMod = buildOneSwitchFlowMod(sw, cookie, inputPort, outputPort, inputVlanId, outputVlanId,
+                outputVlanType, meterId);
+
+        pushFlow(sw, flowId, flowMod);
+
+        return flowMod.getXid();
+    }
+
+    private OFFlowMod buildOneSwitchFlowMod(
+            final IOFSwitch sw, final Long cookie, final int inputPort, final int outputPort,
+            final int inputVlanId, final int outputVlanId,
+            final OutputVlanType outputVlanType, final long meterId) {
+        List<OFAction> actionList = new ArrayList<>();
 
         // build match by input port and transit vlan id
         Match match = matchFlow(sw, inputPort, inputVlanId);
@@ -390,12 +481,35 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         OFInstructionApplyActions actions = buildInstructionApplyActions(sw, actionList);
 
         // build FLOW_MOD command with meter
-        OFFlowMod flowMod = buildFlowMod(sw, match, meter, actions,
+        return buildFlowMod(sw, match, meter, actions,
                 cookie & FLOW_COOKIE_MASK, FlowModUtils.PRIORITY_VERY_HIGH);
+    }
 
-        pushFlow(sw, flowId, flowMod);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FlowModBatch startBatch(final DatapathId dpid) throws SwitchOperationException {
+        return new SwitchFlowModBatch(lookupSwitch(dpid));
+    }
 
-        return flowMod.getXid();
+    /**
+     * Fails the batch the erroneous command belongs to.
+     *
+     * @param dpid  switch reported the error
+     * @param error error message
+     * @return true if the command belongs to a submitted batch
+     */
+    private boolean failBatch(final DatapathId dpid, final OFErrorMsg error) {
+        Map<Long, SwitchFlowModBatch> batches = pendingBatches.get(dpid);
+        SwitchFlowModBatch batch = batches == null ? null : batches.get(error.getXid());
+        if (batch == null) {
+            return false;
+        }
+
+        logger.error("Batched command {} failed on switch {}: {}", error.getXid(), dpid, error.getErrType());
+        batch.complete(new OFInstallException(dpid, batch.getMessage(error.getXid())));
+        return true;
     }
 
     /**
@@ -409,25 +523,77 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
             throw new IllegalArgumentException(String.format("Switch %s was not found", dpid.toString()));
         }
 
-        OFFactory ofFactory = sw.getOFFactory();
-        OFFlowStatsRequest flowRequest = ofFactory.buildFlowStatsRequest()
-                .setMatch(sw.getOFFactory().matchWildcardAll())
-                .setTableId(TableId.ALL)
-                .setOutPort(OFPort.ANY)
-                .setOutGroup(OFGroup.ANY)
-                .setCookieMask(U64.ZERO)
-                .build();
-
         try {
-            ListenableFuture<OFFlowStatsReply> future = sw.writeRequest(flowRequest);
-            values = future.get(10, TimeUnit.SECONDS);
-        } catch (ExecutionException | InterruptedException | TimeoutException e) {
+            List<OFFlowStatsEntry> entries = dumpFlowTableAsync(dpid).get();
+            values = sw.getOFFactory().buildFlowStatsReply().setEntries(entries).build();
+        } catch (ExecutionException | InterruptedException e) {
             logger.error("Could not get flow stats: {}", e.getMessage());
         }
 
         return values;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<List<OFFlowStatsEntry>> dumpFlowTable(
+            final DatapathId dpid, final int chunkSize, final Consumer<List<OFFlowStatsEntry>> chunkConsumer) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid chunk size %d", chunkSize));
+        }
+
+        IOFSwitch sw = ofSwitchService.getSwitch(dpid);
+        if (sw == null) {
+            CompletableFuture<List<OFFlowStatsEntry>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new SwitchNotFoundException(dpid));
+            return failed;
+        }
+
+        // OF 1.0 requests have no cookie to slice the table by
+        int slices = OF_10.equals(sw.getOFFactory().getVersion()) ? 1 : FLOW_DUMP_SLICES;
+        // the slices are requested one after another, so the chunk is never accessed concurrently
+        List<OFFlowStatsEntry> chunk = new ArrayList<>(chunkSize);
+        CompletableFuture<Void> dump = CompletableFuture.completedFuture(null);
+        for (int slice = 0; slice < slices; slice++) {
+            OFFlowStatsRequest flowRequest = buildFlowStatsRequest(sw, slice, slices);
+            dump = dump
+                    .thenCompose(ignore -> dumpLimiter.submit(
+                            () -> writeStatsRequest(sw, dpid, flowRequest, FLOW_DUMP_TIMEOUT)))
+                    .thenAccept(replies -> {
+                        for (OFFlowStatsReply reply : replies) {
+                            for (OFFlowStatsEntry entry : reply.getEntries()) {
+                                chunk.add(entry);
+                                if (chunk.size() == chunkSize) {
+                                    chunkConsumer.accept(new ArrayList<>(chunk));
+                                    chunk.clear();
+                                }
+                            }
+                        }
+                    });
+        }
+        return dump.thenApply(ignore -> chunk);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<List<OFFlowStatsEntry>> dumpFlowTableAsync(final DatapathId dpid) {
+        IOFSwitch sw = ofSwitchService.getSwitch(dpid);
+        if (sw == null) {
+            CompletableFuture<List<OFFlowStatsEntry>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new SwitchNotFoundException(dpid));
+            return failed;
+        }
+
+        OFFlowStatsRequest flowRequest = buildFlowStatsRequest(sw, 0, 1);
+        return dumpLimiter.submit(() -> writeStatsRequest(sw, dpid, flowRequest, FLOW_DUMP_TIMEOUT))
+                .thenApply(replies -> replies.stream()
+                        .flatMap(reply -> reply.getEntries().stream())
+                        .collect(Collectors.toList()));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -439,19 +605,99 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
             throw new IllegalArgumentException(String.format("Switch %s was not found", dpid.toString()));
         }
 
+        try {
+            List<OFMeterConfig> entries = dumpMetersAsync(dpid).get();
+            values = sw.getOFFactory().buildMeterConfigStatsReply().setEntries(entries).build();
+        } catch (ExecutionException | InterruptedException e) {
+            logger.error("Could not get meter config stats: {}", e.getMessage());
+        }
+
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<List<OFMeterConfig>> dumpMetersAsync(final DatapathId dpid) {
+        IOFSwitch sw = ofSwitchService.getSwitch(dpid);
+        if (sw == null) {
+            CompletableFuture<List<OFMeterConfig>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new SwitchNotFoundException(dpid));
+            return failed;
+        }
+
         OFFactory ofFactory = sw.getOFFactory();
         OFMeterConfigStatsRequest meterRequest = ofFactory.buildMeterConfigStatsRequest()
                 .setMeterId(0xffffffff)
                 .build();
 
-        try {
-            ListenableFuture<OFMeterConfigStatsReply> future = sw.writeRequest(meterRequest);
-            values = future.get(5, TimeUnit.SECONDS);
-        } catch (ExecutionException | InterruptedException | TimeoutException e) {
-            logger.error("Could not get meter config stats: {}", e.getMessage());
+        return dumpLimiter.submit(() -> writeStatsRequest(sw, dpid, meterRequest, METER_DUMP_TIMEOUT))
+                .thenApply(replies -> replies.stream()
+                        .flatMap(reply -> reply.getEntries().stream())
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Builds flow stats request for the flows of all the tables with the cookie in the given slice.
+     *
+     * @param sw     switch object
+     * @param slice  slice number
+     * @param slices number of slices, a power of two, 1 to request all the flows
+     * @return {@link OFFlowStatsRequest}
+     */
+    private static OFFlowStatsRequest buildFlowStatsRequest(final IOFSwitch sw, final int slice, final int slices) {
+        OFFlowStatsRequest.Builder builder = sw.getOFFactory().buildFlowStatsRequest()
+                .setMatch(sw.getOFFactory().matchWildcardAll())
+                .setTableId(TableId.ALL)
+                .setOutPort(OFPort.ANY)
+                .setOutGroup(OFGroup.ANY)
+                .setCookieMask(U64.of(slices - 1));
+        if (slices > 1) {
+            builder.setCookie(U64.of(slice));
         }
+        return builder.build();
+    }
 
-        return values;
+    /**
+     * Writes stats request and chains on the reply, fails the returned future if no reply arrives in time.
+     *
+     * <p>The future is completed on the thread delivering the reply, the dependent stages must not block.
+     *
+     * @param sw      switch object
+     * @param dpid    switch id
+     * @param request stats request
+     * @param timeout seconds to wait for the last part of the reply
+     * @param <T>     reply type
+     * @return future completed with all the parts of the reply
+     */
+    private <T extends OFStatsReply> CompletableFuture<List<T>> writeStatsRequest(
+            final IOFSwitch sw, final DatapathId dpid, final OFStatsRequest<T> request, final long timeout) {
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        ListenableFuture<List<T>> reply = sw.writeStatsRequest(request);
+
+        ScheduledFuture<?> timer = dumpTimer.schedule(() -> {
+            String message = String.format("Switch %s did not reply to %s request in %d seconds",
+                    dpid, request.getStatsType(), timeout);
+            if (result.completeExceptionally(new TimeoutException(message))) {
+                reply.cancel(false);
+            }
+        }, timeout, TimeUnit.SECONDS);
+
+        Futures.addCallback(reply, new FutureCallback<List<T>>() {
+            @Override
+            public void onSuccess(List<T> replies) {
+                timer.cancel(false);
+                result.complete(replies);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                timer.cancel(false);
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
     }
 
     /**
@@ -466,16 +712,30 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         }
 
         IOFSwitch sw = lookupSwitch(dpid);
+        OFMessage meterMod = buildInstallMeter(sw, dpid, bandwidth, burstSize, meterId);
+        if (meterMod == null) {
+            return 0L;
+        }
 
+        return pushFlow(sw, "--InstallMeter--", meterMod);
+    }
+
+    /**
+     * Builds meter installation command.
+     *
+     * @return meter mod or null if meters are not installed on the switch
+     */
+    private OFMessage buildInstallMeter(final IOFSwitch sw, final DatapathId dpid, final long bandwidth,
+                                        final long burstSize, final long meterId) {
         if (OVS_MANUFACTURER.equals(sw.getSwitchDescription().getManufacturerDescription())) {
             logger.info("skip installing meter {} on OVS switch {} width bandwidth {}", meterId, dpid, bandwidth);
-            return 0L;
+            return null;
         }
 
         if (sw.getOFFactory().getVersion().compareTo(OF_12) <= 0) {
-            return installLegacyMeter(sw, dpid, bandwidth, burstSize, meterId);
+            return buildLegacyMeterMod(sw, dpid, bandwidth, burstSize, meterId);
         } else {
-            return installMeter(sw, dpid, bandwidth, burstSize, meterId);
+            return buildMeterMod(sw, dpid, bandwidth, burstSize, meterId);
         }
     }
 
@@ -486,9 +746,8 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
     }
 
 
-    private long installMeter(final IOFSwitch sw, final DatapathId dpid, final long bandwidth,
-                                                     final long burstSize, final long meterId)
-            throws OFInstallException {
+    private OFMeterMod buildMeterMod(final IOFSwitch sw, final DatapathId dpid, final long bandwidth,
+                                     final long burstSize, final long meterId) {
         logger.debug("installing meter {} on switch {} width bandwidth {}", meterId, dpid, bandwidth);
 
         Set<OFMeterFlags> flags = new HashSet<>(Arrays.asList(OFMeterFlags.KBPS, OFMeterFlags.BURST));
@@ -510,15 +769,12 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
             meterModBuilder.setMeters(singletonList(bandBuilder.build()));
         }
 
-        OFMeterMod meterMod = meterModBuilder.build();
-
-        return pushFlow(sw, "--InstallMeter--", meterMod);
+        return meterModBuilder.build();
     }
 
-    private long installLegacyMeter(
+    private OFLegacyMeterMod buildLegacyMeterMod(
             final IOFSwitch sw, final DatapathId dpid,
-            final long bandwidth, final long burstSize, final long meterId)
-            throws OFInstallException {
+            final long bandwidth, final long burstSize, final long meterId) {
         logger.debug("installing legacy meter {} on OVS switch {} width bandwidth {}", meterId, dpid, bandwidth);
 
         Set<OFLegacyMeterFlags> flags = new HashSet<>(Arrays.asList(OFLegacyMeterFlags.KBPS, OFLegacyMeterFlags.BURST));
@@ -526,14 +782,12 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
 
         OFLegacyMeterBandDrop.Builder bandBuilder = ofFactory.legacyMeterBandDrop(bandwidth, burstSize).createBuilder();
 
-        OFLegacyMeterMod meterMod = ofFactory.buildLegacyMeterMod()
+        return ofFactory.buildLegacyMeterMod()
                 .setMeterId(meterId)
                 .setCommand(OFLegacyMeterModCommand.ADD)
                 .setMeters(singletonList(bandBuilder.build()))
                 .setFlags(flags)
                 .build();
-
-        return pushFlow(sw, "--InstallMeter", meterMod);
     }
 
     // Utility Methods
@@ -941,6 +1195,144 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         return flowMod.getXid();
     }
 
+    /**
+     * Batch of commands for a switch, see {@link FlowModBatch}.
+     */
+    private final class SwitchFlowModBatch implements FlowModBatch {
+        private final IOFSwitch sw;
+        private final Map<Long, OFMessage> messages = new LinkedHashMap<>();
+        private final CompletableFuture<List<Long>> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timer;
+
+        SwitchFlowModBatch(final IOFSwitch sw) {
+            this.sw = sw;
+        }
+
+        @Override
+        public FlowModBatch installIngressFlow(
+                final String flowId, final Long cookie, final int inputPort, final int outputPort,
+                final int inputVlanId, final int transitVlanId, final OutputVlanType outputVlanType,
+                final long meterId) {
+            return add(buildIngressFlowMod(sw, cookie, inputPort, outputPort, inputVlanId, transitVlanId,
+                    outputVlanType, meterId));
+        }
+
+        @Override
+        public FlowModBatch installEgressFlow(
+                final String flowId, final Long cookie, final int inputPort, final int outputPort,
+                final int transitVlanId, final int outputVlanId, final OutputVlanType outputVlanType) {
+            return add(buildEgressFlowMod(sw, cookie, inputPort, outputPort, transitVlanId, outputVlanId,
+                    outputVlanType));
+        }
+
+        @Override
+        public FlowModBatch installTransitFlow(
+                final String flowId, final Long cookie, final int inputPort, final int outputPort,
+                final int transitVlanId) {
+            return add(buildTransitFlowMod(sw, cookie, inputPort, outputPort, transitVlanId));
+        }
+
+        @Override
+        public FlowModBatch installOneSwitchFlow(
+                final String flowId, final Long cookie, final int inputPort, final int outputPort,
+                final int inputVlanId, final int outputVlanId, final OutputVlanType outputVlanType,
+                final long meterId) {
+            return add(buildOneSwitchFlowMod(sw, cookie, inputPort, outputPort, inputVlanId, outputVlanId,
+                    outputVlanType, meterId));
+        }
+
+        @Override
+        public FlowModBatch installMeter(final long bandwidth, final long burstSize, final long meterId) {
+            if (meterId == 0) {
+                return this;
+            }
+            return add(buildInstallMeter(sw, sw.getId(), bandwidth, burstSize, meterId));
+        }
+
+        private FlowModBatch add(final OFMessage message) {
+            if (message != null) {
+                long xid = BATCH_XID_BASE + batchXid.getAndIncrement() % BATCH_XID_RANGE;
+                messages.put(xid, message.createBuilder().setXid(xid).build());
+            }
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return messages.size();
+        }
+
+        @Override
+        public CompletableFuture<List<Long>> submit() throws OFInstallException {
+            if (future.isDone()) {
+                return future;
+            }
+
+            List<Long> xids = new ArrayList<>(messages.keySet());
+            if (messages.isEmpty()) {
+                future.complete(xids);
+                return future;
+            }
+
+            Map<Long, SwitchFlowModBatch> batches =
+                    pendingBatches.computeIfAbsent(sw.getId(), dpid -> new ConcurrentHashMap<>());
+            xids.forEach(xid -> batches.put(xid, this));
+
+            logger.info("installing batch of {} commands on switch {}", messages.size(), sw.getId());
+            Collection<OFMessage> unsent = sw.write(messages.values());
+            if (!unsent.isEmpty()) {
+                OFInstallException error = new OFInstallException(sw.getId(), unsent.iterator().next());
+                complete(error);
+                throw error;
+            }
+
+            ListenableFuture<OFBarrierReply> reply = sw.writeRequest(sw.getOFFactory().buildBarrierRequest().build());
+            timer = dumpTimer.schedule(() -> {
+                logger.error("No barrier reply for batch on switch {} in {} seconds", sw.getId(), batchBarrierTimeout);
+                complete(new OFInstallException(sw.getId(), messages.values().iterator().next()));
+                reply.cancel(false);
+            }, batchBarrierTimeout, TimeUnit.SECONDS);
+            reply.addListener(() -> {
+                try {
+                    reply.get();
+                    complete(null);
+                } catch (CancellationException e) {
+                    // cancelled by the timer, the batch is already failed
+                } catch (InterruptedException | ExecutionException e) {
+                    logger.error("No barrier reply for batch on switch {}: {}", sw.getId(), e.getMessage());
+                    complete(new OFInstallException(sw.getId(), messages.values().iterator().next()));
+                }
+            }, Runnable::run);
+            return future;
+        }
+
+        OFMessage getMessage(long xid) {
+            return messages.get(xid);
+        }
+
+        /**
+         * Completes the batch, first call wins. Forgets the commands of the batch and stops the barrier timer.
+         *
+         * @param error error the batch is failed with, or null if the batch succeeded
+         */
+        void complete(final OFInstallException error) {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+
+            Map<Long, SwitchFlowModBatch> batches = pendingBatches.get(sw.getId());
+            if (batches != null) {
+                messages.keySet().forEach(xid -> batches.remove(xid, this));
+            }
+
+            if (error == null) {
+                future.complete(new ArrayList<>(messages.keySet()));
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
     /**
      * Wrap IOFSwitchService.getSwitch call to check protect from null return value.
      *
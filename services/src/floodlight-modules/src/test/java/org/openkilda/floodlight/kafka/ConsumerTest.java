@@ -0,0 +1,42 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Test;
+
+public class ConsumerTest {
+    @Test
+    public void peekSwitchId() {
+        String command = "{\"clazz\":\"org.openkilda.messaging.command.CommandMessage\",\"timestamp\":1,"
+                + "\"payload\":{\"clazz\":\"org.openkilda.messaging.command.flow.RemoveFlow\","
+                + "\"transaction_id\":0,\"flowid\":\"flow\",\"switch_id\":\"00:00:00:00:00:00:00:01\"},"
+                + "\"correlation_id\":\"test\"}";
+        assertEquals("00:00:00:00:00:00:00:01", Consumer.getSwitchId(record(command)));
+
+        String dump = "{\"payload\":{\"clazz\":\"org.openkilda.messaging.command.discovery.NetworkCommandData\"},"
+                + "\"clazz\":\"org.openkilda.messaging.command.CommandMessage\"}";
+        assertNull(Consumer.getSwitchId(record(dump)));
+        assertNull(Consumer.getSwitchId(record("not a json")));
+    }
+
+    private static ConsumerRecord<String, String> record(String value) {
+        return new ConsumerRecord<>("speaker", 0, 0L, null, value);
+    }
+}
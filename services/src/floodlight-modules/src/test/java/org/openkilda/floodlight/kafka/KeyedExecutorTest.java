@@ -0,0 +1,169 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class KeyedExecutorTest {
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    public void keyOrder() throws Exception {
+        KeyedExecutor<String> executor = new KeyedExecutor<>(workers, 1000);
+        Map<String, List<Integer>> results = new HashMap<>();
+        for (String key : new String[]{"sw1", "sw2", "sw3"}) {
+            results.put(key, Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        CountDownLatch done = new CountDownLatch(300);
+        for (int i = 0; i < 100; i++) {
+            for (String key : results.keySet()) {
+                int value = i;
+                assertTrue(executor.offer(key, () -> {
+                    results.get(key).add(value);
+                    done.countDown();
+                }));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> values : results.values()) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) values.get(i));
+            }
+        }
+        assertEquals(300, executor.getSubmittedCount());
+    }
+
+    @Test
+    public void drainedKeysAreDropped() throws Exception {
+        KeyedExecutor<String> executor = new KeyedExecutor<>(workers, 10);
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(executor.offer("sw" + i, done::countDown));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (executor.getKeyCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getKeyCount());
+    }
+
+    @Test
+    public void slowKeyHoldsSingleWorker() throws Exception {
+        KeyedExecutor<String> executor = new KeyedExecutor<>(workers, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(executor.offer("slow", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(executor.offer("sw" + i % 4, done::countDown));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(4, executor.getQueueSize("slow"));
+        release.countDown();
+    }
+
+    @Test
+    public void offerRejectsWhenKeyQueueIsFull() throws Exception {
+        KeyedExecutor<String> executor = new KeyedExecutor<>(workers, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(executor.offer("sw1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        assertTrue(executor.offer("sw1", () -> { }));
+        assertTrue(executor.offer("sw1", () -> { }));
+        assertFalse(executor.offer("sw1", () -> { }));
+        assertTrue(executor.offer("sw2", () -> { }));
+        assertEquals(1, executor.getBlockedCount());
+
+        release.countDown();
+    }
+
+    @Test
+    public void failedTaskDoesNotStopKey() throws Exception {
+        KeyedExecutor<String> executor = new KeyedExecutor<>(workers, 10);
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.offer("sw1", () -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertTrue(executor.offer("sw1", done::countDown));
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, executor.getFailedCount());
+    }
+
+    @Test
+    public void commitProcessedPrefix() {
+        OffsetTracker tracker = new OffsetTracker();
+        TopicPartition partition = new TopicPartition("speaker", 0);
+        for (long offset = 10; offset < 13; offset++) {
+            tracker.add(partition, offset);
+        }
+
+        tracker.complete(partition, 11);
+        assertEquals(new OffsetAndMetadata(10), tracker.collect().get(partition));
+        assertTrue(tracker.collect().isEmpty());
+
+        tracker.complete(partition, 10);
+        assertEquals(new OffsetAndMetadata(12), tracker.collect().get(partition));
+
+        tracker.complete(partition, 12);
+        assertEquals(new OffsetAndMetadata(13), tracker.collect().get(partition));
+        assertEquals(0, tracker.getPendingCount());
+    }
+}
@@ -42,6 +42,7 @@ import org.openkilda.messaging.command.flow.InstallTransitFlow;
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import net.floodlightcontroller.core.IOFSwitch;
 import net.floodlightcontroller.core.SwitchDescription;
 import net.floodlightcontroller.core.internal.IOFSwitchService;
@@ -50,14 +51,20 @@ import net.floodlightcontroller.core.module.FloodlightModuleException;
 import net.floodlightcontroller.restserver.IRestApiService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.easymock.Capture;
-import org.easymock.CaptureType;
 import org.junit.Before;
 import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFBarrierReply;
+import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
 import org.projectfloodlight.openflow.protocol.OFFlowAdd;
+import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFMeterMod;
 import org.projectfloodlight.openflow.types.DatapathId;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -119,7 +126,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.oneSwitchNoneFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -129,7 +136,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.oneSwitchReplaceFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getInputVlanId(), data.getOutputVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -139,7 +146,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.oneSwitchPushFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getOutputVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -149,7 +156,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.oneSwitchPopFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getInputVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -159,7 +166,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.ingressNoneFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -169,7 +176,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.ingressReplaceFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getInputVlanId(), data.getTransitVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -179,7 +186,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.ingressPushFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -189,7 +196,7 @@ public class ReplaceInstallFlowTest {
         OFMeterMod meterCommand = scheme.installMeter(data.getBandwidth(), 1024, data.getMeterId());
         OFFlowAdd flowCommand = scheme.ingressPopFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getInputVlanId(), data.getTransitVlanId(), data.getMeterId(), 123L);
-        runTest(value, flowCommand, meterCommand, null, null);
+        runTest(value, flowCommand, meterCommand);
     }
 
     @Test
@@ -198,7 +205,7 @@ public class ReplaceInstallFlowTest {
         InstallEgressFlow data = (InstallEgressFlow) prepareData(value);
         OFFlowAdd flowCommand = scheme.egressNoneFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), 123L);
-        runTest(value, flowCommand, null, null, null);
+        runTest(value, flowCommand, null);
     }
 
     @Test
@@ -207,7 +214,7 @@ public class ReplaceInstallFlowTest {
         InstallEgressFlow data = (InstallEgressFlow) prepareData(value);
         OFFlowAdd flowCommand = scheme.egressReplaceFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), data.getOutputVlanId(), 123L);
-        runTest(value, flowCommand, null, null, null);
+        runTest(value, flowCommand, null);
     }
 
     @Test
@@ -216,7 +223,7 @@ public class ReplaceInstallFlowTest {
         InstallEgressFlow data = (InstallEgressFlow) prepareData(value);
         OFFlowAdd flowCommand = scheme.egressPushFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), data.getOutputVlanId(), 123L);
-        runTest(value, flowCommand, null, null, null);
+        runTest(value, flowCommand, null);
     }
 
     @Test
@@ -225,7 +232,7 @@ public class ReplaceInstallFlowTest {
         InstallEgressFlow data = (InstallEgressFlow) prepareData(value);
         OFFlowAdd flowCommand = scheme.egressPopFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), 123L);
-        runTest(value, flowCommand, null, null, null);
+        runTest(value, flowCommand, null);
     }
 
     @Test
@@ -234,18 +241,18 @@ public class ReplaceInstallFlowTest {
         InstallTransitFlow data = (InstallTransitFlow) prepareData(value);
         OFFlowAdd flowCommand = scheme.transitFlowMod(data.getInputPort(), data.getOutputPort(),
                 data.getTransitVlanId(), 123L);
-        runTest(value, flowCommand, null, null, null);
+        runTest(value, flowCommand, null);
     }
 
     /**
      * Runs test case.
      *
-     * @param value       data string from json resource file
-     * @param flowCommand OFFlowAdd instance to compare result with
+     * @param value        data string from json resource file
+     * @param flowCommand  OFFlowAdd instance to compare result with
+     * @param meterCommand OFMeterMod instance to compare result with, null if the flow has no meter
      * @throws InterruptedException if test was interrupted during run
      */
-    private void runTest(final String value, final OFFlowAdd flowCommand, final OFMeterMod meterCommand,
-                         final OFFlowAdd reverseFlowCommand, final OFMeterMod reverseMeterCommand)
+    private void runTest(final String value, final OFFlowAdd flowCommand, final OFMeterMod meterCommand)
             throws InterruptedException {
         // construct kafka message
         ConsumerRecord<String, String> record = new ConsumerRecord<>("", 0, 0, "", value);
@@ -253,10 +260,9 @@ public class ReplaceInstallFlowTest {
         // create parser instance
         ConsumerContext kafkaContext = new ConsumerContext(context, collector);
         RecordHandler parseRecord = new RecordHandler(kafkaContext, record);
-        // init test mocks
-        Capture<OFFlowAdd> flowAddCapture = flowCommand == null ? null : newCapture(CaptureType.ALL);
-        Capture<OFMeterMod> meterAddCapture = meterCommand == null ? null : newCapture(CaptureType.ALL);
-        prepareMocks(flowAddCapture, meterAddCapture, reverseFlowCommand != null, reverseMeterCommand != null);
+        // init test mocks, the meter and the flow using it are installed in one batch
+        Capture<Iterable<OFMessage>> batchCapture = newCapture();
+        prepareMocks(batchCapture);
 
         // run parser and wait for termination or timeout
         parseRecordExecutor.execute(parseRecord);
@@ -264,48 +270,29 @@ public class ReplaceInstallFlowTest {
         parseRecordExecutor.awaitTermination(10, TimeUnit.SECONDS);
 
         // verify results
-        if (meterCommand != null) {
-            assertEquals(meterCommand, meterAddCapture.getValues().get(0));
-            if (reverseMeterCommand != null) {
-                assertEquals(reverseMeterCommand, meterAddCapture.getValues().get(1));
-            }
-        }
-        if (flowCommand != null) {
-            assertEquals(flowCommand, flowAddCapture.getValues().get(0));
-            if (reverseFlowCommand != null) {
-                assertEquals(reverseFlowCommand, flowAddCapture.getValues().get(1));
-            }
-        }
+        List<OFMessage> batch = new ArrayList<>();
+        batchCapture.getValue().forEach(command -> batch.add(command.createBuilder().setXid(0L).build()));
+        assertEquals(meterCommand != null ? Arrays.asList(meterCommand, flowCommand)
+                : Collections.singletonList(flowCommand), batch);
     }
 
     /**
      * Prepares test mocks for run.
      *
-     * @param flowAddCapture  Capture for FlowAdd command
-     * @param meterAddCapture Capture for MeterMod<Add> command
+     * @param batchCapture Capture for batch of commands confirmed by barrier
      */
-    private void prepareMocks(Capture<OFFlowAdd> flowAddCapture, Capture<OFMeterMod> meterAddCapture,
-                              boolean needCheckReverseFlow, boolean needCheckReverseMeter) {
+    private void prepareMocks(Capture<Iterable<OFMessage>> batchCapture) {
         IOFSwitch iofSwitch = createMock(IOFSwitch.class);
 
         expect(ofSwitchService.getSwitch(anyObject(DatapathId.class))).andStubReturn(iofSwitch);
+        expect(iofSwitch.getId()).andStubReturn(DatapathId.of(1L));
         expect(iofSwitch.getOFFactory()).andStubReturn(ofFactory);
         expect(iofSwitch.getSwitchDescription()).andStubReturn(switchDescription);
 
-        if (meterAddCapture != null) {
-            expect(iofSwitch.write(capture(meterAddCapture))).andReturn(true);
-            if (flowAddCapture != null) {
-                expect(iofSwitch.write(capture(flowAddCapture))).andReturn(true);
-            }
-            if (needCheckReverseMeter) {
-                expect(iofSwitch.write(capture(meterAddCapture))).andReturn(true);
-            }
-            if (needCheckReverseFlow) {
-                expect(iofSwitch.write(capture(flowAddCapture))).andReturn(true);
-            }
-        } else if (flowAddCapture != null) {
-            expect(iofSwitch.write(capture(flowAddCapture))).andReturn(true).times(needCheckReverseFlow ? 2 : 1);
-        }
+        SettableFuture<OFBarrierReply> barrier = SettableFuture.create();
+        barrier.set(ofFactory.buildBarrierReply().build());
+        expect(iofSwitch.write(capture(batchCapture))).andReturn(Collections.emptyList());
+        expect(iofSwitch.writeRequest(anyObject(OFBarrierRequest.class))).andReturn(barrier);
 
         replay(ofSwitchService);
         replay(iofSwitch);
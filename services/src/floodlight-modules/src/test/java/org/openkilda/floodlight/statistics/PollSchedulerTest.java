@@ -0,0 +1,106 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class PollSchedulerTest {
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void pollsSpreadAcrossInterval() throws Exception {
+        Map<String, Long> polls = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(4);
+        PollScheduler<String> scheduler = new PollScheduler<>("test", executor, 800, 2400, TimeUnit.MILLISECONDS,
+                () -> Arrays.asList("sw4", "sw2", "sw3", "sw1"),
+                target -> {
+                    polls.put(target, System.nanoTime());
+                    done.countDown();
+                    return CompletableFuture.completedFuture(null);
+                });
+
+        long start = System.nanoTime();
+        scheduler.round();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        List<String> order = Arrays.asList("sw1", "sw2", "sw3", "sw4");
+        for (int slot = 0; slot < order.size(); slot++) {
+            long offset = TimeUnit.NANOSECONDS.toMillis(polls.get(order.get(slot)) - start);
+            assertTrue(String.format("slot %d polled at %d ms", slot, offset), offset >= slot * 200);
+        }
+        assertEquals(4, scheduler.getPolledCount());
+    }
+
+    @Test
+    public void skipOutstandingPoll() {
+        CompletableFuture<Void> reply = new CompletableFuture<>();
+        PollScheduler<String> scheduler = new PollScheduler<>("test", executor, 10, 30, TimeUnit.SECONDS,
+                () -> Collections.singletonList("sw1"), target -> reply);
+
+        scheduler.poll("sw1");
+        scheduler.poll("sw1");
+        assertEquals(1, scheduler.getPolledCount());
+        assertEquals(1, scheduler.getSkippedCount());
+
+        reply.complete(null);
+        scheduler.poll("sw1");
+        assertEquals(2, scheduler.getPolledCount());
+    }
+
+    @Test
+    public void repollStaleOutstandingPoll() {
+        PollScheduler<String> scheduler = new PollScheduler<>("test", executor, 10, 0, TimeUnit.SECONDS,
+                () -> Collections.singletonList("sw1"), target -> new CompletableFuture<>());
+
+        scheduler.poll("sw1");
+        scheduler.poll("sw1");
+        assertEquals(2, scheduler.getPolledCount());
+        assertEquals(0, scheduler.getSkippedCount());
+    }
+
+    @Test
+    public void failedPollReleasesTarget() {
+        PollScheduler<String> scheduler = new PollScheduler<>("test", executor, 10, 30, TimeUnit.SECONDS,
+                () -> Collections.singletonList("sw1"), target -> {
+                    throw new IllegalStateException("switch disconnected");
+                });
+
+        scheduler.poll("sw1");
+        scheduler.poll("sw1");
+        assertEquals(2, scheduler.getPolledCount());
+        assertEquals(2, scheduler.getFailedCount());
+    }
+}
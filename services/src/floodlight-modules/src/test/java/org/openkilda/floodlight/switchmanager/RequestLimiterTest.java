@@ -0,0 +1,103 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.switchmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class RequestLimiterTest {
+    private final RequestLimiter limiter = new RequestLimiter(2);
+
+    @Test
+    public void requestsOverLimitWait() throws Exception {
+        List<CompletableFuture<Integer>> requests = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<Integer> request = new CompletableFuture<>();
+            results.add(limiter.submit(() -> {
+                requests.add(request);
+                return request;
+            }));
+        }
+
+        assertEquals(2, requests.size());
+        assertEquals(2, limiter.getRunningCount());
+        assertEquals(2, limiter.getWaitingCount());
+
+        requests.get(1).complete(1);
+        assertEquals(1, (int) results.get(1).get());
+        assertEquals(3, requests.size());
+        assertFalse(results.get(2).isDone());
+
+        requests.get(0).complete(0);
+        requests.get(2).complete(2);
+        requests.get(3).complete(3);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, (int) results.get(i).get());
+        }
+        assertEquals(0, limiter.getRunningCount());
+        assertEquals(0, limiter.getWaitingCount());
+    }
+
+    @Test
+    public void failedRequestReleasesSlot() throws Exception {
+        CompletableFuture<Integer> failed = limiter.submit(() -> {
+            throw new IllegalStateException("not connected");
+        });
+        CompletableFuture<Integer> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new IllegalStateException("rejected"));
+        limiter.submit(() -> rejected);
+
+        try {
+            failed.get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, limiter.getRunningCount());
+        assertEquals(1, (int) limiter.submit(() -> CompletableFuture.completedFuture(1)).get());
+    }
+
+    @Test
+    public void requestsCompletedOnStartDoNotGrowStack() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            int value = i;
+            results.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+        }
+        assertEquals(100000, limiter.getWaitingCount());
+
+        first.complete(-1);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, (int) results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, limiter.getRunningCount());
+        assertEquals(0, limiter.getWaitingCount());
+    }
+}
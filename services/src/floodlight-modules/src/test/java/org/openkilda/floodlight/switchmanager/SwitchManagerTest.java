@@ -28,12 +28,18 @@ import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.openkilda.floodlight.message.command.encapsulation.OutputCommands;
 import org.openkilda.floodlight.message.command.encapsulation.ReplaceSchemeOutputCommands;
 import org.openkilda.messaging.payload.flow.OutputVlanType;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import net.floodlightcontroller.core.IOFSwitch;
 import net.floodlightcontroller.core.SwitchDescription;
 import net.floodlightcontroller.core.internal.IOFSwitchService;
@@ -44,12 +50,28 @@ import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFBarrierReply;
+import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
 import org.projectfloodlight.openflow.protocol.OFFlowMod;
 import org.projectfloodlight.openflow.protocol.OFFlowModCommand;
+import org.projectfloodlight.openflow.protocol.OFFlowModFailedCode;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFMeterConfig;
 import org.projectfloodlight.openflow.protocol.OFMeterMod;
 import org.projectfloodlight.openflow.protocol.OFMeterModCommand;
 import org.projectfloodlight.openflow.types.DatapathId;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 public class SwitchManagerTest {
     private static final OutputCommands scheme = new ReplaceSchemeOutputCommands();
     private static final FloodlightModuleContext context = new FloodlightModuleContext();
@@ -239,12 +261,52 @@ public class SwitchManagerTest {
 
     @Test
     public void dumpFlowTable() throws Exception {
-        // TODO
+        SettableFuture<List<OFFlowStatsReply>> replies = SettableFuture.create();
+        expect(ofSwitchService.getSwitch(dpid)).andStubReturn(iofSwitch);
+        expect(iofSwitch.getOFFactory()).andStubReturn(ofFactory);
+        expect(iofSwitch.writeStatsRequest(EasyMock.anyObject(OFFlowStatsRequest.class))).andReturn(replies);
+        replay(ofSwitchService);
+        replay(iofSwitch);
+
+        OFFlowStatsEntry first = createMock(OFFlowStatsEntry.class);
+        OFFlowStatsEntry second = createMock(OFFlowStatsEntry.class);
+        CompletableFuture<List<OFFlowStatsEntry>> future = switchManager.dumpFlowTableAsync(dpid);
+        assertFalse(future.isDone());
+
+        replies.set(Arrays.asList(
+                ofFactory.buildFlowStatsReply().setEntries(Collections.singletonList(first)).build(),
+                ofFactory.buildFlowStatsReply().setEntries(Collections.singletonList(second)).build()));
+        assertEquals(Arrays.asList(first, second), future.get());
+    }
+
+    @Test
+    public void dumpFlowTableInChunks() throws Exception {
+        OFFlowStatsEntry entry = createMock(OFFlowStatsEntry.class);
+        List<OFFlowStatsReply> replies = Arrays.asList(
+                ofFactory.buildFlowStatsReply().setEntries(Arrays.asList(entry, entry)).build(),
+                ofFactory.buildFlowStatsReply().setEntries(Collections.singletonList(entry)).build());
+        expect(ofSwitchService.getSwitch(dpid)).andStubReturn(iofSwitch);
+        expect(iofSwitch.getOFFactory()).andStubReturn(ofFactory);
+        expect(iofSwitch.writeStatsRequest(EasyMock.anyObject(OFFlowStatsRequest.class)))
+                .andReturn(Futures.immediateFuture(replies)).times(16);
+        replay(ofSwitchService);
+        replay(iofSwitch);
+
+        List<Integer> chunks = new ArrayList<>();
+        List<OFFlowStatsEntry> last = switchManager.dumpFlowTable(dpid, 20, chunk -> chunks.add(chunk.size())).get();
+
+        assertEquals(Arrays.asList(20, 20), chunks);
+        assertEquals(8, last.size());
+        EasyMock.verify(iofSwitch);
     }
 
     @Test
     public void dumpMeters() throws Exception {
-        // TODO
+        expect(ofSwitchService.getSwitch(dpid)).andStubReturn(null);
+        replay(ofSwitchService);
+
+        CompletableFuture<List<OFMeterConfig>> future = switchManager.dumpMetersAsync(dpid);
+        assertTrue(future.isCompletedExceptionally());
     }
 
     @Test
@@ -263,6 +325,101 @@ public class SwitchManagerTest {
         switchManager.installMeter(dpid, bandwidth, burstSize, meterId);
     }
 
+    @Test
+    public void installBatchConfirmedByBarrier() throws Exception {
+        Capture<Iterable<OFMessage>> capture = EasyMock.newCapture();
+        SettableFuture<OFBarrierReply> barrier = prepareForBatchTest(capture);
+
+        CompletableFuture<List<Long>> future = switchManager.startBatch(dpid)
+                .installMeter(bandwidth, burstSize, meterId)
+                .installIngressFlow(cookieHex, cookie, inputPort, outputPort, inputVlanId, transitVlanId,
+                        OutputVlanType.REPLACE, meterId)
+                .submit();
+
+        List<OFMessage> written = new ArrayList<>();
+        capture.getValue().forEach(written::add);
+        assertEquals(2, written.size());
+        assertEquals(scheme.installMeter(bandwidth, burstSize, meterId),
+                written.get(0).createBuilder().setXid(0L).build());
+        assertEquals(
+                scheme.ingressReplaceFlowMod(inputPort, outputPort, inputVlanId, transitVlanId, meterId, cookie),
+                written.get(1).createBuilder().setXid(0L).build());
+        assertFalse(future.isDone());
+
+        barrier.set(ofFactory.buildBarrierReply().build());
+        assertEquals(Arrays.asList(written.get(0).getXid(), written.get(1).getXid()), future.get());
+    }
+
+    @Test
+    public void installBatchFailedByError() throws Exception {
+        Capture<Iterable<OFMessage>> capture = EasyMock.newCapture();
+        SettableFuture<OFBarrierReply> barrier = prepareForBatchTest(capture);
+
+        CompletableFuture<List<Long>> future = switchManager.startBatch(dpid)
+                .installTransitFlow(cookieHex, cookie, inputPort, outputPort, transitVlanId)
+                .submit();
+
+        long xid = capture.getValue().iterator().next().getXid();
+        switchManager.receive(iofSwitch, ofFactory.errorMsgs().buildFlowModFailedErrorMsg()
+                .setXid(xid)
+                .setCode(OFFlowModFailedCode.TABLE_FULL)
+                .build(), null);
+        barrier.set(ofFactory.buildBarrierReply().build());
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void installBatchFailedByUnsentMessages() throws Exception {
+        Capture<Iterable<OFMessage>> capture = EasyMock.newCapture();
+        expect(ofSwitchService.getSwitch(dpid)).andStubReturn(iofSwitch);
+        expect(iofSwitch.getId()).andStubReturn(dpid);
+        expect(iofSwitch.getOFFactory()).andStubReturn(ofFactory);
+        expect(iofSwitch.getSwitchDescription()).andStubReturn(switchDescription);
+        expect(switchDescription.getManufacturerDescription()).andStubReturn("");
+        expect(iofSwitch.write(capture(capture))).andAnswer(() -> {
+            List<OFMessage> unsent = new ArrayList<>();
+            capture.getValue().forEach(unsent::add);
+            return unsent;
+        });
+        replay(ofSwitchService);
+        replay(iofSwitch);
+        replay(switchDescription);
+
+        FlowModBatch batch = switchManager.startBatch(dpid)
+                .installTransitFlow(cookieHex, cookie, inputPort, outputPort, transitVlanId);
+        try {
+            batch.submit();
+            fail();
+        } catch (OFInstallException e) {
+            assertEquals(capture.getValue().iterator().next(), e.getOfMessage());
+        }
+
+        CompletableFuture<List<Long>> future = batch.submit();
+        assertTrue(future.isCompletedExceptionally());
+        verify(iofSwitch);
+    }
+
+    @Test
+    public void installBatchFailedByBarrierTimeout() throws Exception {
+        context.addConfigParam(switchManager, "batch-barrier-timeout", "1");
+        switchManager.init(context);
+        context.addConfigParam(switchManager, "batch-barrier-timeout", "10");
+        Capture<Iterable<OFMessage>> capture = EasyMock.newCapture();
+        prepareForBatchTest(capture);
+
+        CompletableFuture<List<Long>> future = switchManager.startBatch(dpid)
+                .installTransitFlow(cookieHex, cookie, inputPort, outputPort, transitVlanId)
+                .submit();
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OFInstallException);
+        }
+    }
+
     @Test
     public void deleteFlow() throws Exception {
         Capture<OFFlowMod> capture = prepareForInstallTest();
@@ -299,6 +456,24 @@ public class SwitchManagerTest {
         return capture;
     }
 
+    private SettableFuture<OFBarrierReply> prepareForBatchTest(Capture<Iterable<OFMessage>> capture) {
+        SettableFuture<OFBarrierReply> barrier = SettableFuture.create();
+
+        expect(ofSwitchService.getSwitch(dpid)).andStubReturn(iofSwitch);
+        expect(iofSwitch.getId()).andStubReturn(dpid);
+        expect(iofSwitch.getOFFactory()).andStubReturn(ofFactory);
+        expect(iofSwitch.getSwitchDescription()).andStubReturn(switchDescription);
+        expect(switchDescription.getManufacturerDescription()).andStubReturn("");
+        expect(iofSwitch.write(capture(capture))).andReturn(Collections.emptyList());
+        expect(iofSwitch.writeRequest(EasyMock.anyObject(OFBarrierRequest.class))).andReturn(barrier);
+
+        replay(ofSwitchService);
+        replay(iofSwitch);
+        replay(switchDescription);
+
+        return barrier;
+    }
+
     private Capture<OFMeterMod> prepareForMeterTest() {
         Capture<OFMeterMod> capture = EasyMock.newCapture();
 
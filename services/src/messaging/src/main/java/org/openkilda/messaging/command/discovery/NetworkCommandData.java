@@ -34,7 +34,8 @@ import java.util.Objects;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
         "command",
-        "requester"})
+        "requester",
+        "chunk_size"})
 public class NetworkCommandData extends CommandData {
     /**
      * Serialization version number constant.
@@ -47,6 +48,12 @@ public class NetworkCommandData extends CommandData {
     @JsonProperty("requester")
     private String requester;
 
+    /**
+     * Maximum number of switches, isls and flows in a single dump chunk, or null to dump the network in one message.
+     */
+    @JsonProperty("chunk_size")
+    private Integer chunkSize;
+
     /**
      * Default constructor.
      */
@@ -58,9 +65,21 @@ public class NetworkCommandData extends CommandData {
      *
      * @param requester requester
      */
+    public NetworkCommandData(String requester) {
+        this(requester, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param requester requester
+     * @param chunkSize maximum number of entries in a dump chunk, or null to dump the network in one message
+     */
     @JsonCreator
-    public NetworkCommandData(@JsonProperty("requester") String requester) {
+    public NetworkCommandData(@JsonProperty("requester") String requester,
+                              @JsonProperty("chunk_size") Integer chunkSize) {
         this.requester = requester;
+        this.chunkSize = chunkSize;
     }
 
     /**
@@ -81,6 +100,24 @@ public class NetworkCommandData extends CommandData {
         this.requester = requester;
     }
 
+    /**
+     * Returns chunk size.
+     *
+     * @return chunk size
+     */
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets chunk size.
+     *
+     * @param chunkSize chunk size
+     */
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -88,6 +125,7 @@ public class NetworkCommandData extends CommandData {
     public String toString() {
         return toStringHelper(this)
                 .add("requester", requester)
+                .add("chunk_size", chunkSize)
                 .toString();
     }
 
@@ -104,7 +142,8 @@ public class NetworkCommandData extends CommandData {
         }
 
         NetworkCommandData that = (NetworkCommandData) object;
-        return Objects.equals(getRequester(), that.getRequester());
+        return Objects.equals(getRequester(), that.getRequester())
+                && Objects.equals(getChunkSize(), that.getChunkSize());
     }
 
     /**
@@ -112,6 +151,6 @@ public class NetworkCommandData extends CommandData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(requester);
+        return Objects.hash(requester, chunkSize);
     }
 }
@@ -0,0 +1,136 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.command.switches;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.command.CommandData;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Objects;
+
+/**
+ * Defines the payload of a Message representing a command for the flow table dump of a switch.
+ */
+@JsonSerialize
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "command",
+        "switch_id",
+        "chunk_size"})
+public class DumpRulesRequest extends CommandData {
+    /**
+     * Serialization version number constant.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The switch id to dump the rules of. It is a mandatory parameter.
+     */
+    @JsonProperty("switch_id")
+    private String switchId;
+
+    /**
+     * Maximum number of rules in a single dump chunk, or null to use the speaker default.
+     */
+    @JsonProperty("chunk_size")
+    private Integer chunkSize;
+
+    /**
+     * Instance constructor.
+     *
+     * @param switchId  switch id
+     * @param chunkSize maximum number of rules in a dump chunk, or null to use the speaker default
+     */
+    @JsonCreator
+    public DumpRulesRequest(@JsonProperty("switch_id") String switchId,
+                            @JsonProperty("chunk_size") Integer chunkSize) {
+        setSwitchId(switchId);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns switch id.
+     *
+     * @return switch id
+     */
+    public String getSwitchId() {
+        return switchId;
+    }
+
+    /**
+     * Sets switch id.
+     *
+     * @param switchId switch id
+     */
+    public void setSwitchId(String switchId) {
+        if (!Utils.validateSwitchId(switchId)) {
+            throw new IllegalArgumentException("need to set valid value for switch_id");
+        }
+        this.switchId = switchId;
+    }
+
+    /**
+     * Returns maximum number of rules in a dump chunk.
+     *
+     * @return chunk size, or null to use the speaker default
+     */
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("switch_id", switchId)
+                .add("chunk_size", chunkSize)
+                .toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(switchId, chunkSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        DumpRulesRequest that = (DumpRulesRequest) object;
+        return Objects.equals(getSwitchId(), that.getSwitchId())
+                && Objects.equals(getChunkSize(), that.getChunkSize());
+    }
+}
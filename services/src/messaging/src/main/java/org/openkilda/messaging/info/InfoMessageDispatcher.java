@@ -0,0 +1,213 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info;
+
+import static org.openkilda.messaging.Utils.PAYLOAD;
+
+import org.openkilda.messaging.BaseMessage;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes {@link InfoMessage} json and passes the payload to the handler registered for its type.
+ *
+ * <p>The message is decoded in a single pass of a streaming parser: the {@code clazz} discriminators of the message
+ * and of the payload are peeked on the way and the payload is bound by a reader of its registered type, without
+ * polymorphic type resolution and without building the message object. Payloads that do not start with the
+ * discriminator, like the ones sent by the topology engine, are buffered until the discriminator is found.
+ *
+ * <p>Handlers are registered before the first message is dispatched, then the dispatcher is thread safe.
+ *
+ * @param <C> dispatch context type
+ */
+public final class InfoMessageDispatcher<C> {
+    /**
+     * Message type discriminator property.
+     */
+    private static final String TYPE_PROPERTY = "clazz";
+
+    /**
+     * Mapper binding messages as their declared types, the discriminator is skipped as an ignored property. It is
+     * not a copy of the common mapper, a copy would share the typed deserializers the common mapper has cached.
+     */
+    private static final ObjectMapper UNTYPED_MAPPER = new ObjectMapper()
+            .addMixIn(BaseMessage.class, UntypedMessage.class);
+
+    /**
+     * Registered payload types by discriminator.
+     */
+    private final Map<String, Route<?>> routes = new HashMap<>();
+
+    /**
+     * Handles decoded payload.
+     *
+     * @param <T> payload type
+     * @param <C> dispatch context type
+     */
+    @FunctionalInterface
+    public interface Handler<T extends InfoData, C> {
+        /**
+         * Handles payload.
+         *
+         * @param data    payload
+         * @param context dispatch context
+         * @throws IOException if payload handling failed
+         */
+        void handle(T data, C context) throws IOException;
+    }
+
+    /**
+     * Registers handler of the payload type, the payload subtypes are not dispatched to it.
+     *
+     * @param type    payload type
+     * @param handler payload handler
+     * @param <T>     payload type
+     * @return this dispatcher
+     */
+    public <T extends InfoData> InfoMessageDispatcher<C> register(Class<T> type, Handler<? super T, C> handler) {
+        routes.put(type.getName(), new Route<>(type, handler));
+        return this;
+    }
+
+    /**
+     * Decodes the message and passes its payload to the registered handler.
+     *
+     * @param json    message json
+     * @param context dispatch context
+     * @return false if the message is not an {@link InfoMessage} or no handler is registered for the payload type
+     * @throws IOException if message could not be decoded or payload handling failed
+     */
+    public boolean dispatch(String json, C context) throws IOException {
+        String messageType = null;
+        InfoData data = null;
+
+        try (JsonParser parser = UNTYPED_MAPPER.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Message is not a json object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (TYPE_PROPERTY.equals(field)) {
+                    messageType = parser.getValueAsString();
+                    if (!InfoMessage.class.getName().equals(messageType)) {
+                        return false;
+                    }
+                } else if (PAYLOAD.equals(field) && token == JsonToken.START_OBJECT) {
+                    data = readPayload(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (messageType == null || data == null) {
+            return false;
+        }
+        routes.get(data.getClass().getName()).handle(data, context);
+        return true;
+    }
+
+    /**
+     * Reads the payload object the parser is positioned at.
+     *
+     * @param parser message parser
+     * @return payload or null if no handler is registered for the payload type
+     * @throws IOException if payload could not be decoded
+     */
+    private InfoData readPayload(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.FIELD_NAME && TYPE_PROPERTY.equals(parser.getCurrentName())) {
+            parser.nextToken();
+            Route<?> route = routes.get(parser.getValueAsString());
+            if (route == null) {
+                skipObject(parser);
+                return null;
+            }
+            parser.nextToken();
+            return route.reader.readValue(parser);
+        }
+
+        String type = null;
+        TokenBuffer buffer = new TokenBuffer(parser);
+        buffer.writeStartObject();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            buffer.copyCurrentStructure(parser);
+            if (TYPE_PROPERTY.equals(field)) {
+                type = parser.getValueAsString();
+            }
+        }
+        buffer.writeEndObject();
+
+        Route<?> route = routes.get(type);
+        if (route == null) {
+            return null;
+        }
+        try (JsonParser bufferParser = buffer.asParser(parser)) {
+            return route.reader.readValue(bufferParser);
+        }
+    }
+
+    /**
+     * Skips the rest of the object the parser is in.
+     */
+    private static void skipObject(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * Payload reader and handler.
+     */
+    private final class Route<T extends InfoData> {
+        private final Class<T> type;
+        private final ObjectReader reader;
+        private final Handler<? super T, C> handler;
+
+        Route(Class<T> type, Handler<? super T, C> handler) {
+            this.type = type;
+            this.reader = UNTYPED_MAPPER.readerFor(type);
+            this.handler = handler;
+        }
+
+        void handle(InfoData data, C context) throws IOException {
+            handler.handle(type.cast(data), context);
+        }
+    }
+
+    /**
+     * Disables polymorphic type handling of messages.
+     */
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NONE)
+    @JsonIgnoreProperties(TYPE_PROPERTY)
+    private abstract static class UntypedMessage {
+    }
+}
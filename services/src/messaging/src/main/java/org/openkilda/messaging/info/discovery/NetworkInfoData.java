@@ -35,6 +35,9 @@ import java.util.Set;
 
 /**
  * Represents network dump response.
+ *
+ * <p>A dump requested in chunks comes as a sequence of messages numbered from zero, the last one is marked with
+ * {@code last_chunk}. A dump without chunk number is complete in a single message.
  */
 @JsonSerialize
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -43,7 +46,9 @@ import java.util.Set;
         "requester",
         "switches",
         "isls",
-        "flows"})
+        "flows",
+        "chunk_number",
+        "last_chunk"})
 public class NetworkInfoData extends InfoData {
     /**
      * Serialization version number constant.
@@ -80,6 +85,18 @@ public class NetworkInfoData extends InfoData {
     @JsonProperty("flows")
     private Set<ImmutablePair<Flow, Flow>> flows;
 
+    /**
+     * Chunk sequence number, or null if the dump is not chunked.
+     */
+    @JsonProperty("chunk_number")
+    private Integer chunkNumber;
+
+    /**
+     * Whether the chunk is the last one of the dump, or null if the dump is not chunked.
+     */
+    @JsonProperty("last_chunk")
+    private Boolean lastChunk;
+
     /**
      * Default constructor.
      */
@@ -94,17 +111,37 @@ public class NetworkInfoData extends InfoData {
      * @param isls      isls
      * @param flows     flows
      */
+    public NetworkInfoData(String requester, Set<SwitchInfoData> switches, Set<PortInfoData> ports,
+                           Set<IslInfoData> isls, Set<ImmutablePair<Flow, Flow>> flows) {
+        this(requester, switches, ports, isls, flows, null, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param requester   requester
+     * @param switches    switches
+     * @param ports       ports
+     * @param isls        isls
+     * @param flows       flows
+     * @param chunkNumber chunk sequence number, or null if the dump is not chunked
+     * @param lastChunk   whether the chunk is the last one, or null if the dump is not chunked
+     */
     @JsonCreator
     public NetworkInfoData(@JsonProperty("requester") String requester,
                            @JsonProperty("switches") Set<SwitchInfoData> switches,
                            @JsonProperty("ports") Set<PortInfoData> ports,
                            @JsonProperty("isls") Set<IslInfoData> isls,
-                           @JsonProperty("flows") Set<ImmutablePair<Flow, Flow>> flows) {
+                           @JsonProperty("flows") Set<ImmutablePair<Flow, Flow>> flows,
+                           @JsonProperty("chunk_number") Integer chunkNumber,
+                           @JsonProperty("last_chunk") Boolean lastChunk) {
         this.requester = requester;
         this.switches = switches;
         this.ports = ports;
         this.isls = isls;
         this.flows = flows;
+        this.chunkNumber = chunkNumber;
+        this.lastChunk = lastChunk;
     }
 
     /**
@@ -198,6 +235,42 @@ public class NetworkInfoData extends InfoData {
         this.flows = flows;
     }
 
+    /**
+     * Returns chunk sequence number.
+     *
+     * @return chunk sequence number, or null if the dump is not chunked
+     */
+    public Integer getChunkNumber() {
+        return chunkNumber;
+    }
+
+    /**
+     * Sets chunk sequence number.
+     *
+     * @param chunkNumber chunk sequence number
+     */
+    public void setChunkNumber(Integer chunkNumber) {
+        this.chunkNumber = chunkNumber;
+    }
+
+    /**
+     * Returns whether the chunk is the last one of the dump.
+     *
+     * @return last chunk flag, or null if the dump is not chunked
+     */
+    public Boolean getLastChunk() {
+        return lastChunk;
+    }
+
+    /**
+     * Sets whether the chunk is the last one of the dump.
+     *
+     * @param lastChunk last chunk flag
+     */
+    public void setLastChunk(Boolean lastChunk) {
+        this.lastChunk = lastChunk;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -209,6 +282,8 @@ public class NetworkInfoData extends InfoData {
                 .add("ports", ports)
                 .add("isls", isls)
                 .add("flows", flows)
+                .add("chunk_number", chunkNumber)
+                .add("last_chunk", lastChunk)
                 .toString();
     }
 
@@ -217,7 +292,7 @@ public class NetworkInfoData extends InfoData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(requester, switches, ports, isls, flows);
+        return Objects.hash(requester, switches, ports, isls, flows, chunkNumber, lastChunk);
     }
 
     /**
@@ -237,6 +312,8 @@ public class NetworkInfoData extends InfoData {
                 && Objects.equals(getSwitches(), that.getSwitches())
                 && Objects.equals(getPorts(), that.getPorts())
                 && Objects.equals(getIsls(), that.getIsls())
-                && Objects.equals(getFlows(), that.getFlows());
+                && Objects.equals(getFlows(), that.getFlows())
+                && Objects.equals(getChunkNumber(), that.getChunkNumber())
+                && Objects.equals(getLastChunk(), that.getLastChunk());
     }
 }
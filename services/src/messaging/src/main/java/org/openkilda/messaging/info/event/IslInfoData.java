@@ -39,6 +39,7 @@ import java.util.Objects;
         "path",
         "speed",
         "available_bandwidth",
+        "cost",
         "state"})
 public class IslInfoData extends PathInfoData {
     /**
@@ -64,6 +65,12 @@ public class IslInfoData extends PathInfoData {
     @JsonProperty("available_bandwidth")
     private long availableBandwidth;
 
+    /**
+     * Isl cost, zero if it is not set in the link properties.
+     */
+    @JsonProperty("cost")
+    private long cost;
+
     /**
      * Isl state.
      */
@@ -88,6 +95,20 @@ public class IslInfoData extends PathInfoData {
         this.state = that.state;
         this.latency = that.latency;
         this.availableBandwidth = that.availableBandwidth;
+        this.cost = that.cost;
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param latency            latency
+     * @param path               path
+     * @param speed              port speed
+     * @param state              isl discovery result
+     * @param availableBandwidth isl available bandwidth
+     */
+    public IslInfoData(long latency, List<PathNode> path, long speed, IslChangeType state, long availableBandwidth) {
+        this(latency, path, speed, state, availableBandwidth, 0L);
     }
 
     /**
@@ -98,18 +119,21 @@ public class IslInfoData extends PathInfoData {
      * @param speed              port speed
      * @param state              isl discovery result
      * @param availableBandwidth isl available bandwidth
+     * @param cost               isl cost
      */
     @JsonCreator
     public IslInfoData(@JsonProperty("latency_ns") long latency,
                        @JsonProperty("path") List<PathNode> path,
                        @JsonProperty("speed") long speed,
                        @JsonProperty("state") IslChangeType state,
-                       @JsonProperty("available_bandwidth") long availableBandwidth) {
+                       @JsonProperty("available_bandwidth") long availableBandwidth,
+                       @JsonProperty("cost") long cost) {
         this.latency = latency;
         this.path = path;
         this.speed = speed;
         this.state = state;
         this.availableBandwidth = availableBandwidth;
+        this.cost = cost;
         this.id = String.format("%s_%s", path.get(0).getSwitchId(), String.valueOf(path.get(0).getPortNo()));
     }
 
@@ -167,6 +191,24 @@ public class IslInfoData extends PathInfoData {
         this.availableBandwidth = availableBandwidth;
     }
 
+    /**
+     * Gets isl cost.
+     *
+     * @return isl cost, zero if it is not set
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Sets isl cost.
+     *
+     * @param cost isl cost
+     */
+    public void setCost(long cost) {
+        this.cost = cost;
+    }
+
     /**
      * Returns isl state.
      *
@@ -195,6 +237,7 @@ public class IslInfoData extends PathInfoData {
                 .add("path", path)
                 .add("speed", speed)
                 .add("available_bandwidth", availableBandwidth)
+                .add("cost", cost)
                 .add("state", state)
                 .toString();
     }
@@ -204,7 +247,7 @@ public class IslInfoData extends PathInfoData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(latency, path, speed, availableBandwidth, state);
+        return Objects.hash(latency, path, speed, availableBandwidth, cost, state);
     }
 
     /**
@@ -224,6 +267,7 @@ public class IslInfoData extends PathInfoData {
                 && Objects.equals(getPath(), that.getPath())
                 && Objects.equals(getSpeed(), that.getSpeed())
                 && Objects.equals(getAvailableBandwidth(), that.getAvailableBandwidth())
+                && Objects.equals(getCost(), that.getCost())
                 && Objects.equals(getState(), that.getState());
     }
 }
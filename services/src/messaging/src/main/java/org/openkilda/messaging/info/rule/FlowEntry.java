@@ -0,0 +1,216 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info.rule;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents a rule installed on a switch, as reported by the flow table dump.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "cookie",
+        "table_id",
+        "priority",
+        "duration_sec",
+        "idle_timeout",
+        "hard_timeout",
+        "packet_count",
+        "byte_count",
+        "match",
+        "instructions"})
+public class FlowEntry implements Serializable {
+    /**
+     * Serialization version number constant.
+     */
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("cookie")
+    private long cookie;
+
+    @JsonProperty("table_id")
+    private int tableId;
+
+    @JsonProperty("priority")
+    private int priority;
+
+    @JsonProperty("duration_sec")
+    private long durationSeconds;
+
+    @JsonProperty("idle_timeout")
+    private int idleTimeout;
+
+    @JsonProperty("hard_timeout")
+    private int hardTimeout;
+
+    @JsonProperty("packet_count")
+    private long packetCount;
+
+    @JsonProperty("byte_count")
+    private long byteCount;
+
+    /**
+     * Match fields by name.
+     */
+    @JsonProperty("match")
+    private Map<String, String> match;
+
+    /**
+     * Instructions in their text form.
+     */
+    @JsonProperty("instructions")
+    private List<String> instructions;
+
+    /**
+     * Instance constructor.
+     *
+     * @param cookie          rule cookie
+     * @param tableId         table id
+     * @param priority        rule priority
+     * @param durationSeconds seconds the rule has been installed for
+     * @param idleTimeout     idle timeout
+     * @param hardTimeout     hard timeout
+     * @param packetCount     number of packets matched
+     * @param byteCount       number of bytes matched
+     * @param match           match fields by name
+     * @param instructions    instructions in their text form
+     */
+    @JsonCreator
+    public FlowEntry(@JsonProperty("cookie") long cookie,
+                     @JsonProperty("table_id") int tableId,
+                     @JsonProperty("priority") int priority,
+                     @JsonProperty("duration_sec") long durationSeconds,
+                     @JsonProperty("idle_timeout") int idleTimeout,
+                     @JsonProperty("hard_timeout") int hardTimeout,
+                     @JsonProperty("packet_count") long packetCount,
+                     @JsonProperty("byte_count") long byteCount,
+                     @JsonProperty("match") Map<String, String> match,
+                     @JsonProperty("instructions") List<String> instructions) {
+        this.cookie = cookie;
+        this.tableId = tableId;
+        this.priority = priority;
+        this.durationSeconds = durationSeconds;
+        this.idleTimeout = idleTimeout;
+        this.hardTimeout = hardTimeout;
+        this.packetCount = packetCount;
+        this.byteCount = byteCount;
+        this.match = match;
+        this.instructions = instructions;
+    }
+
+    public long getCookie() {
+        return cookie;
+    }
+
+    public int getTableId() {
+        return tableId;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public int getHardTimeout() {
+        return hardTimeout;
+    }
+
+    public long getPacketCount() {
+        return packetCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public Map<String, String> getMatch() {
+        return match;
+    }
+
+    public List<String> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("cookie", Long.toHexString(cookie))
+                .add("table_id", tableId)
+                .add("priority", priority)
+                .add("duration_sec", durationSeconds)
+                .add("idle_timeout", idleTimeout)
+                .add("hard_timeout", hardTimeout)
+                .add("packet_count", packetCount)
+                .add("byte_count", byteCount)
+                .add("match", match)
+                .add("instructions", instructions)
+                .toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(cookie, tableId, priority, durationSeconds, idleTimeout, hardTimeout,
+                packetCount, byteCount, match, instructions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        FlowEntry that = (FlowEntry) object;
+        return cookie == that.cookie
+                && tableId == that.tableId
+                && priority == that.priority
+                && durationSeconds == that.durationSeconds
+                && idleTimeout == that.idleTimeout
+                && hardTimeout == that.hardTimeout
+                && packetCount == that.packetCount
+                && byteCount == that.byteCount
+                && Objects.equals(match, that.match)
+                && Objects.equals(instructions, that.instructions);
+    }
+}
@@ -0,0 +1,142 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info.rule;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import org.openkilda.messaging.info.InfoData;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Represents a chunk of the flow table dump of a switch.
+ *
+ * <p>The dump comes as a sequence of messages numbered from zero, the last one is marked with {@code last_chunk}.
+ */
+@JsonSerialize
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "message_type",
+        "switch_id",
+        "flow_entries",
+        "chunk_number",
+        "last_chunk"})
+public class SwitchFlowEntries extends InfoData {
+    /**
+     * Serialization version number constant.
+     */
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("switch_id")
+    private String switchId;
+
+    @JsonProperty("flow_entries")
+    private List<FlowEntry> flowEntries;
+
+    /**
+     * Chunk sequence number.
+     */
+    @JsonProperty("chunk_number")
+    private int chunkNumber;
+
+    /**
+     * Whether the chunk is the last one of the dump.
+     */
+    @JsonProperty("last_chunk")
+    private boolean lastChunk;
+
+    /**
+     * Instance constructor.
+     *
+     * @param switchId    switch id
+     * @param flowEntries rules of the chunk
+     * @param chunkNumber chunk sequence number
+     * @param lastChunk   whether the chunk is the last one
+     */
+    @JsonCreator
+    public SwitchFlowEntries(@JsonProperty("switch_id") String switchId,
+                             @JsonProperty("flow_entries") List<FlowEntry> flowEntries,
+                             @JsonProperty("chunk_number") int chunkNumber,
+                             @JsonProperty("last_chunk") boolean lastChunk) {
+        this.switchId = switchId;
+        this.flowEntries = flowEntries;
+        this.chunkNumber = chunkNumber;
+        this.lastChunk = lastChunk;
+    }
+
+    public String getSwitchId() {
+        return switchId;
+    }
+
+    public List<FlowEntry> getFlowEntries() {
+        return flowEntries;
+    }
+
+    public int getChunkNumber() {
+        return chunkNumber;
+    }
+
+    public boolean isLastChunk() {
+        return lastChunk;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("switch_id", switchId)
+                .add("flow_entries", flowEntries)
+                .add("chunk_number", chunkNumber)
+                .add("last_chunk", lastChunk)
+                .toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(switchId, flowEntries, chunkNumber, lastChunk);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        SwitchFlowEntries that = (SwitchFlowEntries) object;
+        return chunkNumber == that.chunkNumber
+                && lastChunk == that.lastChunk
+                && Objects.equals(switchId, that.switchId)
+                && Objects.equals(flowEntries, that.flowEntries);
+    }
+}
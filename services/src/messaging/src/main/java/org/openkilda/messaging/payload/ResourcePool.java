@@ -16,28 +16,69 @@
 package org.openkilda.messaging.payload;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.collect.ContiguousSet;
-import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Range;
 
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Class represents resource allocator/deallocator.
+ *
+ * <p>Allocated ids of the range are kept in a bitmap of 64-bit words updated with compare-and-set, so allocation
+ * and deallocation are lock-free and do not box. Allocation starts from the hint word, which is never past the
+ * lowest word with a free id when there is no concurrent deallocation, so the lowest free id is allocated.
+ * Ids outside of the range may still be reserved explicitly, they are kept aside in a set.
  */
 public class ResourcePool {
     /**
-     * Resource values pool.
+     * Bits in a bitmap word.
+     */
+    private static final int WORD_SIZE = Long.SIZE;
+
+    /**
+     * Shift converting an id offset to a bitmap word index.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Value of a bitmap word with no free ids.
      */
-    private final Set<Integer> resources = ConcurrentHashMap.newKeySet();
+    private static final long FULL_WORD = -1L;
 
     /**
      * Resource range of values.
      */
     private final Range<Integer> range;
 
+    /**
+     * Minimum resource id value.
+     */
+    private final int minValue;
+
+    /**
+     * Maximum resource id value.
+     */
+    private final int maxValue;
+
+    /**
+     * Allocated resource ids bitmap, bit n of word w stands for id {@code minValue + w * 64 + n}.
+     */
+    private final AtomicLongArray bitmap;
+
+    /**
+     * Index of the word to start allocation from.
+     */
+    private final AtomicInteger hint = new AtomicInteger();
+
+    /**
+     * Explicitly allocated resource ids outside of the range.
+     */
+    private final Set<Integer> outOfRange = ConcurrentHashMap.newKeySet();
+
     /**
      * Instance constructor.
      *
@@ -46,6 +87,16 @@ public class ResourcePool {
      */
     public ResourcePool(final Integer minValue, final Integer maxValue) {
         this.range = Range.closed(minValue, maxValue);
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+
+        long size = (long) maxValue - minValue + 1;
+        this.bitmap = new AtomicLongArray((int) ((size + WORD_SIZE - 1) >>> WORD_SHIFT));
+
+        int tail = (int) (size % WORD_SIZE);
+        if (tail != 0) {
+            bitmap.set(bitmap.length() - 1, FULL_WORD << tail);
+        }
     }
 
     /**
@@ -54,11 +105,24 @@ public class ResourcePool {
      * @return allocated resource id
      */
     public Integer allocate() {
-        for (Integer id : ContiguousSet.create(range, DiscreteDomain.integers())) {
-            if (resources.add(id)) {
-                return id;
+        int words = bitmap.length();
+        int start = hint.get();
+
+        for (int i = 0; i < words; i++) {
+            int index = start + i < words ? start + i : start + i - words;
+            long word = bitmap.get(index);
+
+            while (word != FULL_WORD) {
+                long bit = Long.lowestOneBit(~word);
+                if (bitmap.compareAndSet(index, word, word | bit)) {
+                    int next = (word | bit) == FULL_WORD ? index + 1 : index;
+                    hint.compareAndSet(start, next < words ? next : 0);
+                    return minValue + (index << WORD_SHIFT) + Long.numberOfTrailingZeros(bit);
+                }
+                word = bitmap.get(index);
             }
         }
+
         throw new ArrayIndexOutOfBoundsException("Could not allocate resource: pool is full");
     }
 
@@ -69,7 +133,86 @@ public class ResourcePool {
      * @return allocated resource id
      */
     public Integer allocate(Integer id) {
-        return resources.add(id) ? id : null;
+        if (!contains(id)) {
+            return outOfRange.add(id) ? id : null;
+        }
+
+        int offset = id - minValue;
+        int index = offset >>> WORD_SHIFT;
+        long bit = 1L << offset;
+
+        long word = bitmap.get(index);
+        while ((word & bit) == 0) {
+            if (bitmap.compareAndSet(index, word, word | bit)) {
+                return id;
+            }
+            word = bitmap.get(index);
+        }
+
+        return null;
+    }
+
+    /**
+     * Allocates the lowest resource id which is free in every pool, e.g. a transit vlan free on every isl of a path.
+     *
+     * <p>Free ids are found by merging pool bitmaps word by word. The id is then claimed in the pools one by one,
+     * if a concurrent allocation takes it in one of them the claimed ids are released and the search goes on.
+     *
+     * @param pools {@link ResourcePool} instances with the same range
+     * @return allocated resource id
+     */
+    public static Integer allocate(List<ResourcePool> pools) {
+        ResourcePool first = pools.get(0);
+        for (ResourcePool pool : pools) {
+            if (pool.minValue != first.minValue || pool.maxValue != first.maxValue) {
+                throw new IllegalArgumentException(String.format(
+                        "Could not allocate resource: pool ranges %s and %s differ", first.range, pool.range));
+            }
+        }
+
+        for (int index = 0; index < first.bitmap.length(); index++) {
+            long merged = 0L;
+            for (ResourcePool pool : pools) {
+                merged |= pool.bitmap.get(index);
+            }
+
+            while (merged != FULL_WORD) {
+                long bit = Long.lowestOneBit(~merged);
+                int id = first.minValue + (index << WORD_SHIFT) + Long.numberOfTrailingZeros(bit);
+                if (claim(pools, id)) {
+                    return id;
+                }
+                merged |= bit;
+            }
+        }
+
+        throw new ArrayIndexOutOfBoundsException("Could not allocate resource: pools are full");
+    }
+
+    /**
+     * Allocates the resource id in every pool or in none of them.
+     *
+     * @param pools {@link ResourcePool} instances
+     * @param id    resource id
+     * @return allocated resource id, or null if it is allocated in any of the pools
+     */
+    public static Integer allocate(List<ResourcePool> pools, Integer id) {
+        return claim(pools, id) ? id : null;
+    }
+
+    /**
+     * Allocates resource id in every pool or in none of them.
+     */
+    private static boolean claim(List<ResourcePool> pools, int id) {
+        for (int i = 0; i < pools.size(); i++) {
+            if (pools.get(i).allocate(id) == null) {
+                for (int j = 0; j < i; j++) {
+                    pools.get(j).deallocate(id);
+                }
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -79,7 +222,27 @@ public class ResourcePool {
      * @return true if specified resource id was previously allocated
      */
     public Integer deallocate(final Integer resourceId) {
-        return resources.remove(resourceId) ? resourceId : null;
+        if (!contains(resourceId)) {
+            return outOfRange.remove(resourceId) ? resourceId : null;
+        }
+
+        int offset = resourceId - minValue;
+        int index = offset >>> WORD_SHIFT;
+        long bit = 1L << offset;
+
+        long word = bitmap.get(index);
+        while ((word & bit) != 0) {
+            if (bitmap.compareAndSet(index, word, word & ~bit)) {
+                int current = hint.get();
+                while (current > index && !hint.compareAndSet(current, index)) {
+                    current = hint.get();
+                }
+                return resourceId;
+            }
+            word = bitmap.get(index);
+        }
+
+        return null;
     }
 
     /**
@@ -88,7 +251,24 @@ public class ResourcePool {
      * @return {@link ImmutableSet} of allocated resources id
      */
     public Set<Integer> dumpPool() {
-        return ImmutableSet.copyOf(resources);
+        ImmutableSet.Builder<Integer> resources = ImmutableSet.builder();
+
+        for (int index = 0; index < bitmap.length(); index++) {
+            long word = bitmap.get(index);
+            while (word != 0) {
+                int id = minValue + (index << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+                if (id <= maxValue) {
+                    resources.add(id);
+                }
+                word &= word - 1;
+            }
+        }
+
+        return resources.addAll(outOfRange).build();
+    }
+
+    private boolean contains(int id) {
+        return id >= minValue && id <= maxValue;
     }
 
     /**
@@ -98,7 +278,7 @@ public class ResourcePool {
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("range", range)
-                .add("resources", resources)
+                .add("resources", dumpPool())
                 .toString();
     }
 }
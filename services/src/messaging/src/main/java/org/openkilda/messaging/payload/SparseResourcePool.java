@@ -0,0 +1,364 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.payload;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Resource allocator/deallocator for large id ranges, up to the whole unsigned 32-bit space.
+ *
+ * <p>Unlike {@link ResourcePool}, memory does not depend on the range size. Ids are split into chunks of 65536,
+ * a chunk bitmap is only kept while it has allocated ids, so memory grows with the number of allocated ids.
+ * Two levels of summary bitmaps mark full chunks and full words of a chunk, so finding the lowest free id takes
+ * a constant number of word operations regardless of range size and occupancy.
+ */
+public class SparseResourcePool {
+    /**
+     * Maximum resource id value supported.
+     */
+    public static final long MAX_SUPPORTED_VALUE = 0xFFFFFFFFL;
+
+    /**
+     * Bits of the id offset within a chunk.
+     */
+    private static final int CHUNK_SHIFT = 16;
+
+    /**
+     * Number of chunks covering the 32-bit space.
+     */
+    private static final int CHUNKS = 1 << (Integer.SIZE - CHUNK_SHIFT);
+
+    /**
+     * Bits of the chunk index within a page of chunk references.
+     */
+    private static final int PAGE_SHIFT = 8;
+
+    /**
+     * Value of a bitmap word with all bits set.
+     */
+    private static final long FULL_WORD = -1L;
+
+    /**
+     * Resource range of values.
+     */
+    private final Range<Long> range;
+
+    /**
+     * Minimum resource id value.
+     */
+    private final long minValue;
+
+    /**
+     * Maximum resource id value.
+     */
+    private final long maxValue;
+
+    /**
+     * Chunks by chunk index, grouped into lazily created pages.
+     */
+    private final Chunk[][] pages = new Chunk[CHUNKS >>> PAGE_SHIFT][];
+
+    /**
+     * Full chunks bitmap, chunks outside of the range are marked full.
+     */
+    private final long[] fullChunks = new long[CHUNKS / Long.SIZE];
+
+    /**
+     * Summary of {@link #fullChunks}, a bit is set if the corresponding word has all chunks full.
+     */
+    private final long[] fullChunkWords = new long[CHUNKS / Long.SIZE / Long.SIZE];
+
+    /**
+     * Explicitly allocated resource ids outside of the range.
+     */
+    private final Set<Long> outOfRange = new HashSet<>();
+
+    /**
+     * Number of allocated ids within the range.
+     */
+    private long allocated;
+
+    /**
+     * Instance constructor.
+     *
+     * @param minValue minimum resource id value
+     * @param maxValue maximum resource id value, not greater than {@link #MAX_SUPPORTED_VALUE}
+     */
+    public SparseResourcePool(final long minValue, final long maxValue) {
+        if (minValue < 0 || maxValue > MAX_SUPPORTED_VALUE || minValue > maxValue) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid resource range [%d, %d]", minValue, maxValue));
+        }
+
+        this.range = Range.closed(minValue, maxValue);
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+
+        int firstChunk = (int) (minValue >>> CHUNK_SHIFT);
+        int lastChunk = (int) (maxValue >>> CHUNK_SHIFT);
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            if (chunk < firstChunk || chunk > lastChunk) {
+                setChunkFull(chunk, true);
+            }
+        }
+
+        // ids of the boundary chunks outside of the range are reserved, so these chunks are never released
+        for (long id = (long) firstChunk << CHUNK_SHIFT; id < minValue; id++) {
+            getChunk(firstChunk).set(offset(id));
+        }
+        for (long id = maxValue + 1; id < (long) (lastChunk + 1) << CHUNK_SHIFT; id++) {
+            getChunk(lastChunk).set(offset(id));
+        }
+    }
+
+    /**
+     * Allocates the lowest free resource id.
+     *
+     * @return allocated resource id
+     */
+    public synchronized long allocate() {
+        int chunkIndex = firstClear(fullChunkWords, fullChunks);
+        if (chunkIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException("Could not allocate resource: pool is full");
+        }
+
+        Chunk chunk = getChunk(chunkIndex);
+        int offset = chunk.firstClear();
+        chunk.set(offset);
+        if (chunk.isFull()) {
+            setChunkFull(chunkIndex, true);
+        }
+        allocated++;
+
+        return ((long) chunkIndex << CHUNK_SHIFT) | offset;
+    }
+
+    /**
+     * Allocates resource id.
+     *
+     * @param id resource id
+     * @return allocated resource id or null if it is already allocated
+     */
+    public synchronized Long allocate(long id) {
+        if (!contains(id)) {
+            return outOfRange.add(id) ? id : null;
+        }
+
+        int chunkIndex = (int) (id >>> CHUNK_SHIFT);
+        Chunk chunk = getChunk(chunkIndex);
+        if (!chunk.set(offset(id))) {
+            return null;
+        }
+        if (chunk.isFull()) {
+            setChunkFull(chunkIndex, true);
+        }
+        allocated++;
+
+        return id;
+    }
+
+    /**
+     * Deallocates previously allocated resource id.
+     *
+     * @param id resource id
+     * @return deallocated resource id or null if it was not allocated
+     */
+    public synchronized Long deallocate(long id) {
+        if (!contains(id)) {
+            return outOfRange.remove(id) ? id : null;
+        }
+
+        int chunkIndex = (int) (id >>> CHUNK_SHIFT);
+        Chunk[] page = pages[chunkIndex >>> PAGE_SHIFT];
+        Chunk chunk = page == null ? null : page[chunkIndex & ((1 << PAGE_SHIFT) - 1)];
+        if (chunk == null) {
+            return null;
+        }
+
+        boolean wasFull = chunk.isFull();
+        if (!chunk.clear(offset(id))) {
+            return null;
+        }
+        if (wasFull) {
+            setChunkFull(chunkIndex, false);
+        }
+        if (chunk.isEmpty()) {
+            page[chunkIndex & ((1 << PAGE_SHIFT) - 1)] = null;
+        }
+        allocated--;
+
+        return id;
+    }
+
+    /**
+     * Gets number of allocated resource ids.
+     *
+     * @return number of allocated resource ids
+     */
+    public synchronized long size() {
+        return allocated + outOfRange.size();
+    }
+
+    /**
+     * Returns copy of resource pool.
+     *
+     * @return {@link ImmutableSet} of allocated resources id
+     */
+    public synchronized Set<Long> dumpPool() {
+        ImmutableSet.Builder<Long> resources = ImmutableSet.builder();
+
+        for (int pageIndex = 0; pageIndex < pages.length; pageIndex++) {
+            Chunk[] page = pages[pageIndex];
+            if (page == null) {
+                continue;
+            }
+
+            for (int i = 0; i < page.length; i++) {
+                if (page[i] == null) {
+                    continue;
+                }
+
+                long base = (long) ((pageIndex << PAGE_SHIFT) | i) << CHUNK_SHIFT;
+                long[] words = page[i].words;
+                for (int w = 0; w < words.length; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        long id = base + (w << 6) + Long.numberOfTrailingZeros(word);
+                        if (contains(id)) {
+                            resources.add(id);
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+
+        return resources.addAll(outOfRange).build();
+    }
+
+    private boolean contains(long id) {
+        return id >= minValue && id <= maxValue;
+    }
+
+    private static int offset(long id) {
+        return (int) (id & ((1 << CHUNK_SHIFT) - 1));
+    }
+
+    private Chunk getChunk(int chunkIndex) {
+        Chunk[] page = pages[chunkIndex >>> PAGE_SHIFT];
+        if (page == null) {
+            page = new Chunk[1 << PAGE_SHIFT];
+            pages[chunkIndex >>> PAGE_SHIFT] = page;
+        }
+
+        Chunk chunk = page[chunkIndex & ((1 << PAGE_SHIFT) - 1)];
+        if (chunk == null) {
+            chunk = new Chunk();
+            page[chunkIndex & ((1 << PAGE_SHIFT) - 1)] = chunk;
+        }
+        return chunk;
+    }
+
+    private void setChunkFull(int chunkIndex, boolean full) {
+        setBit(fullChunkWords, fullChunks, chunkIndex, full);
+    }
+
+    /**
+     * Sets or clears a bit of the two level bitmap, keeping the summary of full words up to date.
+     */
+    private static void setBit(long[] summary, long[] words, int bit, boolean value) {
+        int word = bit >>> 6;
+        if (value) {
+            words[word] |= 1L << bit;
+            if (words[word] == FULL_WORD) {
+                summary[word >>> 6] |= 1L << word;
+            }
+        } else {
+            words[word] &= ~(1L << bit);
+            summary[word >>> 6] &= ~(1L << word);
+        }
+    }
+
+    /**
+     * Finds the lowest clear bit of the two level bitmap.
+     *
+     * @return bit index or -1 if all bits are set
+     */
+    private static int firstClear(long[] summary, long[] words) {
+        for (int i = 0; i < summary.length; i++) {
+            if (summary[i] != FULL_WORD) {
+                int word = (i << 6) + Long.numberOfTrailingZeros(~summary[i]);
+                return (word << 6) + Long.numberOfTrailingZeros(~words[word]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("range", range)
+                .add("allocated", size())
+                .toString();
+    }
+
+    /**
+     * Bitmap of a chunk of 65536 ids with the summary of full words.
+     */
+    private static final class Chunk {
+        private final long[] words = new long[(1 << CHUNK_SHIFT) / Long.SIZE];
+        private final long[] fullWords = new long[(1 << CHUNK_SHIFT) / Long.SIZE / Long.SIZE];
+        private int count;
+
+        boolean set(int offset) {
+            if ((words[offset >>> 6] & (1L << offset)) != 0) {
+                return false;
+            }
+            setBit(fullWords, words, offset, true);
+            count++;
+            return true;
+        }
+
+        boolean clear(int offset) {
+            if ((words[offset >>> 6] & (1L << offset)) == 0) {
+                return false;
+            }
+            setBit(fullWords, words, offset, false);
+            count--;
+            return true;
+        }
+
+        int firstClear() {
+            return SparseResourcePool.firstClear(fullWords, words);
+        }
+
+        boolean isFull() {
+            return count == 1 << CHUNK_SHIFT;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+    }
+}
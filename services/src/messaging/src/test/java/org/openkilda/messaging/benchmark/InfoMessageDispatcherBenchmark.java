@@ -0,0 +1,190 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.benchmark;
+
+import static org.openkilda.messaging.Utils.MAPPER;
+
+import org.openkilda.messaging.BaseMessage;
+import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.info.InfoData;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.InfoMessageDispatcher;
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.PortChangeType;
+import org.openkilda.messaging.info.event.PortInfoData;
+import org.openkilda.messaging.info.event.SwitchInfoData;
+import org.openkilda.messaging.info.event.SwitchState;
+import org.openkilda.messaging.info.flow.FlowInfoData;
+import org.openkilda.messaging.info.flow.FlowOperation;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.messaging.payload.flow.FlowState;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link InfoMessageDispatcher} with decoding as {@link BaseMessage} and an instanceof chain, the way the
+ * cache bolt decoded its input.
+ *
+ * <p>Messages are a mix of network events: isl events, port events, switch events and flow updates with
+ * four hop paths in proportion 50:25:15:10. With the {@code engine} order the payload discriminators come last,
+ * as in the messages sent by the topology engine. Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InfoMessageDispatcherBenchmark {
+    private static final int MESSAGES = 1000;
+    private static final int SWITCHES = 100;
+
+    @Param({"java", "engine"})
+    private String order;
+
+    private List<String> messages;
+    private InfoMessageDispatcher<Blackhole> dispatcher;
+    private int next;
+
+    /**
+     * Builds the message mix.
+     *
+     * @throws IOException if message could not be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            int kind = random.nextInt(100);
+            InfoData data;
+            if (kind < 50) {
+                data = new IslInfoData(10L, path(random, 2), 10000000L, IslChangeType.DISCOVERED, 9000000L);
+            } else if (kind < 75) {
+                data = new PortInfoData(switchId(random), random.nextInt(48) + 1, null, PortChangeType.DOWN);
+            } else if (kind < 90) {
+                data = new SwitchInfoData(switchId(random), SwitchState.ACTIVATED, "10.0.0.1:6653",
+                        "switch.local", "Nicira, Inc. OF_13 2.5.2", "10.0.0.2:6653");
+            } else {
+                Flow flow = new Flow("flow-" + i, 1000, false, i, "flow", "2017-10-10T10:00:00Z",
+                        switchId(random), switchId(random), 1, 2, 100, 200, i, 1024,
+                        new PathInfoData(40L, path(random, 8)), FlowState.UP);
+                data = new FlowInfoData(flow.getFlowId(), new ImmutablePair<>(flow, flow),
+                        FlowOperation.UPDATE, "correlation-" + i);
+            }
+
+            String json = MAPPER.writeValueAsString(
+                    new InfoMessage(data, System.currentTimeMillis(), "correlation-" + i, Destination.WFM_CACHE));
+            messages.add("engine".equals(order) ? typeLast(json) : json);
+        }
+        Collections.shuffle(messages, random);
+
+        dispatcher = new InfoMessageDispatcher<Blackhole>()
+                .register(SwitchInfoData.class, (data, blackhole) -> blackhole.consume(data))
+                .register(IslInfoData.class, (data, blackhole) -> blackhole.consume(data))
+                .register(PortInfoData.class, (data, blackhole) -> blackhole.consume(data))
+                .register(FlowInfoData.class, (data, blackhole) -> blackhole.consume(data));
+    }
+
+    private static String switchId(Random random) {
+        return String.format("00:00:00:00:00:00:00:%02x", random.nextInt(SWITCHES));
+    }
+
+    private static List<PathNode> path(Random random, int size) {
+        List<PathNode> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(new PathNode(switchId(random), random.nextInt(48) + 1, i, 10L));
+        }
+        return nodes;
+    }
+
+    private static String typeLast(String json) throws IOException {
+        ObjectNode message = (ObjectNode) MAPPER.readTree(json);
+        for (JsonNode node : Arrays.asList(message.get("payload"), message)) {
+            ObjectNode object = (ObjectNode) node;
+            object.set("clazz", object.remove("clazz"));
+        }
+        return MAPPER.writeValueAsString(message);
+    }
+
+    private String nextMessage() {
+        String message = messages.get(next);
+        next = (next + 1) % messages.size();
+        return message;
+    }
+
+    @Benchmark
+    public void dispatcher(Blackhole blackhole) throws IOException {
+        dispatcher.dispatch(nextMessage(), blackhole);
+    }
+
+    @Benchmark
+    public void polymorphic(Blackhole blackhole) throws IOException {
+        BaseMessage message = MAPPER.readValue(nextMessage(), BaseMessage.class);
+        if (message instanceof InfoMessage) {
+            InfoData data = ((InfoMessage) message).getData();
+            if (data instanceof SwitchInfoData) {
+                blackhole.consume((SwitchInfoData) data);
+            } else if (data instanceof IslInfoData) {
+                blackhole.consume((IslInfoData) data);
+            } else if (data instanceof PortInfoData) {
+                blackhole.consume((PortInfoData) data);
+            } else if (data instanceof FlowInfoData) {
+                blackhole.consume((FlowInfoData) data);
+            }
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     * @throws RunnerException if benchmark failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InfoMessageDispatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,125 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.benchmark;
+
+import org.openkilda.messaging.payload.ResourcePool;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ResourcePool} with the previous set based allocator on the transit vlan range.
+ *
+ * <p>Pools are filled lowest id first, the way ids are allocated in practice, up to the occupancy. Each operation
+ * allocates an id and frees it again, so the occupancy stays the same. Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResourcePoolBenchmark {
+    private static final int MIN_VLAN_ID = 2;
+    private static final int MAX_VLAN_ID = 4094;
+
+    @Param({"10", "50", "99"})
+    private int occupancy;
+
+    private ResourcePool bitmapPool;
+    private SetResourcePool setPool;
+
+    /**
+     * Fills the pools up to the occupancy.
+     */
+    @Setup
+    public void setUp() {
+        bitmapPool = new ResourcePool(MIN_VLAN_ID, MAX_VLAN_ID);
+        setPool = new SetResourcePool(MIN_VLAN_ID, MAX_VLAN_ID);
+
+        int allocated = (MAX_VLAN_ID - MIN_VLAN_ID + 1) * occupancy / 100;
+        for (int i = 0; i < allocated; i++) {
+            bitmapPool.allocate();
+            setPool.allocate();
+        }
+    }
+
+    @Benchmark
+    public Integer bitmap() {
+        return bitmapPool.deallocate(bitmapPool.allocate());
+    }
+
+    @Benchmark
+    public Integer set() {
+        return setPool.deallocate(setPool.allocate());
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     * @throws RunnerException if benchmark failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResourcePoolBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * The previous {@link ResourcePool} implementation, probes every id of the range from the lowest one.
+     */
+    private static final class SetResourcePool {
+        private final Set<Integer> resources = ConcurrentHashMap.newKeySet();
+        private final Range<Integer> range;
+
+        SetResourcePool(Integer minValue, Integer maxValue) {
+            this.range = Range.closed(minValue, maxValue);
+        }
+
+        Integer allocate() {
+            for (Integer id : ContiguousSet.create(range, DiscreteDomain.integers())) {
+                if (resources.add(id)) {
+                    return id;
+                }
+            }
+            throw new ArrayIndexOutOfBoundsException("Could not allocate resource: pool is full");
+        }
+
+        Integer deallocate(Integer resourceId) {
+            return resources.remove(resourceId) ? resourceId : null;
+        }
+    }
+}
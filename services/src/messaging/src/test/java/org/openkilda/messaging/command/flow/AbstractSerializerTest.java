@@ -24,6 +24,7 @@ import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.command.CommandMessage;
 import org.openkilda.messaging.command.discovery.HealthCheckCommandData;
+import org.openkilda.messaging.command.switches.DumpRulesRequest;
 import org.openkilda.messaging.error.ErrorData;
 import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.error.ErrorType;
@@ -42,6 +43,8 @@ import org.openkilda.messaging.info.flow.FlowPathResponse;
 import org.openkilda.messaging.info.flow.FlowResponse;
 import org.openkilda.messaging.info.flow.FlowStatusResponse;
 import org.openkilda.messaging.info.flow.FlowsResponse;
+import org.openkilda.messaging.info.rule.FlowEntry;
+import org.openkilda.messaging.info.rule.SwitchFlowEntries;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.messaging.payload.flow.FlowIdStatusPayload;
@@ -604,4 +607,66 @@ public abstract class AbstractSerializerTest implements AbstractSerializer {
         assertEquals(data, resultData);
         assertEquals(data.hashCode(), resultData.hashCode());
     }
+
+    @Test
+    public void dumpNetworkChunkResponseTest() throws IOException, ClassNotFoundException {
+        NetworkInfoData data = new NetworkInfoData(requester,
+                Collections.singleton(sw1),
+                null,
+                Collections.singleton(isl),
+                Collections.emptySet(),
+                3, true);
+        System.out.println(data);
+
+        InfoMessage info = new InfoMessage(data, System.currentTimeMillis(), CORRELATION_ID, DESTINATION);
+        serialize(info);
+
+        Message message = (Message) deserialize();
+        assertTrue(message instanceof InfoMessage);
+
+        NetworkInfoData resultData = (NetworkInfoData) ((InfoMessage) message).getData();
+        System.out.println(resultData);
+        assertEquals(data, resultData);
+        assertEquals(Integer.valueOf(3), resultData.getChunkNumber());
+        assertEquals(Boolean.TRUE, resultData.getLastChunk());
+    }
+
+    @Test
+    public void dumpRulesRequestTest() throws IOException, ClassNotFoundException {
+        DumpRulesRequest data = new DumpRulesRequest(SWITCH_ID, 500);
+        System.out.println(data);
+
+        CommandMessage command = new CommandMessage(data, System.currentTimeMillis(), CORRELATION_ID, DESTINATION);
+        serialize(command);
+
+        Message message = (Message) deserialize();
+        assertTrue(message instanceof CommandMessage);
+
+        DumpRulesRequest resultData = (DumpRulesRequest) ((CommandMessage) message).getData();
+        System.out.println(resultData);
+        assertEquals(data, resultData);
+        assertEquals(data.hashCode(), resultData.hashCode());
+    }
+
+    @Test
+    public void dumpRulesChunkResponseTest() throws IOException, ClassNotFoundException {
+        FlowEntry entry = new FlowEntry(COOKIE, 0, 1000, 10L, 0, 0, 5L, 500L,
+                Collections.singletonMap("in_port", String.valueOf(INPUT_PORT)),
+                Collections.singletonList("apply_actions"));
+        SwitchFlowEntries data = new SwitchFlowEntries(SWITCH_ID, Collections.singletonList(entry), 2, true);
+        System.out.println(data);
+
+        InfoMessage info = new InfoMessage(data, System.currentTimeMillis(), CORRELATION_ID, DESTINATION);
+        serialize(info);
+
+        Message message = (Message) deserialize();
+        assertTrue(message instanceof InfoMessage);
+
+        SwitchFlowEntries resultData = (SwitchFlowEntries) ((InfoMessage) message).getData();
+        System.out.println(resultData);
+        assertEquals(data, resultData);
+        assertEquals(data.hashCode(), resultData.hashCode());
+        assertEquals(2, resultData.getChunkNumber());
+        assertTrue(resultData.isLastChunk());
+    }
 }
@@ -0,0 +1,107 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.openkilda.messaging.Utils.MAPPER;
+
+import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.discovery.NetworkCommandData;
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.PortChangeType;
+import org.openkilda.messaging.info.event.PortInfoData;
+import org.openkilda.messaging.info.event.SwitchInfoData;
+import org.openkilda.messaging.info.event.SwitchState;
+import org.openkilda.messaging.info.flow.FlowInfoData;
+import org.openkilda.messaging.info.flow.FlowOperation;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.messaging.payload.flow.FlowState;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class InfoMessageDispatcherTest {
+    private static final String CORRELATION_ID = "correlation-id";
+
+    private final InfoMessageDispatcher<List<InfoData>> dispatcher = new InfoMessageDispatcher<List<InfoData>>()
+            .register(SwitchInfoData.class, (data, handled) -> handled.add(data))
+            .register(IslInfoData.class, (data, handled) -> handled.add(data))
+            .register(PortInfoData.class, (data, handled) -> handled.add(data))
+            .register(FlowInfoData.class, (data, handled) -> handled.add(data));
+
+    @Test
+    public void dispatchTyped() throws IOException {
+        List<PathNode> nodes = Arrays.asList(new PathNode("sw1", 1, 0, 10L), new PathNode("sw2", 2, 1));
+        Flow flow = new Flow("flow", 1000, false, 1L, "flow", "now", "sw1", "sw2", 10, 20, 100, 200, 1, 1024,
+                new PathInfoData(10L, nodes), FlowState.UP);
+        List<InfoData> events = Arrays.asList(
+                new SwitchInfoData("sw1", SwitchState.ACTIVATED, "1.1.1.1", "sw1", "switch-1", "kilda"),
+                new IslInfoData(10L, nodes, 1000L, IslChangeType.DISCOVERED, 900L),
+                new PortInfoData("sw1", 1, 0, PortChangeType.DOWN),
+                new FlowInfoData("flow", new ImmutablePair<>(flow, flow), FlowOperation.CREATE, CORRELATION_ID));
+
+        for (InfoData event : events) {
+            String json = MAPPER.writeValueAsString(
+                    new InfoMessage(event, 0L, CORRELATION_ID, Destination.WFM_CACHE));
+            List<InfoData> handled = new ArrayList<>();
+
+            assertTrue(dispatcher.dispatch(json, handled));
+            assertEquals(1, handled.size());
+            assertEquals(event.getClass(), handled.get(0).getClass());
+            assertEquals(MAPPER.writeValueAsString(event), MAPPER.writeValueAsString(handled.get(0)));
+        }
+    }
+
+    @Test
+    public void dispatchTypeNotFirst() throws IOException {
+        String json = "{\"payload\": {\"switch_id\": \"sw1\", \"port_no\": 1, \"state\": \"UP\", "
+                + "\"timestamp\": 0, \"clazz\": \"org.openkilda.messaging.info.event.PortInfoData\"}, "
+                + "\"timestamp\": 0, \"extra\": [{\"clazz\": \"none\"}], "
+                + "\"clazz\": \"org.openkilda.messaging.info.InfoMessage\"}";
+        List<InfoData> handled = new ArrayList<>();
+
+        assertTrue(dispatcher.dispatch(json, handled));
+        PortInfoData port = (PortInfoData) handled.get(0);
+        assertEquals("sw1", port.getSwitchId());
+        assertEquals(1, port.getPortNo());
+        assertEquals(PortChangeType.UP, port.getState());
+    }
+
+    @Test
+    public void skipUndefined() throws IOException {
+        List<InfoData> handled = new ArrayList<>();
+
+        String command = MAPPER.writeValueAsString(new CommandMessage(
+                new NetworkCommandData(), 0L, CORRELATION_ID, Destination.TOPOLOGY_ENGINE));
+        assertFalse(dispatcher.dispatch(command, handled));
+
+        String unregistered = MAPPER.writeValueAsString(new InfoMessage(
+                new PathInfoData(0L, new ArrayList<>()), 0L, CORRELATION_ID, Destination.WFM_CACHE));
+        assertFalse(dispatcher.dispatch(unregistered, handled));
+        assertTrue(handled.isEmpty());
+    }
+}
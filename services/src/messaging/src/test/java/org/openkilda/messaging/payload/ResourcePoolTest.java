@@ -16,9 +16,23 @@
 package org.openkilda.messaging.payload;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 public class ResourcePoolTest {
     private static final ResourcePool pool = new ResourcePool(1, 10);
 
@@ -46,4 +60,115 @@ public class ResourcePoolTest {
         pool.allocate();
         pool.allocate();
     }
+
+    @Test
+    public void resourcePoolAcrossWordsTest() {
+        ResourcePool pool = new ResourcePool(2, 4094);
+        for (int id = 2; id <= 200; id++) {
+            assertEquals(id, (int) pool.allocate(id));
+        }
+        assertNull(pool.allocate(100));
+
+        assertEquals(201, (int) pool.allocate());
+        pool.deallocate(65);
+        pool.deallocate(130);
+        assertEquals(65, (int) pool.allocate());
+        assertEquals(130, (int) pool.allocate());
+        assertEquals(202, (int) pool.allocate());
+        assertEquals(201, pool.dumpPool().size());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void resourcePoolFullAcrossWordsTest() {
+        ResourcePool pool = new ResourcePool(1, 100);
+        for (int i = 0; i < 100; i++) {
+            pool.allocate();
+        }
+        assertEquals(100, pool.dumpPool().size());
+        pool.allocate();
+    }
+
+    @Test
+    public void resourcePoolOutOfRangeTest() {
+        ResourcePool pool = new ResourcePool(1, 10);
+        assertEquals(4096, (int) pool.allocate(4096));
+        assertNull(pool.allocate(4096));
+        assertEquals(1, (int) pool.allocate());
+
+        assertEquals(2, pool.dumpPool().size());
+        assertEquals(4096, (int) pool.deallocate(4096));
+        assertNull(pool.deallocate(4096));
+        assertNull(pool.deallocate(5));
+    }
+
+    @Test
+    public void resourcePoolCommonIdTest() {
+        ResourcePool first = new ResourcePool(1, 100);
+        ResourcePool second = new ResourcePool(1, 100);
+        for (int i = 0; i < 70; i++) {
+            first.allocate();
+        }
+        second.allocate(71);
+        second.allocate(72);
+
+        List<ResourcePool> pools = Arrays.asList(first, second);
+        assertEquals(73, (int) ResourcePool.allocate(pools));
+        assertEquals(74, (int) ResourcePool.allocate(pools));
+        assertEquals(1, (int) second.allocate());
+
+        assertEquals(72, first.dumpPool().size());
+        assertEquals(5, second.dumpPool().size());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void resourcePoolCommonIdFullTest() {
+        ResourcePool first = new ResourcePool(1, 2);
+        ResourcePool second = new ResourcePool(1, 2);
+        first.allocate(1);
+        second.allocate(2);
+        ResourcePool.allocate(Arrays.asList(first, second));
+    }
+
+    @Test
+    public void resourcePoolCommonRequestedIdTest() {
+        ResourcePool first = new ResourcePool(1, 100);
+        ResourcePool second = new ResourcePool(1, 100);
+        second.allocate(5);
+
+        List<ResourcePool> pools = Arrays.asList(first, second);
+        assertNull(ResourcePool.allocate(pools, 5));
+        assertTrue(first.dumpPool().isEmpty());
+
+        assertEquals(6, (int) ResourcePool.allocate(pools, 6));
+        assertNull(ResourcePool.allocate(pools, 6));
+        assertEquals(Collections.singleton(6), first.dumpPool());
+        assertEquals(2, second.dumpPool().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resourcePoolCommonIdRangeTest() {
+        ResourcePool.allocate(Arrays.asList(new ResourcePool(1, 10), new ResourcePool(1, 20)));
+    }
+
+    @Test
+    public void resourcePoolConcurrentTest() throws Exception {
+        ResourcePool pool = new ResourcePool(1, 4095);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<List<Integer>> task = () -> IntStream.range(0, 1000)
+                    .mapToObj(i -> pool.allocate())
+                    .collect(Collectors.toList());
+
+            Set<Integer> allocated = new HashSet<>();
+            for (Future<List<Integer>> future : executor.invokeAll(
+                    IntStream.range(0, 4).mapToObj(i -> task).collect(Collectors.toList()))) {
+                allocated.addAll(future.get());
+            }
+
+            assertEquals(4000, allocated.size());
+            assertEquals(allocated, pool.dumpPool());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,93 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.payload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class SparseResourcePoolTest {
+    @Test
+    public void sparseResourcePoolTest() {
+        SparseResourcePool pool = new SparseResourcePool(1, SparseResourcePool.MAX_SUPPORTED_VALUE);
+
+        assertEquals(1L, pool.allocate());
+        assertEquals(2L, pool.allocate());
+        assertEquals(3L, pool.allocate());
+
+        pool.deallocate(2L);
+        assertEquals(2L, pool.allocate());
+        assertNull(pool.allocate(3L));
+        assertEquals(3, pool.dumpPool().size());
+    }
+
+    @Test
+    public void sparseResourcePoolAcrossChunksTest() {
+        SparseResourcePool pool = new SparseResourcePool(1, SparseResourcePool.MAX_SUPPORTED_VALUE);
+        for (long id = 1; id < 70000; id++) {
+            assertEquals(id, pool.allocate());
+        }
+
+        pool.deallocate(65535L);
+        pool.deallocate(65536L);
+        assertEquals(65535L, pool.allocate());
+        assertEquals(65536L, pool.allocate());
+        assertEquals(70000L, pool.allocate());
+        assertEquals(70000L, pool.size());
+    }
+
+    @Test
+    public void sparseResourcePoolHighValuesTest() {
+        SparseResourcePool pool = new SparseResourcePool(1, SparseResourcePool.MAX_SUPPORTED_VALUE);
+
+        assertEquals(Long.valueOf(0xFFFFFFFFL), pool.allocate(0xFFFFFFFFL));
+        assertEquals(Long.valueOf(0x80000000L), pool.allocate(0x80000000L));
+        assertEquals(1L, pool.allocate());
+        assertEquals(3, pool.dumpPool().size());
+
+        assertEquals(Long.valueOf(0x80000000L), pool.deallocate(0x80000000L));
+        assertNull(pool.deallocate(0x80000000L));
+        assertNull(pool.deallocate(0x90000000L));
+        assertEquals(2L, pool.size());
+    }
+
+    @Test
+    public void sparseResourcePoolOutOfRangeTest() {
+        SparseResourcePool pool = new SparseResourcePool(100, 200);
+
+        assertEquals(100L, pool.allocate());
+        assertEquals(Long.valueOf(5L), pool.allocate(5L));
+        assertNull(pool.allocate(5L));
+        assertEquals(2, pool.dumpPool().size());
+        assertEquals(Long.valueOf(5L), pool.deallocate(5L));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void sparseResourcePoolFullTest() {
+        SparseResourcePool pool = new SparseResourcePool(65530, 65540);
+        for (int i = 0; i < 11; i++) {
+            pool.allocate();
+        }
+        assertEquals(11, pool.dumpPool().size());
+        pool.allocate();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sparseResourcePoolInvalidRangeTest() {
+        new SparseResourcePool(1, 0x100000000L);
+    }
+}
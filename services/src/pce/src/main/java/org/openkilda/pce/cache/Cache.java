@@ -15,5 +15,85 @@
 
 package org.openkilda.pce.cache;
 
+import static org.openkilda.messaging.Utils.MAPPER;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
 public abstract class Cache {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(Cache.class);
+
+    /**
+     * {@link CacheJournal} the cache changes are logged to, or null if the cache is not journaled.
+     */
+    private CacheJournal journal;
+
+    /**
+     * Starts logging the cache changes to the journal.
+     *
+     * @param journal {@link CacheJournal} instance
+     */
+    protected void setJournal(CacheJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Logs change of the cache entry to the journal if the cache is journaled, and checkpoints the journal with the
+     * cache content once it is due.
+     *
+     * <p>Journal failures are logged only: the cache stays authoritative, the journal just misses the change and
+     * the cache is recovered from the topology dump as without a journal.
+     *
+     * @param key   entry key
+     * @param value entry value or null if the entry was removed
+     * @param state supplier of the whole cache content by entry key
+     */
+    protected void journal(String key, Object value, Supplier<Map<String, ?>> state) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            if (value != null) {
+                journal.put(key, MAPPER.writeValueAsString(value));
+            } else {
+                journal.remove(key);
+            }
+
+            if (journal.isCheckpointDue()) {
+                checkpoint(state.get());
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Can not journal {} change of {}", key, journal, e);
+        }
+    }
+
+    /**
+     * Checkpoints the journal with the cache content if the cache is journaled.
+     *
+     * @param state whole cache content by entry key
+     */
+    protected void checkpoint(Map<String, ?> state) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            Map<String, String> entries = new LinkedHashMap<>();
+            for (Map.Entry<String, ?> entry : state.entrySet()) {
+                entries.put(entry.getKey(), MAPPER.writeValueAsString(entry.getValue()));
+            }
+            journal.checkpoint(entries);
+        } catch (IOException e) {
+            logger.error("Can not checkpoint {}", journal, e);
+        }
+    }
 }
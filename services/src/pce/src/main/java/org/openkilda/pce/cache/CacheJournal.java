@@ -0,0 +1,413 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import com.google.common.base.MoreObjects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable key-value state of a cache kept in a local directory as a compacted snapshot and a journal of changes.
+ *
+ * <p>Every change is appended to a memory-mapped journal file, so it survives a worker restart as soon as it is
+ * written, without a system call per change. Each journal record is checksummed and its length is written last,
+ * a record torn by a crash is seen as the end of the journal. {@link #checkpoint(Map)} writes the whole state to
+ * a new snapshot and starts an empty journal, the snapshot names the journal which continues it and replaces the
+ * previous one atomically, so the state is recovered from any crash point by {@link #read()}.
+ *
+ * <p>Values are opaque strings, caches keep their entries in JSON.
+ */
+public class CacheJournal implements Closeable {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CacheJournal.class);
+
+    /**
+     * Default journal mapping growth step.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+    /**
+     * Default number of journal records which makes a checkpoint due.
+     */
+    public static final int DEFAULT_CHECKPOINT_RECORDS = 100000;
+
+    private static final String SNAPSHOT_FILE = "snapshot";
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+    private static final String JOURNAL_FILE_PREFIX = "journal-";
+
+    /**
+     * Journal record header: body length and body checksum.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int checkpointRecords;
+
+    /**
+     * Sequence number of the current journal file, the snapshot refers to it.
+     */
+    private long sequence;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Number of records in the current journal.
+     */
+    private int records;
+
+    /**
+     * Instance constructor.
+     *
+     * @param directory state directory, created if it does not exist
+     * @throws IOException if the state could not be opened
+     */
+    public CacheJournal(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_CHECKPOINT_RECORDS);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param directory         state directory, created if it does not exist
+     * @param segmentSize       journal mapping growth step in bytes
+     * @param checkpointRecords number of journal records which makes a checkpoint due
+     * @throws IOException if the state could not be opened
+     */
+    public CacheJournal(File directory, int segmentSize, int checkpointRecords) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.checkpointRecords = checkpointRecords;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Can not create state directory %s", directory));
+        }
+
+        sequence = readSnapshotSequence();
+        deleteStaleJournals();
+        openJournal();
+        records = replayJournal(null);
+    }
+
+    /**
+     * Reads the state: the snapshot with the journal applied.
+     *
+     * @return state entries in key order of their first appearance
+     * @throws IOException if the state could not be read
+     */
+    public synchronized Map<String, String> read() throws IOException {
+        Map<String, String> state = readSnapshot();
+        replayJournal(state);
+        return state;
+    }
+
+    /**
+     * Appends entry put to the journal.
+     *
+     * @param key   entry key
+     * @param value entry value
+     */
+    public synchronized void put(String key, String value) {
+        append(PUT, key, value);
+    }
+
+    /**
+     * Appends entry removal to the journal.
+     *
+     * @param key entry key
+     */
+    public synchronized void remove(String key) {
+        append(REMOVE, key, null);
+    }
+
+    /**
+     * Checks if the journal has grown enough to be compacted with {@link #checkpoint(Map)}.
+     *
+     * @return true if a checkpoint is due
+     */
+    public synchronized boolean isCheckpointDue() {
+        return records >= checkpointRecords;
+    }
+
+    /**
+     * Replaces the snapshot with the state and starts an empty journal.
+     *
+     * @param state whole current state
+     * @throws IOException if the snapshot could not be written, the previous snapshot and journal stay in effect
+     */
+    public synchronized void checkpoint(Map<String, String> state) throws IOException {
+        long next = sequence + 1;
+        File nextJournal = getJournalFile(next);
+        Files.deleteIfExists(nextJournal.toPath());
+
+        File temp = new File(directory, SNAPSHOT_TEMP_FILE);
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp);
+             DataOutputStream output = new DataOutputStream(
+                     new CheckedOutputStream(new BufferedOutputStream(file), crc))) {
+            output.writeLong(next);
+            output.writeInt(state.size());
+            for (Map.Entry<String, String> entry : state.entrySet()) {
+                writeString(output, entry.getKey());
+                writeString(output, entry.getValue());
+            }
+            output.flush();
+            output.writeLong(crc.getValue());
+            output.flush();
+            file.getFD().sync();
+        }
+
+        final File previousJournal = getJournalFile(sequence);
+        closeJournal();
+        sequence = next;
+        openJournal();
+        records = 0;
+
+        Files.move(temp.toPath(), new File(directory, SNAPSHOT_FILE).toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(previousJournal.toPath());
+
+        logger.debug("Checkpointed {} entries to {}", state.size(), directory);
+    }
+
+    /**
+     * Forces the journal changes to the storage device, they survive a worker crash without it.
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closeJournal();
+    }
+
+    private void append(byte operation, String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer body = ByteBuffer.allocate(1 + Integer.BYTES + keyBytes.length + valueBytes.length);
+        body.put(operation);
+        body.putInt(keyBytes.length);
+        body.put(keyBytes);
+        body.put(valueBytes);
+        int length = body.capacity();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+
+        int position = buffer.position();
+        ensureCapacity(position + HEADER_SIZE + length + Integer.BYTES);
+
+        buffer.position(position + HEADER_SIZE);
+        buffer.put(body.array());
+        buffer.putInt(buffer.position(), 0);
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, length);
+        records++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+
+        int position = buffer.position();
+        long capacity = Math.max((long) buffer.capacity() + segmentSize, required);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Journal %s is full", getJournalFile(sequence)));
+        }
+
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.position(position);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Can not grow journal %s", getJournalFile(sequence)), e);
+        }
+    }
+
+    /**
+     * Applies journal records to the state and moves the journal position to the end of them.
+     *
+     * @param state state or null to skip records
+     * @return number of records
+     */
+    private int replayJournal(Map<String, String> state) {
+        int count = 0;
+        int position = 0;
+
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || (long) position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            byte[] body = new byte[length];
+            buffer.position(position + HEADER_SIZE);
+            buffer.get(body);
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (buffer.getInt(position + Integer.BYTES) != (int) crc.getValue()) {
+                logger.warn("Journal {} ends with a torn record at {}", getJournalFile(sequence), position);
+                break;
+            }
+
+            if (state != null) {
+                int keyLength = ByteBuffer.wrap(body, 1, Integer.BYTES).getInt();
+                int valueOffset = 1 + Integer.BYTES + keyLength;
+                String key = new String(body, 1 + Integer.BYTES, keyLength, StandardCharsets.UTF_8);
+                if (body[0] == PUT) {
+                    state.put(key, new String(body, valueOffset, length - valueOffset, StandardCharsets.UTF_8));
+                } else {
+                    state.remove(key);
+                }
+            }
+
+            position += HEADER_SIZE + length;
+            count++;
+        }
+
+        // a torn record is overwritten by the next append, its length is cleared so it is never read again
+        if (position + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+        buffer.position(position);
+        return count;
+    }
+
+    private Map<String, String> readSnapshot() throws IOException {
+        Map<String, String> state = new LinkedHashMap<>();
+        File snapshot = new File(directory, SNAPSHOT_FILE);
+        if (!snapshot.exists()) {
+            return state;
+        }
+
+        CRC32 crc = new CRC32();
+        try (DataInputStream input = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(new FileInputStream(snapshot)), crc))) {
+            input.readLong();
+            int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                state.put(readString(input), readString(input));
+            }
+
+            long expected = crc.getValue();
+            if (input.readLong() != expected) {
+                throw new IOException(String.format("Snapshot %s is corrupted", snapshot));
+            }
+        }
+        return state;
+    }
+
+    private long readSnapshotSequence() throws IOException {
+        File snapshot = new File(directory, SNAPSHOT_FILE);
+        if (!snapshot.exists()) {
+            return 0L;
+        }
+
+        try (DataInputStream input = new DataInputStream(new FileInputStream(snapshot))) {
+            return input.readLong();
+        }
+    }
+
+    private void deleteStaleJournals() throws IOException {
+        File current = getJournalFile(sequence);
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(JOURNAL_FILE_PREFIX));
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (!file.equals(current)) {
+                Files.delete(file.toPath());
+            }
+        }
+    }
+
+    private void openJournal() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(getJournalFile(sequence), "rw");
+        channel = file.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(file.length(), segmentSize));
+    }
+
+    private void closeJournal() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private File getJournalFile(long journalSequence) {
+        return new File(directory, JOURNAL_FILE_PREFIX + journalSequence);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("directory", directory)
+                .add("sequence", sequence)
+                .add("records", records)
+                .toString();
+    }
+}
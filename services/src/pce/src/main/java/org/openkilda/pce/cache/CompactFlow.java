@@ -0,0 +1,266 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.payload.flow.FlowState;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable compact form of a {@link Flow} kept by {@link FlowCache}.
+ *
+ * <p>Switch ids are kept as {@link SwitchIdTable} indexes and the path as a single primitive array of switch index
+ * and port number pairs, instead of a {@link PathInfoData} with a list of {@link PathNode} objects. Node sequence
+ * ids and segment latencies are only kept when they carry information: sequence ids that are not the node
+ * positions, latencies that are set. {@link Flow} objects are materialized with {@link #toFlow(SwitchIdTable)}.
+ */
+final class CompactFlow {
+    /**
+     * Segment latency value standing for a node without latency.
+     */
+    private static final long NO_LATENCY = Long.MIN_VALUE;
+
+    private final String flowId;
+    private final int bandwidth;
+    private final boolean ignoreBandwidth;
+    private final long cookie;
+    private final String description;
+    private final String lastUpdated;
+    private final int sourceSwitch;
+    private final int destinationSwitch;
+    private final int sourcePort;
+    private final int destinationPort;
+    private final int sourceVlan;
+    private final int destinationVlan;
+    private final int meterId;
+    private final int transitVlan;
+    private final FlowState state;
+
+    /**
+     * Whether the flow has a path, the path node list may still be null.
+     */
+    private final boolean hasPath;
+
+    /**
+     * Path latency.
+     */
+    private final long latency;
+
+    /**
+     * Path nodes as switch index and port number pairs, or null if the path has no node list.
+     */
+    private final int[] nodes;
+
+    /**
+     * Path node sequence ids, or null if every node sequence id is the node position.
+     */
+    private final int[] seqIds;
+
+    /**
+     * Path node segment latencies, or null if no node has segment latency.
+     */
+    private final long[] segmentLatencies;
+
+    /**
+     * Path cache time tags.
+     */
+    private final Long createdInCache;
+    private final Long updatedInCache;
+
+    private CompactFlow(CompactFlow flow, FlowState state) {
+        this.flowId = flow.flowId;
+        this.bandwidth = flow.bandwidth;
+        this.ignoreBandwidth = flow.ignoreBandwidth;
+        this.cookie = flow.cookie;
+        this.description = flow.description;
+        this.lastUpdated = flow.lastUpdated;
+        this.sourceSwitch = flow.sourceSwitch;
+        this.destinationSwitch = flow.destinationSwitch;
+        this.sourcePort = flow.sourcePort;
+        this.destinationPort = flow.destinationPort;
+        this.sourceVlan = flow.sourceVlan;
+        this.destinationVlan = flow.destinationVlan;
+        this.meterId = flow.meterId;
+        this.transitVlan = flow.transitVlan;
+        this.hasPath = flow.hasPath;
+        this.latency = flow.latency;
+        this.nodes = flow.nodes;
+        this.seqIds = flow.seqIds;
+        this.segmentLatencies = flow.segmentLatencies;
+        this.createdInCache = flow.createdInCache;
+        this.updatedInCache = flow.updatedInCache;
+        this.state = state;
+    }
+
+    private CompactFlow(Flow flow, SwitchIdTable switches) {
+        this.flowId = flow.getFlowId();
+        this.bandwidth = flow.getBandwidth();
+        this.ignoreBandwidth = flow.isIgnoreBandwidth();
+        this.cookie = flow.getCookie();
+        this.description = flow.getDescription();
+        this.lastUpdated = flow.getLastUpdated();
+        this.sourceSwitch = switches.intern(flow.getSourceSwitch());
+        this.destinationSwitch = switches.intern(flow.getDestinationSwitch());
+        this.sourcePort = flow.getSourcePort();
+        this.destinationPort = flow.getDestinationPort();
+        this.sourceVlan = flow.getSourceVlan();
+        this.destinationVlan = flow.getDestinationVlan();
+        this.meterId = flow.getMeterId();
+        this.transitVlan = flow.getTransitVlan();
+        this.state = flow.getState();
+
+        PathInfoData path = flow.getFlowPath();
+        final List<PathNode> pathNodes = path != null ? path.getPath() : null;
+        this.hasPath = path != null;
+        this.latency = path != null ? path.getLatency() : 0L;
+        this.createdInCache = path != null ? path.getCreatedInCache() : null;
+        this.updatedInCache = path != null ? path.getUpdatedInCache() : null;
+
+        if (pathNodes == null) {
+            this.nodes = null;
+            this.seqIds = null;
+            this.segmentLatencies = null;
+            return;
+        }
+
+        int size = pathNodes.size();
+        int[] nodes = new int[size * 2];
+        int[] seqIds = null;
+        long[] segmentLatencies = null;
+        for (int i = 0; i < size; i++) {
+            PathNode node = pathNodes.get(i);
+            nodes[i * 2] = switches.intern(node.getSwitchId());
+            nodes[i * 2 + 1] = node.getPortNo();
+
+            if (node.getSeqId() != i && seqIds == null) {
+                seqIds = new int[size];
+                for (int j = 0; j < i; j++) {
+                    seqIds[j] = j;
+                }
+            }
+            if (seqIds != null) {
+                seqIds[i] = node.getSeqId();
+            }
+
+            if (node.getSegLatency() != null && segmentLatencies == null) {
+                segmentLatencies = new long[size];
+                for (int j = 0; j < i; j++) {
+                    segmentLatencies[j] = NO_LATENCY;
+                }
+            }
+            if (segmentLatencies != null) {
+                segmentLatencies[i] = node.getSegLatency() != null ? node.getSegLatency() : NO_LATENCY;
+            }
+        }
+        this.nodes = nodes;
+        this.seqIds = seqIds;
+        this.segmentLatencies = segmentLatencies;
+    }
+
+    /**
+     * Builds compact form of the flow.
+     *
+     * @param flow     flow or null
+     * @param switches switch id table
+     * @return compact flow or null if the flow is null
+     */
+    static CompactFlow of(Flow flow, SwitchIdTable switches) {
+        return flow != null ? new CompactFlow(flow, switches) : null;
+    }
+
+    /**
+     * Materializes the flow.
+     *
+     * @param switches switch id table the flow was built with
+     * @return new {@link Flow} instance
+     */
+    Flow toFlow(SwitchIdTable switches) {
+        return new Flow(flowId, bandwidth, ignoreBandwidth, cookie, description, lastUpdated,
+                switches.get(sourceSwitch), switches.get(destinationSwitch), sourcePort, destinationPort,
+                sourceVlan, destinationVlan, meterId, transitVlan, toPath(switches), state);
+    }
+
+    /**
+     * Returns copy of the flow with the state changed.
+     *
+     * @param state flow state
+     * @return compact flow
+     */
+    CompactFlow withState(FlowState state) {
+        return new CompactFlow(this, state);
+    }
+
+    String getFlowId() {
+        return flowId;
+    }
+
+    long getCookie() {
+        return cookie;
+    }
+
+    FlowState getState() {
+        return state;
+    }
+
+    int getSourceSwitch() {
+        return sourceSwitch;
+    }
+
+    int getDestinationSwitch() {
+        return destinationSwitch;
+    }
+
+    private PathInfoData toPath(SwitchIdTable switches) {
+        if (!hasPath) {
+            return null;
+        }
+
+        List<PathNode> pathNodes = null;
+        if (nodes != null) {
+            int size = nodes.length / 2;
+            pathNodes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                pathNodes.add(new PathNode(switches.get(nodes[i * 2]), nodes[i * 2 + 1],
+                        seqIds != null ? seqIds[i] : i,
+                        segmentLatencies != null && segmentLatencies[i] != NO_LATENCY ? segmentLatencies[i] : null));
+            }
+        }
+
+        PathInfoData path = new PathInfoData(latency, pathNodes);
+        path.setCreatedInCache(createdInCache);
+        path.setUpdatedInCache(updatedInCache);
+        return path;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("flowid", flowId)
+                .add("cookie", cookie)
+                .add("state", state)
+                .add("nodes", nodes != null ? nodes.length / 2 : null)
+                .toString();
+    }
+}
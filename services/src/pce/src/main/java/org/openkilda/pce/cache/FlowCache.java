@@ -15,6 +15,8 @@
 
 package org.openkilda.pce.cache;
 
+import static org.openkilda.messaging.Utils.MAPPER;
+
 import org.openkilda.messaging.error.CacheException;
 import org.openkilda.messaging.error.ErrorType;
 import org.openkilda.messaging.info.event.IslInfoData;
@@ -26,13 +28,17 @@ import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.messaging.payload.flow.FlowState;
 import org.openkilda.pce.Utils;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Objects;
@@ -47,16 +53,114 @@ public class FlowCache extends Cache {
      */
     private static final Logger logger = LoggerFactory.getLogger(FlowCache.class);
 
+    /**
+     * Journaled flow type.
+     */
+    private static final TypeReference<ImmutablePair<Flow, Flow>> FLOW_PAIR_TYPE =
+            new TypeReference<ImmutablePair<Flow, Flow>>() {};
+
     /**
      * {@link ResourceCache} instance.
      */
     @VisibleForTesting
-    final ResourceCache resourceCache = new ResourceCache();
+    final ResourceCache resourceCache;
+
+    /**
+     * Whether the {@link ResourceCache} instance is shared with other caches.
+     */
+    private final boolean isResourceCacheShared;
+
+    /**
+     * Interned switch ids of the cached flows.
+     */
+    private final SwitchIdTable switchIds = new SwitchIdTable();
+
+    /**
+     * Current version of the flow pool.
+     *
+     * <p>Flows are kept in the {@link CompactFlow} form and materialized on every read, so callers get their own
+     * {@link Flow} instances and changes to them do not affect the cache, see {@link #setFlowState}. Changes are
+     * made under the cache monitor and publish a new {@link Snapshot}, reads take the current one without locking.
+     */
+    private volatile Snapshot snapshot = new Snapshot(0L, PersistentMap.empty(), switchIds);
+
+    /**
+     * Ids of flows by switch id of their path nodes and endpoints of single switch flows.
+     *
+     * <p>Indexes are updated together with the flow pool under the cache monitor, see
+     * {@link #replaceFlow(String, ImmutablePair)}, so affected flow lookups cost as much as the flows they find.
+     */
+    private final Map<String, Set<String>> switchIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of flows by switch id and port number of their path nodes, see {@link #getPortKey(String, int)}.
+     */
+    private final Map<String, Set<String>> portIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of flows by switch id and port number of their endpoints, for port wide endpoint lookups.
+     */
+    private final Map<String, Set<String>> endpointPortIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of flows by switch id, port number and vlan id of their endpoints, see {@link #getVlanKey}.
+     */
+    private final Map<String, Set<String>> endpointVlanIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Digest of the cached flows, updated together with the flow pool under the cache monitor.
+     */
+    private final FlowDigest digest = new FlowDigest(FlowDigest.DEFAULT_BUCKETS);
 
     /**
-     * Flow pool.
+     * {@link NetworkCache} instance flow bandwidth is reserved in, or null if bandwidth is not accounted.
      */
-    private final Map<String, ImmutablePair<Flow, Flow>> flowPool = new ConcurrentHashMap<>();
+    private final NetworkCache networkCache;
+
+    /**
+     * Ids of flows holding their bandwidth reserved in the {@link NetworkCache}.
+     *
+     * <p>Flows put directly hold no reservation, so only the flows recorded here release bandwidth, otherwise they
+     * would release the reservations of other flows on the same isls.
+     */
+    private final Set<String> reservedFlows = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Instance constructor.
+     */
+    public FlowCache() {
+        this(null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * <p>Flows created, updated and deleted through the cache reserve and release their bandwidth on the path isls
+     * of the {@link NetworkCache}. Flows put directly, e.g. on {@link #load(Set)}, are already installed, so they
+     * are expected to be accounted in the isl available bandwidth and reserve nothing.
+     *
+     * @param networkCache {@link NetworkCache} instance
+     */
+    public FlowCache(NetworkCache networkCache) {
+        this.networkCache = networkCache;
+        this.resourceCache = new ResourceCache();
+        this.isResourceCacheShared = false;
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * <p>Flow resources are allocated in the {@link ResourceCache} shared with other caches, so they are unique
+     * across all of them, and {@link #clear()} only releases the resources of the flows of this cache.
+     *
+     * @param networkCache  {@link NetworkCache} instance or null
+     * @param resourceCache shared {@link ResourceCache} instance
+     */
+    public FlowCache(NetworkCache networkCache, ResourceCache resourceCache) {
+        this.networkCache = networkCache;
+        this.resourceCache = resourceCache;
+        this.isResourceCacheShared = true;
+    }
 
     /**
      * Fills cache.
@@ -68,22 +172,63 @@ public class FlowCache extends Cache {
         flows.forEach(this::putFlow);
     }
 
+    /**
+     * Recovers flows from the journal and starts logging the flow changes to it.
+     *
+     * <p>Recovered flows are pushed with {@link #pushFlow(ImmutablePair)}, so their resources are allocated again.
+     * The journal is checkpointed with the recovered flows, so it does not keep growing across restarts.
+     *
+     * @param journal {@link CacheJournal} instance
+     * @throws IOException if the journal could not be read
+     */
+    public synchronized void attachJournal(CacheJournal journal) throws IOException {
+        for (String flow : journal.read().values()) {
+            pushFlow(MAPPER.readValue(flow, FLOW_PAIR_TYPE));
+        }
+        logger.info("Recovered {} flows from {}", snapshot.flows.size(), journal);
+
+        setJournal(journal);
+        checkpoint(getJournalState());
+    }
+
     /**
      * Clears the inner network and pools.
      */
-    public void clear() {
-        flowPool.clear();
-        resourceCache.clear();
+    public synchronized void clear() {
+        Snapshot current = snapshot;
+        checkpoint(Collections.emptyMap());
+        current.flows.values().stream().map(this::toFlow).forEach(flow -> {
+            releaseBandwidth(flow);
+            if (isResourceCacheShared) {
+                resourceCache.deallocateFlow(flow);
+            }
+        });
+        snapshot = new Snapshot(current.version + 1, PersistentMap.empty(), switchIds);
+        switchIndex.clear();
+        portIndex.clear();
+        endpointPortIndex.clear();
+        endpointVlanIndex.clear();
+        digest.clear();
+        if (!isResourceCacheShared) {
+            resourceCache.clear();
+        }
     }
 
     /**
      * Puts flow directly to the cache.
      *
+     * <p>The flow reserves no bandwidth, it is accounted in the isl available bandwidth already. A reservation held
+     * by the replaced flow is released.
+     *
      * @param flow flow
      * @return previous flow
      */
-    public ImmutablePair<Flow, Flow> putFlow(ImmutablePair<Flow, Flow> flow) {
-        return flowPool.put(flow.getLeft().getFlowId(), flow);
+    public synchronized ImmutablePair<Flow, Flow> putFlow(ImmutablePair<Flow, Flow> flow) {
+        ImmutablePair<Flow, Flow> previous = replaceFlow(flow.getLeft().getFlowId(), flow);
+        if (previous != null) {
+            releaseBandwidth(previous);
+        }
+        return previous;
     }
 
     /**
@@ -92,8 +237,12 @@ public class FlowCache extends Cache {
      * @param flowId flow id
      * @return removed flow
      */
-    public ImmutablePair<Flow, Flow> removeFlow(String flowId) {
-        return flowPool.remove(flowId);
+    public synchronized ImmutablePair<Flow, Flow> removeFlow(String flowId) {
+        ImmutablePair<Flow, Flow> previous = replaceFlow(flowId, null);
+        if (previous != null) {
+            releaseBandwidth(previous);
+        }
+        return previous;
     }
 
     /**
@@ -115,7 +264,7 @@ public class FlowCache extends Cache {
     public boolean cacheContainsFlow(String flowId) {
         logger.debug("Is flow {} in cache", flowId);
 
-        return flowPool.containsKey(flowId);
+        return snapshot.cacheContainsFlow(flowId);
     }
 
     /**
@@ -125,12 +274,8 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<ImmutablePair<Flow, Flow>> getFlowsWithAffectedPath(String switchId) {
-        return flowPool.values().stream().filter(flow ->
-                flow.getLeft().getFlowPath().getPath().stream()
-                        .anyMatch(node -> node.getSwitchId().equals(switchId))
-                        || flow.getRight().getFlowPath().getPath().stream()
-                        .anyMatch(node -> node.getSwitchId().equals(switchId))
-                        || isOneSwitchFlow(flow) && flow.getLeft().getSourceSwitch().equals(switchId))
+        return getIndexedFlows(switchIndex, switchId)
+                .map(this::toFlow)
                 .collect(Collectors.toSet());
     }
 
@@ -141,13 +286,9 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<ImmutablePair<Flow, Flow>> getActiveFlowsWithAffectedPath(String switchId) {
-        return flowPool.values().stream().filter(flow ->
-                flow.getLeft().getFlowPath().getPath().stream()
-                        .anyMatch(node -> node.getSwitchId().equals(switchId))
-                        || flow.getRight().getFlowPath().getPath().stream()
-                        .anyMatch(node -> node.getSwitchId().equals(switchId))
-                        || isOneSwitchFlow(flow) && flow.getLeft().getSourceSwitch().equals(switchId))
+        return getIndexedFlows(switchIndex, switchId)
                 .filter(flow -> FlowState.UP == flow.getLeft().getState())
+                .map(this::toFlow)
                 .collect(Collectors.toSet());
     }
 
@@ -158,9 +299,8 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<ImmutablePair<Flow, Flow>> getFlowsWithAffectedPath(IslInfoData islData) {
-        return flowPool.values().stream()
-                .filter(flow -> flow.getLeft().getFlowPath().getPath().contains(islData.getPath().get(0))
-                        || flow.getRight().getFlowPath().getPath().contains(islData.getPath().get(0)))
+        return getIndexedFlows(portIndex, getPortKey(islData.getPath().get(0)))
+                .map(this::toFlow)
                 .collect(Collectors.toSet());
     }
 
@@ -171,10 +311,9 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<ImmutablePair<Flow, Flow>> getActiveFlowsWithAffectedPath(IslInfoData islData) {
-        return flowPool.values().stream()
-                .filter(flow -> flow.getLeft().getFlowPath().getPath().contains(islData.getPath().get(0))
-                        || flow.getRight().getFlowPath().getPath().contains(islData.getPath().get(0)))
+        return getIndexedFlows(portIndex, getPortKey(islData.getPath().get(0)))
                 .filter(flow -> FlowState.UP == flow.getLeft().getState())
+                .map(this::toFlow)
                 .collect(Collectors.toSet());
     }
 
@@ -185,10 +324,8 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<ImmutablePair<Flow, Flow>> getFlowsWithAffectedPath(PortInfoData portData) {
-        PathNode node = new PathNode(portData.getSwitchId(), portData.getPortNo(), 0);
-        return flowPool.values().stream().filter(flow ->
-                flow.getLeft().getFlowPath().getPath().contains(node)
-                        || flow.getRight().getFlowPath().getPath().contains(node))
+        return getIndexedFlows(portIndex, getPortKey(portData.getSwitchId(), portData.getPortNo()))
+                .map(this::toFlow)
                 .collect(Collectors.toSet());
     }
 
@@ -200,11 +337,15 @@ public class FlowCache extends Cache {
      */
     public Map<String, String> getFlowsWithAffectedEndpoint(String switchId) {
         Map<String, String> response = new HashMap<>();
+        int switchIndex = switchIds.indexOf(switchId);
+        if (switchIndex == SwitchIdTable.NO_SWITCH) {
+            return response;
+        }
 
-        for (ImmutablePair<Flow, Flow> flow : flowPool.values()) {
-            String endpoint = getFlowLinkedEndpoint(flow, switchId);
-            if (endpoint != null) {
-                response.put(flow.getLeft().getFlowId(), endpoint);
+        for (ImmutablePair<CompactFlow, CompactFlow> flow : snapshot.flows.values()) {
+            int endpoint = getFlowLinkedEndpoint(flow, switchIndex);
+            if (endpoint != SwitchIdTable.NO_SWITCH) {
+                response.put(flow.getLeft().getFlowId(), switchIds.get(endpoint));
             }
         }
 
@@ -230,15 +371,84 @@ public class FlowCache extends Cache {
     public ImmutablePair<Flow, Flow> getFlow(String flowId) {
         logger.debug("Get {} flow", flowId);
 
-        ImmutablePair<Flow, Flow> flow = flowPool.get(flowId);
+        return snapshot.getFlow(flowId);
+    }
+
+    /**
+     * Gets digest of the cached flows.
+     *
+     * @return copy of the digest with {@link FlowDigest#DEFAULT_BUCKETS} buckets
+     */
+    public synchronized FlowDigest getDigest() {
+        return digest.copy();
+    }
+
+    /**
+     * Gets flows of the digest buckets.
+     *
+     * @param buckets buckets of a digest with {@link FlowDigest#DEFAULT_BUCKETS} buckets
+     * @return flows
+     */
+    public Set<ImmutablePair<Flow, Flow>> getFlowsInBuckets(Set<Integer> buckets) {
+        return snapshot.flows.values().stream()
+                .filter(flow -> isInBuckets(flow, buckets))
+                .map(this::toFlow)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Gets ids of the flows out of the digest buckets, without building the flows.
+     *
+     * @param buckets buckets of a digest with {@link FlowDigest#DEFAULT_BUCKETS} buckets
+     * @return flow ids
+     */
+    public Set<String> getFlowIdsOutOfBuckets(Set<Integer> buckets) {
+        return snapshot.flows.values().stream()
+                .filter(flow -> !isInBuckets(flow, buckets))
+                .map(flow -> flow.getLeft().getFlowId())
+                .collect(Collectors.toSet());
+    }
+
+    private static boolean isInBuckets(ImmutablePair<CompactFlow, CompactFlow> flow, Set<Integer> buckets) {
+        return buckets.contains(FlowDigest.getBucket(flow.getLeft().getCookie(), FlowDigest.DEFAULT_BUCKETS));
+    }
+
+    /**
+     * Gets current immutable version of the cache.
+     *
+     * <p>Queries on the snapshot are consistent with each other however long it is used, and do not block or get
+     * blocked by cache changes.
+     *
+     * @return {@link Snapshot} instance
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets state of both flow directions.
+     *
+     * @param flowId flow id
+     * @param state  flow state
+     * @return flow with the new state
+     */
+    public synchronized ImmutablePair<Flow, Flow> setFlowState(String flowId, FlowState state) {
+        logger.debug("Set {} flow state to {}", flowId, state);
+
+        Snapshot current = snapshot;
+        PersistentMap<String, ImmutablePair<CompactFlow, CompactFlow>> flows = current.flows.computeIfPresent(flowId,
+                flow -> new ImmutablePair<>(flow.getLeft().withState(state),
+                        flow.getRight() != null ? flow.getRight().withState(state) : null));
+        ImmutablePair<CompactFlow, CompactFlow> flow = flows.get(flowId);
         if (flow == null) {
-            // TODO: Is this really an exception? Should we just return null or empty?
-            //      Feels like the caller should address this, and anticipate empty.
-            throw new CacheException(ErrorType.NOT_FOUND, "Can not get flow",
-                    String.format("Flow %s not found in set %s", flowId, flowPool.keySet()));
+            throw new CacheException(ErrorType.NOT_FOUND, "Can not set flow state",
+                    String.format("Flow %s not found", flowId));
         }
+        snapshot = new Snapshot(current.version + 1, flows, switchIds);
 
-        return flow;
+        ImmutablePair<Flow, Flow> changed = toFlow(flow);
+        journal(flowId, changed, this::getJournalState);
+        return changed;
     }
 
 
@@ -259,14 +469,20 @@ public class FlowCache extends Cache {
         logger.debug("Create {} flow with {} parameters", flowId, flow);
         ImmutablePair<Flow, Flow> newFlow = buildFlow(flow, path, resourceCache);
 
-        ImmutablePair<Flow, Flow> oldFlow = flowPool.get(flowId);
-        if (oldFlow != null) {
+        if (snapshot.cacheContainsFlow(flowId)) {
             throw new CacheException(ErrorType.ALREADY_EXISTS, "Can not create flow",
                     String.format("Flow %s already exists", flowId));
         }
 
+        try {
+            reserveBandwidth(newFlow);
+        } catch (CacheException e) {
+            resourceCache.deallocateFlow(newFlow);
+            throw e;
+        }
+
         resourceCache.allocateFlow(newFlow);
-        flowPool.put(flowId, newFlow);
+        replaceFlow(flowId, newFlow);
 
         return newFlow;
     }
@@ -284,14 +500,20 @@ public class FlowCache extends Cache {
         logger.debug("Create {} flow with {} parameters", flowId, flow);
         ImmutablePair<Flow, Flow> newFlow = buildFlow(flow, path, resourceCache);
 
-        ImmutablePair<Flow, Flow> oldFlow = flowPool.get(flowId);
-        if (oldFlow != null) {
+        if (snapshot.cacheContainsFlow(flowId)) {
             throw new CacheException(ErrorType.ALREADY_EXISTS, "Can not create flow",
                     String.format("Flow %s already exists", flowId));
         }
 
+        try {
+            reserveBandwidth(newFlow);
+        } catch (CacheException e) {
+            resourceCache.deallocateFlow(newFlow);
+            throw e;
+        }
+
         resourceCache.allocateFlow(newFlow);
-        flowPool.put(flowId, newFlow);
+        replaceFlow(flowId, newFlow);
 
         return newFlow;
     }
@@ -305,12 +527,13 @@ public class FlowCache extends Cache {
     public ImmutablePair<Flow, Flow> deleteFlow(String flowId) {
         logger.debug("Delete {} flow", flowId);
 
-        ImmutablePair<Flow, Flow> flow = flowPool.remove(flowId);
+        ImmutablePair<Flow, Flow> flow = replaceFlow(flowId, null);
         if (flow == null) {
             throw new CacheException(ErrorType.NOT_FOUND, "Can not delete flow",
                     String.format("Flow %s not found", flowId));
         }
 
+        releaseBandwidth(flow);
         resourceCache.deallocateFlow(flow);
 
         return flow;
@@ -323,20 +546,14 @@ public class FlowCache extends Cache {
      * @param path flow path
      * @return flow
      */
-    public ImmutablePair<Flow, Flow> updateFlow(Flow flow, ImmutablePair<PathInfoData, PathInfoData> path) {
+    public synchronized ImmutablePair<Flow, Flow> updateFlow(Flow flow,
+                                                             ImmutablePair<PathInfoData, PathInfoData> path) {
         String flowId = flow.getFlowId();
         logger.debug("Update {} flow with {} parameters", flowId, flow);
+        ImmutablePair<Flow, Flow> oldFlow = getUpdatedFlow(flowId);
         ImmutablePair<Flow, Flow> newFlow = buildFlow(flow, path, resourceCache);
 
-        ImmutablePair<Flow, Flow> odlFlow = flowPool.remove(flowId);
-        if (odlFlow == null) {
-            throw new CacheException(ErrorType.NOT_FOUND, "Can not update flow",
-                    String.format("Flow %s not found", flowId));
-        }
-        resourceCache.deallocateFlow(odlFlow);
-
-        resourceCache.allocateFlow(newFlow);
-        flowPool.put(flowId, newFlow);
+        switchFlow(flowId, oldFlow, newFlow);
 
         return newFlow;
     }
@@ -348,21 +565,14 @@ public class FlowCache extends Cache {
      * @param path flow path
      * @return flow
      */
-    public ImmutablePair<Flow, Flow> updateFlow(ImmutablePair<Flow, Flow> flow,
-                                                ImmutablePair<PathInfoData, PathInfoData> path) {
+    public synchronized ImmutablePair<Flow, Flow> updateFlow(ImmutablePair<Flow, Flow> flow,
+                                                             ImmutablePair<PathInfoData, PathInfoData> path) {
         String flowId = flow.getLeft().getFlowId();
         logger.debug("Update {} flow with {} parameters", flowId, flow);
+        ImmutablePair<Flow, Flow> oldFlow = getUpdatedFlow(flowId);
         ImmutablePair<Flow, Flow> newFlow = buildFlow(flow, path, resourceCache);
 
-        ImmutablePair<Flow, Flow> odlFlow = flowPool.remove(flowId);
-        if (odlFlow == null) {
-            throw new CacheException(ErrorType.NOT_FOUND, "Can not update flow",
-                    String.format("Flow %s not found", flowId));
-        }
-        resourceCache.deallocateFlow(odlFlow);
-
-        resourceCache.allocateFlow(newFlow);
-        flowPool.put(flowId, newFlow);
+        switchFlow(flowId, oldFlow, newFlow);
 
         return newFlow;
     }
@@ -374,7 +584,7 @@ public class FlowCache extends Cache {
      */
     public Set<ImmutablePair<Flow, Flow>> dumpFlows() {
         logger.debug("Get all flows");
-        return new HashSet<>(flowPool.values());
+        return snapshot.dumpFlows();
     }
 
     /**
@@ -426,7 +636,7 @@ public class FlowCache extends Cache {
                                                ImmutablePair<PathInfoData, PathInfoData> path,
                                                ResourceCache cache) {
         String timestamp = Utils.getIsoTimestamp();
-        int cookie = cache.allocateCookie((int) flow.getLeft().getCookie());
+        long cookie = cache.allocateCookie(ResourceCache.FLOW_COOKIE_VALUE_MASK & flow.getLeft().getCookie());
 
         Flow forward = new Flow(
                 flow.getLeft().getFlowId(),
@@ -441,7 +651,7 @@ public class FlowCache extends Cache {
                 flow.getLeft().getSourceVlan(),
                 flow.getLeft().getDestinationVlan(),
                 cache.allocateMeterId(flow.getLeft().getSourceSwitch(), flow.getLeft().getMeterId()),
-                cache.allocateVlanId(flow.getLeft().getTransitVlan()),
+                allocateTransitVlan(cache, path.getLeft(), flow.getLeft().getTransitVlan()),
                 path.getLeft(),
                 FlowState.ALLOCATED);
 
@@ -458,7 +668,7 @@ public class FlowCache extends Cache {
                 flow.getRight().getSourceVlan(),
                 flow.getRight().getDestinationVlan(),
                 cache.allocateMeterId(flow.getRight().getSourceSwitch(), flow.getRight().getMeterId()),
-                cache.allocateVlanId(flow.getRight().getTransitVlan()),
+                allocateTransitVlan(cache, path.getRight(), flow.getRight().getTransitVlan()),
                 path.getRight(),
                 FlowState.ALLOCATED);
 
@@ -477,7 +687,7 @@ public class FlowCache extends Cache {
                                                ImmutablePair<PathInfoData, PathInfoData> path,
                                                ResourceCache cache) {
         String timestamp = Utils.getIsoTimestamp();
-        int cookie = cache.allocateCookie();
+        long cookie = cache.allocateCookie();
 
         Flow forward = new Flow(
                 flow.getFlowId(),
@@ -493,7 +703,7 @@ public class FlowCache extends Cache {
                 flow.getSourceVlan(),
                 flow.getDestinationVlan(),
                 cache.allocateMeterId(flow.getSourceSwitch()),
-                cache.allocateVlanId(),
+                cache.allocateVlanId(path.getLeft()),
                 path.getLeft(),
                 FlowState.ALLOCATED);
 
@@ -511,13 +721,273 @@ public class FlowCache extends Cache {
                 flow.getDestinationVlan(),
                 flow.getSourceVlan(),
                 cache.allocateMeterId(flow.getDestinationSwitch()),
-                cache.allocateVlanId(),
+                cache.allocateVlanId(path.getRight()),
                 path.getRight(),
                 FlowState.ALLOCATED);
 
         return new ImmutablePair<>(forward, reverse);
     }
 
+    /**
+     * Puts flow to the pool or removes it, updating the indexes.
+     *
+     * @param flowId flow id
+     * @param flow   flow to put or null to remove the flow
+     * @return previous flow or null
+     */
+    private synchronized ImmutablePair<Flow, Flow> replaceFlow(String flowId, ImmutablePair<Flow, Flow> flow) {
+        Snapshot current = snapshot;
+        ImmutablePair<Flow, Flow> previous = null;
+        ImmutablePair<CompactFlow, CompactFlow> currentFlow = current.flows.get(flowId);
+        if (currentFlow != null) {
+            previous = toFlow(currentFlow);
+            unindexFlow(flowId, previous);
+            digest.remove(previous);
+        }
+
+        PersistentMap<String, ImmutablePair<CompactFlow, CompactFlow>> flows;
+        if (flow != null) {
+            indexFlow(flowId, flow);
+            digest.add(flow);
+            flows = current.flows.plus(flowId, new ImmutablePair<>(CompactFlow.of(flow.getLeft(), switchIds),
+                    CompactFlow.of(flow.getRight(), switchIds)));
+        } else {
+            flows = current.flows.minus(flowId);
+        }
+        snapshot = new Snapshot(current.version + 1, flows, switchIds);
+        journal(flowId, flow, this::getJournalState);
+
+        return previous;
+    }
+
+    private Map<String, ?> getJournalState() {
+        Snapshot current = snapshot;
+        Map<String, ImmutablePair<Flow, Flow>> state = new LinkedHashMap<>();
+        for (String flowId : current.flows.keySet()) {
+            state.put(flowId, toFlow(current.flows.get(flowId)));
+        }
+        return state;
+    }
+
+    private void indexFlow(String flowId, ImmutablePair<Flow, Flow> flow) {
+        getSwitchKeys(flow).forEach(key -> addToIndex(switchIndex, key, flowId));
+        getPortKeys(flow).forEach(key -> addToIndex(portIndex, key, flowId));
+        for (Endpoint endpoint : getEndpoints(flow)) {
+            addToIndex(endpointPortIndex, getPortKey(endpoint.switchId, endpoint.port), flowId);
+            addToIndex(endpointVlanIndex, getVlanKey(endpoint.switchId, endpoint.port, endpoint.vlan), flowId);
+        }
+    }
+
+    private void unindexFlow(String flowId, ImmutablePair<Flow, Flow> flow) {
+        getSwitchKeys(flow).forEach(key -> removeFromIndex(switchIndex, key, flowId));
+        getPortKeys(flow).forEach(key -> removeFromIndex(portIndex, key, flowId));
+        for (Endpoint endpoint : getEndpoints(flow)) {
+            removeFromIndex(endpointPortIndex, getPortKey(endpoint.switchId, endpoint.port), flowId);
+            removeFromIndex(endpointVlanIndex, getVlanKey(endpoint.switchId, endpoint.port, endpoint.vlan), flowId);
+        }
+    }
+
+    private static void addToIndex(Map<String, Set<String>> index, String key, String flowId) {
+        index.compute(key, (indexKey, flowIds) -> {
+            Set<String> ids = flowIds != null ? flowIds : ConcurrentHashMap.newKeySet();
+            ids.add(flowId);
+            return ids;
+        });
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String flowId) {
+        index.computeIfPresent(key, (indexKey, flowIds) -> {
+            flowIds.remove(flowId);
+            return flowIds.isEmpty() ? null : flowIds;
+        });
+    }
+
+    private ImmutablePair<Flow, Flow> toFlow(ImmutablePair<CompactFlow, CompactFlow> flow) {
+        return toFlow(flow, switchIds);
+    }
+
+    private static ImmutablePair<Flow, Flow> toFlow(ImmutablePair<CompactFlow, CompactFlow> flow,
+                                                    SwitchIdTable switchIds) {
+        return new ImmutablePair<>(flow.getLeft().toFlow(switchIds),
+                flow.getRight() != null ? flow.getRight().toFlow(switchIds) : null);
+    }
+
+    private Stream<ImmutablePair<CompactFlow, CompactFlow>> getIndexedFlows(Map<String, Set<String>> index,
+                                                                           String key) {
+        Set<String> flowIds = index.get(key);
+        if (flowIds == null) {
+            return Stream.empty();
+        }
+        return flowIds.stream()
+                .map(snapshot.flows::get)
+                .filter(Objects::nonNull);
+    }
+
+    private Set<String> getSwitchKeys(ImmutablePair<Flow, Flow> flow) {
+        Set<String> keys = getPathNodes(flow)
+                .map(PathNode::getSwitchId)
+                .collect(Collectors.toSet());
+        if (flow.getRight() != null && isOneSwitchFlow(flow)) {
+            keys.add(flow.getLeft().getSourceSwitch());
+        }
+        return keys;
+    }
+
+    private static Set<String> getPortKeys(ImmutablePair<Flow, Flow> flow) {
+        return getPathNodes(flow)
+                .map(FlowCache::getPortKey)
+                .collect(Collectors.toSet());
+    }
+
+    private static Stream<PathNode> getPathNodes(ImmutablePair<Flow, Flow> flow) {
+        return Stream.of(flow.getLeft(), flow.getRight())
+                .filter(Objects::nonNull)
+                .map(Flow::getFlowPath)
+                .filter(path -> path != null && path.getPath() != null)
+                .flatMap(path -> path.getPath().stream());
+    }
+
+    private static String getPortKey(PathNode node) {
+        return getPortKey(node.getSwitchId(), node.getPortNo());
+    }
+
+    private static String getPortKey(String switchId, int portNo) {
+        return switchId + "_" + portNo;
+    }
+
+    private static String getVlanKey(String switchId, int portNo, int vlanId) {
+        return switchId + "_" + portNo + "_" + vlanId;
+    }
+
+    private static Set<Endpoint> getEndpoints(ImmutablePair<Flow, Flow> flow) {
+        Set<Endpoint> endpoints = new HashSet<>();
+        Stream.of(flow.getLeft(), flow.getRight())
+                .filter(Objects::nonNull)
+                .forEach(half -> {
+                    endpoints.add(new Endpoint(half.getSourceSwitch(), half.getSourcePort(), half.getSourceVlan()));
+                    endpoints.add(new Endpoint(
+                            half.getDestinationSwitch(), half.getDestinationPort(), half.getDestinationVlan()));
+                });
+        return endpoints;
+    }
+
+    /**
+     * Reserves flow bandwidth on the forward and reverse path isls.
+     *
+     * @param flow flow
+     * @throws CacheException if bandwidth could not be reserved on either path
+     */
+    private void reserveBandwidth(ImmutablePair<Flow, Flow> flow) throws CacheException {
+        if (networkCache == null || flow.getLeft().isIgnoreBandwidth()) {
+            return;
+        }
+
+        networkCache.reserveBandwidth(flow.getLeft().getFlowPath(), flow.getLeft().getBandwidth());
+        try {
+            networkCache.reserveBandwidth(flow.getRight().getFlowPath(), flow.getRight().getBandwidth());
+        } catch (CacheException e) {
+            networkCache.releaseBandwidth(flow.getLeft().getFlowPath(), flow.getLeft().getBandwidth());
+            throw e;
+        }
+        reservedFlows.add(flow.getLeft().getFlowId());
+    }
+
+    /**
+     * Gets the flow to be updated.
+     *
+     * @param flowId flow id
+     * @return current flow
+     * @throws CacheException if the flow is not in the pool
+     */
+    private ImmutablePair<Flow, Flow> getUpdatedFlow(String flowId) throws CacheException {
+        Snapshot current = snapshot;
+        if (!current.cacheContainsFlow(flowId)) {
+            throw new CacheException(ErrorType.NOT_FOUND, "Can not update flow",
+                    String.format("Flow %s not found", flowId));
+        }
+        return current.getFlow(flowId);
+    }
+
+    /**
+     * Moves bandwidth and resources from the old flow to the new one and puts the new flow to the pool in its place.
+     *
+     * <p>The flow is never absent from the published snapshots and the journal gets a single record for the update.
+     * If bandwidth can not be reserved for the new flow, the pool and the old flow reservations stay untouched.
+     *
+     * @param flowId  flow id
+     * @param oldFlow cached flow
+     * @param newFlow built flow
+     * @throws CacheException if bandwidth could not be reserved for the new flow
+     */
+    private void switchFlow(String flowId, ImmutablePair<Flow, Flow> oldFlow,
+                            ImmutablePair<Flow, Flow> newFlow) throws CacheException {
+        try {
+            replaceBandwidth(oldFlow, newFlow);
+        } catch (CacheException e) {
+            resourceCache.deallocateFlow(newFlow);
+            resourceCache.allocateFlow(oldFlow);
+            throw e;
+        }
+        resourceCache.deallocateFlow(oldFlow);
+        resourceCache.allocateFlow(newFlow);
+
+        replaceFlow(flowId, newFlow);
+    }
+
+    /**
+     * Moves flow bandwidth reservation from the old flow paths to the new ones.
+     *
+     * @param oldFlow flow before update
+     * @param newFlow flow after update
+     * @throws CacheException if bandwidth could not be reserved for the new flow, the old one keeps its reservation
+     */
+    private void replaceBandwidth(ImmutablePair<Flow, Flow> oldFlow, ImmutablePair<Flow, Flow> newFlow)
+            throws CacheException {
+        releaseBandwidth(oldFlow);
+        try {
+            reserveBandwidth(newFlow);
+        } catch (CacheException e) {
+            try {
+                reserveBandwidth(oldFlow);
+            } catch (CacheException restore) {
+                logger.warn("Can not restore {} flow bandwidth reservation: {}",
+                        oldFlow.getLeft().getFlowId(), restore.getErrorDescription());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases flow bandwidth on the forward and reverse path isls, if the flow holds it reserved.
+     *
+     * @param flow flow
+     */
+    private void releaseBandwidth(ImmutablePair<Flow, Flow> flow) {
+        if (networkCache == null || !reservedFlows.remove(flow.getLeft().getFlowId())) {
+            return;
+        }
+
+        networkCache.releaseBandwidth(flow.getLeft().getFlowPath(), flow.getLeft().getBandwidth());
+        networkCache.releaseBandwidth(flow.getRight().getFlowPath(), flow.getRight().getBandwidth());
+    }
+
+    /**
+     * Allocates the requested transit vlan id on the path, or a free one if it is taken on any path isl.
+     *
+     * @param cache  resource cache
+     * @param path   flow path
+     * @param vlanId requested transit vlan id
+     * @return allocated transit vlan id
+     */
+    private Integer allocateTransitVlan(ResourceCache cache, PathInfoData path, Integer vlanId) {
+        Integer allocated = cache.allocateVlanId(path, vlanId);
+        if (allocated == null) {
+            logger.warn("Transit vlan {} is already allocated on path {}, allocating another one", vlanId, path);
+            allocated = cache.allocateVlanId(path);
+        }
+        return allocated;
+    }
+
     /**
      * Checks if flow is through single switch.
      *
@@ -535,17 +1005,18 @@ public class FlowCache extends Cache {
      * Gets flow linked with specified switch id.
      *
      * @param flow     flow
-     * @param switchId switch id
-     * @return second endpoint if specified switch id one of the flows endpoint, otherwise null
+     * @param switchId switch id index
+     * @return second endpoint if specified switch id one of the flows endpoint,
+     *         otherwise {@link SwitchIdTable#NO_SWITCH}
      */
-    private String getFlowLinkedEndpoint(ImmutablePair<Flow, Flow> flow, String switchId) {
-        Flow forward = flow.getLeft();
-        Flow reverse = flow.getRight();
-        String linkedSwitch = null;
+    private int getFlowLinkedEndpoint(ImmutablePair<CompactFlow, CompactFlow> flow, int switchId) {
+        CompactFlow forward = flow.getLeft();
+        CompactFlow reverse = flow.getRight();
+        int linkedSwitch = SwitchIdTable.NO_SWITCH;
 
-        if (forward.getSourceSwitch().equals(switchId) && reverse.getDestinationSwitch().equals(switchId)) {
+        if (forward.getSourceSwitch() == switchId && reverse.getDestinationSwitch() == switchId) {
             linkedSwitch = forward.getDestinationSwitch();
-        } else if (forward.getDestinationSwitch().equals(switchId) && reverse.getSourceSwitch().equals(switchId)) {
+        } else if (forward.getDestinationSwitch() == switchId && reverse.getSourceSwitch() == switchId) {
             linkedSwitch = forward.getSourceSwitch();
         }
         return linkedSwitch;
@@ -559,7 +1030,8 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<Flow> getFlowsForEndpoint(String switchId, int port) {
-        return flowPool.values().stream()
+        return getIndexedFlows(endpointPortIndex, getPortKey(switchId, port))
+                .map(this::toFlow)
                 .flatMap(pair -> Stream.of(pair.getLeft(), pair.getRight()))
                 .filter(flow -> flow.getSourceSwitch().equals(switchId) && flow.getSourcePort() == port
                         || flow.getDestinationSwitch().equals(switchId) && flow.getDestinationPort() == port)
@@ -577,7 +1049,10 @@ public class FlowCache extends Cache {
      * @return set of flows
      */
     public Set<Flow> getFlowsForEndpoint(String switchId, int port, int vlan) {
-        return flowPool.values().stream()
+        return Stream.concat(
+                getIndexedFlows(endpointVlanIndex, getVlanKey(switchId, port, vlan)),
+                vlan != 0 ? getIndexedFlows(endpointVlanIndex, getVlanKey(switchId, port, 0)) : Stream.empty())
+                .map(this::toFlow)
                 .flatMap(pair -> Stream.of(pair.getLeft(), pair.getRight()))
                 .filter(flow -> flow.getSourceSwitch().equals(switchId) && flow.getSourcePort() == port
                         && (flow.getSourceVlan() == vlan || flow.getSourceVlan() == 0)
@@ -588,8 +1063,14 @@ public class FlowCache extends Cache {
 
 
     public Set<ImmutablePair<Flow, Flow>> getIngressAndEgressFlows(String switchId) {
-        return flowPool.values().stream()
-                .filter(flowPair -> Objects.nonNull(getFlowLinkedEndpoint(flowPair, switchId)))
+        int switchIndex = switchIds.indexOf(switchId);
+        if (switchIndex == SwitchIdTable.NO_SWITCH) {
+            return new HashSet<>();
+        }
+
+        return snapshot.flows.values().stream()
+                .filter(flowPair -> getFlowLinkedEndpoint(flowPair, switchIndex) != SwitchIdTable.NO_SWITCH)
+                .map(this::toFlow)
                 .collect(Collectors.toSet());
     }
 
@@ -600,7 +1081,115 @@ public class FlowCache extends Cache {
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("resources", resourceCache)
-                .add("flows", flowPool)
+                .add("flows", snapshot.flows)
                 .toString();
     }
+
+    /**
+     * Immutable version of {@link FlowCache} content.
+     */
+    public static final class Snapshot {
+        /**
+         * Snapshot version, incremented on every flow change.
+         */
+        private final long version;
+
+        /**
+         * Flow pool.
+         */
+        private final PersistentMap<String, ImmutablePair<CompactFlow, CompactFlow>> flows;
+
+        /**
+         * Interned switch ids of the flows.
+         */
+        private final SwitchIdTable switchIds;
+
+        private Snapshot(long version, PersistentMap<String, ImmutablePair<CompactFlow, CompactFlow>> flows,
+                         SwitchIdTable switchIds) {
+            this.version = version;
+            this.flows = flows;
+            this.switchIds = switchIds;
+        }
+
+        /**
+         * Gets snapshot version.
+         *
+         * @return snapshot version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Checks if flow pool contains {@link Flow} instance.
+         *
+         * @param flowId {@link Flow} instance id
+         * @return true if flow pool contains {@link Flow} instance
+         */
+        public boolean cacheContainsFlow(String flowId) {
+            return flows.containsKey(flowId);
+        }
+
+        /**
+         * Gets flow.
+         *
+         * @param flowId flow id
+         * @return flow
+         */
+        public ImmutablePair<Flow, Flow> getFlow(String flowId) {
+            ImmutablePair<CompactFlow, CompactFlow> flow = flows.get(flowId);
+            if (flow == null) {
+                // TODO: Is this really an exception? Should we just return null or empty?
+                //      Feels like the caller should address this, and anticipate empty.
+                throw new CacheException(ErrorType.NOT_FOUND, "Can not get flow",
+                        String.format("Flow %s not found in set %s", flowId, flows.keySet()));
+            }
+
+            return toFlow(flow, switchIds);
+        }
+
+        /**
+         * Gets all flows.
+         *
+         * @return all flows
+         */
+        public Set<ImmutablePair<Flow, Flow>> dumpFlows() {
+            return flows.values().stream()
+                    .map(flow -> toFlow(flow, switchIds))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Flow endpoint.
+     */
+    private static final class Endpoint {
+        private final String switchId;
+        private final int port;
+        private final int vlan;
+
+        Endpoint(String switchId, int port, int vlan) {
+            this.switchId = switchId;
+            this.port = port;
+            this.vlan = vlan;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+
+            Endpoint that = (Endpoint) object;
+            return port == that.port && vlan == that.vlan && Objects.equals(switchId, that.switchId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(switchId, port, vlan);
+        }
+    }
 }
@@ -0,0 +1,259 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.provider.FlowInfo;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Merkle tree of flow digests, used to find the flows that differ between the cache and the database without
+ * comparing all of them.
+ *
+ * <p>Every flow direction is a record of flow id, cookie, meter id, transit vlan and source switch id. Records are
+ * spread over the buckets by the cookie value, so both directions of a flow share a bucket. A record hash is the
+ * first 48 bits of the md5 of the concatenated record fields, null fields being empty, so the database can compute
+ * it as well, see {@link #hash(String, long, int, int, String)}. Leaves keep the sum and the count of the record
+ * hashes of their bucket and inner nodes the sums of their children, so records are added and removed in any order
+ * in log time, and digests of disjoint flow sets are merged by {@link #add(FlowDigest)}.
+ *
+ * <p>The digest is not thread safe.
+ */
+public final class FlowDigest {
+    /**
+     * Default number of buckets.
+     */
+    public static final int DEFAULT_BUCKETS = 1024;
+
+    /**
+     * Number of the md5 hex digits a record hash is made of.
+     */
+    public static final int HASH_HEX_DIGITS = 12;
+
+    private final int buckets;
+
+    /**
+     * Sums of the record hashes by tree node, the root is node 1, children of node i are nodes 2i and 2i + 1 and
+     * the leaf of bucket b is node buckets + b.
+     */
+    private final long[] sums;
+
+    /**
+     * Numbers of records by tree node.
+     */
+    private final int[] counts;
+
+    /**
+     * Instance constructor.
+     *
+     * @param buckets number of buckets, a power of two
+     */
+    public FlowDigest(int buckets) {
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException(String.format("Number of buckets %d is not a power of two", buckets));
+        }
+        this.buckets = buckets;
+        this.sums = new long[buckets * 2];
+        this.counts = new int[buckets * 2];
+    }
+
+    private FlowDigest(FlowDigest digest) {
+        this.buckets = digest.buckets;
+        this.sums = digest.sums.clone();
+        this.counts = digest.counts.clone();
+    }
+
+    /**
+     * Gets bucket of the flow cookie.
+     *
+     * @param cookie  flow cookie of any direction
+     * @param buckets number of buckets
+     * @return bucket
+     */
+    public static int getBucket(long cookie, int buckets) {
+        return (int) ((cookie & ResourceCache.FLOW_COOKIE_VALUE_MASK) % buckets);
+    }
+
+    /**
+     * Computes record hash.
+     *
+     * @param flowId      flow id
+     * @param cookie      flow cookie
+     * @param meterId     meter id
+     * @param transitVlan transit vlan id
+     * @param srcSwitch   source switch id
+     * @return 48 bit hash
+     */
+    public static long hash(String flowId, long cookie, int meterId, int transitVlan, String srcSwitch) {
+        String record = Objects.toString(flowId, "") + cookie + meterId + transitVlan
+                + Objects.toString(srcSwitch, "");
+        byte[] md5 = Hashing.md5().hashString(record, StandardCharsets.UTF_8).asBytes();
+        long hash = 0;
+        for (int i = 0; i < HASH_HEX_DIGITS / 2; i++) {
+            hash = hash << 8 | md5[i] & 0xFF;
+        }
+        return hash;
+    }
+
+    /**
+     * Adds flow record.
+     *
+     * @param flow flow info
+     */
+    public void add(FlowInfo flow) {
+        update(flow.getCookie(), hash(flow.getFlowId(), flow.getCookie(), flow.getMeterId(),
+                flow.getTransitVlanId(), flow.getSrcSwitchId()), 1);
+    }
+
+    /**
+     * Adds records of both flow directions.
+     *
+     * @param flow flow
+     */
+    public void add(ImmutablePair<Flow, Flow> flow) {
+        update(flow.getLeft(), 1);
+        update(flow.getRight(), 1);
+    }
+
+    /**
+     * Adds records of the digest, digests of disjoint flow sets are merged this way.
+     *
+     * @param digest digest with the same number of buckets
+     */
+    public void add(FlowDigest digest) {
+        checkBuckets(digest);
+        for (int i = 1; i < sums.length; i++) {
+            sums[i] += digest.sums[i];
+            counts[i] += digest.counts[i];
+        }
+    }
+
+    /**
+     * Adds bucket digest computed elsewhere.
+     *
+     * @param bucket bucket
+     * @param sum    sum of the record hashes
+     * @param count  number of records
+     */
+    public void add(int bucket, long sum, int count) {
+        for (int node = buckets + bucket; node > 0; node /= 2) {
+            sums[node] += sum;
+            counts[node] += count;
+        }
+    }
+
+    /**
+     * Removes records of both flow directions.
+     *
+     * @param flow flow
+     */
+    public void remove(ImmutablePair<Flow, Flow> flow) {
+        update(flow.getLeft(), -1);
+        update(flow.getRight(), -1);
+    }
+
+    private void update(Flow flow, int sign) {
+        update(flow.getCookie(), hash(flow.getFlowId(), flow.getCookie(), flow.getMeterId(), flow.getTransitVlan(),
+                flow.getSourceSwitch()), sign);
+    }
+
+    private void update(long cookie, long hash, int sign) {
+        add(getBucket(cookie, buckets), sign * hash, sign);
+    }
+
+    /**
+     * Finds buckets the digests differ in, descending only into the subtrees with different digests.
+     *
+     * @param digest digest with the same number of buckets
+     * @return buckets in ascending order
+     */
+    public Set<Integer> diff(FlowDigest digest) {
+        checkBuckets(digest);
+        Set<Integer> result = new TreeSet<>();
+        diff(digest, 1, result);
+        return result;
+    }
+
+    private void diff(FlowDigest digest, int node, Set<Integer> result) {
+        if (sums[node] == digest.sums[node] && counts[node] == digest.counts[node]) {
+            return;
+        }
+        if (node >= buckets) {
+            result.add(node - buckets);
+        } else {
+            diff(digest, node * 2, result);
+            diff(digest, node * 2 + 1, result);
+        }
+    }
+
+    private void checkBuckets(FlowDigest digest) {
+        if (digest.buckets != buckets) {
+            throw new IllegalArgumentException(
+                    String.format("Number of buckets %d differs from %d", digest.buckets, buckets));
+        }
+    }
+
+    /**
+     * Clears the digest.
+     */
+    public void clear() {
+        Arrays.fill(sums, 0L);
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Copies the digest.
+     *
+     * @return new {@link FlowDigest} instance
+     */
+    public FlowDigest copy() {
+        return new FlowDigest(this);
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Gets number of records.
+     *
+     * @return number of records
+     */
+    public int size() {
+        return counts[1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("buckets", buckets)
+                .add("records", counts[1])
+                .add("root", Long.toHexString(sums[1]))
+                .toString();
+    }
+}
@@ -15,9 +15,13 @@
 
 package org.openkilda.pce.cache;
 
+import static org.openkilda.messaging.Utils.MAPPER;
+
 import org.openkilda.messaging.error.CacheException;
 import org.openkilda.messaging.error.ErrorType;
 import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.messaging.info.event.SwitchInfoData;
 import org.openkilda.messaging.info.event.SwitchState;
 
@@ -29,10 +33,17 @@ import com.google.common.graph.NetworkBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class NetworkCache extends Cache {
@@ -41,6 +52,12 @@ public class NetworkCache extends Cache {
      */
     private static final Logger logger = LoggerFactory.getLogger(NetworkCache.class);
 
+    /**
+     * Journal entry key prefixes.
+     */
+    private static final String SWITCH_KEY_PREFIX = "switch:";
+    private static final String ISL_KEY_PREFIX = "isl:";
+
     /**
      * Network cache.
      */
@@ -51,14 +68,28 @@ public class NetworkCache extends Cache {
             .build();
 
     /**
-     * Switches pool.
+     * Bandwidth reserved by flows by isl id.
+     *
+     * <p>Reservations are kept apart from {@link IslInfoData} instances, which are replaced on every isl update,
+     * and outlive isl deletion, so flows still placed on a removed isl release their bandwidth consistently.
+     * The counters are changed without locking, see {@link #reserveBandwidth(PathInfoData, long)}.
      */
-    private final Map<String, SwitchInfoData> switchPool = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> reservedBandwidth = new ConcurrentHashMap<>();
 
     /**
-     * Isl pool.
+     * Version of the available bandwidth, see {@link #getBandwidthVersion()}.
      */
-    private final Map<String, IslInfoData> islPool = new ConcurrentHashMap<>();
+    private final AtomicLong bandwidthVersion = new AtomicLong();
+
+    /**
+     * Current version of the switch and isl pools.
+     *
+     * <p>Changes are made under the cache monitor and publish a new {@link Snapshot}, built of persistent maps which
+     * share untouched entries with the previous version. Reads take the current snapshot without locking and see
+     * either all or none of a change.
+     */
+    private volatile Snapshot snapshot = new Snapshot(0L, PersistentMap.empty(), PersistentMap.empty(),
+            PersistentMap.empty(), reservedBandwidth);
 
     /**
      * Fills cache.
@@ -74,6 +105,71 @@ public class NetworkCache extends Cache {
         isls.forEach(this::createIsl);
     }
 
+    /**
+     * Recovers switches and isls from the journal and starts logging their changes to it.
+     *
+     * <p>Bandwidth reservations are not journaled, the journaled isl available bandwidth accounts the installed flows.
+     * The journal is checkpointed with the recovered topology, so it does not keep growing across restarts.
+     *
+     * @param journal {@link CacheJournal} instance
+     * @throws IOException if the journal could not be read
+     */
+    public synchronized void attachJournal(CacheJournal journal) throws IOException {
+        Map<String, String> state = journal.read();
+        for (Map.Entry<String, String> entry : state.entrySet()) {
+            if (entry.getKey().startsWith(SWITCH_KEY_PREFIX)) {
+                createOrUpdateSwitch(MAPPER.readValue(entry.getValue(), SwitchInfoData.class));
+            }
+        }
+        for (Map.Entry<String, String> entry : state.entrySet()) {
+            if (entry.getKey().startsWith(ISL_KEY_PREFIX)) {
+                createOrUpdateIsl(MAPPER.readValue(entry.getValue(), IslInfoData.class));
+            }
+        }
+        logger.info("Recovered {} switches and {} isls from {}",
+                snapshot.switches.size(), snapshot.isls.size(), journal);
+
+        setJournal(journal);
+        checkpoint(getJournalState());
+    }
+
+    /**
+     * Gets topology generation.
+     *
+     * <p>It changes on every switch or isl create, update or delete, so anything derived from the topology, e.g. a
+     * computed path, is valid as long as the generation it was derived at stays current. Bandwidth reservations and
+     * releases keep the generation, so the users must check the current available bandwidth themselves.
+     *
+     * @return topology generation
+     */
+    public long getGeneration() {
+        return snapshot.generation;
+    }
+
+    /**
+     * Gets available bandwidth version.
+     *
+     * <p>It changes on every bandwidth reservation, release and available bandwidth update. Read it before the
+     * bandwidth, so a change made after the read is seen as a new version by the next read.
+     *
+     * @return available bandwidth version
+     */
+    public long getBandwidthVersion() {
+        return bandwidthVersion.get();
+    }
+
+    /**
+     * Gets current immutable version of the cache.
+     *
+     * <p>Queries on the snapshot are consistent with each other however long it is used, and do not block or get
+     * blocked by cache changes. Reserved bandwidth is the only exception, it is read from the current counters.
+     *
+     * @return {@link Snapshot} instance
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
     /**
      * Gets all {@link IslInfoData} instances which start node is specified {@link SwitchInfoData} instance.
      *
@@ -128,7 +224,7 @@ public class NetworkCache extends Cache {
     public Set<SwitchInfoData> getStateSwitches(SwitchState state) {
         logger.debug("Get all switches in {} state", state);
 
-        return network.nodes().stream()
+        return snapshot.switches.values().stream()
                 .filter(sw -> sw.getState() == state)
                 .collect(Collectors.toSet());
     }
@@ -142,7 +238,7 @@ public class NetworkCache extends Cache {
     public Set<SwitchInfoData> getControllerSwitches(String controller) {
         logger.debug("Get all switches connected to {} controller", controller);
 
-        return network.nodes().stream()
+        return snapshot.switches.values().stream()
                 .filter(sw -> sw.getController().equals(controller))
                 .collect(Collectors.toSet());
     }
@@ -163,14 +259,66 @@ public class NetworkCache extends Cache {
     }
 
     /**
-     * Clears the inner network and pools.
+     * Replaces all switches and isls with the specified ones as a single topology change.
+     *
+     * <p>Unlike {@link #clear()} followed by {@link #load(Set, Set)}, readers never see a partially loaded topology.
+     * The bandwidth reservations are dropped, the reloaded isl available bandwidth accounts the flows placed on them.
+     *
+     * @param switches {@link Set} of {@link SwitchInfoData} instances
+     * @param isls     {@link Set} of {@link IslInfoData} instances
+     * @throws CacheException if {@link SwitchInfoData} related to {@link IslInfoData} instance is not specified
      */
-    public void clear() {
-        islPool.values().forEach(network::removeEdge);
-        islPool.clear();
+    public synchronized void reload(Set<SwitchInfoData> switches, Set<IslInfoData> isls) throws CacheException {
+        logger.debug("Reload {} switches and {} isls", switches.size(), isls.size());
+
+        PersistentMap<String, SwitchInfoData> switchPool = PersistentMap.empty();
+        for (SwitchInfoData node : switches) {
+            switchPool = switchPool.plus(node.getSwitchId(), node);
+        }
+        for (IslInfoData isl : isls) {
+            for (PathNode endpoint : isl.getPath()) {
+                if (!switchPool.containsKey(endpoint.getSwitchId())) {
+                    throw new CacheException(ErrorType.NOT_FOUND, "Can not reload isl",
+                            String.format("Switch %s of isl %s not found", endpoint.getSwitchId(), isl.getId()));
+                }
+            }
+        }
 
-        switchPool.values().forEach(network::removeNode);
-        switchPool.clear();
+        Snapshot current = snapshot;
+        current.isls.values().forEach(network::removeEdge);
+        current.switches.values().forEach(network::removeNode);
+
+        for (SwitchInfoData node : switchPool.values()) {
+            node.setCreatedInCacheNow();
+            network.addNode(node);
+        }
+        PersistentMap<String, IslInfoData> islPool = PersistentMap.empty();
+        for (IslInfoData isl : isls) {
+            isl.setCreatedInCacheNow();
+            network.addEdge(switchPool.get(isl.getPath().get(0).getSwitchId()),
+                    switchPool.get(isl.getPath().get(1).getSwitchId()), isl);
+            islPool = islPool.plus(isl.getId(), isl);
+        }
+
+        snapshot = current.next(switchPool, islPool, islPool);
+        reservedBandwidth.clear();
+        bandwidthVersion.incrementAndGet();
+        checkpoint(getJournalState());
+    }
+
+    /**
+     * Clears the inner network and pools.
+     */
+    public synchronized void clear() {
+        Snapshot current = snapshot;
+        checkpoint(Collections.emptyMap());
+        current.isls.values().forEach(network::removeEdge);
+        current.switches.values().forEach(network::removeNode);
+
+        snapshot = new Snapshot(current.generation + 1, PersistentMap.empty(), PersistentMap.empty(),
+                PersistentMap.empty(), reservedBandwidth);
+        reservedBandwidth.clear();
+        bandwidthVersion.incrementAndGet();
     }
 
     /**
@@ -183,13 +331,7 @@ public class NetworkCache extends Cache {
     public SwitchInfoData getSwitch(String switchId) throws CacheException {
         logger.debug("Get {} switch", switchId);
 
-        SwitchInfoData node = switchPool.get(switchId);
-        if (node == null) {
-            throw new CacheException(ErrorType.NOT_FOUND, "Can not get switch",
-                    String.format("Switch %s not found", switchId));
-        }
-
-        return node;
+        return snapshot.getSwitch(switchId);
     }
 
     /**
@@ -199,13 +341,13 @@ public class NetworkCache extends Cache {
      * @return created {@link SwitchInfoData} instance
      * @throws CacheException if {@link SwitchInfoData} instance with specified id already exists
      */
-    public SwitchInfoData createSwitch(SwitchInfoData newSwitch) throws CacheException {
+    public synchronized SwitchInfoData createSwitch(SwitchInfoData newSwitch) throws CacheException {
         String switchId = newSwitch.getSwitchId();
 
         logger.debug("Create {} switch with {} parameters", switchId, newSwitch);
 
-        SwitchInfoData oldSwitch = switchPool.get(switchId);
-        if (oldSwitch != null) {
+        Snapshot current = snapshot;
+        if (current.switches.containsKey(switchId)) {
             throw new CacheException(ErrorType.ALREADY_EXISTS, "Can not create switch",
                     String.format("Switch %s already exists", switchId));
         }
@@ -213,7 +355,8 @@ public class NetworkCache extends Cache {
         newSwitch.setCreatedInCacheNow();
 
         network.addNode(newSwitch);
-        switchPool.put(switchId, newSwitch);
+        snapshot = current.next(current.switches.plus(switchId, newSwitch), current.isls, current.links);
+        journal(SWITCH_KEY_PREFIX + switchId, newSwitch, this::getJournalState);
 
         return newSwitch;
     }
@@ -225,11 +368,12 @@ public class NetworkCache extends Cache {
      * @return {@link SwitchInfoData} instance before update
      * @throws CacheException if {@link SwitchInfoData} instance with specified id does not exist
      */
-    public SwitchInfoData updateSwitch(SwitchInfoData newSwitch) throws CacheException {
+    public synchronized SwitchInfoData updateSwitch(SwitchInfoData newSwitch) throws CacheException {
         String switchId = newSwitch.getSwitchId();
         logger.debug("Update {} switch with {} parameters", switchId, newSwitch);
 
-        SwitchInfoData oldSwitch = switchPool.remove(switchId);
+        Snapshot current = snapshot;
+        SwitchInfoData oldSwitch = current.switches.get(switchId);
         if (oldSwitch == null) {
             throw new CacheException(ErrorType.NOT_FOUND, "Can not update switch",
                     String.format("Switch %s not found", switchId));
@@ -240,7 +384,9 @@ public class NetworkCache extends Cache {
 
         network.removeNode(oldSwitch);
         network.addNode(newSwitch);
-        switchPool.put(switchId, newSwitch);
+        snapshot = current.next(current.switches.plus(switchId, newSwitch), current.isls,
+                withoutSwitchLinks(current.links, switchId));
+        journal(SWITCH_KEY_PREFIX + switchId, newSwitch, this::getJournalState);
 
         return newSwitch;
     }
@@ -269,16 +415,20 @@ public class NetworkCache extends Cache {
      * @return removed {@link SwitchInfoData} instance
      * @throws CacheException if {@link SwitchInfoData} instance with specified id does not exist
      */
-    public SwitchInfoData deleteSwitch(String switchId) throws CacheException {
+    public synchronized SwitchInfoData deleteSwitch(String switchId) throws CacheException {
         logger.debug("Delete {} switch", switchId);
 
-        SwitchInfoData node = switchPool.remove(switchId);
+        Snapshot current = snapshot;
+        SwitchInfoData node = current.switches.get(switchId);
         if (node == null) {
             throw new CacheException(ErrorType.NOT_FOUND, "Can not delete switch",
                     String.format("Switch %s not found", switchId));
         }
 
         network.removeNode(node);
+        snapshot = current.next(current.switches.minus(switchId), current.isls,
+                withoutSwitchLinks(current.links, switchId));
+        journal(SWITCH_KEY_PREFIX + switchId, null, this::getJournalState);
 
         return node;
     }
@@ -291,7 +441,7 @@ public class NetworkCache extends Cache {
     public Set<SwitchInfoData> dumpSwitches() {
         logger.debug("Get all switches");
 
-        return new HashSet<>(network.nodes());
+        return snapshot.dumpSwitches();
     }
 
     /**
@@ -303,7 +453,7 @@ public class NetworkCache extends Cache {
     public boolean cacheContainsSwitch(String switchId) {
         logger.debug("Is switch {} in cache", switchId);
 
-        return switchPool.containsKey(switchId);
+        return snapshot.cacheContainsSwitch(switchId);
     }
 
     /**
@@ -313,8 +463,9 @@ public class NetworkCache extends Cache {
      * @return true if switch in operational state, otherwise false
      */
     public boolean switchIsOperable(String switchId) {
-        if (cacheContainsSwitch(switchId)) {
-            SwitchState switchState = switchPool.get(switchId).getState();
+        SwitchInfoData node = snapshot.switches.get(switchId);
+        if (node != null) {
+            SwitchState switchState = node.getState();
             if (SwitchState.ADDED == switchState || SwitchState.ACTIVATED == switchState) {
                 return true;
             }
@@ -332,13 +483,7 @@ public class NetworkCache extends Cache {
     public IslInfoData getIsl(String islId) throws CacheException {
         logger.debug("Get {} isl", islId);
 
-        IslInfoData isl = islPool.get(islId);
-        if (isl == null) {
-            throw new CacheException(ErrorType.NOT_FOUND, "Can not get isl",
-                    String.format("Isl %s not found", islId));
-        }
-
-        return islPool.get(islId);
+        return snapshot.getIsl(islId);
     }
 
     /**
@@ -348,16 +493,19 @@ public class NetworkCache extends Cache {
      * @return {@link IslInfoData} instance previously associated with {@link IslInfoData} instance id or null otherwise
      * @throws CacheException if {@link SwitchInfoData} related to {@link IslInfoData} instance do not exist
      */
-    public IslInfoData createIsl(IslInfoData isl) throws CacheException {
+    public synchronized IslInfoData createIsl(IslInfoData isl) throws CacheException {
         String islId = isl.getId();
         logger.debug("Create {} isl with {} parameters", islId, isl);
 
         isl.setCreatedInCacheNow();
 
+        Snapshot current = snapshot;
         EndpointPair<SwitchInfoData> nodes = getIslSwitches(isl);
         network.addEdge(nodes.source(), nodes.target(), isl);
+        snapshot = current.next(current.switches, current.isls.plus(islId, isl), current.links.plus(islId, isl));
+        journal(ISL_KEY_PREFIX + islId, isl, this::getJournalState);
 
-        return islPool.put(islId, isl);
+        return current.isls.get(islId);
     }
 
     /**
@@ -367,20 +515,27 @@ public class NetworkCache extends Cache {
      * @return {@link IslInfoData} instance previously associated with {@link IslInfoData} instance id or null otherwise
      * @throws CacheException if {@link SwitchInfoData} related to {@link IslInfoData} instance do not exist
      */
-    public IslInfoData updateIsl(IslInfoData isl) throws CacheException {
+    public synchronized IslInfoData updateIsl(IslInfoData isl) throws CacheException {
         String islId = isl.getId();
         logger.debug("Update {} isl with {} parameters", islId, isl);
 
-        IslInfoData oldIsl = islPool.get(islId);
+        Snapshot current = snapshot;
+        IslInfoData oldIsl = current.isls.get(islId);
         network.removeEdge(oldIsl);
 
         isl.copyTimeTag(oldIsl);
         isl.setUpdatedInCacheNow();
+        if (isl.getCost() == 0) {
+            // discovery events do not carry the cost, it is only known from the link properties
+            isl.setCost(oldIsl.getCost());
+        }
 
         EndpointPair<SwitchInfoData> nodes = getIslSwitches(isl);
         network.addEdge(nodes.source(), nodes.target(), isl);
+        snapshot = current.next(current.switches, current.isls.plus(islId, isl), current.links.plus(islId, isl));
+        journal(ISL_KEY_PREFIX + islId, isl, this::getJournalState);
 
-        return islPool.put(islId, isl);
+        return oldIsl;
     }
 
     /**
@@ -407,20 +562,143 @@ public class NetworkCache extends Cache {
      * @return removed {@link IslInfoData} instance
      * @throws CacheException if {@link IslInfoData} instance with specified id does not exist
      */
-    public IslInfoData deleteIsl(String islId) throws CacheException {
+    public synchronized IslInfoData deleteIsl(String islId) throws CacheException {
         logger.debug("Delete {} isl", islId);
 
-        IslInfoData isl = islPool.remove(islId);
+        Snapshot current = snapshot;
+        IslInfoData isl = current.isls.get(islId);
         if (isl == null) {
             throw new CacheException(ErrorType.NOT_FOUND, "Can not delete isl",
                     String.format("Isl %s not found", islId));
         }
 
         network.removeEdge(isl);
+        snapshot = current.next(current.switches, current.isls.minus(islId), current.links.minus(islId));
+        journal(ISL_KEY_PREFIX + islId, null, this::getJournalState);
 
         return isl;
     }
 
+    /**
+     * Updates bandwidth available on {@link IslInfoData} instance.
+     *
+     * <p>Unlike {@link #updateIsl(IslInfoData)}, it keeps the topology generation, so the paths derived from the
+     * topology stay valid, see {@link #getGeneration()}. The bandwidth reserved on the isl is dropped, the new value
+     * accounts the flows placed on it.
+     *
+     * @param islId              {@link IslInfoData} instance id
+     * @param availableBandwidth isl available bandwidth
+     * @return {@link IslInfoData} instance previously associated with {@link IslInfoData} instance id
+     * @throws CacheException if {@link IslInfoData} instance with specified id does not exist
+     */
+    public synchronized IslInfoData updateAvailableBandwidth(String islId, long availableBandwidth)
+            throws CacheException {
+        logger.debug("Update {} isl available bandwidth to {}", islId, availableBandwidth);
+
+        Snapshot current = snapshot;
+        IslInfoData oldIsl = current.getIsl(islId);
+        IslInfoData isl = new IslInfoData(oldIsl);
+        isl.setAvailableBandwidth(availableBandwidth);
+        isl.copyTimeTag(oldIsl);
+        isl.setUpdatedInCacheNow();
+
+        network.removeEdge(oldIsl);
+        EndpointPair<SwitchInfoData> nodes = getIslSwitches(isl);
+        network.addEdge(nodes.source(), nodes.target(), isl);
+        snapshot = current.withIsl(islId, isl);
+        AtomicLong reserved = reservedBandwidth.get(islId);
+        if (reserved != null) {
+            reserved.set(0L);
+        }
+        bandwidthVersion.incrementAndGet();
+        journal(ISL_KEY_PREFIX + islId, isl, this::getJournalState);
+
+        return oldIsl;
+    }
+
+    /**
+     * Gets bandwidth reserved on {@link IslInfoData} instance by flows.
+     *
+     * @param islId {@link IslInfoData} instance id
+     * @return reserved bandwidth
+     */
+    public long getReservedBandwidth(String islId) {
+        return snapshot.getReservedBandwidth(islId);
+    }
+
+    /**
+     * Gets {@link IslInfoData} instance bandwidth available for new flows.
+     *
+     * @param islId {@link IslInfoData} instance id
+     * @return isl available bandwidth less bandwidth reserved by flows
+     * @throws CacheException if {@link IslInfoData} instance with specified id does not exist
+     */
+    public long getAvailableBandwidth(String islId) throws CacheException {
+        return snapshot.getAvailableBandwidth(islId);
+    }
+
+    /**
+     * Reserves bandwidth on every isl of the path.
+     *
+     * <p>Either bandwidth is reserved on all isls or on none of them, so concurrent reservations can not
+     * oversubscribe an isl. Each isl counter is checked and increased in a single atomic update, and the isls
+     * already reserved are released if a later one has not enough bandwidth, so reservations do not lock the cache.
+     *
+     * @param path      flow path
+     * @param bandwidth bandwidth to reserve
+     * @throws CacheException if an isl does not exist or has not enough available bandwidth
+     */
+    public void reserveBandwidth(PathInfoData path, long bandwidth) throws CacheException {
+        List<String> islIds = getPathIsls(path);
+        logger.debug("Reserve {} bandwidth on {} isls", bandwidth, islIds);
+
+        Snapshot current = snapshot;
+        List<AtomicLong> reserved = new ArrayList<>(islIds.size());
+        try {
+            for (String islId : islIds) {
+                IslInfoData isl = current.isls.get(islId);
+                if (isl == null) {
+                    throw new CacheException(ErrorType.PARAMETERS_INVALID, "Can not reserve bandwidth",
+                            String.format("Isl %s not found", islId));
+                }
+
+                AtomicLong counter = reservedBandwidth.computeIfAbsent(islId, key -> new AtomicLong());
+                long limit = isl.getAvailableBandwidth() - bandwidth;
+                long previous = counter.getAndUpdate(value -> value <= limit ? value + bandwidth : value);
+                if (previous > limit) {
+                    throw new CacheException(ErrorType.PARAMETERS_INVALID, "Can not reserve bandwidth",
+                            String.format("Isl %s has %d bandwidth available, %d required",
+                                    islId, isl.getAvailableBandwidth() - previous, bandwidth));
+                }
+                reserved.add(counter);
+            }
+        } catch (CacheException e) {
+            reserved.forEach(counter -> release(counter, bandwidth));
+            throw e;
+        } finally {
+            bandwidthVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Releases bandwidth previously reserved on every isl of the path.
+     *
+     * @param path      flow path
+     * @param bandwidth bandwidth to release
+     */
+    public void releaseBandwidth(PathInfoData path, long bandwidth) {
+        List<String> islIds = getPathIsls(path);
+        logger.debug("Release {} bandwidth on {} isls", bandwidth, islIds);
+
+        for (String islId : islIds) {
+            AtomicLong counter = reservedBandwidth.get(islId);
+            if (counter != null) {
+                release(counter, bandwidth);
+            }
+        }
+        bandwidthVersion.incrementAndGet();
+    }
+
     /**
      * Gets all {@link IslInfoData} instances.
      *
@@ -429,7 +707,7 @@ public class NetworkCache extends Cache {
     public Set<IslInfoData> dumpIsls() {
         logger.debug("Get all isls");
 
-        return new HashSet<>(network.edges());
+        return snapshot.dumpIsls();
     }
 
     /**
@@ -441,7 +719,7 @@ public class NetworkCache extends Cache {
     public boolean cacheContainsIsl(String islId) {
         logger.debug("Is isl {} in cache", islId);
 
-        return islPool.containsKey(islId);
+        return snapshot.cacheContainsIsl(islId);
     }
 
     /**
@@ -481,11 +759,228 @@ public class NetworkCache extends Cache {
         return EndpointPair.ordered(startNode, endNode);
     }
 
+    /**
+     * Gets ids of the path isls.
+     *
+     * <p>Path nodes go in pairs of isl source and destination endpoints, isl id is made of the source endpoint.
+     *
+     * @param path flow path
+     * @return isl ids
+     */
+    private List<String> getPathIsls(PathInfoData path) {
+        List<String> islIds = new ArrayList<>();
+        if (path != null && path.getPath() != null) {
+            List<PathNode> nodes = path.getPath();
+            for (int i = 0; i + 1 < nodes.size(); i += 2) {
+                islIds.add(String.format("%s_%d", nodes.get(i).getSwitchId(), nodes.get(i).getPortNo()));
+            }
+        }
+        return islIds;
+    }
+
+    /**
+     * Decreases isl reservation counter, which does not go below zero after the reservations are dropped.
+     */
+    private static void release(AtomicLong counter, long bandwidth) {
+        counter.getAndUpdate(reserved -> Math.max(reserved - bandwidth, 0L));
+    }
+
+    private Map<String, ?> getJournalState() {
+        Snapshot current = snapshot;
+        Map<String, Object> state = new LinkedHashMap<>();
+        current.switches.values().forEach(node -> state.put(SWITCH_KEY_PREFIX + node.getSwitchId(), node));
+        current.isls.values().forEach(isl -> state.put(ISL_KEY_PREFIX + isl.getId(), isl));
+        return state;
+    }
+
+    /**
+     * Gets links of the network graph without isls incident to the switch.
+     *
+     * <p>The graph drops incident edges along with an updated or deleted switch node, while the isl pool keeps them.
+     *
+     * @param links    network graph links
+     * @param switchId switch id
+     * @return network graph links
+     */
+    private static PersistentMap<String, IslInfoData> withoutSwitchLinks(PersistentMap<String, IslInfoData> links,
+                                                                          String switchId) {
+        PersistentMap<String, IslInfoData> result = links;
+        for (IslInfoData isl : links.values()) {
+            if (switchId.equals(isl.getPath().get(0).getSwitchId())
+                    || switchId.equals(isl.getPath().get(1).getSwitchId())) {
+                result = result.minus(isl.getId());
+            }
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
+        Snapshot current = snapshot;
         return MoreObjects.toStringHelper(this)
-                .add("switches", switchPool)
-                .add("isls", islPool)
+                .add("switches", current.switches)
+                .add("isls", current.isls)
+                .add("reserved_bandwidth", reservedBandwidth)
                 .toString();
     }
+
+    /**
+     * Immutable version of {@link NetworkCache} content.
+     */
+    public static final class Snapshot {
+        /**
+         * Topology generation.
+         */
+        private final long generation;
+
+        /**
+         * Switches pool.
+         */
+        private final PersistentMap<String, SwitchInfoData> switches;
+
+        /**
+         * Isl pool.
+         */
+        private final PersistentMap<String, IslInfoData> isls;
+
+        /**
+         * Isls of the network graph, see {@link #withoutSwitchLinks(PersistentMap, String)}.
+         */
+        private final PersistentMap<String, IslInfoData> links;
+
+        /**
+         * Bandwidth reservation counters of the cache, shared by all snapshots.
+         */
+        private final Map<String, AtomicLong> reservedBandwidth;
+
+        private Snapshot(long generation, PersistentMap<String, SwitchInfoData> switches,
+                         PersistentMap<String, IslInfoData> isls, PersistentMap<String, IslInfoData> links,
+                         Map<String, AtomicLong> reservedBandwidth) {
+            this.generation = generation;
+            this.switches = switches;
+            this.isls = isls;
+            this.links = links;
+            this.reservedBandwidth = reservedBandwidth;
+        }
+
+        /**
+         * Gets topology generation of the snapshot.
+         *
+         * @return topology generation
+         * @see NetworkCache#getGeneration()
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Gets {@link SwitchInfoData} instance.
+         *
+         * @param switchId {@link SwitchInfoData} instance id
+         * @return {@link SwitchInfoData} instance with specified {@link SwitchInfoData} instance id
+         * @throws CacheException if {@link SwitchInfoData} instance with specified id does not exist
+         */
+        public SwitchInfoData getSwitch(String switchId) throws CacheException {
+            SwitchInfoData node = switches.get(switchId);
+            if (node == null) {
+                throw new CacheException(ErrorType.NOT_FOUND, "Can not get switch",
+                        String.format("Switch %s not found", switchId));
+            }
+
+            return node;
+        }
+
+        /**
+         * Checks if switch pool contains {@link SwitchInfoData} instance.
+         *
+         * @param switchId {@link SwitchInfoData} instance id
+         * @return true if switch pool contains {@link SwitchInfoData} instance
+         */
+        public boolean cacheContainsSwitch(String switchId) {
+            return switches.containsKey(switchId);
+        }
+
+        /**
+         * Gets all {@link SwitchInfoData} instances.
+         *
+         * @return {@link Set} of {@link SwitchInfoData} instances
+         */
+        public Set<SwitchInfoData> dumpSwitches() {
+            return new HashSet<>(switches.values());
+        }
+
+        /**
+         * Get {@link IslInfoData} instance.
+         *
+         * @param islId {@link IslInfoData} instance id
+         * @return {@link IslInfoData} instance with specified {@link IslInfoData} instance id
+         * @throws CacheException if {@link IslInfoData} instance with specified id does not exist
+         */
+        public IslInfoData getIsl(String islId) throws CacheException {
+            IslInfoData isl = isls.get(islId);
+            if (isl == null) {
+                throw new CacheException(ErrorType.NOT_FOUND, "Can not get isl",
+                        String.format("Isl %s not found", islId));
+            }
+
+            return isl;
+        }
+
+        /**
+         * Checks if isl pool contains {@link IslInfoData} instance.
+         *
+         * @param islId {@link IslInfoData} instance id
+         * @return true if isl pool contains {@link IslInfoData} instance
+         */
+        public boolean cacheContainsIsl(String islId) {
+            return isls.containsKey(islId);
+        }
+
+        /**
+         * Gets all {@link IslInfoData} instances of the network graph.
+         *
+         * @return {@link Set} of {@link IslInfoData} instances
+         */
+        public Set<IslInfoData> dumpIsls() {
+            return new HashSet<>(links.values());
+        }
+
+        /**
+         * Gets bandwidth currently reserved on {@link IslInfoData} instance by flows.
+         *
+         * @param islId {@link IslInfoData} instance id
+         * @return reserved bandwidth
+         */
+        public long getReservedBandwidth(String islId) {
+            AtomicLong reserved = reservedBandwidth.get(islId);
+            return reserved != null ? reserved.get() : 0L;
+        }
+
+        /**
+         * Gets {@link IslInfoData} instance bandwidth available for new flows.
+         *
+         * @param islId {@link IslInfoData} instance id
+         * @return isl available bandwidth less bandwidth reserved by flows
+         * @throws CacheException if {@link IslInfoData} instance with specified id does not exist
+         */
+        public long getAvailableBandwidth(String islId) throws CacheException {
+            return getIsl(islId).getAvailableBandwidth() - getReservedBandwidth(islId);
+        }
+
+        /**
+         * Builds the next generation snapshot.
+         */
+        private Snapshot next(PersistentMap<String, SwitchInfoData> switches, PersistentMap<String, IslInfoData> isls,
+                              PersistentMap<String, IslInfoData> links) {
+            return new Snapshot(generation + 1, switches, isls, links, reservedBandwidth);
+        }
+
+        /**
+         * Builds snapshot of the same generation with the isl replaced.
+         */
+        private Snapshot withIsl(String islId, IslInfoData isl) {
+            return new Snapshot(generation, switches, isls.plus(islId, isl), links.plus(islId, isl),
+                    reservedBandwidth);
+        }
+    }
 }
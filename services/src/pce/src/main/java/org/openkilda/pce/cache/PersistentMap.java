@@ -0,0 +1,542 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable hash map with structural sharing, a hash array mapped trie.
+ *
+ * <p>{@link #plus(Object, Object)} and {@link #minus(Object)} return a new map which shares all untouched trie
+ * nodes with the original one, so a change copies a few small node arrays instead of the whole map and every
+ * version stays valid. Caches keep the current version in a volatile field: readers take it without locking and
+ * keep a consistent view however long they use it. Null keys and values are not supported.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class PersistentMap<K, V> {
+    /**
+     * Hash bits consumed by a trie level.
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Mask of the hash bits of a trie level.
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Maximum number of nested node arrays: a node per level plus a collision node.
+     */
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS + 1;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    /**
+     * Root node or null if the map is empty.
+     */
+    private final Node root;
+
+    /**
+     * Number of entries.
+     */
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets empty map.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     * @return empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Gets value.
+     *
+     * @param key key
+     * @return value or null if the map does not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+
+        Leaf leaf = root.find(key, hash(key), 0);
+        return leaf != null ? (V) leaf.value : null;
+    }
+
+    /**
+     * Checks if the map contains the key.
+     *
+     * @param key key
+     * @return true if the map contains the key
+     */
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Gets map with the key mapped to the value.
+     *
+     * @param key   key
+     * @param value value
+     * @return new map, or this map if the key is already mapped to the value
+     */
+    PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+
+        Leaf leaf = new Leaf(hash(key), key, value);
+        if (root == null) {
+            return new PersistentMap<>(BitmapNode.of(leaf, 0), 1);
+        }
+
+        boolean[] added = new boolean[1];
+        Node newRoot = root.plus(leaf, 0, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Gets map without the key.
+     *
+     * @param key key
+     * @return new map, or this map if it does not contain the key
+     */
+    PersistentMap<K, V> minus(Object key) {
+        if (root == null) {
+            return this;
+        }
+
+        Object newRoot = root.minus(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        if (newRoot == null) {
+            return empty();
+        }
+        return new PersistentMap<>(newRoot instanceof Leaf ? BitmapNode.of((Leaf) newRoot, 0) : (Node) newRoot,
+                size - 1);
+    }
+
+    /**
+     * Gets map with the value of the key replaced by the function result.
+     *
+     * @param key      key
+     * @param function function of the current value, returns the new value or null to remove the key
+     * @return new map, or this map if the key is absent or its value is not changed
+     */
+    PersistentMap<K, V> computeIfPresent(K key, Function<? super V, ? extends V> function) {
+        V value = get(key);
+        if (value == null) {
+            return this;
+        }
+
+        V newValue = function.apply(value);
+        return newValue != null ? plus(key, newValue) : minus(key);
+    }
+
+    /**
+     * Gets number of entries.
+     *
+     * @return number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets keys view.
+     *
+     * @return unmodifiable {@link Set} of keys
+     */
+    @SuppressWarnings("unchecked")
+    Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new LeafIterator<>(root, leaf -> (K) leaf.key);
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Gets values view.
+     *
+     * @return unmodifiable {@link Collection} of values
+     */
+    @SuppressWarnings("unchecked")
+    Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new LeafIterator<>(root, leaf -> (V) leaf.value);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        Iterator<String> entries = new LeafIterator<>(root, leaf -> leaf.key + "=" + leaf.value);
+        while (entries.hasNext()) {
+            builder.append(entries.next());
+            if (entries.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int index(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    /**
+     * Key and value with the key hash.
+     */
+    private static final class Leaf {
+        private final int hash;
+        private final Object key;
+        private final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        boolean matches(Object key, int hash) {
+            return this.hash == hash && this.key.equals(key);
+        }
+    }
+
+    /**
+     * Trie node, its slots are {@link Leaf} or nested {@link Node} instances.
+     */
+    private abstract static class Node {
+        final Object[] slots;
+
+        Node(Object[] slots) {
+            this.slots = slots;
+        }
+
+        abstract Leaf find(Object key, int hash, int shift);
+
+        /**
+         * Gets node with the leaf added or replaced.
+         *
+         * @return new node or this node if the leaf is already there
+         */
+        abstract Node plus(Leaf leaf, int shift, boolean[] added);
+
+        /**
+         * Gets node without the key.
+         *
+         * @return new node, a single remaining {@link Leaf} to be inlined by the parent, null if nothing remains,
+         *         or this node if the key is absent
+         */
+        abstract Object minus(Object key, int hash, int shift);
+    }
+
+    /**
+     * Node of a trie level, slot presence is marked in the bitmap by the level bits of the hash.
+     */
+    private static final class BitmapNode extends Node {
+        private final int bitmap;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            super(slots);
+            this.bitmap = bitmap;
+        }
+
+        static BitmapNode of(Leaf leaf, int shift) {
+            return new BitmapNode(1 << index(leaf.hash, shift), new Object[] {leaf});
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            int bit = 1 << index(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            Object slot = slots[position(bit)];
+            if (slot instanceof Leaf) {
+                return ((Leaf) slot).matches(key, hash) ? (Leaf) slot : null;
+            }
+            return ((Node) slot).find(key, hash, shift + BITS);
+        }
+
+        @Override
+        Node plus(Leaf leaf, int shift, boolean[] added) {
+            int bit = 1 << index(leaf.hash, shift);
+            int position = position(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, position);
+                newSlots[position] = leaf;
+                System.arraycopy(slots, position, newSlots, position + 1, slots.length - position);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[position];
+            Object newSlot;
+            if (slot instanceof Leaf) {
+                Leaf current = (Leaf) slot;
+                if (current.matches(leaf.key, leaf.hash)) {
+                    if (current.value == leaf.value) {
+                        return this;
+                    }
+                    newSlot = leaf;
+                } else {
+                    newSlot = merge(current, leaf, shift + BITS);
+                    added[0] = true;
+                }
+            } else {
+                newSlot = ((Node) slot).plus(leaf, shift + BITS, added);
+                if (newSlot == slot) {
+                    return this;
+                }
+            }
+
+            return new BitmapNode(bitmap, replace(slots, position, newSlot));
+        }
+
+        @Override
+        Object minus(Object key, int hash, int shift) {
+            int bit = 1 << index(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int position = position(bit);
+            Object slot = slots[position];
+            Object newSlot;
+            if (slot instanceof Leaf) {
+                if (!((Leaf) slot).matches(key, hash)) {
+                    return this;
+                }
+                newSlot = null;
+            } else {
+                newSlot = ((Node) slot).minus(key, hash, shift + BITS);
+                if (newSlot == slot) {
+                    return this;
+                }
+            }
+
+            if (newSlot != null) {
+                return new BitmapNode(bitmap, replace(slots, position, newSlot));
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            if (slots.length == 2 && slots[1 - position] instanceof Leaf) {
+                return slots[1 - position];
+            }
+
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, position);
+            System.arraycopy(slots, position + 1, newSlots, position, newSlots.length - position);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        private int position(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * Builds node holding two leaves with different keys, starting at the trie level of the shift.
+         */
+        private static Node merge(Leaf first, Leaf second, int shift) {
+            if (first.hash == second.hash) {
+                return new CollisionNode(first.hash, new Object[] {first, second});
+            }
+
+            int firstIndex = index(first.hash, shift);
+            int secondIndex = index(second.hash, shift);
+            if (firstIndex == secondIndex) {
+                return new BitmapNode(1 << firstIndex, new Object[] {merge(first, second, shift + BITS)});
+            }
+            return new BitmapNode((1 << firstIndex) | (1 << secondIndex),
+                    firstIndex < secondIndex ? new Object[] {first, second} : new Object[] {second, first});
+        }
+    }
+
+    /**
+     * Node of leaves with equal hashes.
+     */
+    private static final class CollisionNode extends Node {
+        private final int hash;
+
+        CollisionNode(int hash, Object[] leaves) {
+            super(leaves);
+            this.hash = hash;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            for (Object slot : slots) {
+                if (((Leaf) slot).matches(key, hash)) {
+                    return (Leaf) slot;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node plus(Leaf leaf, int shift, boolean[] added) {
+            if (leaf.hash != hash) {
+                return new BitmapNode(1 << index(hash, shift), new Object[] {this}).plus(leaf, shift, added);
+            }
+
+            for (int i = 0; i < slots.length; i++) {
+                Leaf current = (Leaf) slots[i];
+                if (current.matches(leaf.key, leaf.hash)) {
+                    return current.value == leaf.value ? this : new CollisionNode(hash, replace(slots, i, leaf));
+                }
+            }
+
+            Object[] newSlots = Arrays.copyOf(slots, slots.length + 1);
+            newSlots[slots.length] = leaf;
+            added[0] = true;
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        Object minus(Object key, int hash, int shift) {
+            for (int i = 0; i < slots.length; i++) {
+                if (((Leaf) slots[i]).matches(key, hash)) {
+                    if (slots.length == 2) {
+                        return slots[1 - i];
+                    }
+
+                    Object[] newSlots = new Object[slots.length - 1];
+                    System.arraycopy(slots, 0, newSlots, 0, i);
+                    System.arraycopy(slots, i + 1, newSlots, i, newSlots.length - i);
+                    return new CollisionNode(this.hash, newSlots);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static Object[] replace(Object[] slots, int position, Object slot) {
+        Object[] newSlots = slots.clone();
+        newSlots[position] = slot;
+        return newSlots;
+    }
+
+    /**
+     * Depth first iterator over the trie leaves.
+     */
+    private static final class LeafIterator<T> implements Iterator<T> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private final Function<Leaf, T> mapper;
+        private int depth;
+        private Leaf next;
+
+        LeafIterator(Node root, Function<Leaf, T> mapper) {
+            this.mapper = mapper;
+            if (root != null) {
+                arrays[0] = root.slots;
+            } else {
+                depth = -1;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            Leaf leaf = next;
+            advance();
+            return mapper.apply(leaf);
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                if (positions[depth] == arrays[depth].length) {
+                    depth--;
+                    continue;
+                }
+
+                Object slot = arrays[depth][positions[depth]++];
+                if (slot instanceof Leaf) {
+                    next = (Leaf) slot;
+                    return;
+                }
+
+                depth++;
+                arrays[depth] = ((Node) slot).slots;
+                positions[depth] = 0;
+            }
+        }
+    }
+}
@@ -15,15 +15,21 @@
 
 package org.openkilda.pce.cache;
 
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.messaging.payload.ResourcePool;
+import org.openkilda.messaging.payload.SparseResourcePool;
 
 import com.google.common.base.MoreObjects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -68,14 +74,14 @@ public class ResourceCache extends Cache {
     static final int MIN_VLAN_ID = 2;
 
     /**
-     * Maximum cookie value.
+     * Maximum cookie value, the whole {@link #FLOW_COOKIE_VALUE_MASK} range.
      */
-    static final int MAX_COOKIE = 4095;
+    static final long MAX_COOKIE = FLOW_COOKIE_VALUE_MASK;
 
     /**
      * Minimum cookie value.
      */
-    static final int MIN_COOKIE = 1;
+    static final long MIN_COOKIE = 1L;
 
     /**
      * Logger.
@@ -84,19 +90,32 @@ public class ResourceCache extends Cache {
 
     /**
      * Meter pool by switch.
+     *
+     * <p>Meter ids are allocated within {@link Map#compute}, which only locks the map bin of the switch, so
+     * allocations on different switches do not contend and a pool removed by {@link #deallocateMeterId(String)}
+     * does not lose concurrent allocations. The pools themselves are lock-free.
      */
     private final Map<String, ResourcePool> meterPool = new ConcurrentHashMap<>();
 
     /**
      * Cookie pool.
      */
-    private final ResourcePool cookiePool = new ResourcePool(MIN_COOKIE, MAX_COOKIE);
+    private final SparseResourcePool cookiePool = new SparseResourcePool(MIN_COOKIE, MAX_COOKIE);
 
     /**
-     * Transit vlan id pool.
+     * Transit vlan id pool of flows with no isls, e.g. single switch flows.
      */
     private final ResourcePool vlanPool = new ResourcePool(MIN_VLAN_ID, MAX_VLAN_ID);
 
+    /**
+     * Transit vlan id pool by isl.
+     *
+     * <p>Transit vlan is matched on the switch and port a flow arrives at through an isl, so a vlan id only has to
+     * be unique among flows going through the same isl in the same direction. Pools are keyed by the isl
+     * destination endpoint, see {@link #getIslKey(PathNode)}.
+     */
+    private final Map<String, ResourcePool> islVlanPool = new ConcurrentHashMap<>();
+
     /**
      * Instance constructor.
      */
@@ -109,15 +128,18 @@ public class ResourceCache extends Cache {
     public void clear() {
         cookiePool.dumpPool().forEach(cookiePool::deallocate);
         vlanPool.dumpPool().forEach(vlanPool::deallocate);
+        islVlanPool.clear();
         meterPool.clear();
     }
 
     /**
      * Allocates cookie.
      *
+     * <p>Cookie values cover the whole {@link #FLOW_COOKIE_VALUE_MASK} range.
+     *
      * @return allocated cookie value
      */
-    public Integer allocateCookie() {
+    public Long allocateCookie() {
         return cookiePool.allocate();
     }
 
@@ -127,9 +149,9 @@ public class ResourceCache extends Cache {
      * @param cookie cookie value
      * @return allocated cookie value
      */
-    public Integer allocateCookie(Integer cookie) {
+    public Long allocateCookie(Long cookie) {
         if (cookie == 0) {
-            return cookiePool.allocate();
+            return allocateCookie();
         } else {
             cookiePool.allocate(cookie);
             return cookie;
@@ -142,7 +164,7 @@ public class ResourceCache extends Cache {
      * @param cookie cookie value
      * @return deallocated cookie value or null if value was not allocated earlier
      */
-    public Integer deallocateCookie(Integer cookie) {
+    public Long deallocateCookie(Long cookie) {
         return cookiePool.deallocate(cookie);
     }
 
@@ -158,15 +180,45 @@ public class ResourceCache extends Cache {
     /**
      * Allocates vlan id.
      *
-     * @param vlanId vlan id value
-     * @return allocated vlan id value
+     * @param vlanId vlan id value, 0 to allocate any free one
+     * @return allocated vlan id value, or null if the vlan id is already allocated
      */
     public Integer allocateVlanId(Integer vlanId) {
         if (vlanId == 0) {
             return vlanPool.allocate();
         } else {
-            vlanPool.allocate(vlanId);
-            return vlanId;
+            return vlanPool.allocate(vlanId);
+        }
+    }
+
+    /**
+     * Allocates vlan id free on every isl of the path.
+     *
+     * @param path flow path
+     * @return allocated vlan id value
+     */
+    public Integer allocateVlanId(PathInfoData path) {
+        List<ResourcePool> pools = getIslVlanPools(path);
+        return pools.isEmpty() ? vlanPool.allocate() : ResourcePool.allocate(pools);
+    }
+
+    /**
+     * Allocates vlan id on every isl of the path.
+     *
+     * <p>The vlan id is allocated on all isls or on none of them, so it is never shared with another flow.
+     *
+     * @param path   flow path
+     * @param vlanId vlan id value, 0 to allocate any vlan id free on every isl
+     * @return allocated vlan id value, or null if the vlan id is already allocated on any isl of the path
+     */
+    public Integer allocateVlanId(PathInfoData path, Integer vlanId) {
+        List<ResourcePool> pools = getIslVlanPools(path);
+        if (pools.isEmpty()) {
+            return allocateVlanId(vlanId);
+        } else if (vlanId == 0) {
+            return ResourcePool.allocate(pools);
+        } else {
+            return ResourcePool.allocate(pools, vlanId);
         }
     }
 
@@ -180,14 +232,36 @@ public class ResourceCache extends Cache {
         return vlanPool.deallocate(vlanId);
     }
 
+    /**
+     * Deallocates vlan id on every isl of the path.
+     *
+     * @param path   flow path
+     * @param vlanId vlan id value
+     * @return deallocated vlan id value or null if value was not allocated earlier on any isl
+     */
+    public Integer deallocateVlanId(PathInfoData path, Integer vlanId) {
+        List<ResourcePool> pools = getIslVlanPools(path);
+        if (pools.isEmpty()) {
+            return deallocateVlanId(vlanId);
+        }
+
+        Integer deallocated = null;
+        for (ResourcePool pool : pools) {
+            if (pool.deallocate(vlanId) != null) {
+                deallocated = vlanId;
+            }
+        }
+        return deallocated;
+    }
+
     /**
      * Allocates meter id.
      *
      * @param switchId switch id
      * @return allocated meter id value
      */
-    public synchronized Integer allocateMeterId(String switchId) {
-        return meterPool.computeIfAbsent(switchId, k -> new ResourcePool(MIN_METER_ID, MAX_METER_ID)).allocate();
+    public Integer allocateMeterId(String switchId) {
+        return allocateMeterId(switchId, 0);
     }
 
     /**
@@ -197,15 +271,19 @@ public class ResourceCache extends Cache {
      * @param meterId  meter id value
      * @return allocated meter id value
      */
-    public synchronized Integer allocateMeterId(String switchId, Integer meterId) {
-        if (meterId == 0) {
-            return meterPool.computeIfAbsent(switchId, k -> new ResourcePool(MIN_METER_ID, MAX_METER_ID))
-                    .allocate();
-        } else {
-            meterPool.computeIfAbsent(switchId, k -> new ResourcePool(MIN_METER_ID, MAX_METER_ID))
-                    .allocate(meterId);
-            return meterId;
-        }
+    public Integer allocateMeterId(String switchId, Integer meterId) {
+        Integer[] allocated = new Integer[1];
+        meterPool.compute(switchId, (id, pool) -> {
+            ResourcePool switchPool = pool == null ? new ResourcePool(MIN_METER_ID, MAX_METER_ID) : pool;
+            if (meterId == 0) {
+                allocated[0] = switchPool.allocate();
+            } else {
+                switchPool.allocate(meterId);
+                allocated[0] = meterId;
+            }
+            return switchPool;
+        });
+        return allocated[0];
     }
 
     /**
@@ -215,7 +293,7 @@ public class ResourceCache extends Cache {
      * @param meterId meter id value
      * @return deallocated meter id value or null if value was not allocated earlier
      */
-    public synchronized Integer deallocateMeterId(String switchId, Integer meterId) {
+    public Integer deallocateMeterId(String switchId, Integer meterId) {
         return meterPool.get(switchId).deallocate(meterId);
     }
 
@@ -225,7 +303,7 @@ public class ResourceCache extends Cache {
      * @param switchId switch id
      * @return deallocated meter id values
      */
-    public synchronized Set<Integer> deallocateMeterId(String switchId) {
+    public Set<Integer> deallocateMeterId(String switchId) {
         return meterPool.remove(switchId).dumpPool();
     }
 
@@ -234,7 +312,7 @@ public class ResourceCache extends Cache {
      *
      * @return all allocated cookie values
      */
-    public Set<Integer> getAllCookies() {
+    public Set<Long> getAllCookies() {
         return cookiePool.dumpPool();
     }
 
@@ -244,7 +322,21 @@ public class ResourceCache extends Cache {
      * @return all allocated vlan id values
      */
     public Set<Integer> getAllVlanIds() {
-        return vlanPool.dumpPool();
+        Set<Integer> vlanIds = new HashSet<>(vlanPool.dumpPool());
+        islVlanPool.values().forEach(pool -> vlanIds.addAll(pool.dumpPool()));
+        return vlanIds;
+    }
+
+    /**
+     * Gets vlan id values allocated on the isl.
+     *
+     * @param switchId isl destination switch id
+     * @param portNo   isl destination port number
+     * @return vlan id values allocated on the isl
+     */
+    public Set<Integer> getAllVlanIds(String switchId, int portNo) {
+        ResourcePool pool = islVlanPool.get(getIslKey(switchId, portNo));
+        return pool != null ? pool.dumpPool() : Collections.emptySet();
     }
 
     /**
@@ -254,7 +346,8 @@ public class ResourceCache extends Cache {
      * @return all allocated meter id values
      */
     public Set<Integer> getAllMeterIds(String switchId) {
-        return meterPool.containsKey(switchId) ? meterPool.get(switchId).dumpPool() : Collections.emptySet();
+        ResourcePool pool = meterPool.get(switchId);
+        return pool != null ? pool.dumpPool() : Collections.emptySet();
     }
 
     /**
@@ -264,13 +357,13 @@ public class ResourceCache extends Cache {
      */
     public void allocateFlow(ImmutablePair<Flow, Flow> flow) {
         if (flow.left != null) {
-            allocateCookie((int) (FLOW_COOKIE_VALUE_MASK & flow.left.getCookie()));
-            allocateVlanId(flow.left.getTransitVlan());
+            allocateCookie(FLOW_COOKIE_VALUE_MASK & flow.left.getCookie());
+            allocateVlanId(flow.left.getFlowPath(), flow.left.getTransitVlan());
             allocateMeterId(flow.left.getSourceSwitch(), flow.left.getMeterId());
         }
 
         if (flow.right != null) {
-            allocateVlanId(flow.right.getTransitVlan());
+            allocateVlanId(flow.right.getFlowPath(), flow.right.getTransitVlan());
             allocateMeterId(flow.right.getSourceSwitch(), flow.right.getMeterId());
         }
     }
@@ -281,17 +374,47 @@ public class ResourceCache extends Cache {
      * @param flow flow
      */
     public void deallocateFlow(ImmutablePair<Flow, Flow> flow) {
-        deallocateCookie((int) (FLOW_COOKIE_VALUE_MASK & flow.left.getCookie()));
+        deallocateCookie(FLOW_COOKIE_VALUE_MASK & flow.left.getCookie());
 
-        deallocateVlanId(flow.left.getTransitVlan());
+        deallocateVlanId(flow.left.getFlowPath(), flow.left.getTransitVlan());
         deallocateMeterId(flow.left.getSourceSwitch(), flow.left.getMeterId());
 
         if (flow.right != null) {
-            deallocateVlanId(flow.right.getTransitVlan());
+            deallocateVlanId(flow.right.getFlowPath(), flow.right.getTransitVlan());
             deallocateMeterId(flow.right.getSourceSwitch(), flow.right.getMeterId());
         }
     }
 
+    /**
+     * Gets vlan id pools of the path isls, creating missing ones.
+     *
+     * <p>Path nodes go in pairs of isl source and destination endpoints, so every odd node is an isl destination.
+     *
+     * @param path flow path
+     * @return vlan id pools, empty if path has no isls
+     */
+    private List<ResourcePool> getIslVlanPools(PathInfoData path) {
+        if (path == null || path.getPath() == null) {
+            return Collections.emptyList();
+        }
+
+        List<PathNode> nodes = path.getPath();
+        List<ResourcePool> pools = new ArrayList<>(nodes.size() / 2);
+        for (int i = 1; i < nodes.size(); i += 2) {
+            pools.add(islVlanPool.computeIfAbsent(getIslKey(nodes.get(i)),
+                    key -> new ResourcePool(MIN_VLAN_ID, MAX_VLAN_ID)));
+        }
+        return pools;
+    }
+
+    private static String getIslKey(PathNode node) {
+        return getIslKey(node.getSwitchId(), node.getPortNo());
+    }
+
+    private static String getIslKey(String switchId, int portNo) {
+        return switchId + "_" + portNo;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -301,6 +424,7 @@ public class ResourceCache extends Cache {
                 .add("meters", meterPool)
                 .add("cookies", cookiePool)
                 .add("vlans", vlanPool)
+                .add("isl_vlans", islVlanPool)
                 .toString();
     }
 }
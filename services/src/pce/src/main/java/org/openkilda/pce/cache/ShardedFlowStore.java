@@ -0,0 +1,293 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import org.openkilda.messaging.error.CacheException;
+import org.openkilda.messaging.error.ErrorType;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.provider.Auth;
+import org.openkilda.pce.provider.PathComputer;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Flow store partitioned into {@link FlowCache} shards.
+ *
+ * <p>Each shard is owned by a single writer, e.g. a bolt task receiving the flows grouped by flow id, while any
+ * owner can query the whole store: global queries fan out across the shards and merge their results. Shards are
+ * read without locking, see {@link FlowCache#snapshot()}. Flow resources are allocated in a single
+ * {@link ResourceCache} shared by the shards, so they are unique across the store. Flow bandwidth is reserved in a
+ * single {@link NetworkCache}, which the path computer of the store searches, see {@link #connect(Auth)}.
+ *
+ * <p>Stores are shared within the JVM by name, see {@link #acquire(String, int)}. All owners of a store must run in
+ * the same JVM: owners in another JVM would acquire a separate store with its own resources and flows.
+ */
+public class ShardedFlowStore {
+    /**
+     * Shared stores by name.
+     */
+    private static final Map<String, ShardedFlowStore> STORES = new HashMap<>();
+
+    /**
+     * Shared {@link ResourceCache} instance.
+     */
+    private final ResourceCache resourceCache = new ResourceCache();
+
+    /**
+     * Shared {@link NetworkCache} instance the shards reserve flow bandwidth on.
+     */
+    private final NetworkCache networkCache = new NetworkCache();
+
+    /**
+     * Shared path computer, see {@link #connect(Auth)}.
+     */
+    private PathComputer pathComputer;
+
+    /**
+     * Shards by index.
+     */
+    private final List<FlowCache> shards;
+
+    /**
+     * Lock serializing endpoint conflict checks with the flow changes they guard.
+     */
+    private final Object endpointLock = new Object();
+
+    /**
+     * Number of owners of the shared store.
+     */
+    private int references;
+
+    /**
+     * Instance constructor.
+     *
+     * @param shardCount number of shards
+     */
+    public ShardedFlowStore(int shardCount) {
+        List<FlowCache> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new FlowCache(networkCache, resourceCache));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * Gets the shared store, creates it on the first call.
+     *
+     * @param name       store name
+     * @param shardCount number of shards
+     * @return {@link ShardedFlowStore} instance
+     * @throws CacheException if the store exists with another number of shards
+     */
+    public static ShardedFlowStore acquire(String name, int shardCount) {
+        synchronized (STORES) {
+            ShardedFlowStore store = STORES.computeIfAbsent(name, key -> new ShardedFlowStore(shardCount));
+            if (store.shards.size() != shardCount) {
+                throw new CacheException(ErrorType.INTERNAL_ERROR, "Can not share flow store",
+                        String.format("Flow store %s has %d shards, %d requested",
+                                name, store.shards.size(), shardCount));
+            }
+            store.references++;
+            return store;
+        }
+    }
+
+    /**
+     * Releases the shared store, drops it when released by all of its owners.
+     *
+     * @param name store name
+     */
+    public static void release(String name) {
+        synchronized (STORES) {
+            ShardedFlowStore store = STORES.get(name);
+            if (store != null && --store.references == 0) {
+                STORES.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Gets the path computer of the store, connects it on the first call.
+     *
+     * <p>The owners share a single path computer, which loads the isls into the network cache the shards reserve
+     * flow bandwidth on, so paths are searched with the bandwidth of the flows just placed by any owner.
+     *
+     * @param auth path computer connection
+     * @return {@link PathComputer} instance
+     */
+    public synchronized PathComputer connect(Auth auth) {
+        if (pathComputer == null) {
+            pathComputer = auth.connect(networkCache);
+        }
+        return pathComputer;
+    }
+
+    /**
+     * Gets the network cache the shards reserve flow bandwidth on.
+     *
+     * @return {@link NetworkCache} instance
+     */
+    public NetworkCache getNetworkCache() {
+        return networkCache;
+    }
+
+    /**
+     * Gets shard.
+     *
+     * @param index shard index
+     * @return {@link FlowCache} instance
+     */
+    public FlowCache getShard(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * Gets number of shards.
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Gets the lock to hold from an endpoint conflict check until the checked flow is stored, so checks in other
+     * shards see it.
+     *
+     * @return lock object
+     */
+    public Object getEndpointLock() {
+        return endpointLock;
+    }
+
+    /**
+     * Checks if any shard contains the flow.
+     *
+     * @param flowId flow id
+     * @return true if the store contains the flow
+     */
+    public boolean cacheContainsFlow(String flowId) {
+        return shards.stream().anyMatch(shard -> shard.cacheContainsFlow(flowId));
+    }
+
+    /**
+     * Gets flow from the shard containing it.
+     *
+     * @param flowId flow id
+     * @return flow
+     * @throws CacheException if no shard contains the flow
+     */
+    public ImmutablePair<Flow, Flow> getFlow(String flowId) {
+        for (FlowCache shard : shards) {
+            FlowCache.Snapshot snapshot = shard.snapshot();
+            if (snapshot.cacheContainsFlow(flowId)) {
+                return snapshot.getFlow(flowId);
+            }
+        }
+        throw new CacheException(ErrorType.NOT_FOUND, "Can not get flow",
+                String.format("Flow %s not found in %d shards", flowId, shards.size()));
+    }
+
+    /**
+     * Gets flows of all shards.
+     *
+     * @return flows
+     */
+    public Set<ImmutablePair<Flow, Flow>> dumpFlows() {
+        return gather(FlowCache::dumpFlows);
+    }
+
+    /**
+     * Gets flows of the digest buckets in all shards.
+     *
+     * @param buckets buckets of a digest with {@link FlowDigest#DEFAULT_BUCKETS} buckets
+     * @return flows
+     */
+    public Set<ImmutablePair<Flow, Flow>> getFlowsInBuckets(Set<Integer> buckets) {
+        return gather(shard -> shard.getFlowsInBuckets(buckets));
+    }
+
+    /**
+     * Gets ids of the flows out of the digest buckets in all shards.
+     *
+     * @param buckets buckets of a digest with {@link FlowDigest#DEFAULT_BUCKETS} buckets
+     * @return flow ids
+     */
+    public Set<String> getFlowIdsOutOfBuckets(Set<Integer> buckets) {
+        return gather(shard -> shard.getFlowIdsOutOfBuckets(buckets));
+    }
+
+    /**
+     * Gets digest of the flows of all shards.
+     *
+     * @return digest with {@link FlowDigest#DEFAULT_BUCKETS} buckets
+     */
+    public FlowDigest getDigest() {
+        FlowDigest digest = new FlowDigest(FlowDigest.DEFAULT_BUCKETS);
+        shards.forEach(shard -> digest.add(shard.getDigest()));
+        return digest;
+    }
+
+    /**
+     * Gets flows with specified switch and port in all shards.
+     *
+     * @param switchId switch id
+     * @param port     port number
+     * @return flows
+     */
+    public Set<Flow> getFlowsForEndpoint(String switchId, int port) {
+        return gather(shard -> shard.getFlowsForEndpoint(switchId, port));
+    }
+
+    /**
+     * Gets flows with specified switch, port and vlan, or with no vlan, in all shards.
+     *
+     * @param switchId switch id
+     * @param port     port number
+     * @param vlan     vlan id
+     * @return flows
+     */
+    public Set<Flow> getFlowsForEndpoint(String switchId, int port, int vlan) {
+        return gather(shard -> shard.getFlowsForEndpoint(switchId, port, vlan));
+    }
+
+    private <T> Set<T> gather(Function<FlowCache, Set<T>> query) {
+        return shards.stream()
+                .flatMap(shard -> query.apply(shard).stream())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("resources", resourceCache)
+                .add("shards", shards.size())
+                .toString();
+    }
+}
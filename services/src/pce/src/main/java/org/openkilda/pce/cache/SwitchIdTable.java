@@ -0,0 +1,102 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of interned switch ids.
+ *
+ * <p>Every distinct switch id gets a dense index, so {@link CompactFlow} instances keep an int per switch instead
+ * of a string reference and all flows share a single copy of each switch id. Indexes are never reused, switches
+ * are few compared to flows.
+ */
+class SwitchIdTable {
+    /**
+     * Index of the null switch id.
+     */
+    static final int NO_SWITCH = -1;
+
+    /**
+     * Switch id indexes.
+     */
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Switch ids by index, replaced with a larger copy on growth.
+     */
+    private volatile String[] switchIds = new String[16];
+
+    /**
+     * Number of interned switch ids.
+     */
+    private int size;
+
+    /**
+     * Gets index of the switch id, adding it to the table if needed.
+     *
+     * @param switchId switch id
+     * @return switch id index
+     */
+    int intern(String switchId) {
+        if (switchId == null) {
+            return NO_SWITCH;
+        }
+
+        Integer index = indexes.get(switchId);
+        return index != null ? index : add(switchId);
+    }
+
+    /**
+     * Gets index of the switch id without adding it.
+     *
+     * @param switchId switch id
+     * @return switch id index or {@link #NO_SWITCH} if the switch id is not in the table
+     */
+    int indexOf(String switchId) {
+        Integer index = switchId != null ? indexes.get(switchId) : null;
+        return index != null ? index : NO_SWITCH;
+    }
+
+    /**
+     * Gets switch id by index.
+     *
+     * @param index switch id index
+     * @return switch id
+     */
+    String get(int index) {
+        return index != NO_SWITCH ? switchIds[index] : null;
+    }
+
+    private synchronized int add(String switchId) {
+        Integer index = indexes.get(switchId);
+        if (index != null) {
+            return index;
+        }
+
+        String[] ids = switchIds;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = switchId;
+        switchIds = ids;
+        indexes.put(switchId, size);
+
+        return size++;
+    }
+}
@@ -0,0 +1,172 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.graph;
+
+import java.util.Arrays;
+
+/**
+ * Bandwidth constrained shortest path search over {@link NetworkGraph}.
+ *
+ * <p>Search state is kept in primitive arrays reused between calls, so an instance must not be shared between
+ * threads.
+ */
+public class DijkstraSearch {
+    /**
+     * Unreachable distance value.
+     */
+    private static final long INFINITY = Long.MAX_VALUE;
+
+    /**
+     * {@link NetworkGraph} instance.
+     */
+    private final NetworkGraph graph;
+
+    /**
+     * Distance from the source switch by switch index.
+     */
+    private final long[] distance;
+
+    /**
+     * Edge used to reach the switch by switch index.
+     */
+    private final int[] parentEdge;
+
+    /**
+     * Search queue of switch indexes.
+     */
+    private final MinHeap heap;
+
+    /**
+     * Instance constructor.
+     *
+     * @param graph {@link NetworkGraph} instance
+     */
+    public DijkstraSearch(NetworkGraph graph) {
+        this.graph = graph;
+        this.distance = new long[graph.getSwitchCount()];
+        this.parentEdge = new int[graph.getSwitchCount()];
+        this.heap = new MinHeap(graph.getEdgeCount() + 1);
+    }
+
+    /**
+     * Finds the lightest path between two switches.
+     *
+     * @param source             source switch index
+     * @param target             destination switch index
+     * @param weights            non-negative edge weights indexed by edge
+     * @param availableBandwidth available bandwidth indexed by edge
+     * @param bandwidth          required bandwidth, edges with less available bandwidth are skipped
+     * @return edge indexes from source to destination, or null if destination is unreachable
+     */
+    public int[] findPath(int source, int target, long[] weights, long[] availableBandwidth, long bandwidth) {
+        return findPath(source, target, weights, availableBandwidth, bandwidth, null, null);
+    }
+
+    /**
+     * Finds the lightest path between two switches avoiding specified edges and switches.
+     *
+     * @param source             source switch index
+     * @param target             destination switch index
+     * @param weights            non-negative edge weights indexed by edge
+     * @param availableBandwidth available bandwidth indexed by edge
+     * @param bandwidth          required bandwidth, edges with less available bandwidth are skipped
+     * @param excludedEdges      edges which must not be used indexed by edge, or null
+     * @param excludedSwitches   switches which must not be entered indexed by switch, or null
+     * @return edge indexes from source to destination, or null if destination is unreachable
+     */
+    public int[] findPath(int source, int target, long[] weights, long[] availableBandwidth, long bandwidth,
+                          boolean[] excludedEdges, boolean[] excludedSwitches) {
+        Arrays.fill(distance, INFINITY);
+        Arrays.fill(parentEdge, -1);
+        heap.clear();
+
+        distance[source] = 0L;
+        heap.push(source, 0L);
+
+        while (!heap.isEmpty()) {
+            long current = heap.peekKey();
+            int node = heap.poll();
+            if (current > distance[node]) {
+                continue;
+            }
+            if (node == target) {
+                break;
+            }
+
+            for (int edge = graph.firstEdge(node), last = graph.lastEdge(node); edge < last; edge++) {
+                if (availableBandwidth[edge] < bandwidth || excludedEdges != null && excludedEdges[edge]) {
+                    continue;
+                }
+
+                int next = graph.getTarget(edge);
+                if (excludedSwitches != null && excludedSwitches[next]) {
+                    continue;
+                }
+
+                long candidate = current + weights[edge];
+                if (candidate < distance[next]) {
+                    distance[next] = candidate;
+                    parentEdge[next] = edge;
+                    heap.push(next, candidate);
+                }
+            }
+        }
+
+        if (source == target || distance[target] == INFINITY) {
+            return null;
+        }
+
+        int hops = 0;
+        for (int node = target; node != source; node = graph.getSource(parentEdge[node])) {
+            hops++;
+        }
+
+        int[] path = new int[hops];
+        for (int node = target; node != source; node = graph.getSource(parentEdge[node])) {
+            path[--hops] = parentEdge[node];
+        }
+
+        return path;
+    }
+
+    /**
+     * Gets distance found by the last search.
+     *
+     * <p>It is exact for switches not farther than the destination and an upper bound for the others, as the
+     * search stops once the destination is reached.
+     *
+     * @param index switch index
+     * @return distance from the source switch, or {@link Long#MAX_VALUE} if switch was not reached
+     */
+    public long getDistance(int index) {
+        return distance[index];
+    }
+
+    /**
+     * Gets total weight of the path.
+     *
+     * @param edges   edge indexes
+     * @param weights edge weights indexed by edge
+     * @return path weight
+     */
+    public static long getPathWeight(int[] edges, long[] weights) {
+        long weight = 0L;
+        for (int edge : edges) {
+            weight += weights[edge];
+        }
+        return weight;
+    }
+}
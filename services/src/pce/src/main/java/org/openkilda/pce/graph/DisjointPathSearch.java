@@ -0,0 +1,255 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.graph;
+
+import java.util.Arrays;
+
+/**
+ * Suurballe's search for a pair of disjoint paths with the minimal total weight over {@link NetworkGraph}.
+ *
+ * <p>Paths are disjoint by physical links: an isl and its opposite direction isl are treated as the same link.
+ * The first path is the lightest one. The second search runs over the residual graph with reduced weights,
+ * where edges of the first path are replaced by zero weight reversed edges. For switch disjoint paths every
+ * intermediate switch of the first path is split into "in" and "out" parts joined by a reversed zero weight edge,
+ * so the second path can only enter such switch to walk back along the first path. The edges the second path
+ * walks back over are cancelled and the rest is decomposed into two paths.
+ *
+ * <p>Search state is kept in primitive arrays, an instance must not be shared between threads.
+ */
+public class DisjointPathSearch {
+    /**
+     * Unreachable distance value.
+     */
+    private static final long INFINITY = Long.MAX_VALUE;
+
+    /**
+     * Marks transition between "in" and "out" parts of the same switch.
+     */
+    private static final int SWITCH_TRANSITION = -1;
+
+    /**
+     * {@link NetworkGraph} instance.
+     */
+    private final NetworkGraph graph;
+
+    /**
+     * First path search.
+     */
+    private final DijkstraSearch search;
+
+    /**
+     * Distance by residual state, state {@code 2 * n} is "in" and {@code 2 * n + 1} is "out" part of switch n.
+     */
+    private final long[] distance;
+
+    /**
+     * Previous residual state by residual state.
+     */
+    private final int[] parentState;
+
+    /**
+     * Transition to the state: edge index, {@code -edge - 2} for reversed edge or {@link #SWITCH_TRANSITION}.
+     */
+    private final int[] parentTransition;
+
+    /**
+     * First path edge entering the switch by switch index.
+     */
+    private final int[] firstPathIn;
+
+    /**
+     * Whether the edge belongs to the first path.
+     */
+    private final boolean[] firstPathEdge;
+
+    /**
+     * Whether the switch is split into "in" and "out" parts.
+     */
+    private final boolean[] split;
+
+    /**
+     * Residual search queue.
+     */
+    private final MinHeap heap;
+
+    /**
+     * Instance constructor.
+     *
+     * @param graph {@link NetworkGraph} instance
+     */
+    public DisjointPathSearch(NetworkGraph graph) {
+        this.graph = graph;
+        this.search = new DijkstraSearch(graph);
+        this.distance = new long[graph.getSwitchCount() * 2];
+        this.parentState = new int[graph.getSwitchCount() * 2];
+        this.parentTransition = new int[graph.getSwitchCount() * 2];
+        this.firstPathIn = new int[graph.getSwitchCount()];
+        this.firstPathEdge = new boolean[graph.getEdgeCount()];
+        this.split = new boolean[graph.getSwitchCount()];
+        this.heap = new MinHeap(graph.getEdgeCount() + graph.getSwitchCount() * 3 + 1);
+    }
+
+    /**
+     * Finds two disjoint paths between two switches with the minimal total weight.
+     *
+     * @param source             source switch index
+     * @param target             destination switch index
+     * @param weights            non-negative edge weights indexed by edge
+     * @param availableBandwidth available bandwidth indexed by edge
+     * @param bandwidth          required bandwidth, edges with less available bandwidth are skipped
+     * @param switchDisjoint     true if paths must not share intermediate switches, otherwise only edges
+     * @return the lighter and the heavier path edge indexes, or null if there is no disjoint pair
+     */
+    public int[][] findPaths(int source, int target, long[] weights, long[] availableBandwidth, long bandwidth,
+                             boolean switchDisjoint) {
+        int[] first = search.findPath(source, target, weights, availableBandwidth, bandwidth);
+        if (first == null) {
+            return null;
+        }
+
+        long targetDistance = search.getDistance(target);
+        long[] potential = new long[graph.getSwitchCount()];
+        for (int node = 0; node < potential.length; node++) {
+            potential[node] = Math.min(search.getDistance(node), targetDistance);
+        }
+
+        Arrays.fill(firstPathIn, -1);
+        Arrays.fill(firstPathEdge, false);
+        Arrays.fill(split, false);
+        for (int edge : first) {
+            firstPathEdge[edge] = true;
+            firstPathIn[graph.getTarget(edge)] = edge;
+            if (switchDisjoint && graph.getTarget(edge) != target) {
+                split[graph.getTarget(edge)] = true;
+            }
+        }
+
+        if (!searchResidual(source, target, weights, availableBandwidth, bandwidth, potential)) {
+            return null;
+        }
+
+        boolean[] used = firstPathEdge.clone();
+        for (int state = target * 2; state != source * 2; state = parentState[state]) {
+            int transition = parentTransition[state];
+            if (transition >= 0) {
+                used[transition] = true;
+            } else if (transition != SWITCH_TRANSITION) {
+                used[-transition - 2] = false;
+            }
+        }
+
+        int[] one = extractPath(source, target, used);
+        int[] two = extractPath(source, target, used);
+        if (one == null || two == null) {
+            return null;
+        }
+
+        return DijkstraSearch.getPathWeight(one, weights) <= DijkstraSearch.getPathWeight(two, weights)
+                ? new int[][] {one, two} : new int[][] {two, one};
+    }
+
+    private boolean searchResidual(int source, int target, long[] weights, long[] availableBandwidth,
+                                   long bandwidth, long[] potential) {
+        Arrays.fill(distance, INFINITY);
+        Arrays.fill(parentState, -1);
+        heap.clear();
+
+        int start = source * 2;
+        int finish = target * 2;
+        distance[start] = 0L;
+        heap.push(start, 0L);
+
+        while (!heap.isEmpty()) {
+            long current = heap.peekKey();
+            int state = heap.poll();
+            if (current > distance[state]) {
+                continue;
+            }
+            if (state == finish) {
+                return true;
+            }
+
+            int node = state >>> 1;
+            if ((state & 1) == 0) {
+                if (!split[node]) {
+                    relax(state, state + 1, current, SWITCH_TRANSITION);
+                }
+                if (firstPathIn[node] >= 0) {
+                    int edge = firstPathIn[node];
+                    relax(state, graph.getSource(edge) * 2 + 1, current, -edge - 2);
+                }
+            } else {
+                relax(state, state - 1, current, SWITCH_TRANSITION);
+
+                for (int edge = graph.firstEdge(node), last = graph.lastEdge(node); edge < last; edge++) {
+                    if (firstPathEdge[edge] || isFirstPathLink(edge) || availableBandwidth[edge] < bandwidth) {
+                        continue;
+                    }
+
+                    int next = graph.getTarget(edge);
+                    long reduced = weights[edge] + potential[node] - potential[next];
+                    relax(state, next * 2, current + Math.max(reduced, 0L), edge);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether the edge is the opposite direction of a first path edge, i.e. the same physical link.
+     */
+    private boolean isFirstPathLink(int edge) {
+        int reverse = graph.getReverse(edge);
+        return reverse >= 0 && firstPathEdge[reverse];
+    }
+
+    private void relax(int from, int to, long candidate, int transition) {
+        if (candidate < distance[to]) {
+            distance[to] = candidate;
+            parentState[to] = from;
+            parentTransition[to] = transition;
+            heap.push(to, candidate);
+        }
+    }
+
+    /**
+     * Walks from source to destination over the used edges, marking the walked edges as not used.
+     */
+    private int[] extractPath(int source, int target, boolean[] used) {
+        int[] path = new int[graph.getEdgeCount()];
+        int length = 0;
+
+        for (int node = source; node != target; ) {
+            int next = -1;
+            for (int edge = graph.firstEdge(node), last = graph.lastEdge(node); edge < last; edge++) {
+                if (used[edge]) {
+                    next = edge;
+                    break;
+                }
+            }
+            if (next < 0) {
+                return null;
+            }
+
+            used[next] = false;
+            path[length++] = next;
+            node = graph.getTarget(next);
+        }
+
+        return Arrays.copyOf(path, length);
+    }
+}
@@ -0,0 +1,163 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Yen's k shortest loopless paths search over {@link NetworkGraph}.
+ *
+ * <p>An instance keeps search state between calls and must not be shared between threads.
+ */
+public class KShortestPathSearch {
+    /**
+     * {@link NetworkGraph} instance.
+     */
+    private final NetworkGraph graph;
+
+    /**
+     * Single path search used for the first path and for the spur paths.
+     */
+    private final DijkstraSearch search;
+
+    /**
+     * Edges excluded from the spur path search.
+     */
+    private final boolean[] excludedEdges;
+
+    /**
+     * Switches excluded from the spur path search.
+     */
+    private final boolean[] excludedSwitches;
+
+    /**
+     * Instance constructor.
+     *
+     * @param graph {@link NetworkGraph} instance
+     */
+    public KShortestPathSearch(NetworkGraph graph) {
+        this.graph = graph;
+        this.search = new DijkstraSearch(graph);
+        this.excludedEdges = new boolean[graph.getEdgeCount()];
+        this.excludedSwitches = new boolean[graph.getSwitchCount()];
+    }
+
+    /**
+     * Finds up to {@code count} lightest loopless paths between two switches, lightest first.
+     *
+     * @param source             source switch index
+     * @param target             destination switch index
+     * @param weights            non-negative edge weights indexed by edge
+     * @param availableBandwidth available bandwidth indexed by edge
+     * @param bandwidth          required bandwidth, edges with less available bandwidth are skipped
+     * @param count              maximum number of paths
+     * @return {@link List} of edge indexes from source to destination, empty if destination is unreachable
+     */
+    public List<int[]> findPaths(int source, int target, long[] weights, long[] availableBandwidth, long bandwidth,
+                                 int count) {
+        List<int[]> paths = new ArrayList<>(count);
+        int[] first = search.findPath(source, target, weights, availableBandwidth, bandwidth);
+        if (first == null || count < 1) {
+            return paths;
+        }
+        paths.add(first);
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        Set<Candidate> known = new HashSet<>();
+        known.add(new Candidate(first, weights));
+
+        while (paths.size() < count) {
+            int[] previous = paths.get(paths.size() - 1);
+
+            for (int spur = 0; spur < previous.length; spur++) {
+                Arrays.fill(excludedEdges, false);
+                Arrays.fill(excludedSwitches, false);
+
+                for (int[] path : paths) {
+                    if (path.length > spur && hasSamePrefix(path, previous, spur)) {
+                        excludedEdges[path[spur]] = true;
+                    }
+                }
+                for (int root = 0; root < spur; root++) {
+                    excludedSwitches[graph.getSource(previous[root])] = true;
+                }
+
+                int[] spurPath = search.findPath(graph.getSource(previous[spur]), target,
+                        weights, availableBandwidth, bandwidth, excludedEdges, excludedSwitches);
+                if (spurPath != null) {
+                    int[] path = Arrays.copyOf(previous, spur + spurPath.length);
+                    System.arraycopy(spurPath, 0, path, spur, spurPath.length);
+
+                    Candidate candidate = new Candidate(path, weights);
+                    if (known.add(candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+
+            Candidate next = candidates.poll();
+            if (next == null) {
+                break;
+            }
+            paths.add(next.edges);
+        }
+
+        return paths;
+    }
+
+    private static boolean hasSamePrefix(int[] path, int[] other, int length) {
+        for (int i = 0; i < length; i++) {
+            if (path[i] != other[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Candidate path ordered by weight and then by hops count.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int[] edges;
+        private final long weight;
+
+        Candidate(int[] edges, long[] weights) {
+            this.edges = edges;
+            this.weight = DijkstraSearch.getPathWeight(edges, weights);
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int result = Long.compare(weight, other.weight);
+            return result != 0 ? result : Integer.compare(edges.length, other.edges.length);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Candidate && Arrays.equals(edges, ((Candidate) object).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+}
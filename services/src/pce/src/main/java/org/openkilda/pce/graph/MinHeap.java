@@ -0,0 +1,100 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.graph;
+
+/**
+ * Binary min heap of int values with long keys, used as the search priority queue.
+ *
+ * <p>There is no decrease-key operation: searches push a value again with a smaller key and skip stale entries.
+ */
+final class MinHeap {
+    /**
+     * Heap values.
+     */
+    private final int[] values;
+
+    /**
+     * Heap keys.
+     */
+    private final long[] keys;
+
+    /**
+     * Heap size.
+     */
+    private int size;
+
+    /**
+     * Instance constructor.
+     *
+     * @param capacity maximum number of pushes between clears
+     */
+    MinHeap(int capacity) {
+        this.values = new int[capacity];
+        this.keys = new long[capacity];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    long peekKey() {
+        return keys[0];
+    }
+
+    void push(int value, long key) {
+        int position = size++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            values[position] = values[parent];
+            keys[position] = keys[parent];
+            position = parent;
+        }
+        values[position] = value;
+        keys[position] = key;
+    }
+
+    int poll() {
+        final int result = values[0];
+        int lastValue = values[--size];
+        long lastKey = keys[size];
+
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (lastKey <= keys[child]) {
+                break;
+            }
+            values[position] = values[child];
+            keys[position] = keys[child];
+            position = child;
+        }
+        values[position] = lastValue;
+        keys[position] = lastKey;
+
+        return result;
+    }
+}
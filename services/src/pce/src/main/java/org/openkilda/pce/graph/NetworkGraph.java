@@ -0,0 +1,404 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.graph;
+
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.SwitchInfoData;
+import org.openkilda.messaging.info.event.SwitchState;
+import org.openkilda.pce.cache.NetworkCache;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable compact snapshot of the operable part of the network.
+ *
+ * <p>Switches are numbered from 0 to {@link #getSwitchCount()} - 1, isls are stored in adjacency arrays grouped
+ * by source switch, so outgoing isls of switch {@code n} are edges {@code [firstEdge(n), lastEdge(n))}.
+ * Only switches in {@link SwitchState#ADDED} or {@link SwitchState#ACTIVATED} state and not failed isls between
+ * them are included.
+ */
+public final class NetworkGraph {
+    /**
+     * Switch ids by switch index.
+     */
+    private final String[] switchIds;
+
+    /**
+     * Switch indexes by switch id.
+     */
+    private final Map<String, Integer> switchIndex;
+
+    /**
+     * Offsets of the first outgoing edge for each switch, the last element is the edges count.
+     */
+    private final int[] edgeOffsets;
+
+    /**
+     * Edge source switch indexes.
+     */
+    private final int[] edgeSource;
+
+    /**
+     * Edge destination switch indexes.
+     */
+    private final int[] edgeTarget;
+
+    /**
+     * Edge source ports.
+     */
+    private final int[] sourcePort;
+
+    /**
+     * Edge destination ports.
+     */
+    private final int[] targetPort;
+
+    /**
+     * Edge latencies.
+     */
+    private final long[] latency;
+
+    /**
+     * Edge available bandwidth.
+     */
+    private final long[] availableBandwidth;
+
+    /**
+     * Edge of the same link in the opposite direction, or -1.
+     */
+    private final int[] reverseEdge;
+
+    /**
+     * Isls the edges were built from.
+     */
+    private final IslInfoData[] isls;
+
+    /**
+     * Instance constructor.
+     *
+     * @param switches {@link Collection} of {@link SwitchInfoData} instances
+     * @param isls     {@link Collection} of {@link IslInfoData} instances
+     */
+    public NetworkGraph(Collection<SwitchInfoData> switches, Collection<IslInfoData> isls) {
+        List<String> ids = new ArrayList<>(switches.size());
+        switchIndex = new HashMap<>(switches.size() * 2);
+        for (SwitchInfoData sw : switches) {
+            if (isOperable(sw) && !switchIndex.containsKey(sw.getSwitchId())) {
+                switchIndex.put(sw.getSwitchId(), ids.size());
+                ids.add(sw.getSwitchId());
+            }
+        }
+        switchIds = ids.toArray(new String[ids.size()]);
+
+        List<IslInfoData> active = new ArrayList<>(isls.size());
+        for (IslInfoData isl : isls) {
+            if (isActive(isl)) {
+                active.add(isl);
+            }
+        }
+
+        edgeOffsets = new int[switchIds.length + 1];
+        for (IslInfoData isl : active) {
+            edgeOffsets[indexOf(isl.getPath().get(0).getSwitchId()) + 1]++;
+        }
+        for (int i = 0; i < switchIds.length; i++) {
+            edgeOffsets[i + 1] += edgeOffsets[i];
+        }
+
+        final int count = active.size();
+        edgeSource = new int[count];
+        edgeTarget = new int[count];
+        sourcePort = new int[count];
+        targetPort = new int[count];
+        latency = new long[count];
+        availableBandwidth = new long[count];
+        this.isls = new IslInfoData[count];
+
+        int[] position = new int[switchIds.length];
+        System.arraycopy(edgeOffsets, 0, position, 0, switchIds.length);
+        for (IslInfoData isl : active) {
+            PathNode source = isl.getPath().get(0);
+            PathNode target = isl.getPath().get(1);
+            int src = indexOf(source.getSwitchId());
+            int edge = position[src]++;
+
+            edgeSource[edge] = src;
+            edgeTarget[edge] = indexOf(target.getSwitchId());
+            sourcePort[edge] = source.getPortNo();
+            targetPort[edge] = target.getPortNo();
+            latency[edge] = isl.getLatency();
+            availableBandwidth[edge] = isl.getAvailableBandwidth();
+            this.isls[edge] = isl;
+        }
+
+        reverseEdge = new int[count];
+        for (int edge = 0; edge < count; edge++) {
+            reverseEdge[edge] = -1;
+            for (int candidate = edgeOffsets[edgeTarget[edge]]; candidate < edgeOffsets[edgeTarget[edge] + 1];
+                    candidate++) {
+                if (edgeTarget[candidate] == edgeSource[edge]
+                        && sourcePort[candidate] == targetPort[edge] && targetPort[candidate] == sourcePort[edge]) {
+                    reverseEdge[edge] = candidate;
+                    break;
+                }
+            }
+        }
+    }
+
+    private NetworkGraph(NetworkGraph graph, long[] availableBandwidth) {
+        this.switchIds = graph.switchIds;
+        this.switchIndex = graph.switchIndex;
+        this.edgeOffsets = graph.edgeOffsets;
+        this.edgeSource = graph.edgeSource;
+        this.edgeTarget = graph.edgeTarget;
+        this.sourcePort = graph.sourcePort;
+        this.targetPort = graph.targetPort;
+        this.latency = graph.latency;
+        this.availableBandwidth = availableBandwidth;
+        this.reverseEdge = graph.reverseEdge;
+        this.isls = graph.isls;
+    }
+
+    /**
+     * Builds snapshot of the current {@link NetworkCache} state.
+     *
+     * <p>Isl available bandwidth is reduced by bandwidth reserved in the cache, so the graph reflects flows placed
+     * since the isl was last updated.
+     *
+     * @param networkCache {@link NetworkCache} instance
+     * @return {@link NetworkGraph} instance
+     */
+    public static NetworkGraph fromCache(NetworkCache networkCache) {
+        return fromSnapshot(networkCache.snapshot());
+    }
+
+    /**
+     * Builds graph of the {@link NetworkCache} snapshot.
+     *
+     * <p>Isl available bandwidth is reduced by bandwidth reserved in the snapshot.
+     *
+     * @param snapshot {@link NetworkCache.Snapshot} instance
+     * @return {@link NetworkGraph} instance
+     */
+    public static NetworkGraph fromSnapshot(NetworkCache.Snapshot snapshot) {
+        Set<IslInfoData> isls = snapshot.dumpIsls();
+        List<IslInfoData> available = new ArrayList<>(isls.size());
+        for (IslInfoData isl : isls) {
+            long reserved = snapshot.getReservedBandwidth(isl.getId());
+            if (reserved == 0) {
+                available.add(isl);
+            } else {
+                IslInfoData copy = new IslInfoData(isl);
+                copy.setAvailableBandwidth(isl.getAvailableBandwidth() - reserved);
+                available.add(copy);
+            }
+        }
+        return new NetworkGraph(snapshot.dumpSwitches(), available);
+    }
+
+    /**
+     * Gets switch index.
+     *
+     * @param switchId switch id
+     * @return switch index or -1 if switch is not in the graph
+     */
+    public int indexOf(String switchId) {
+        Integer index = switchIndex.get(switchId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets switch id.
+     *
+     * @param index switch index
+     * @return switch id
+     */
+    public String getSwitchId(int index) {
+        return switchIds[index];
+    }
+
+    /**
+     * Gets switches count.
+     *
+     * @return switches count
+     */
+    public int getSwitchCount() {
+        return switchIds.length;
+    }
+
+    /**
+     * Gets edges count.
+     *
+     * @return edges count
+     */
+    public int getEdgeCount() {
+        return edgeSource.length;
+    }
+
+    /**
+     * Gets the first outgoing edge of the switch.
+     *
+     * @param index switch index
+     * @return edge index
+     */
+    public int firstEdge(int index) {
+        return edgeOffsets[index];
+    }
+
+    /**
+     * Gets the edge following the last outgoing edge of the switch.
+     *
+     * @param index switch index
+     * @return edge index
+     */
+    public int lastEdge(int index) {
+        return edgeOffsets[index + 1];
+    }
+
+    /**
+     * Gets edge source switch index.
+     *
+     * @param edge edge index
+     * @return switch index
+     */
+    public int getSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    /**
+     * Gets edge destination switch index.
+     *
+     * @param edge edge index
+     * @return switch index
+     */
+    public int getTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    /**
+     * Gets edge source port.
+     *
+     * @param edge edge index
+     * @return port number
+     */
+    public int getSourcePort(int edge) {
+        return sourcePort[edge];
+    }
+
+    /**
+     * Gets edge destination port.
+     *
+     * @param edge edge index
+     * @return port number
+     */
+    public int getTargetPort(int edge) {
+        return targetPort[edge];
+    }
+
+    /**
+     * Gets edge latency.
+     *
+     * @param edge edge index
+     * @return latency
+     */
+    public long getLatency(int edge) {
+        return latency[edge];
+    }
+
+    /**
+     * Gets edge available bandwidth.
+     *
+     * @param edge edge index
+     * @return available bandwidth
+     */
+    public long getAvailableBandwidth(int edge) {
+        return availableBandwidth[edge];
+    }
+
+    /**
+     * Gets edge of the same link in the opposite direction.
+     *
+     * @param edge edge index
+     * @return edge index or -1 if the opposite isl is not in the graph
+     */
+    public int getReverse(int edge) {
+        return reverseEdge[edge];
+    }
+
+    /**
+     * Gets isl the edge was built from.
+     *
+     * @param edge edge index
+     * @return {@link IslInfoData} instance
+     */
+    public IslInfoData getIsl(int edge) {
+        return isls[edge];
+    }
+
+    /**
+     * Gets copy of available bandwidth of all edges.
+     *
+     * @return available bandwidth indexed by edge
+     */
+    public long[] copyAvailableBandwidth() {
+        return availableBandwidth.clone();
+    }
+
+    /**
+     * Gets graph of the same switches and isls with other available bandwidth, the structure is shared.
+     *
+     * @param availableBandwidth available bandwidth indexed by edge
+     * @return {@link NetworkGraph} instance
+     */
+    public NetworkGraph withAvailableBandwidth(long[] availableBandwidth) {
+        if (availableBandwidth.length != edgeSource.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Bandwidth of %d edges given for %d edges", availableBandwidth.length, edgeSource.length));
+        }
+        return new NetworkGraph(this, availableBandwidth.clone());
+    }
+
+    private static boolean isOperable(SwitchInfoData sw) {
+        return SwitchState.ADDED == sw.getState() || SwitchState.ACTIVATED == sw.getState();
+    }
+
+    private boolean isActive(IslInfoData isl) {
+        return IslChangeType.FAILED != isl.getState()
+                && isl.getPath().size() == 2
+                && indexOf(isl.getPath().get(0).getSwitchId()) >= 0
+                && indexOf(isl.getPath().get(1).getSwitchId()) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("switches", switchIds.length)
+                .add("edges", edgeSource.length)
+                .toString();
+    }
+}
@@ -0,0 +1,106 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.graph;
+
+import org.openkilda.messaging.info.event.IslInfoData;
+
+import java.io.Serializable;
+import java.util.function.ToLongFunction;
+
+/**
+ * Isl weight function used by path search.
+ *
+ * <p>Weights are evaluated once per {@link NetworkGraph} snapshot into a primitive array indexed by edge, so the
+ * search itself costs the same for any function.
+ */
+@FunctionalInterface
+public interface WeightFunction extends Serializable {
+    /**
+     * Every isl weights the same, so the path with the fewest hops wins.
+     */
+    WeightFunction HOPS = (graph, edge) -> 1L;
+
+    /**
+     * Isl weights its measured latency.
+     */
+    WeightFunction LATENCY = (graph, edge) -> Math.max(graph.getLatency(edge), 0L);
+
+    /**
+     * Gets weight of the edge.
+     *
+     * @param graph {@link NetworkGraph} instance
+     * @param edge  edge index
+     * @return non-negative edge weight
+     */
+    long weight(NetworkGraph graph, int edge);
+
+    /**
+     * Evaluates weights of all edges of the graph.
+     *
+     * @param graph {@link NetworkGraph} instance
+     * @return edge weights indexed by edge
+     */
+    default long[] evaluate(NetworkGraph graph) {
+        long[] weights = new long[graph.getEdgeCount()];
+        for (int edge = 0; edge < weights.length; edge++) {
+            weights[edge] = weight(graph, edge);
+        }
+        return weights;
+    }
+
+    /**
+     * Gets function which is the sum of this and the other function.
+     *
+     * @param other {@link WeightFunction} instance
+     * @return composite {@link WeightFunction} instance
+     */
+    default WeightFunction plus(WeightFunction other) {
+        return (graph, edge) -> weight(graph, edge) + other.weight(graph, edge);
+    }
+
+    /**
+     * Gets function which is this function multiplied by the factor.
+     *
+     * @param factor non-negative multiplier
+     * @return scaled {@link WeightFunction} instance
+     */
+    default WeightFunction times(long factor) {
+        return (graph, edge) -> weight(graph, edge) * factor;
+    }
+
+    /**
+     * Gets function which weights each isl with specified function, e.g. the isl cost.
+     *
+     * @param function isl weight function
+     * @return {@link WeightFunction} instance
+     */
+    static WeightFunction isl(ToLongFunction<IslInfoData> function) {
+        return (graph, edge) -> function.applyAsLong(graph.getIsl(edge));
+    }
+
+    /**
+     * Gets function which prefers isls with more available bandwidth.
+     *
+     * <p>The weight is {@code referenceBandwidth / availableBandwidth}, but not less than 1, the same way OSPF
+     * derives interface cost from the reference bandwidth.
+     *
+     * @param referenceBandwidth reference bandwidth
+     * @return {@link WeightFunction} instance
+     */
+    static WeightFunction availableBandwidth(long referenceBandwidth) {
+        return (graph, edge) -> Math.max(referenceBandwidth / Math.max(graph.getAvailableBandwidth(edge), 1L), 1L);
+    }
+}
@@ -1,7 +1,17 @@
 package org.openkilda.pce.provider;
 
+import org.openkilda.pce.cache.NetworkCache;
+
 import java.io.Serializable;
 
 public interface Auth extends Serializable {
     PathComputer connect();
+
+    /**
+     * Connects path computer which loads the isls into the network cache, so it sees the bandwidth reserved there.
+     *
+     * @param networkCache {@link NetworkCache} instance
+     * @return {@link PathComputer} instance
+     */
+    PathComputer connect(NetworkCache networkCache);
 }
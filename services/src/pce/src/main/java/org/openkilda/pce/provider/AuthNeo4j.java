@@ -1,5 +1,7 @@
 package org.openkilda.pce.provider;
 
+import org.openkilda.pce.cache.NetworkCache;
+
 import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.GraphDatabase;
 import org.slf4j.Logger;
@@ -20,9 +22,14 @@ public class AuthNeo4j implements Auth {
 
     @Override
     public NeoDriver connect() {
+        return connect(new NetworkCache());
+    }
+
+    @Override
+    public NeoDriver connect(NetworkCache networkCache) {
         String address = String.format("bolt://%s", host);
 
         logger.info("NEO4J connect {} (login=\"{}\", password=\"*****\")", address, login);
-        return new NeoDriver(GraphDatabase.driver(address, AuthTokens.basic(login, password)));
+        return new NeoDriver(GraphDatabase.driver(address, AuthTokens.basic(login, password)), networkCache);
     }
 }
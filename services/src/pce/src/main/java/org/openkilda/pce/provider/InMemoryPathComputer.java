@@ -0,0 +1,459 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.provider;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.cache.NetworkCache;
+import org.openkilda.pce.graph.DijkstraSearch;
+import org.openkilda.pce.graph.DisjointPathSearch;
+import org.openkilda.pce.graph.KShortestPathSearch;
+import org.openkilda.pce.graph.NetworkGraph;
+import org.openkilda.pce.graph.WeightFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link PathComputer} implementation which runs path computation over {@link NetworkCache} content.
+ *
+ * <p>No database round-trip is made: each computation builds a compact {@link NetworkGraph} snapshot of the
+ * operable switches and isls and runs bandwidth constrained Dijkstra search over it.
+ * Isl weights are defined by {@link WeightFunction} chosen for the {@link Strategy}. Alternative paths are found
+ * with Yen's algorithm and disjoint pairs for protected flows with Suurballe's algorithm over the same snapshot.
+ *
+ * <p>The snapshot and the evaluated weights are reused until {@link NetworkCache#getGeneration()} changes, bandwidth
+ * reservations within a generation only refresh the available bandwidth of the snapshot edges and drop the weights
+ * which may depend on it, see {@link #isBandwidthDependent(Strategy)}.
+ * Single paths are also kept in an optional {@link PathCache}.
+ */
+public class InMemoryPathComputer implements PathComputer {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryPathComputer.class);
+
+    /**
+     * {@link NetworkCache} instance.
+     */
+    private final transient NetworkCache networkCache;
+
+    /**
+     * Weight function used for {@link Strategy#EXTERNAL} strategy.
+     */
+    private final WeightFunction externalWeight;
+
+    /**
+     * {@link PathCache} instance, or null if paths are not cached.
+     */
+    private final transient PathCache pathCache;
+
+    /**
+     * Snapshot of the latest seen topology generation.
+     */
+    private transient volatile Snapshot snapshot;
+
+    /**
+     * Instance constructor.
+     *
+     * @param networkCache {@link NetworkCache} instance
+     */
+    public InMemoryPathComputer(NetworkCache networkCache) {
+        this(networkCache, WeightFunction.HOPS);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param networkCache   {@link NetworkCache} instance
+     * @param externalWeight weight function used for {@link Strategy#EXTERNAL} strategy
+     */
+    public InMemoryPathComputer(NetworkCache networkCache, WeightFunction externalWeight) {
+        this(networkCache, externalWeight, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param networkCache   {@link NetworkCache} instance
+     * @param externalWeight weight function used for {@link Strategy#EXTERNAL} strategy
+     * @param pathCache      {@link PathCache} instance, or null if paths should not be cached
+     */
+    public InMemoryPathComputer(NetworkCache networkCache, WeightFunction externalWeight, PathCache pathCache) {
+        this.networkCache = networkCache;
+        this.externalWeight = externalWeight;
+        this.pathCache = pathCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImmutablePair<PathInfoData, PathInfoData> getPath(Flow flow, Strategy strategy)
+            throws UnroutablePathException {
+        if (flow.isOneSwitchFlow()) {
+            logger.info("No path computation for one-switch flow");
+            return new ImmutablePair<>(
+                    new PathInfoData(0L, new ArrayList<>()), new PathInfoData(0L, new ArrayList<>()));
+        }
+
+        Snapshot current = getSnapshot();
+        if (pathCache == null) {
+            return getPath(current.graph, flow, strategy);
+        }
+
+        int[] edges = pathCache.get(flow, strategy, current.generation);
+        if (edges == null) {
+            edges = findPath(current.graph, flow, current.getWeights(strategy), current.availableBandwidth,
+                    pathCache.getSearchBandwidth(flow));
+            if (edges == null) {
+                // no path for the lowest bandwidth of the bucket, so none for the flow either
+                throw new UnroutablePathException(flow);
+            }
+            pathCache.put(flow, strategy, current.generation, edges);
+        }
+
+        if (!fits(edges, current.availableBandwidth, getRequiredBandwidth(flow))) {
+            return getPath(current.graph, flow, strategy);
+        }
+
+        return buildPath(current.graph, edges);
+    }
+
+    /**
+     * Gets path between source and destination switch over specified network snapshot.
+     *
+     * @param graph    {@link NetworkGraph} instance
+     * @param flow     {@link Flow} instance
+     * @param strategy path computation strategy
+     * @return forward and reverse {@link PathInfoData} instances
+     * @throws UnroutablePathException if there is no path satisfying the flow requirements
+     */
+    ImmutablePair<PathInfoData, PathInfoData> getPath(NetworkGraph graph, Flow flow, Strategy strategy)
+            throws UnroutablePathException {
+        Snapshot current = snapshot;
+        int[] edges = current != null && current.graph == graph
+                ? findPath(graph, flow, current.getWeights(strategy), current.availableBandwidth,
+                        getRequiredBandwidth(flow))
+                : findPath(graph, flow, getWeightFunction(strategy).evaluate(graph), graph.copyAvailableBandwidth(),
+                        getRequiredBandwidth(flow));
+        if (edges == null) {
+            throw new UnroutablePathException(flow);
+        }
+
+        return buildPath(graph, edges);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getShortestPaths(Flow flow, Strategy strategy, int count)
+            throws UnroutablePathException {
+        if (flow.isOneSwitchFlow() || count <= 1) {
+            return PathComputer.super.getShortestPaths(flow, strategy, count);
+        }
+
+        Snapshot current = getSnapshot();
+        NetworkGraph graph = current.graph;
+        int source = graph.indexOf(flow.getSourceSwitch());
+        int target = graph.indexOf(flow.getDestinationSwitch());
+        if (source < 0 || target < 0) {
+            throw new UnroutablePathException(flow);
+        }
+
+        List<int[]> found = new KShortestPathSearch(graph).findPaths(source, target,
+                current.getWeights(strategy), current.availableBandwidth, getRequiredBandwidth(flow), count);
+        if (found.isEmpty()) {
+            throw new UnroutablePathException(flow);
+        }
+
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths = new ArrayList<>(found.size());
+        for (int[] edges : found) {
+            paths.add(buildPath(graph, edges));
+        }
+        return paths;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>One-switch flow has no isl a backup path could avoid, so the list holds its empty primary path only rather
+     * than a primary and backup pair.
+     */
+    @Override
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getDisjointPaths(Flow flow, Strategy strategy,
+                                                                            Disjointness disjointness)
+            throws UnroutablePathException {
+        if (flow.isOneSwitchFlow()) {
+            return PathComputer.super.getShortestPaths(flow, strategy, 1);
+        }
+
+        Snapshot current = getSnapshot();
+        NetworkGraph graph = current.graph;
+        int source = graph.indexOf(flow.getSourceSwitch());
+        int target = graph.indexOf(flow.getDestinationSwitch());
+        if (source < 0 || target < 0) {
+            throw new UnroutablePathException(flow);
+        }
+
+        int[][] found = new DisjointPathSearch(graph).findPaths(source, target, current.getWeights(strategy),
+                current.availableBandwidth, getRequiredBandwidth(flow), Disjointness.SWITCH == disjointness);
+        if (found == null) {
+            logger.warn("No {} disjoint paths found for flow {}", disjointness, flow.getFlowId());
+            throw new UnroutablePathException(flow);
+        }
+
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths = new ArrayList<>(found.length);
+        for (int[] edges : found) {
+            paths.add(buildPath(graph, edges));
+        }
+        return paths;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>All paths are computed over a single {@link NetworkGraph} snapshot. Searches run in parallel against the
+     * snapshot bandwidth, then the paths are committed in iteration order: a path which no longer fits the bandwidth
+     * left by the flows committed before it is searched again against the remaining bandwidth.
+     */
+    @Override
+    public PathBatch getPaths(Collection<Flow> flows, Strategy strategy) {
+        Snapshot current = getSnapshot();
+        NetworkGraph graph = current.graph;
+        long[] weights = current.getWeights(strategy);
+        long[] snapshotBandwidth = current.availableBandwidth;
+
+        List<Flow> requests = new ArrayList<>(flows);
+        int[][] candidates = requests.parallelStream()
+                .map(flow -> findPath(graph, flow, weights, snapshotBandwidth, getRequiredBandwidth(flow)))
+                .toArray(int[][]::new);
+
+        long[] availableBandwidth = snapshotBandwidth.clone();
+        PathBatch paths = new PathBatch();
+        for (int i = 0; i < candidates.length; i++) {
+            Flow flow = requests.get(i);
+            int[] edges = candidates[i];
+            if (edges != null && !fits(edges, availableBandwidth, getRequiredBandwidth(flow))) {
+                edges = findPath(graph, flow, weights, availableBandwidth, getRequiredBandwidth(flow));
+            }
+
+            if (edges == null) {
+                logger.warn("No path found for flow {} in batch", flow.getFlowId());
+                paths.addUnroutable(flow.getFlowId());
+                continue;
+            }
+
+            reserve(edges, availableBandwidth, flow);
+            paths.addPath(flow.getFlowId(), buildPath(graph, edges));
+        }
+
+        logger.debug("Computed {} of {} paths in batch", paths.getPaths().size(), candidates.length);
+
+        return paths;
+    }
+
+    /**
+     * Gets isl weight function for the strategy.
+     *
+     * @param strategy path computation strategy
+     * @return {@link WeightFunction} instance
+     */
+    WeightFunction getWeightFunction(Strategy strategy) {
+        switch (strategy) {
+            case COST:
+                return WeightFunction.isl(this::getWeight);
+            case LATENCY:
+                return WeightFunction.LATENCY;
+            case EXTERNAL:
+                return externalWeight;
+            default:
+                return WeightFunction.HOPS;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reports the {@link PathCache} metrics, if paths are cached.
+     */
+    @Override
+    public Map<String, Long> getMetrics() {
+        return pathCache != null ? pathCache.getMetrics() : Collections.emptyMap();
+    }
+
+    /**
+     * Gets snapshot of the current topology generation, building it if the topology has changed
+     * or refreshing its available bandwidth if only the bandwidth has changed.
+     */
+    private Snapshot getSnapshot() {
+        long bandwidthVersion = networkCache.getBandwidthVersion();
+        NetworkCache.Snapshot topology = networkCache.snapshot();
+        Snapshot current = snapshot;
+        if (current != null && current.topology == topology && current.bandwidthVersion == bandwidthVersion) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.generation != topology.getGeneration()) {
+                current = new Snapshot(topology, bandwidthVersion, NetworkGraph.fromSnapshot(topology));
+                snapshot = current;
+                logger.debug("Built {} of topology generation {}", current.graph, current.generation);
+            } else if (current.topology != topology || current.bandwidthVersion != bandwidthVersion) {
+                current = new Snapshot(topology, bandwidthVersion, current);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Checks if the strategy weights may depend on the isl available bandwidth, e.g.
+     * {@link WeightFunction#availableBandwidth(long)}, so they have to be evaluated again when it changes.
+     * Hops, cost and latency weights only depend on the isls themselves.
+     */
+    private static boolean isBandwidthDependent(Strategy strategy) {
+        return Strategy.EXTERNAL == strategy;
+    }
+
+    /**
+     * Finds path edges for the flow.
+     *
+     * @return edge indexes, empty for one-switch flow, or null if there is no path
+     */
+    private int[] findPath(NetworkGraph graph, Flow flow, long[] weights, long[] availableBandwidth, long bandwidth) {
+        if (flow.isOneSwitchFlow()) {
+            return new int[0];
+        }
+
+        int source = graph.indexOf(flow.getSourceSwitch());
+        int target = graph.indexOf(flow.getDestinationSwitch());
+        if (source < 0 || target < 0) {
+            return null;
+        }
+
+        return new DijkstraSearch(graph).findPath(source, target, weights, availableBandwidth, bandwidth);
+    }
+
+    private long getRequiredBandwidth(Flow flow) {
+        return flow.isIgnoreBandwidth() ? Long.MIN_VALUE : flow.getBandwidth();
+    }
+
+    private boolean fits(int[] edges, long[] availableBandwidth, long bandwidth) {
+        for (int edge : edges) {
+            if (availableBandwidth[edge] < bandwidth) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reserve(int[] edges, long[] availableBandwidth, Flow flow) {
+        if (!flow.isIgnoreBandwidth()) {
+            for (int edge : edges) {
+                availableBandwidth[edge] -= flow.getBandwidth();
+            }
+        }
+    }
+
+    /**
+     * Converts found edges to forward and reverse paths the same way {@link NeoDriver} does.
+     */
+    private ImmutablePair<PathInfoData, PathInfoData> buildPath(NetworkGraph graph, int[] edges) {
+        long latency = 0L;
+        List<PathNode> forwardNodes = new ArrayList<>(edges.length * 2);
+        List<PathNode> reverseNodes = new ArrayList<>(edges.length * 2);
+
+        int seqId = 0;
+        for (int edge : edges) {
+            latency += graph.getLatency(edge);
+
+            forwardNodes.add(new PathNode(graph.getSwitchId(graph.getSource(edge)),
+                    graph.getSourcePort(edge), seqId++, graph.getLatency(edge)));
+            forwardNodes.add(new PathNode(graph.getSwitchId(graph.getTarget(edge)),
+                    graph.getTargetPort(edge), seqId++, 0L));
+        }
+
+        seqId = 0;
+        for (int i = edges.length - 1; i >= 0; i--) {
+            int edge = edges[i];
+
+            reverseNodes.add(new PathNode(graph.getSwitchId(graph.getTarget(edge)),
+                    graph.getTargetPort(edge), seqId++, graph.getLatency(edge)));
+            reverseNodes.add(new PathNode(graph.getSwitchId(graph.getSource(edge)),
+                    graph.getSourcePort(edge), seqId++, 0L));
+        }
+
+        return new ImmutablePair<>(new PathInfoData(latency, forwardNodes), new PathInfoData(latency, reverseNodes));
+    }
+
+    /**
+     * Network snapshot with weights evaluated for it, the arrays are shared by searches and must not be modified.
+     */
+    private final class Snapshot {
+        private final NetworkCache.Snapshot topology;
+        private final long generation;
+        private final long bandwidthVersion;
+        private final NetworkGraph graph;
+        private final long[] availableBandwidth;
+        private final Map<Strategy, long[]> weights;
+
+        Snapshot(NetworkCache.Snapshot topology, long bandwidthVersion, NetworkGraph graph) {
+            this.topology = topology;
+            this.generation = topology.getGeneration();
+            this.bandwidthVersion = bandwidthVersion;
+            this.graph = graph;
+            this.availableBandwidth = graph.copyAvailableBandwidth();
+            this.weights = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Builds snapshot of the same generation with the available bandwidth of the topology snapshot, sharing
+         * the graph structure and the weights which do not depend on the bandwidth.
+         */
+        Snapshot(NetworkCache.Snapshot topology, long bandwidthVersion, Snapshot previous) {
+            this.topology = topology;
+            this.generation = previous.generation;
+            this.bandwidthVersion = bandwidthVersion;
+            this.availableBandwidth = new long[previous.graph.getEdgeCount()];
+            for (int edge = 0; edge < availableBandwidth.length; edge++) {
+                availableBandwidth[edge] = topology.getAvailableBandwidth(previous.graph.getIsl(edge).getId());
+            }
+            this.graph = previous.graph.withAvailableBandwidth(availableBandwidth);
+            this.weights = new ConcurrentHashMap<>();
+            previous.weights.forEach((strategy, values) -> {
+                if (!isBandwidthDependent(strategy)) {
+                    weights.put(strategy, values);
+                }
+            });
+        }
+
+        long[] getWeights(Strategy strategy) {
+            return weights.computeIfAbsent(strategy, key -> getWeightFunction(key).evaluate(graph));
+        }
+    }
+}
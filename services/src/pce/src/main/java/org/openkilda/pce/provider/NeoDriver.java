@@ -15,10 +15,17 @@
 
 package org.openkilda.pce.provider;
 
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
 import org.openkilda.messaging.info.event.PathInfoData;
 import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.SwitchInfoData;
+import org.openkilda.messaging.info.event.SwitchState;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.cache.FlowDigest;
+import org.openkilda.pce.cache.NetworkCache;
+import org.openkilda.pce.graph.WeightFunction;
 
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.Record;
@@ -40,31 +47,119 @@ public class NeoDriver implements PathComputer {
      */
     private static final Logger logger = LoggerFactory.getLogger(NeoDriver.class);
 
+    /**
+     * Maximum number of paths cached over the in-memory copy of the topology.
+     */
+    private static final int PATH_CACHE_SIZE = 1024;
+
+    /**
+     * Bandwidth bucket width of the path cache, flows within 1 Mbps share the cached path.
+     */
+    private static final long PATH_CACHE_BANDWIDTH_BUCKET = 1000L;
+
+    /**
+     * Default minimum interval in milliseconds between checks of the in-memory copy against the database.
+     */
+    public static final long DEFAULT_DIGEST_CHECK_INTERVAL = 1000L;
+
     /**
      * {@link Driver} instance.
      */
     private final Driver driver;
 
+    /**
+     * In-memory copy of the active switches and isls, see {@link #getPathComputer()}.
+     */
+    private final transient NetworkCache networkCache;
+
+    /**
+     * Path computer running over the in-memory copy, its {@link PathCache} is kept across copy updates.
+     */
+    private final transient InMemoryPathComputer pathComputer;
+
+    /**
+     * Minimum interval in milliseconds between checks of the in-memory copy against the database.
+     */
+    private final long digestCheckInterval;
+
+    /**
+     * Time of the last check of the in-memory copy against the database.
+     */
+    private transient volatile long digestCheckTime;
+
+    /**
+     * Digest of the active isls the copy was loaded at.
+     */
+    private transient volatile String topologyDigest;
+
+    /**
+     * Digest of the active isls available bandwidth the copy was updated at.
+     */
+    private transient volatile String bandwidthDigest;
+
     /**
      * @param driver NEO4j driver(connect)
      */
     public NeoDriver(Driver driver) {
+        this(driver, new NetworkCache());
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * <p>The active switches and isls are loaded into the network cache, so paths are searched with the bandwidth
+     * reserved on it by flows which the database does not account yet. Loaded isl available bandwidth accounts the
+     * flows already placed on the isl, so the reservations made on it are dropped, see
+     * {@link NetworkCache#updateAvailableBandwidth(String, long)}.
+     *
+     * @param driver       NEO4j driver(connect)
+     * @param networkCache {@link NetworkCache} instance the switches and isls are loaded into
+     */
+    public NeoDriver(Driver driver, NetworkCache networkCache) {
+        this(driver, networkCache, DEFAULT_DIGEST_CHECK_INTERVAL);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param driver              NEO4j driver(connect)
+     * @param networkCache        {@link NetworkCache} instance the switches and isls are loaded into
+     * @param digestCheckInterval minimum interval in milliseconds between checks of the in-memory copy against the
+     *                            database, 0 to check it on every path request
+     */
+    public NeoDriver(Driver driver, NetworkCache networkCache, long digestCheckInterval) {
         this.driver = driver;
+        this.networkCache = networkCache;
+        this.digestCheckInterval = digestCheckInterval;
+        this.pathComputer = new InMemoryPathComputer(networkCache, WeightFunction.HOPS,
+                new PathCache(PATH_CACHE_SIZE, PATH_CACHE_BANDWIDTH_BUCKET));
     }
 
     /**
      * {@inheritDoc}
+     *
+     * <p>Cypher shortest path matches are hop based, so the {@link Strategy#COST} and {@link Strategy#LATENCY} paths
+     * are searched by {@link InMemoryPathComputer} over the in-memory copy of the active switches and isls, the same
+     * way {@link #getPaths(Collection, Strategy)} places them. {@link Strategy#EXTERNAL} is not supported, there is no
+     * external weight function to evaluate.
      */
     @Override
     public ImmutablePair<PathInfoData, PathInfoData> getPath(Flow flow, Strategy strategy)
             throws UnroutablePathException {
+        if (Strategy.EXTERNAL == strategy) {
+            throw new IllegalArgumentException(
+                    String.format("Path computation strategy %s is not supported", strategy));
+        }
+        if ((Strategy.COST == strategy || Strategy.LATENCY == strategy) && !flow.isOneSwitchFlow()) {
+            return getPathComputer().getPath(flow, strategy);
+        }
 
         long latency = 0L;
         List<PathNode> forwardNodes = new LinkedList<>();
         List<PathNode> reverseNodes = new LinkedList<>();
 
         if (! flow.isOneSwitchFlow()) {
-            Statement statement = getPathQuery(flow, strategy);
+            Statement statement = makeHopsPathQuery(flow);
             logger.debug("QUERY: {}", statement.toString());
 
             try (Session session = driver.session()) {
@@ -112,6 +207,34 @@ public class NeoDriver implements PathComputer {
         return new ImmutablePair<>(new PathInfoData(latency, forwardNodes), new PathInfoData(latency, reverseNodes));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Cypher can not search for a disjoint pair, so the pair is found by {@link InMemoryPathComputer} over the
+     * in-memory copy of the active switches and isls, as single {@link Strategy#COST} paths are.
+     */
+    @Override
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getDisjointPaths(Flow flow, Strategy strategy,
+                                                                            Disjointness disjointness)
+            throws UnroutablePathException {
+        return getPathComputer().getDisjointPaths(flow, strategy, disjointness);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The batch is placed by {@link InMemoryPathComputer} over the in-memory copy of the active switches and isls,
+     * so a single query checks the copy is up to date for the whole batch.
+     */
+    @Override
+    public PathBatch getPaths(Collection<Flow> flows, Strategy strategy) {
+        if (Strategy.EXTERNAL == strategy) {
+            throw new IllegalArgumentException(
+                    String.format("Path computation strategy %s is not supported", strategy));
+        }
+        return getPathComputer().getPaths(flows, strategy);
+    }
+
 
     /**
      * {@inheritDoc}
@@ -129,75 +252,196 @@ public class NeoDriver implements PathComputer {
         Session session = driver.session();
         StatementResult result = session.run(subject);
         for (Record record : result.list()) {
-            flows.add(new FlowInfo()
-                    .setFlowId(record.get("flow_id").asString())
-                    .setSrcSwitchId(record.get("src_switch").asString())
-                    .setCookie(record.get("cookie").asLong())
-                    .setMeterId(record.get("meter_id").asInt())
-                    .setTransitVlanId(record.get("transit_vlan").asInt())
-            );
+            flows.add(toFlowInfo(record));
         }
         return flows;
     }
 
     /**
-     * Create the query based on what the strategy is.
+     * {@inheritDoc}
      */
-    private Statement getPathQuery(Flow flow, Strategy strategy){
-        /*
-         * TODO: implement strategy
-         */
+    @Override
+    public List<FlowInfo> getFlowInfo(Set<Integer> buckets, int bucketCount) {
+        List<FlowInfo> flows = new ArrayList<>();
+        String subject = "MATCH (:switch)-[f:flow]->(:switch) " +
+                "WHERE (((f.cookie % {bucket_count}) + {bucket_count}) % {bucket_count}) IN {buckets} " +
+                "RETURN f.flowid as flow_id, " +
+                " f.cookie as cookie, " +
+                " f.meter_id as meter_id, " +
+                " f.transit_vlan as transit_vlan, " +
+                " f.src_switch as src_switch";
 
+        try (Session session = driver.session()) {
+            StatementResult result = session.run(subject, Values.parameters(
+                    "bucket_count", bucketCount, "buckets", new ArrayList<>(buckets)));
+            for (Record record : result.list()) {
+                flows.add(toFlowInfo(record));
+            }
+        }
+        return flows;
+    }
 
-        switch (strategy) {
-            case COST:
-                return makeCostPathQuery(flow);
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Record hashes are computed by the database with APOC md5, see {@link FlowDigest#hash}, so only the bucket
+     * digests are transferred.
+     */
+    @Override
+    public FlowDigest getFlowDigest(int buckets) {
+        String subject = "MATCH (:switch)-[f:flow]->(:switch) " +
+                "WITH ((f.cookie % {buckets}) + {buckets}) % {buckets} as bucket, " +
+                " apoc.util.md5([f.flowid, f.cookie, f.meter_id, f.transit_vlan, f.src_switch]) as md5 " +
+                "RETURN bucket, " +
+                " sum(reduce(hash = 0, i IN range(0, {digits} - 1) | " +
+                "  hash * 16 + {hex}[substring(md5, i, 1)])) as sum, " +
+                " count(*) as count";
+
+        Map<String, Object> hex = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            hex.put(Integer.toHexString(i), i);
+        }
 
-            default:
-                return makeHopsPathQuery(flow);
+        FlowDigest digest = new FlowDigest(buckets);
+        try (Session session = driver.session()) {
+            StatementResult result = session.run(subject, Values.parameters(
+                    "buckets", buckets, "digits", FlowDigest.HASH_HEX_DIGITS, "hex", hex));
+            for (Record record : result.list()) {
+                digest.add(record.get("bucket").asInt(), record.get("sum").asLong(), record.get("count").asInt());
+            }
         }
+        return digest;
+    }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reports the {@link PathCache} metrics of the in-memory copy of the active switches and isls.
+     */
+    @Override
+    public Map<String, Long> getMetrics() {
+        return pathComputer.getMetrics();
     }
 
-    private Statement makeHopsPathQuery(Flow flow) {
-        HashMap<String,Value> parameters = new HashMap<>();
+    /**
+     * Gets path computer running over in-memory copy of the active switches and isls.
+     *
+     * <p>A single query gets the digests of the active isls and of their available bandwidth. The switches and isls
+     * are loaded from the database only if the isl digest differs from the one of the copy, which is a new topology
+     * generation for the cached paths. If only the bandwidth digest differs, the available bandwidth is updated in
+     * place and the generation is kept, so the cached paths are still used and only checked against the new
+     * bandwidth at lookup.
+     *
+     * <p>The digests are computed over all active isls, so they are checked at most once per
+     * {@link #digestCheckInterval}, path requests in between use the copy as is. The flows placed meanwhile by this
+     * worker are accounted by the bandwidth reserved in the network cache.
+     */
+    private InMemoryPathComputer getPathComputer() {
+        long now = System.currentTimeMillis();
+        if (topologyDigest != null && now - digestCheckTime < digestCheckInterval) {
+            return pathComputer;
+        }
+        digestCheckTime = now;
+
+        String digest = "MATCH (src:switch)-[i:isl]->(dst:switch) " +
+                "WHERE src.state = 'active' AND dst.state = 'active' AND i.status = 'active' " +
+                "WITH i ORDER BY i.src_switch, i.src_port " +
+                "RETURN apoc.util.md5(collect([i.src_switch, i.src_port, i.dst_switch, i.dst_port, " +
+                " i.latency, i.speed, i.cost])) as topology, " +
+                " apoc.util.md5(collect(i.available_bandwidth)) as bandwidth";
+
+        try (Session session = driver.session()) {
+            Record record = session.run(digest).single();
+            String topology = record.get("topology").asString();
+            String bandwidth = record.get("bandwidth").asString();
+            if (topology.equals(topologyDigest) && bandwidth.equals(bandwidthDigest)) {
+                return pathComputer;
+            }
 
-        String subject =
-                "MATCH (a:switch{name:{src_switch}}),(b:switch{name:{dst_switch}}), " +
-                "p = shortestPath((a)-[r:isl*..100]->(b))";
-        parameters.put("src_switch", Values.value(flow.getSourceSwitch()));
-        parameters.put("dst_switch", Values.value(flow.getDestinationSwitch()));
+            synchronized (this) {
+                if (!topology.equals(topologyDigest)) {
+                    loadTopology(session);
+                } else if (!bandwidth.equals(bandwidthDigest)) {
+                    loadBandwidth(session);
+                }
+                topologyDigest = topology;
+                bandwidthDigest = bandwidth;
+            }
+        }
+        return pathComputer;
+    }
 
-        StringJoiner where = new StringJoiner("\n    AND ", "where ", "");
-        where.add("ALL(x in nodes(p) WHERE x.state = 'active')");
-        if (flow.isIgnoreBandwidth()) {
-            where.add("ALL(y in r WHERE y.status = 'active')");
-        } else {
-            where.add("ALL(y in r WHERE y.status = 'active' AND y.available_bandwidth >= {bandwidth})");
-            parameters.put("bandwidth", Values.value(flow.getBandwidth()));
+    /**
+     * Loads the active switches and isls to the in-memory copy.
+     */
+    private void loadTopology(Session session) {
+        String switches = "MATCH (sw:switch) WHERE sw.state = 'active' RETURN sw.name as name";
+
+        Set<SwitchInfoData> nodes = new HashSet<>();
+        for (Record record : session.run(switches).list()) {
+            nodes.add(new SwitchInfoData(record.get("name").asString(), SwitchState.ACTIVATED, "", "", "", ""));
         }
+        Set<IslInfoData> isls = new HashSet<>();
+        for (Record record : session.run(makeIslsQuery()).list()) {
+            long latency = record.get("latency").asLong();
+            isls.add(new IslInfoData(latency, Arrays.asList(
+                    new PathNode(record.get("src_switch").asString(), record.get("src_port").asInt(), 0, latency),
+                    new PathNode(record.get("dst_switch").asString(), record.get("dst_port").asInt(), 1, 0L)),
+                    record.get("speed").asLong(), IslChangeType.DISCOVERED,
+                    record.get("available_bandwidth").asLong(), record.get("cost").asLong()));
+        }
+        networkCache.reload(nodes, isls);
+        logger.debug("Loaded {} switches and {} isls", nodes.size(), isls.size());
+    }
 
-        String result = "RETURN p";
+    /**
+     * Updates available bandwidth of the isls in the in-memory copy.
+     *
+     * <p>Isls which are not in the copy yet are skipped, the next isl digest check loads them.
+     */
+    private void loadBandwidth(Session session) {
+        int updated = 0;
+        for (Record record : session.run(makeIslsQuery()).list()) {
+            String islId = String.format("%s_%d", record.get("src_switch").asString(), record.get("src_port").asInt());
+            long availableBandwidth = record.get("available_bandwidth").asLong();
+            NetworkCache.Snapshot current = networkCache.snapshot();
+            if (current.cacheContainsIsl(islId)
+                    && current.getIsl(islId).getAvailableBandwidth() != availableBandwidth) {
+                networkCache.updateAvailableBandwidth(islId, availableBandwidth);
+                updated++;
+            }
+        }
+        logger.debug("Updated available bandwidth of {} isls", updated);
+    }
 
-        String query = String.join("\n", subject, where.toString(), result);
-        return new Statement(query, Values.value(parameters));
+    private String makeIslsQuery() {
+        return "MATCH (src:switch)-[i:isl]->(dst:switch) " +
+                "WHERE src.state = 'active' AND dst.state = 'active' AND i.status = 'active' " +
+                "RETURN src.name as src_switch, " +
+                " i.src_port as src_port, " +
+                " dst.name as dst_switch, " +
+                " i.dst_port as dst_port, " +
+                " coalesce(i.latency, 0) as latency, " +
+                " coalesce(i.speed, 0) as speed, " +
+                " coalesce(i.available_bandwidth, 0) as available_bandwidth, " +
+                " coalesce(i.cost, 0) as cost";
     }
 
+    private FlowInfo toFlowInfo(Record record) {
+        return new FlowInfo()
+                .setFlowId(record.get("flow_id").asString())
+                .setSrcSwitchId(record.get("src_switch").asString())
+                .setCookie(record.get("cookie").asLong())
+                .setMeterId(record.get("meter_id").asInt())
+                .setTransitVlanId(record.get("transit_vlan").asInt());
+    }
 
-    private Statement makeCostPathQuery(Flow flow) {
+    private Statement makeHopsPathQuery(Flow flow) {
         HashMap<String,Value> parameters = new HashMap<>();
 
         String subject =
-                "MATCH (from:switch{name:{src_switch}}),(to:switch{name:{dst_switch}}), " +
-// (crimi) - unclear how to filter the relationships dijkstra looks out based on properties.
-// Probably need to re-write the function and add it to our neo4j container.
-//
-//                        " CALL apoc.algo.dijkstraWithDefaultWeight(from, to, 'isl', 'cost', 700)" +
-//                        " YIELD path AS p, weight AS weight "
-                        " p = allShortestPaths((from)-[r:isl*..100]->(to)) " +
-                        " WITH REDUCE(cost = 0, rel in rels(p) | " +
-                        "   cost + CASE rel.cost WHEN rel.cost = 0 THEN 700 ELSE rel.cost END) AS cost, p "
-                ;
+                "MATCH (a:switch{name:{src_switch}}),(b:switch{name:{dst_switch}}), " +
+                "p = shortestPath((a)-[r:isl*..100]->(b))";
         parameters.put("src_switch", Values.value(flow.getSourceSwitch()));
         parameters.put("dst_switch", Values.value(flow.getDestinationSwitch()));
 
@@ -210,10 +454,8 @@ public class NeoDriver implements PathComputer {
             parameters.put("bandwidth", Values.value(flow.getBandwidth()));
         }
 
-        String result = "RETURN p ORDER BY cost LIMIT 1";
+        String result = "RETURN p";
 
         String query = String.join("\n", subject, where.toString(), result);
         return new Statement(query, Values.value(parameters));
-    }
-
-}
+    }}
@@ -0,0 +1,102 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.provider;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.model.ImmutablePair;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of the path computation for a batch of flows, see {@link PathComputer#getPaths}.
+ *
+ * <p>Every flow of the batch is either routed or unroutable.
+ */
+public final class PathBatch {
+    /**
+     * Forward and reverse paths by flow id, in the order the flows were placed.
+     */
+    private final Map<String, ImmutablePair<PathInfoData, PathInfoData>> paths = new LinkedHashMap<>();
+
+    /**
+     * Ids of the flows no path was found for, in the order the flows were placed.
+     */
+    private final List<String> unroutable = new ArrayList<>();
+
+    /**
+     * Adds path of the flow.
+     *
+     * @param flowId flow id
+     * @param path   forward and reverse {@link PathInfoData} instances
+     */
+    public void addPath(String flowId, ImmutablePair<PathInfoData, PathInfoData> path) {
+        paths.put(flowId, path);
+    }
+
+    /**
+     * Marks the flow as unroutable.
+     *
+     * @param flowId flow id
+     */
+    public void addUnroutable(String flowId) {
+        unroutable.add(flowId);
+    }
+
+    /**
+     * Gets path of the flow.
+     *
+     * @param flowId flow id
+     * @return forward and reverse {@link PathInfoData} instances, or null if the flow is unroutable
+     */
+    public ImmutablePair<PathInfoData, PathInfoData> getPath(String flowId) {
+        return paths.get(flowId);
+    }
+
+    /**
+     * Gets paths of the routed flows.
+     *
+     * @return forward and reverse {@link PathInfoData} instances by flow id
+     */
+    public Map<String, ImmutablePair<PathInfoData, PathInfoData>> getPaths() {
+        return Collections.unmodifiableMap(paths);
+    }
+
+    /**
+     * Gets ids of the unroutable flows.
+     *
+     * @return flow ids
+     */
+    public List<String> getUnroutable() {
+        return Collections.unmodifiableList(unroutable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("paths", paths.keySet())
+                .add("unroutable", unroutable)
+                .toString();
+    }
+}
@@ -0,0 +1,278 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.provider;
+
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.pce.cache.NetworkCache;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of computed paths.
+ *
+ * <p>Paths are keyed by source switch, destination switch, strategy and bandwidth bucket, and stamped with the
+ * {@link NetworkCache#getGeneration()} they were computed at. An entry of an older generation is a miss.
+ * Flows with bandwidth within the same bucket share the path computed for the lowest bandwidth of the bucket,
+ * so the caller must check the path still fits the actual flow bandwidth.
+ */
+public class PathCache {
+    /**
+     * Bucket of flows which ignore bandwidth.
+     */
+    private static final long IGNORE_BANDWIDTH_BUCKET = -1L;
+
+    /**
+     * Maximum number of entries.
+     */
+    private final int maximumSize;
+
+    /**
+     * Bandwidth bucket width.
+     */
+    private final long bandwidthBucket;
+
+    /**
+     * Entries in access order, the eldest is evicted first.
+     */
+    private final Map<Key, Entry> entries;
+
+    /**
+     * Lookups which found a current entry.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Lookups which found no entry or a stale one.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Entries evicted by the size bound.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Instance constructor.
+     *
+     * @param maximumSize     maximum number of cached paths
+     * @param bandwidthBucket bandwidth bucket width, 1 means paths are shared by flows with equal bandwidth only
+     */
+    public PathCache(int maximumSize, long bandwidthBucket) {
+        if (maximumSize <= 0 || bandwidthBucket <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid path cache size %d or bandwidth bucket %d", maximumSize, bandwidthBucket));
+        }
+
+        this.maximumSize = maximumSize;
+        this.bandwidthBucket = bandwidthBucket;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > PathCache.this.maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets cached path edges.
+     *
+     * @param flow       {@link Flow} instance
+     * @param strategy   path computation strategy
+     * @param generation current topology generation
+     * @return edge indexes or null if there is no current entry
+     */
+    synchronized int[] get(Flow flow, PathComputer.Strategy strategy, long generation) {
+        Entry entry = entries.get(new Key(flow, strategy, getBucket(flow)));
+        if (entry == null || entry.generation != generation) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return entry.edges;
+    }
+
+    /**
+     * Puts path edges computed for {@link #getSearchBandwidth(Flow)}.
+     *
+     * @param flow       {@link Flow} instance
+     * @param strategy   path computation strategy
+     * @param generation topology generation the path was computed at
+     * @param edges      edge indexes
+     */
+    synchronized void put(Flow flow, PathComputer.Strategy strategy, long generation, int[] edges) {
+        entries.put(new Key(flow, strategy, getBucket(flow)), new Entry(generation, edges));
+    }
+
+    /**
+     * Gets bandwidth the cached path must be computed for, i.e. the lowest bandwidth of the flow bucket.
+     *
+     * @param flow {@link Flow} instance
+     * @return required bandwidth
+     */
+    long getSearchBandwidth(Flow flow) {
+        long bucket = getBucket(flow);
+        return bucket == IGNORE_BANDWIDTH_BUCKET ? Long.MIN_VALUE : bucket * bandwidthBucket;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets number of cached paths.
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets number of lookups which found a current path.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets number of lookups which found no path or a path of an older generation.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets number of paths evicted by the size bound.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets ratio of hits to all lookups.
+     *
+     * @return hit ratio, 1 if there were no lookups
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    /**
+     * Gets cache metrics.
+     *
+     * @return metric values by name
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("size", (long) size());
+        metrics.put("hits", hitCount.get());
+        metrics.put("misses", missCount.get());
+        metrics.put("evictions", evictionCount.get());
+        return metrics;
+    }
+
+    private long getBucket(Flow flow) {
+        return flow.isIgnoreBandwidth() ? IGNORE_BANDWIDTH_BUCKET : Math.max(flow.getBandwidth(), 0) / bandwidthBucket;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size())
+                .add("maximum_size", maximumSize)
+                .add("bandwidth_bucket", bandwidthBucket)
+                .add("hits", hitCount.get())
+                .add("misses", missCount.get())
+                .add("evictions", evictionCount.get())
+                .toString();
+    }
+
+    /**
+     * Cache key.
+     */
+    private static final class Key {
+        private final String source;
+        private final String destination;
+        private final PathComputer.Strategy strategy;
+        private final long bucket;
+
+        Key(Flow flow, PathComputer.Strategy strategy, long bucket) {
+            this.source = flow.getSourceSwitch();
+            this.destination = flow.getDestinationSwitch();
+            this.strategy = strategy;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+
+            Key that = (Key) object;
+            return bucket == that.bucket
+                    && Objects.equals(source, that.source)
+                    && Objects.equals(destination, that.destination)
+                    && strategy == that.strategy;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, destination, strategy, bucket);
+        }
+    }
+
+    /**
+     * Cached path stamped with topology generation.
+     */
+    private static final class Entry {
+        private final long generation;
+        private final int[] edges;
+
+        Entry(long generation, int[] edges) {
+            this.generation = generation;
+            this.edges = edges;
+        }
+    }
+}
@@ -19,15 +19,25 @@ import org.openkilda.messaging.info.event.IslInfoData;
 import org.openkilda.messaging.info.event.PathInfoData;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.cache.FlowDigest;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * PathComputation interface represent operations on flow path.
  */
 public interface PathComputer extends Serializable {
+    /**
+     * Cost of the isls which have no cost set in the link properties.
+     */
+    long DEFAULT_ISL_COST = 700L;
 
     /**
      * The Strategy is used for getting a Path - ie what filters to apply.
@@ -38,13 +48,28 @@ public interface PathComputer extends Serializable {
     }
 
     /**
-     * Gets isl weight.
+     * What a backup path must not share with the primary path.
+     */
+    enum Disjointness {
+        /**
+         * Paths must not share isls.
+         */
+        LINK,
+
+        /**
+         * Paths must not share isls and intermediate switches.
+         */
+        SWITCH
+    }
+
+    /**
+     * Gets isl weight used by {@link Strategy#COST} strategy.
      *
      * @param isl isl instance
-     * @return isl weight
+     * @return isl cost, or {@link #DEFAULT_ISL_COST} if it is not set
      */
     default Long getWeight(IslInfoData isl) {
-        return 1L;
+        return isl.getCost() > 0 ? isl.getCost() : DEFAULT_ISL_COST;
     }
 
     /**
@@ -55,6 +80,62 @@ public interface PathComputer extends Serializable {
      */
     ImmutablePair<PathInfoData, PathInfoData> getPath(Flow flow, Strategy strategy) throws UnroutablePathException;
 
+    /**
+     * Gets paths for a batch of flows, e.g. all flows affected by a failed isl.
+     *
+     * <p>Flows are placed in iteration order, implementations should account bandwidth consumed by the flows placed
+     * earlier in the same batch. The default implementation computes each path independently.
+     *
+     * @param flows    {@link Flow} instances
+     * @param strategy path computation strategy
+     * @return {@link PathBatch} with the paths of the routed flows and the ids of the unroutable flows
+     */
+    default PathBatch getPaths(Collection<Flow> flows, Strategy strategy) {
+        PathBatch paths = new PathBatch();
+        for (Flow flow : flows) {
+            try {
+                paths.addPath(flow.getFlowId(), getPath(flow, strategy));
+            } catch (UnroutablePathException e) {
+                paths.addUnroutable(flow.getFlowId());
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Gets up to specified number of the lightest loopless paths between source and destination switch.
+     *
+     * <p>The default implementation returns the single path found by {@link #getPath(Flow, Strategy)}.
+     *
+     * @param flow     {@link Flow} instance
+     * @param strategy path computation strategy
+     * @param count    maximum number of paths
+     * @return forward and reverse {@link PathInfoData} instances ordered by weight
+     * @throws UnroutablePathException if there is no path satisfying the flow requirements
+     */
+    default List<ImmutablePair<PathInfoData, PathInfoData>> getShortestPaths(Flow flow, Strategy strategy, int count)
+            throws UnroutablePathException {
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths = new ArrayList<>();
+        paths.add(getPath(flow, strategy));
+        return paths;
+    }
+
+    /**
+     * Gets primary and backup paths for a protected flow.
+     *
+     * <p>The pair has the minimal total weight, so the primary path is not necessarily the one
+     * {@link #getPath(Flow, Strategy)} returns. One-switch flow gets the primary path only.
+     *
+     * @param flow         {@link Flow} instance
+     * @param strategy     path computation strategy
+     * @param disjointness what the backup path must not share with the primary path
+     * @return primary and backup forward and reverse {@link PathInfoData} instances
+     * @throws UnroutablePathException if there is no disjoint pair satisfying the flow requirements
+     */
+    List<ImmutablePair<PathInfoData, PathInfoData>> getDisjointPaths(Flow flow, Strategy strategy,
+                                                                     Disjointness disjointness)
+            throws UnroutablePathException;
+
     /**
      * Interact with the PathComputer to get the FlowInfo for all flows.
      *
@@ -63,4 +144,44 @@ public interface PathComputer extends Serializable {
     default List<FlowInfo> getFlowInfo() {
         return new ArrayList<>();
     }
+
+    /**
+     * Gets the "key" flow info of the flows in the digest buckets.
+     *
+     * <p>The default implementation filters {@link #getFlowInfo()}.
+     *
+     * @param buckets     digest buckets
+     * @param bucketCount number of digest buckets
+     * @return a list containing the "key" flow info of the flows in the buckets
+     */
+    default List<FlowInfo> getFlowInfo(Set<Integer> buckets, int bucketCount) {
+        return getFlowInfo().stream()
+                .filter(flow -> buckets.contains(FlowDigest.getBucket(flow.getCookie(), bucketCount)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets digest of the "key" flow info of all flows.
+     *
+     * <p>The default implementation computes it from {@link #getFlowInfo()}.
+     *
+     * @param buckets number of digest buckets
+     * @return {@link FlowDigest} instance
+     */
+    default FlowDigest getFlowDigest(int buckets) {
+        FlowDigest digest = new FlowDigest(buckets);
+        getFlowInfo().forEach(digest::add);
+        return digest;
+    }
+
+    /**
+     * Gets path computation metrics, e.g. path cache hits and misses.
+     *
+     * <p>The default implementation has none.
+     *
+     * @return metric values by name
+     */
+    default Map<String, Long> getMetrics() {
+        return Collections.emptyMap();
+    }
 }
@@ -0,0 +1,175 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.benchmark;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.cache.FlowCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures endpoint conflict checks of {@link FlowCache} on bulk flow provisioning.
+ *
+ * <p>{@code provision} checks both endpoints of every flow for conflicts, the way the flow validator does, and
+ * puts the flow into an empty cache, until the cache holds all flows. {@code lookup} and {@code lookupByScan}
+ * compare a single check on the filled cache with the full flow scan it replaced. Run with {@code main} from the
+ * test classpath.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class FlowCacheBenchmark {
+    private static final int SWITCHES = 100;
+    private static final int PORTS = 48;
+
+    @Param({"100000"})
+    private int flows;
+
+    private List<ImmutablePair<Flow, Flow>> pairs;
+    private FlowCache filledCache;
+    private Map<String, ImmutablePair<Flow, Flow>> filledPool;
+    private FlowCache emptyCache;
+    private int next;
+
+    /**
+     * Builds flows with distinct endpoints and fills the lookup caches.
+     */
+    @Setup
+    public void setUp() {
+        pairs = new ArrayList<>(flows);
+        for (int i = 0; i < flows; i++) {
+            String source = String.format("00:00:00:00:00:00:%02x:%02x", i % SWITCHES / 256, i % SWITCHES % 256);
+            String destination = String.format("00:00:00:00:00:01:%02x:%02x",
+                    i % SWITCHES / 256, i % SWITCHES % 256);
+            int port = i / SWITCHES % PORTS + 1;
+            int vlan = i / SWITCHES / PORTS + 2;
+
+            Flow forward = new Flow("flow-" + i, 0, false, "", source, port, vlan, destination, port, vlan);
+            forward.setFlowPath(new PathInfoData());
+            Flow reverse = new Flow("flow-" + i, 0, false, "", destination, port, vlan, source, port, vlan);
+            reverse.setFlowPath(new PathInfoData());
+            pairs.add(new ImmutablePair<>(forward, reverse));
+        }
+
+        filledCache = new FlowCache();
+        filledPool = new HashMap<>();
+        for (ImmutablePair<Flow, Flow> pair : pairs) {
+            filledCache.putFlow(pair);
+            filledPool.put(pair.getLeft().getFlowId(), pair);
+        }
+    }
+
+    /**
+     * Empties the provisioning cache.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        emptyCache = new FlowCache();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public FlowCache provision() {
+        for (ImmutablePair<Flow, Flow> pair : pairs) {
+            Flow flow = pair.getLeft();
+            if (hasConflicts(emptyCache.getFlowsForEndpoint(
+                    flow.getSourceSwitch(), flow.getSourcePort(), flow.getSourceVlan()), flow)
+                    || hasConflicts(emptyCache.getFlowsForEndpoint(
+                    flow.getDestinationSwitch(), flow.getDestinationPort(), flow.getDestinationVlan()), flow)) {
+                throw new IllegalStateException("Unexpected conflict of flow " + flow.getFlowId());
+            }
+            emptyCache.putFlow(pair);
+        }
+        return emptyCache;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 5)
+    public Set<Flow> lookup() {
+        Flow flow = nextFlow();
+        return filledCache.getFlowsForEndpoint(flow.getSourceSwitch(), flow.getSourcePort(), flow.getSourceVlan());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 5)
+    public Set<Flow> lookupByScan() {
+        Flow flow = nextFlow();
+        String switchId = flow.getSourceSwitch();
+        int port = flow.getSourcePort();
+        int vlan = flow.getSourceVlan();
+        return filledPool.values().stream()
+                .flatMap(pair -> Stream.of(pair.getLeft(), pair.getRight()))
+                .filter(half -> half.getSourceSwitch().equals(switchId) && half.getSourcePort() == port
+                        && (half.getSourceVlan() == vlan || half.getSourceVlan() == 0)
+                        || half.getDestinationSwitch().equals(switchId) && half.getDestinationPort() == port
+                        && (half.getDestinationVlan() == vlan || half.getDestinationVlan() == 0))
+                .collect(Collectors.toSet());
+    }
+
+    private Flow nextFlow() {
+        next = next + 1 < pairs.size() ? next + 1 : 0;
+        return pairs.get(next).getLeft();
+    }
+
+    private static boolean hasConflicts(Set<Flow> flows, Flow flow) {
+        return flows.stream().anyMatch(other -> !other.getFlowId().equals(flow.getFlowId()));
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     * @throws RunnerException if benchmark failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FlowCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,161 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.benchmark;
+
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.SwitchInfoData;
+import org.openkilda.messaging.info.event.SwitchState;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.cache.NetworkCache;
+import org.openkilda.pce.provider.InMemoryPathComputer;
+import org.openkilda.pce.provider.PathComputer;
+import org.openkilda.pce.provider.UnroutablePathException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InMemoryPathComputer} path computation cost on a large generated topology.
+ *
+ * <p>The topology is a square grid of switches with every switch also linked to a few random switches, so there
+ * are many alternative paths of similar weight. Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PathComputerBenchmark {
+    private static final int EXTRA_LINKS = 2;
+    private static final long BANDWIDTH = 10000L;
+
+    @Param({"100", "1024", "4096"})
+    private int switches;
+
+    private PathComputer pathComputer;
+    private Flow flow;
+
+    /**
+     * Builds the topology.
+     */
+    @Setup
+    public void setUp() {
+        NetworkCache networkCache = new NetworkCache();
+        int side = (int) Math.ceil(Math.sqrt(switches));
+        Random random = new Random(42L);
+
+        Set<SwitchInfoData> switchData = new HashSet<>();
+        for (int i = 0; i < switches; i++) {
+            switchData.add(new SwitchInfoData(switchId(i), SwitchState.ACTIVATED, "", "", "", ""));
+        }
+
+        Set<IslInfoData> islData = new HashSet<>();
+        int[] ports = new int[switches];
+        for (int i = 0; i < switches; i++) {
+            if ((i + 1) % side != 0 && i + 1 < switches) {
+                addLink(islData, ports, i, i + 1, random);
+            }
+            if (i + side < switches) {
+                addLink(islData, ports, i, i + side, random);
+            }
+            for (int j = 0; j < EXTRA_LINKS; j++) {
+                int other = random.nextInt(switches);
+                if (other != i) {
+                    addLink(islData, ports, i, other, random);
+                }
+            }
+        }
+
+        networkCache.load(switchData, islData);
+        pathComputer = new InMemoryPathComputer(networkCache);
+        flow = new Flow("flow", 100, false, "", switchId(0), 10, 100, switchId(switches - 1), 10, 100);
+    }
+
+    @Benchmark
+    public ImmutablePair<PathInfoData, PathInfoData> getPath() throws UnroutablePathException {
+        return pathComputer.getPath(flow, PathComputer.Strategy.LATENCY);
+    }
+
+    @Benchmark
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getShortestPaths() throws UnroutablePathException {
+        return pathComputer.getShortestPaths(flow, PathComputer.Strategy.LATENCY, 5);
+    }
+
+    @Benchmark
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getLinkDisjointPaths() throws UnroutablePathException {
+        return pathComputer.getDisjointPaths(flow, PathComputer.Strategy.LATENCY, PathComputer.Disjointness.LINK);
+    }
+
+    @Benchmark
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getSwitchDisjointPaths() throws UnroutablePathException {
+        return pathComputer.getDisjointPaths(flow, PathComputer.Strategy.LATENCY, PathComputer.Disjointness.SWITCH);
+    }
+
+    private static void addLink(Set<IslInfoData> islData, int[] ports, int source, int destination, Random random) {
+        long latency = 1L + random.nextInt(100);
+        int sourcePort = ++ports[source];
+        int destinationPort = ++ports[destination];
+
+        islData.add(new IslInfoData(latency, Arrays.asList(
+                new PathNode(switchId(source), sourcePort, 0, latency),
+                new PathNode(switchId(destination), destinationPort, 1, 0L)),
+                BANDWIDTH, IslChangeType.DISCOVERED, BANDWIDTH));
+        islData.add(new IslInfoData(latency, Arrays.asList(
+                new PathNode(switchId(destination), destinationPort, 0, latency),
+                new PathNode(switchId(source), sourcePort, 1, 0L)),
+                BANDWIDTH, IslChangeType.DISCOVERED, BANDWIDTH));
+    }
+
+    private static String switchId(int index) {
+        return String.format("00:00:00:00:00:00:%02x:%02x", (index >> 8) & 0xff, index & 0xff);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     * @throws RunnerException if benchmark failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PathComputerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
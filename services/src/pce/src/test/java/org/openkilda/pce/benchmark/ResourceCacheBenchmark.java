@@ -0,0 +1,102 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.benchmark;
+
+import org.openkilda.pce.cache.ResourceCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures meter allocation throughput of {@link ResourceCache} when every thread works on its own switch.
+ *
+ * <p>The {@code global} benchmark serializes the same calls on a single monitor, the way the meter methods were
+ * synchronized before, for comparison. Run with {@code main} from the test classpath, it repeats the benchmarks
+ * with 1, 2, 4 and 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResourceCacheBenchmark {
+    private final ResourceCache resourceCache = new ResourceCache();
+    private final Object monitor = new Object();
+    private final AtomicInteger switches = new AtomicInteger();
+
+    /**
+     * Switch of the benchmark thread, with a few meters already allocated.
+     */
+    @State(Scope.Thread)
+    public static class ThreadSwitch {
+        private String switchId;
+
+        /**
+         * Picks a switch not used by the other threads.
+         *
+         * @param benchmark benchmark state
+         */
+        @Setup
+        public void setUp(ResourceCacheBenchmark benchmark) {
+            switchId = String.format("00:00:00:00:00:00:00:%02x", benchmark.switches.incrementAndGet());
+            for (int i = 0; i < 100; i++) {
+                benchmark.resourceCache.allocateMeterId(switchId);
+            }
+        }
+    }
+
+    @Benchmark
+    public Integer striped(ThreadSwitch sw) {
+        return resourceCache.deallocateMeterId(sw.switchId, resourceCache.allocateMeterId(sw.switchId));
+    }
+
+    @Benchmark
+    public Integer global(ThreadSwitch sw) {
+        synchronized (monitor) {
+            return resourceCache.deallocateMeterId(sw.switchId, resourceCache.allocateMeterId(sw.switchId));
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     * @throws RunnerException if benchmark failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            new Runner(new OptionsBuilder()
+                    .include(ResourceCacheBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CacheJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void putAndRemove() throws Exception {
+        File directory = folder.newFolder();
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            journal.put("a", "1");
+            journal.put("b", "2");
+            journal.put("a", "3");
+            journal.remove("b");
+        }
+
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            Map<String, String> expected = new HashMap<>();
+            expected.put("a", "3");
+            assertEquals(expected, journal.read());
+
+            journal.put("c", "4");
+            expected.put("c", "4");
+            assertEquals(expected, journal.read());
+        }
+    }
+
+    @Test
+    public void checkpoint() throws Exception {
+        File directory = folder.newFolder();
+        Map<String, String> expected = new HashMap<>();
+        try (CacheJournal journal = new CacheJournal(directory, 64, 3)) {
+            for (int i = 0; i < 100; i++) {
+                String key = "key" + i % 10;
+                journal.put(key, "value" + i);
+                expected.put(key, "value" + i);
+
+                if (journal.isCheckpointDue()) {
+                    journal.checkpoint(journal.read());
+                    assertFalse(journal.isCheckpointDue());
+                }
+            }
+            journal.remove("key0");
+            expected.remove("key0");
+        }
+
+        try (CacheJournal journal = new CacheJournal(directory, 64, 3)) {
+            assertEquals(expected, journal.read());
+        }
+
+        String[] files = directory.list();
+        assertEquals(2, files.length);
+        assertTrue(new File(directory, "snapshot").exists());
+    }
+
+    @Test
+    public void tornRecord() throws Exception {
+        File directory = folder.newFolder();
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            journal.put("a", "1");
+            journal.put("b", "2");
+        }
+
+        // the second record starts after the first one: 8 bytes of header, operation, key length, key and value
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "journal-0"), "rw")) {
+            file.seek(15 + 8 + 5);
+            file.write('c');
+        }
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("a", "1");
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            assertEquals(expected, journal.read());
+            journal.put("d", "3");
+        }
+
+        expected.put("d", "3");
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            assertEquals(expected, journal.read());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.payload.flow.FlowState;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CompactFlowTest {
+    private final SwitchIdTable switches = new SwitchIdTable();
+
+    @Test
+    public void switchIdTable() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, switches.intern("sw" + i));
+        }
+        assertEquals(42, switches.intern("sw42"));
+        assertEquals(42, switches.indexOf("sw42"));
+        assertEquals("sw99", switches.get(99));
+        assertEquals(SwitchIdTable.NO_SWITCH, switches.indexOf("sw100"));
+        assertEquals(SwitchIdTable.NO_SWITCH, switches.intern(null));
+        assertNull(switches.get(SwitchIdTable.NO_SWITCH));
+    }
+
+    @Test
+    public void roundTrip() {
+        List<PathNode> nodes = Arrays.asList(
+                new PathNode("sw1", 1, 0, 10L),
+                new PathNode("sw2", 2, 1, null),
+                new PathNode("sw2", 3, 7),
+                new PathNode("sw3", 4, 3));
+        PathInfoData path = new PathInfoData(100L, nodes);
+        path.setCreatedInCache(1L);
+        Flow flow = new Flow("flow", 1000, false, 5L, "description", "2017-01-01", "sw1", "sw3",
+                11, 22, 100, 200, 3, 4, path, FlowState.UP);
+
+        Flow copy = CompactFlow.of(flow, switches).toFlow(switches);
+
+        assertEquals(flow, copy);
+        assertEquals(flow.getCookie(), copy.getCookie());
+        assertEquals(flow.getLastUpdated(), copy.getLastUpdated());
+        assertEquals(flow.getMeterId(), copy.getMeterId());
+        assertEquals(flow.getTransitVlan(), copy.getTransitVlan());
+        assertEquals(path, copy.getFlowPath());
+        assertEquals(path.getLatency(), copy.getFlowPath().getLatency());
+        for (int i = 0; i < nodes.size(); i++) {
+            PathNode node = copy.getFlowPath().getPath().get(i);
+            assertEquals(nodes.get(i).getSeqId(), node.getSeqId());
+            assertEquals(nodes.get(i).getSegLatency(), node.getSegLatency());
+        }
+    }
+
+    @Test
+    public void roundTripWithoutPath() {
+        Flow flow = new Flow("flow", 0, true, "description", "sw1", 1, 0, "sw1", 2, 0);
+        assertNull(CompactFlow.of(flow, switches).toFlow(switches).getFlowPath());
+
+        flow.setFlowPath(new PathInfoData());
+        PathInfoData path = CompactFlow.of(flow, switches).toFlow(switches).getFlowPath();
+        assertEquals(flow.getFlowPath(), path);
+        assertNull(path.getPath());
+    }
+
+    @Test
+    public void withState() {
+        Flow flow = new Flow("flow", 0, false, "description", "sw1", 1, 0, "sw2", 2, 0);
+        CompactFlow compactFlow = CompactFlow.of(flow, switches);
+
+        Flow copy = compactFlow.withState(FlowState.DOWN).toFlow(switches);
+        assertEquals(FlowState.DOWN, copy.getState());
+        assertEquals(flow.getSourceSwitch(), copy.getSourceSwitch());
+        assertEquals(flow.getState(), compactFlow.toFlow(switches).getState());
+    }
+}
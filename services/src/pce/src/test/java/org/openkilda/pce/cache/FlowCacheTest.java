@@ -16,6 +16,8 @@
 package org.openkilda.pce.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 import org.openkilda.messaging.error.CacheException;
 import org.openkilda.messaging.info.event.IslInfoData;
@@ -25,6 +27,7 @@ import org.openkilda.messaging.info.event.PortInfoData;
 import org.openkilda.messaging.info.event.SwitchInfoData;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.messaging.payload.flow.FlowState;
 import org.openkilda.pce.NetworkTopologyConstants;
 import org.openkilda.pce.provider.PathComputer;
 import org.openkilda.pce.provider.PathComputerMock;
@@ -32,8 +35,11 @@ import org.openkilda.pce.provider.PathComputerMock;
 import edu.emory.mathcs.backport.java.util.Collections;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -42,6 +48,9 @@ import java.util.Map;
 import java.util.Set;
 
 public class FlowCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final NetworkCache networkCache = new NetworkCache();
     private final PathComputer computer = new PathComputerMock().withNetwork(networkCache.getNetwork());
     private final FlowCache flowCache = new FlowCache();
@@ -50,6 +59,9 @@ public class FlowCacheTest {
     private final Flow firstFlow = new Flow("first-flow", 0, false, "first-flow", "sw1", 11, 100, "sw3", 11, 200);
     private final Flow secondFlow = new Flow("second-flow", 0, false, "second-flow", "sw5", 12, 100, "sw3", 12, 200);
     private final Flow thirdFlow = new Flow("third-flow", 0, false, "third-flow", "sw3", 21, 100, "sw3", 22, 200);
+    private final ImmutablePair<PathInfoData, PathInfoData> bandwidthPath = new ImmutablePair<>(
+            buildPath(NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl24),
+            buildPath(NetworkTopologyConstants.isl42, NetworkTopologyConstants.isl21));
 
     @Before
     public void setUp() {
@@ -74,6 +86,39 @@ public class FlowCacheTest {
         assertEquals(newFlow, storedFlow);
     }
 
+    @Test
+    public void snapshot() throws Exception {
+        ImmutablePair<Flow, Flow> newFlow = flowCache.createFlow(firstFlow,
+                computer.getPath(firstFlow, defaultStrategy));
+        FlowCache.Snapshot snapshot = flowCache.snapshot();
+
+        flowCache.createFlow(secondFlow, computer.getPath(secondFlow, defaultStrategy));
+        flowCache.deleteFlow(firstFlow.getFlowId());
+
+        assertEquals(Collections.singleton(newFlow), snapshot.dumpFlows());
+        assertEquals(newFlow, snapshot.getFlow(firstFlow.getFlowId()));
+        assertEquals(1, flowCache.dumpFlows().size());
+        assertFalse(flowCache.snapshot().cacheContainsFlow(firstFlow.getFlowId()));
+        assertEquals(snapshot.getVersion() + 2, flowCache.snapshot().getVersion());
+    }
+
+    @Test
+    public void setFlowState() throws Exception {
+        ImmutablePair<PathInfoData, PathInfoData> path = computer.getPath(firstFlow, defaultStrategy);
+        flowCache.createFlow(firstFlow, path);
+
+        ImmutablePair<Flow, Flow> storedFlow = flowCache.getFlow(firstFlow.getFlowId());
+        storedFlow.getLeft().setState(FlowState.DOWN);
+        assertEquals(FlowState.ALLOCATED, flowCache.getFlow(firstFlow.getFlowId()).getLeft().getState());
+
+        ImmutablePair<Flow, Flow> upFlow = flowCache.setFlowState(firstFlow.getFlowId(), FlowState.UP);
+        assertEquals(FlowState.UP, upFlow.getLeft().getState());
+        assertEquals(FlowState.UP, upFlow.getRight().getState());
+        assertEquals(upFlow, flowCache.getFlow(firstFlow.getFlowId()));
+        assertEquals(path.getLeft(), flowCache.getFlow(firstFlow.getFlowId()).getLeft().getFlowPath());
+        assertEquals(1, flowCache.getActiveFlowsWithAffectedPath("sw1").size());
+    }
+
     @Test
     public void createFlow() throws Exception {
         ImmutablePair<PathInfoData, PathInfoData> path = computer.getPath(firstFlow, defaultStrategy);
@@ -87,7 +132,7 @@ public class FlowCacheTest {
 
         Flow reverse = newFlow.right;
         assertEquals(1 | ResourceCache.REVERSE_FLOW_COOKIE_MASK, reverse.getCookie());
-        assertEquals(3, reverse.getTransitVlan());
+        assertEquals(2, reverse.getTransitVlan());
         assertEquals(1, reverse.getMeterId());
         assertEquals(path.getRight(), reverse.getFlowPath());
 
@@ -120,16 +165,18 @@ public class FlowCacheTest {
         assertEquals(1, flowCache.resourceCache.getAllMeterIds("sw3").size());
         assertEquals(0, flowCache.resourceCache.getAllMeterIds("sw4").size());
         assertEquals(0, flowCache.resourceCache.getAllMeterIds("sw5").size());
-        assertEquals(2, flowCache.resourceCache.getAllVlanIds().size());
+        assertEquals(1, flowCache.resourceCache.getAllVlanIds().size());
         assertEquals(1, flowCache.resourceCache.getAllCookies().size());
 
+        long version = flowCache.snapshot().getVersion();
         ImmutablePair<Flow, Flow> newFlow = flowCache.updateFlow(firstFlow, path);
+        assertEquals(version + 1, flowCache.snapshot().getVersion());
         assertEquals(1, flowCache.resourceCache.getAllMeterIds("sw1").size());
         assertEquals(0, flowCache.resourceCache.getAllMeterIds("sw2").size());
         assertEquals(1, flowCache.resourceCache.getAllMeterIds("sw3").size());
         assertEquals(0, flowCache.resourceCache.getAllMeterIds("sw4").size());
         assertEquals(0, flowCache.resourceCache.getAllMeterIds("sw5").size());
-        assertEquals(2, flowCache.resourceCache.getAllVlanIds().size());
+        assertEquals(1, flowCache.resourceCache.getAllVlanIds().size());
         assertEquals(1, flowCache.resourceCache.getAllCookies().size());
 
         assertEquals(1, flowCache.dumpFlows().size());
@@ -142,6 +189,117 @@ public class FlowCacheTest {
         assertEquals(oldFlow, newFlow);
     }
 
+    @Test
+    public void createFlowReservesBandwidth() throws Exception {
+        FlowCache accountingCache = new FlowCache(networkCache);
+        Flow flow = new Flow("bandwidth-flow", 4, false, "bandwidth-flow", "sw1", 11, 100, "sw4", 11, 200);
+
+        accountingCache.createFlow(flow, bandwidthPath);
+        assertEquals(4, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(4, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl24.getId()));
+        assertEquals(4, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl21.getId()));
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl42.getId()));
+
+        accountingCache.deleteFlow(flow.getFlowId());
+        assertEquals(0, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(0, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl42.getId()));
+    }
+
+    @Test
+    public void createFlowWithNotEnoughBandwidth() throws Exception {
+        FlowCache accountingCache = new FlowCache(networkCache);
+        Flow flow = new Flow("bandwidth-flow", 8, false, "bandwidth-flow", "sw1", 11, 100, "sw4", 11, 200);
+        accountingCache.createFlow(flow, bandwidthPath);
+
+        Flow overflow = new Flow(flow);
+        overflow.setFlowId("overflow-flow");
+        try {
+            accountingCache.createFlow(overflow, bandwidthPath);
+            fail();
+        } catch (CacheException e) {
+            assertEquals(1, accountingCache.dumpFlows().size());
+            assertEquals(1, accountingCache.resourceCache.getAllCookies().size());
+            assertEquals(8, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+            assertEquals(8, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl42.getId()));
+        }
+    }
+
+    @Test
+    public void updateFlowMovesBandwidth() throws Exception {
+        FlowCache accountingCache = new FlowCache(networkCache);
+        Flow flow = new Flow("bandwidth-flow", 4, false, "bandwidth-flow", "sw1", 11, 100, "sw4", 11, 200);
+        accountingCache.createFlow(flow, bandwidthPath);
+
+        flow.setBandwidth(10);
+        accountingCache.updateFlow(flow, bandwidthPath);
+        assertEquals(10, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+
+        flow.setBandwidth(12);
+        long version = accountingCache.snapshot().getVersion();
+        try {
+            accountingCache.updateFlow(flow, bandwidthPath);
+            fail();
+        } catch (CacheException e) {
+            assertEquals(version, accountingCache.snapshot().getVersion());
+            assertEquals(10, accountingCache.getFlow(flow.getFlowId()).getLeft().getBandwidth());
+            assertEquals(10, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+            assertEquals(10, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl42.getId()));
+        }
+    }
+
+    @Test
+    public void loadFlowsKeepsAvailableBandwidth() throws Exception {
+        FlowCache accountingCache = new FlowCache(networkCache);
+        Flow flow = new Flow("bandwidth-flow", 4, false, "bandwidth-flow", "sw1", 11, 100, "sw4", 11, 200);
+        ImmutablePair<Flow, Flow> installed = accountingCache.createFlow(flow, bandwidthPath);
+        accountingCache.deleteFlow(flow.getFlowId());
+
+        // the dumped isl available bandwidth accounts the installed flow already
+        for (IslInfoData isl : Arrays.asList(NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl24,
+                NetworkTopologyConstants.isl42, NetworkTopologyConstants.isl21)) {
+            IslInfoData dumped = new IslInfoData(isl);
+            dumped.setAvailableBandwidth(isl.getAvailableBandwidth() - 4);
+            networkCache.updateIsl(dumped);
+        }
+
+        FlowCache mirrorCache = new FlowCache(networkCache);
+        mirrorCache.load(Collections.singleton(installed));
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl42.getId()));
+
+        ImmutablePair<Flow, Flow> rerouted = mirrorCache.updateFlow(flow, bandwidthPath);
+        assertEquals(2, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+
+        mirrorCache.putFlow(rerouted);
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+
+        mirrorCache.removeFlow(flow.getFlowId());
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl42.getId()));
+    }
+
+    @Test
+    public void putFlowWithoutReservationKeepsSharedIslReservations() throws Exception {
+        FlowCache mirrorCache = new FlowCache(networkCache);
+        Flow flow = new Flow("shared-flow", 6, false, "shared-flow", "sw1", 11, 100, "sw4", 11, 200);
+        ImmutablePair<Flow, Flow> installed = mirrorCache.createFlow(flow, bandwidthPath);
+
+        ImmutablePair<Flow, Flow> other = new ImmutablePair<>(
+                new Flow(installed.getLeft()), new Flow(installed.getRight()));
+        other.getLeft().setFlowId("other-flow");
+        other.getRight().setFlowId("other-flow");
+        mirrorCache.putFlow(other);
+        assertEquals(6, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+
+        mirrorCache.putFlow(other);
+        mirrorCache.removeFlow("other-flow");
+        assertEquals(6, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(6, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl42.getId()));
+
+        mirrorCache.removeFlow(flow.getFlowId());
+        assertEquals(0, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+    }
+
     @Test
     public void dumpFlows() throws Exception {
         ImmutablePair<Flow, Flow> first = flowCache.createFlow(firstFlow, computer.getPath(firstFlow, defaultStrategy));
@@ -150,6 +308,33 @@ public class FlowCacheTest {
         assertEquals(new HashSet<>(Arrays.asList(first, second, third)), flowCache.dumpFlows());
     }
 
+    @Test
+    public void journal() throws Exception {
+        File directory = folder.newFolder();
+        ImmutablePair<Flow, Flow> first;
+        ImmutablePair<Flow, Flow> third;
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            flowCache.attachJournal(journal);
+            flowCache.createFlow(firstFlow, computer.getPath(firstFlow, defaultStrategy));
+            flowCache.createFlow(secondFlow, computer.getPath(secondFlow, defaultStrategy));
+            third = flowCache.createFlow(thirdFlow, computer.getPath(thirdFlow, defaultStrategy));
+            first = flowCache.setFlowState(firstFlow.getFlowId(), FlowState.UP);
+            flowCache.deleteFlow(secondFlow.getFlowId());
+        }
+
+        FlowCache recovered = new FlowCache();
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            recovered.attachJournal(journal);
+        }
+        ImmutablePair<Flow, Flow> recoveredFirst = recovered.getFlow(firstFlow.getFlowId());
+        assertEquals(2, recovered.dumpFlows().size());
+        assertEquals(first, recoveredFirst);
+        assertEquals(first.getLeft().getFlowPath(), recoveredFirst.getLeft().getFlowPath());
+        assertEquals(first.getLeft().getCookie(), recoveredFirst.getLeft().getCookie());
+        assertEquals(FlowState.UP, recoveredFirst.getRight().getState());
+        assertEquals(third, recovered.getFlow(thirdFlow.getFlowId()));
+    }
+
     @Test
     public void getFlowPath() throws Exception {
         flowCache.createFlow(firstFlow, computer.getPath(firstFlow, defaultStrategy));
@@ -218,6 +403,59 @@ public class FlowCacheTest {
         assertEquals(new HashSet<>(Arrays.asList(first, second)), affected);
     }
 
+    @Test
+    public void getFlowsWithAffectedPathAfterChanges() throws Exception {
+        Flow flow = new Flow("indexed-flow", 0, false, "indexed-flow", "sw1", 11, 100, "sw4", 11, 200);
+        flowCache.createFlow(flow, bandwidthPath);
+        assertEquals(1, flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.sw2.getSwitchId()).size());
+        assertEquals(1, flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.isl24).size());
+
+        ImmutablePair<Flow, Flow> updated = flowCache.updateFlow(flow, new ImmutablePair<>(
+                buildPath(NetworkTopologyConstants.isl14), buildPath(NetworkTopologyConstants.isl41)));
+        assertEquals(Collections.emptySet(),
+                flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.sw2.getSwitchId()));
+        assertEquals(Collections.emptySet(), flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.isl24));
+        assertEquals(Collections.singleton(updated),
+                flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.isl41));
+
+        flowCache.removeFlow(flow.getFlowId());
+        assertEquals(Collections.emptySet(),
+                flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.sw1.getSwitchId()));
+
+        flowCache.putFlow(updated);
+        assertEquals(Collections.singleton(updated),
+                flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.sw4.getSwitchId()));
+
+        flowCache.deleteFlow(flow.getFlowId());
+        assertEquals(Collections.emptySet(),
+                flowCache.getFlowsWithAffectedPath(NetworkTopologyConstants.sw4.getSwitchId()));
+    }
+
+    @Test
+    public void getFlowsForEndpoint() throws Exception {
+        ImmutablePair<Flow, Flow> first = flowCache.createFlow(firstFlow, computer.getPath(firstFlow, defaultStrategy));
+        Flow portWideFlow = new Flow("port-wide-flow", 0, false, "port-wide-flow", "sw1", 12, 0, "sw3", 12, 300);
+        ImmutablePair<Flow, Flow> portWide = flowCache.createFlow(portWideFlow, bandwidthPath);
+
+        assertEquals(new HashSet<>(Arrays.asList(first.getLeft(), first.getRight())),
+                flowCache.getFlowsForEndpoint("sw1", 11, 100));
+        assertEquals(Collections.emptySet(), flowCache.getFlowsForEndpoint("sw1", 11, 101));
+        assertEquals(new HashSet<>(Arrays.asList(first.getLeft(), first.getRight())),
+                flowCache.getFlowsForEndpoint("sw3", 11));
+
+        assertEquals(new HashSet<>(Arrays.asList(portWide.getLeft(), portWide.getRight())),
+                flowCache.getFlowsForEndpoint("sw1", 12, 500));
+        assertEquals(Collections.emptySet(), flowCache.getFlowsForEndpoint("sw3", 12, 500));
+
+        flowCache.updateFlow(new Flow("port-wide-flow", 0, false, "port-wide-flow", "sw1", 13, 0, "sw3", 12, 300),
+                bandwidthPath);
+        assertEquals(Collections.emptySet(), flowCache.getFlowsForEndpoint("sw1", 12));
+        assertEquals(2, flowCache.getFlowsForEndpoint("sw1", 13, 500).size());
+
+        flowCache.deleteFlow(firstFlow.getFlowId());
+        assertEquals(Collections.emptySet(), flowCache.getFlowsForEndpoint("sw1", 11, 100));
+    }
+
     @Test
     public void getFlowsForUpState() throws Exception {
         Map<String, String> affected;
@@ -459,6 +697,16 @@ public class FlowCacheTest {
         networkCache.createOrUpdateIsl(new IslInfoData(NetworkTopologyConstants.isl45));
     }
 
+    private static PathInfoData buildPath(IslInfoData... isls) {
+        List<PathNode> nodes = new ArrayList<>();
+        for (IslInfoData isl : isls) {
+            for (PathNode node : isl.getPath()) {
+                nodes.add(new PathNode(node.getSwitchId(), node.getPortNo(), nodes.size()));
+            }
+        }
+        return new PathInfoData(0L, nodes);
+    }
+
     private Flow makeFlow(String id, SwitchInfoData source, SwitchInfoData dest, int bandwidth) {
         Flow flow = new Flow();
 
@@ -0,0 +1,105 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.NetworkTopologyConstants;
+import org.openkilda.pce.provider.FlowInfo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class FlowDigestTest {
+    private final FlowCache flowCache = new FlowCache();
+
+    private final Flow firstFlow = new Flow("first-flow", 0, false, "first-flow", "sw1", 11, 100, "sw2", 11, 200);
+    private final Flow secondFlow = new Flow("second-flow", 0, false, "second-flow", "sw1", 12, 100, "sw2", 12, 200);
+    private final ImmutablePair<PathInfoData, PathInfoData> path = new ImmutablePair<>(
+            new PathInfoData(0L, Arrays.asList(new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1))),
+            new PathInfoData(0L, Arrays.asList(new PathNode("sw2", 2, 0), new PathNode("sw1", 1, 1))));
+
+    @Test
+    public void flowInfoMatchesFlow() {
+        ImmutablePair<Flow, Flow> flow = flowCache.createFlow(firstFlow, path);
+
+        FlowDigest info = new FlowDigest(FlowDigest.DEFAULT_BUCKETS);
+        for (Flow direction : Arrays.asList(flow.getRight(), flow.getLeft())) {
+            info.add(new FlowInfo(direction.getFlowId(), direction.getCookie(), direction.getTransitVlan(),
+                    direction.getMeterId(), direction.getSourceSwitch()));
+        }
+
+        assertEquals(2, info.size());
+        assertTrue(info.diff(flowCache.getDigest()).isEmpty());
+    }
+
+    @Test
+    public void removeRestoresDigest() {
+        flowCache.createFlow(firstFlow, path);
+        FlowDigest before = flowCache.getDigest();
+
+        flowCache.createFlow(secondFlow, path);
+        assertEquals(4, flowCache.getDigest().size());
+
+        flowCache.deleteFlow(secondFlow.getFlowId());
+        assertTrue(before.diff(flowCache.getDigest()).isEmpty());
+
+        flowCache.clear();
+        assertEquals(0, flowCache.getDigest().size());
+    }
+
+    @Test
+    public void diffFindsChangedBucket() {
+        ImmutablePair<Flow, Flow> first = flowCache.createFlow(firstFlow, path);
+        flowCache.createFlow(secondFlow, path);
+        FlowDigest before = flowCache.getDigest();
+
+        Flow changed = new Flow(first.getLeft());
+        changed.setTransitVlan(first.getLeft().getTransitVlan() + 1);
+        flowCache.putFlow(new ImmutablePair<>(changed, first.getRight()));
+
+        int bucket = FlowDigest.getBucket(first.getLeft().getCookie(), FlowDigest.DEFAULT_BUCKETS);
+        assertEquals(Collections.singleton(bucket), before.diff(flowCache.getDigest()));
+        assertEquals(1, flowCache.getFlowsInBuckets(Collections.singleton(bucket)).size());
+        assertEquals(Collections.singleton(secondFlow.getFlowId()),
+                flowCache.getFlowIdsOutOfBuckets(Collections.singleton(bucket)));
+    }
+
+    @Test
+    public void mergeDisjointDigests() {
+        ShardedFlowStore store = new ShardedFlowStore(2);
+        store.getNetworkCache().load(
+                new HashSet<>(Arrays.asList(NetworkTopologyConstants.sw1, NetworkTopologyConstants.sw2)),
+                new HashSet<>(Arrays.asList(NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl21)));
+        ImmutablePair<Flow, Flow> first = store.getShard(0).createFlow(firstFlow, path);
+        ImmutablePair<Flow, Flow> second = store.getShard(1).createFlow(secondFlow, path);
+
+        FlowDigest expected = new FlowDigest(FlowDigest.DEFAULT_BUCKETS);
+        expected.add(second);
+        expected.add(first);
+
+        assertTrue(expected.diff(store.getDigest()).isEmpty());
+        assertEquals(4, store.getDigest().size());
+    }
+}
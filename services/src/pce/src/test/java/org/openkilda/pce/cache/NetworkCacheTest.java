@@ -16,7 +16,13 @@
 package org.openkilda.pce.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
 
+import org.openkilda.messaging.error.CacheException;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.messaging.info.event.SwitchInfoData;
 import org.openkilda.messaging.info.event.SwitchState;
 import org.openkilda.pce.NetworkTopologyConstants;
@@ -24,13 +30,25 @@ import org.openkilda.pce.NetworkTopologyConstants;
 import edu.emory.mathcs.backport.java.util.Collections;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NetworkCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final NetworkCache networkCache = new NetworkCache();
 
     @Before
@@ -231,4 +249,237 @@ public class NetworkCacheTest {
                 NetworkTopologyConstants.isl32, NetworkTopologyConstants.isl42)),
                 networkCache.getIslsByDestination(NetworkTopologyConstants.sw2.getSwitchId()));
     }
+
+    @Test
+    public void getGeneration() throws Exception {
+        long initial = networkCache.getGeneration();
+        networkCache.createSwitch(NetworkTopologyConstants.sw1);
+        networkCache.createSwitch(NetworkTopologyConstants.sw2);
+        long switchesCreated = networkCache.getGeneration();
+        assertNotEquals(initial, switchesCreated);
+
+        networkCache.createIsl(NetworkTopologyConstants.isl12);
+        long islCreated = networkCache.getGeneration();
+        assertNotEquals(switchesCreated, islCreated);
+
+        networkCache.getIsl(NetworkTopologyConstants.isl12.getId());
+        networkCache.dumpSwitches();
+        assertEquals(islCreated, networkCache.getGeneration());
+
+        networkCache.updateIsl(NetworkTopologyConstants.isl12);
+        long islUpdated = networkCache.getGeneration();
+        assertNotEquals(islCreated, islUpdated);
+
+        networkCache.deleteIsl(NetworkTopologyConstants.isl12.getId());
+        long islDeleted = networkCache.getGeneration();
+        assertNotEquals(islUpdated, islDeleted);
+
+        networkCache.updateSwitch(new SwitchInfoData(NetworkTopologyConstants.sw1.getSwitchId(),
+                SwitchState.DEACTIVATED, "", "", "", ""));
+        assertNotEquals(islDeleted, networkCache.getGeneration());
+    }
+
+    @Test
+    public void updateIslKeepsCost() throws Exception {
+        networkCache.createSwitch(NetworkTopologyConstants.sw1);
+        networkCache.createSwitch(NetworkTopologyConstants.sw2);
+        IslInfoData isl = new IslInfoData(NetworkTopologyConstants.isl12);
+        isl.setCost(100L);
+        networkCache.createIsl(isl);
+
+        networkCache.updateIsl(new IslInfoData(NetworkTopologyConstants.isl12));
+        assertEquals(100L, networkCache.getIsl(isl.getId()).getCost());
+
+        IslInfoData updated = new IslInfoData(NetworkTopologyConstants.isl12);
+        updated.setCost(200L);
+        networkCache.updateIsl(updated);
+        assertEquals(200L, networkCache.getIsl(isl.getId()).getCost());
+    }
+
+    @Test
+    public void reload() throws Exception {
+        networkCache.createSwitch(NetworkTopologyConstants.sw1);
+        networkCache.createSwitch(NetworkTopologyConstants.sw2);
+        networkCache.createSwitch(NetworkTopologyConstants.sw3);
+        networkCache.createIsl(NetworkTopologyConstants.isl12);
+        networkCache.createIsl(NetworkTopologyConstants.isl23);
+        long initial = networkCache.getGeneration();
+
+        networkCache.reload(new HashSet<>(Arrays.asList(NetworkTopologyConstants.sw1, NetworkTopologyConstants.sw2)),
+                new HashSet<>(Arrays.asList(NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl21)));
+
+        assertEquals(initial + 1, networkCache.getGeneration());
+        assertEquals(2, networkCache.dumpSwitches().size());
+        assertEquals(new HashSet<>(Arrays.asList(NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl21)),
+                networkCache.dumpIsls());
+        assertEquals(2, networkCache.getNetwork().edges().size());
+        assertEquals(2, networkCache.getNetwork().nodes().size());
+    }
+
+    @Test
+    public void reloadChecksIslSwitches() throws Exception {
+        networkCache.createSwitch(NetworkTopologyConstants.sw1);
+        long initial = networkCache.getGeneration();
+
+        try {
+            networkCache.reload(Collections.singleton(NetworkTopologyConstants.sw1),
+                    Collections.singleton(NetworkTopologyConstants.isl12));
+            fail();
+        } catch (CacheException e) {
+            assertEquals(initial, networkCache.getGeneration());
+            assertEquals(1, networkCache.dumpSwitches().size());
+            assertEquals(1, networkCache.getNetwork().nodes().size());
+        }
+    }
+
+    @Test
+    public void updateAvailableBandwidth() throws Exception {
+        networkCache.createSwitch(NetworkTopologyConstants.sw1);
+        networkCache.createSwitch(NetworkTopologyConstants.sw2);
+        networkCache.createIsl(new IslInfoData(NetworkTopologyConstants.isl12));
+        String islId = NetworkTopologyConstants.isl12.getId();
+        long initial = networkCache.getGeneration();
+
+        networkCache.updateAvailableBandwidth(islId, 4L);
+        assertEquals(initial, networkCache.getGeneration());
+        assertEquals(4L, networkCache.getIsl(islId).getAvailableBandwidth());
+        assertEquals(4L, networkCache.getAvailableBandwidth(islId));
+        assertEquals(1, networkCache.getIslsBySource(NetworkTopologyConstants.sw1.getSwitchId()).size());
+        assertEquals(4L, networkCache.getIslsBySource(NetworkTopologyConstants.sw1.getSwitchId())
+                .iterator().next().getAvailableBandwidth());
+    }
+
+    @Test
+    public void reserveBandwidth() throws Exception {
+        PathInfoData path = buildPath123();
+        long initial = networkCache.getGeneration();
+
+        networkCache.reserveBandwidth(path, 4);
+        networkCache.reserveBandwidth(path, 6);
+        assertEquals(10, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(0, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl23.getId()));
+        assertEquals(0, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl21.getId()));
+        assertEquals(initial, networkCache.getGeneration());
+
+        networkCache.releaseBandwidth(path, 4);
+        assertEquals(4, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(4, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl23.getId()));
+    }
+
+    @Test
+    public void reserveBandwidthAtomically() throws Exception {
+        PathInfoData path = buildPath123();
+        networkCache.reserveBandwidth(new PathInfoData(0L, path.getPath().subList(2, 4)), 8);
+
+        try {
+            networkCache.reserveBandwidth(path, 4);
+            fail();
+        } catch (CacheException e) {
+            assertEquals(10, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+            assertEquals(2, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl23.getId()));
+        }
+    }
+
+    @Test
+    public void reserveBandwidthConcurrently() throws Exception {
+        PathInfoData path = buildPath123();
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    networkCache.reserveBandwidth(path, 1);
+                    reserved.incrementAndGet();
+                } catch (CacheException e) {
+                    // the isls are full
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(10, reserved.get());
+        assertEquals(10, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(10, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl23.getId()));
+    }
+
+    @Test
+    public void updateAvailableBandwidthDropsReservations() throws Exception {
+        PathInfoData path = buildPath123();
+        networkCache.reserveBandwidth(path, 4);
+        long version = networkCache.getBandwidthVersion();
+
+        networkCache.updateAvailableBandwidth(NetworkTopologyConstants.isl12.getId(), 6);
+        assertNotEquals(version, networkCache.getBandwidthVersion());
+        assertEquals(0, networkCache.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl23.getId()));
+
+        networkCache.releaseBandwidth(path, 4);
+        assertEquals(6, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(10, networkCache.getAvailableBandwidth(NetworkTopologyConstants.isl23.getId()));
+    }
+
+    @Test
+    public void snapshot() throws Exception {
+        PathInfoData path = buildPath123();
+        networkCache.reserveBandwidth(path, 4);
+        NetworkCache.Snapshot snapshot = networkCache.snapshot();
+
+        networkCache.reserveBandwidth(path, 2);
+        networkCache.deleteIsl(NetworkTopologyConstants.isl23.getId());
+        networkCache.updateSwitch(new SwitchInfoData(NetworkTopologyConstants.sw1.getSwitchId(),
+                SwitchState.DEACTIVATED, "", "", "", ""));
+
+        assertNotEquals(snapshot.getGeneration(), networkCache.getGeneration());
+        assertEquals(networkCache.getGeneration(), networkCache.snapshot().getGeneration());
+        // reservations are counted apart from the snapshots, so the old one sees the current ones
+        assertEquals(6, snapshot.getReservedBandwidth(NetworkTopologyConstants.isl12.getId()));
+        assertEquals(4, snapshot.getAvailableBandwidth(NetworkTopologyConstants.isl23.getId()));
+        assertEquals(3, snapshot.dumpIsls().size());
+        assertEquals(SwitchState.ACTIVATED, snapshot.getSwitch(NetworkTopologyConstants.sw1.getSwitchId()).getState());
+
+        assertEquals(networkCache.getNetwork().edges(), networkCache.dumpIsls());
+        assertEquals(4, networkCache.snapshot().getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+    }
+
+    private PathInfoData buildPath123() {
+        networkCache.createSwitch(NetworkTopologyConstants.sw1);
+        networkCache.createSwitch(NetworkTopologyConstants.sw2);
+        networkCache.createSwitch(NetworkTopologyConstants.sw3);
+        networkCache.createIsl(NetworkTopologyConstants.isl12);
+        networkCache.createIsl(NetworkTopologyConstants.isl21);
+        networkCache.createIsl(NetworkTopologyConstants.isl23);
+
+        return new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1),
+                new PathNode("sw2", 1, 2), new PathNode("sw3", 2, 3)));
+    }
+
+    @Test
+    public void journal() throws Exception {
+        File directory = folder.newFolder();
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            networkCache.attachJournal(journal);
+            networkCache.createSwitch(NetworkTopologyConstants.sw1);
+            networkCache.createSwitch(NetworkTopologyConstants.sw2);
+            networkCache.createSwitch(NetworkTopologyConstants.sw3);
+            networkCache.createIsl(NetworkTopologyConstants.isl12);
+            networkCache.createIsl(NetworkTopologyConstants.isl21);
+            networkCache.createIsl(NetworkTopologyConstants.isl23);
+            networkCache.deleteIsl(NetworkTopologyConstants.isl23.getId());
+            networkCache.deleteSwitch(NetworkTopologyConstants.sw3.getSwitchId());
+        }
+
+        NetworkCache recovered = new NetworkCache();
+        try (CacheJournal journal = new CacheJournal(directory)) {
+            recovered.attachJournal(journal);
+        }
+        assertEquals(networkCache.dumpSwitches(), recovered.dumpSwitches());
+        assertEquals(networkCache.dumpIsls(), recovered.dumpIsls());
+        assertEquals(2, recovered.getNetwork().edges().size());
+    }
 }
@@ -0,0 +1,124 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentMapTest {
+    @Test
+    public void plusAndMinus() {
+        PersistentMap<String, Integer> empty = PersistentMap.empty();
+        PersistentMap<String, Integer> map = empty.plus("a", 1).plus("b", 2);
+
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(1), map.get("a"));
+        assertTrue(map.containsKey("b"));
+        assertFalse(map.containsKey("c"));
+        assertSame(map, map.minus("c"));
+
+        PersistentMap<String, Integer> removed = map.minus("a").plus("b", 3);
+        assertNull(removed.get("a"));
+        assertEquals(Integer.valueOf(3), removed.get("b"));
+        assertEquals(1, removed.size());
+
+        assertEquals(Integer.valueOf(1), map.get("a"));
+        assertEquals(Integer.valueOf(2), map.get("b"));
+        assertEquals(0, empty.size());
+        assertEquals(0, removed.minus("b").size());
+    }
+
+    @Test
+    public void computeIfPresent() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().plus("a", 1);
+
+        assertEquals(Integer.valueOf(2), map.computeIfPresent("a", value -> value + 1).get("a"));
+        assertFalse(map.computeIfPresent("a", value -> null).containsKey("a"));
+        assertSame(map, map.computeIfPresent("b", value -> value + 1));
+    }
+
+    @Test
+    public void randomOperations() {
+        Random random = new Random(42);
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        List<PersistentMap<Key, Integer>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> expectedVersions = new ArrayList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            Key key = new Key(random.nextInt(2000));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+
+            if (i % 1000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+
+        assertContent(expected, map);
+        for (int i = 0; i < versions.size(); i++) {
+            assertContent(expectedVersions.get(i), versions.get(i));
+        }
+    }
+
+    private static void assertContent(Map<Key, Integer> expected, PersistentMap<Key, Integer> map) {
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.keySet(), new HashSet<>(map.keySet()));
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        for (Map.Entry<Key, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Key with many hash collisions, every ten keys share a hash code.
+     */
+    private static final class Key {
+        private final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key && ((Key) object).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id / 10;
+        }
+    }
+}
@@ -16,8 +16,12 @@
 package org.openkilda.pce.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.messaging.payload.flow.FlowState;
@@ -28,9 +32,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ResourceCacheTest {
     private static final String SWITCH_ID = "switch-id";
@@ -57,24 +67,24 @@ public class ResourceCacheTest {
 
     @Test
     public void cookiePool() throws Exception {
-        resourceCache.allocateCookie(4);
+        resourceCache.allocateCookie(4L);
 
-        int first = resourceCache.allocateCookie();
+        long first = resourceCache.allocateCookie();
         assertEquals(1, first);
 
-        int second = resourceCache.allocateCookie();
+        long second = resourceCache.allocateCookie();
         assertEquals(2, second);
 
-        int third = resourceCache.allocateCookie();
+        long third = resourceCache.allocateCookie();
         assertEquals(3, third);
 
         resourceCache.deallocateCookie(second);
-        int fourth = resourceCache.allocateCookie();
+        long fourth = resourceCache.allocateCookie();
         assertEquals(2, fourth);
 
         assertEquals(4, resourceCache.getAllCookies().size());
 
-        int fifth = resourceCache.allocateCookie();
+        long fifth = resourceCache.allocateCookie();
         assertEquals(5, fifth);
     }
 
@@ -101,6 +111,51 @@ public class ResourceCacheTest {
         assertEquals(6, fifth);
     }
 
+    @Test
+    public void islVlanIdPool() throws Exception {
+        PathInfoData path12 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 1, 1)));
+        PathInfoData path34 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw3", 1, 0), new PathNode("sw4", 1, 1)));
+        PathInfoData path123 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 1, 1),
+                new PathNode("sw2", 2, 2), new PathNode("sw3", 2, 3)));
+        PathInfoData path34Reverse = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw4", 1, 0), new PathNode("sw3", 1, 1)));
+
+        int vlanId = resourceCache.allocateVlanId(path12);
+        assertEquals(vlanId, (int) resourceCache.allocateVlanId(path34));
+        assertEquals(vlanId, (int) resourceCache.allocateVlanId(path34Reverse));
+
+        int sharedIslVlanId = resourceCache.allocateVlanId(path123);
+        assertNotEquals(vlanId, sharedIslVlanId);
+        assertEquals(new HashSet<>(Arrays.asList(vlanId, sharedIslVlanId)), resourceCache.getAllVlanIds("sw2", 1));
+        assertEquals(Collections.singleton(sharedIslVlanId), resourceCache.getAllVlanIds("sw3", 2));
+
+        assertEquals(vlanId, (int) resourceCache.deallocateVlanId(path12, vlanId));
+        assertNull(resourceCache.deallocateVlanId(path12, vlanId));
+        assertEquals(vlanId, (int) resourceCache.allocateVlanId(path123));
+        assertEquals(new HashSet<>(Arrays.asList(vlanId, sharedIslVlanId)), resourceCache.getAllVlanIds());
+    }
+
+    @Test
+    public void islVlanIdPoolRequestedVlanId() throws Exception {
+        PathInfoData path12 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 1, 1)));
+        PathInfoData path123 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw2", 2, 0), new PathNode("sw3", 2, 1),
+                new PathNode("sw1", 1, 2), new PathNode("sw2", 1, 3)));
+
+        assertEquals(10, (int) resourceCache.allocateVlanId(path12, 10));
+        assertNull(resourceCache.allocateVlanId(path12, 10));
+        assertNull(resourceCache.allocateVlanId(path123, 10));
+        assertTrue(resourceCache.getAllVlanIds("sw3", 2).isEmpty());
+
+        assertEquals(11, (int) resourceCache.allocateVlanId(path123, 11));
+        assertEquals(new HashSet<>(Arrays.asList(10, 11)), resourceCache.getAllVlanIds("sw2", 1));
+        assertEquals(Collections.singleton(11), resourceCache.getAllVlanIds("sw3", 2));
+    }
+
     @Test
     public void meterIdPool() throws Exception {
         resourceCache.allocateMeterId(SWITCH_ID, 4);
@@ -136,13 +191,31 @@ public class ResourceCacheTest {
         }
     }
 
-    @Test(expected = ArrayIndexOutOfBoundsException.class)
-    public void cookiePoolFullTest() {
-        resourceCache.allocateCookie();
-        int i = ResourceCache.MIN_COOKIE;
-        while (i++ <= ResourceCache.MAX_COOKIE) {
+    @Test
+    public void cookiePoolBeyond12BitTest() {
+        for (int i = 0; i < 100000; i++) {
             resourceCache.allocateCookie();
         }
+        assertEquals(100001L, (long) resourceCache.allocateCookie());
+
+        assertEquals(ResourceCache.MAX_COOKIE, (long) resourceCache.allocateCookie(ResourceCache.MAX_COOKIE));
+        assertEquals(100002, resourceCache.getAllCookies().size());
+        assertTrue(resourceCache.getAllCookies().contains(ResourceCache.MAX_COOKIE));
+        assertEquals(ResourceCache.MAX_COOKIE, (long) resourceCache.deallocateCookie(ResourceCache.MAX_COOKIE));
+        assertNull(resourceCache.deallocateCookie(ResourceCache.MAX_COOKIE));
+    }
+
+    @Test
+    public void buildFlowWithUnsignedCookie() {
+        resourceCache.allocateCookie(0x80000000L);
+        Flow flow = new Flow(forwardCreatedFlow);
+        flow.setCookie(0x80000000L | ResourceCache.FORWARD_FLOW_COOKIE_MASK);
+
+        ImmutablePair<Flow, Flow> built = new FlowCache().buildFlow(new ImmutablePair<>(flow, reverseCreatedFlow),
+                new ImmutablePair<>(new PathInfoData(), new PathInfoData()), resourceCache);
+
+        assertEquals(0x80000000L | ResourceCache.FORWARD_FLOW_COOKIE_MASK, built.getLeft().getCookie());
+        assertEquals(0x80000000L | ResourceCache.REVERSE_FLOW_COOKIE_MASK, built.getRight().getCookie());
     }
 
     @Test(expected = ArrayIndexOutOfBoundsException.class)
@@ -154,19 +227,53 @@ public class ResourceCacheTest {
         }
     }
 
+    @Test
+    public void allocateMeterIdConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Set<Integer>>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String switchId = i % 2 == 0 ? SWITCH_ID : SWITCH_ID + i;
+                tasks.add(() -> {
+                    Set<Integer> allocated = new HashSet<>();
+                    for (int j = 0; j < 200; j++) {
+                        allocated.add(resourceCache.allocateMeterId(switchId));
+                    }
+                    return allocated;
+                });
+            }
+
+            Set<Integer> shared = new HashSet<>();
+            List<Future<Set<Integer>>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                Set<Integer> allocated = results.get(i).get();
+                assertEquals(200, allocated.size());
+                if (i % 2 == 0) {
+                    shared.addAll(allocated);
+                }
+            }
+
+            assertEquals(800, shared.size());
+            assertEquals(shared, resourceCache.getAllMeterIds(SWITCH_ID));
+            assertEquals(200, resourceCache.getAllMeterIds(SWITCH_ID + 1).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void allocateFlow() throws Exception {
         resourceCache.allocateFlow(new ImmutablePair<>(forwardCreatedFlow, reverseCreatedFlow));
         resourceCache.allocateFlow(new ImmutablePair<>(forwardCreatedFlow, reverseCreatedFlow));
 
-        Set<Integer> allocatedCookies = resourceCache.getAllCookies();
+        Set<Long> allocatedCookies = resourceCache.getAllCookies();
         Set<Integer> allocatedVlanIds = resourceCache.getAllVlanIds();
         Set<Integer> allocatedMeterIds = resourceCache.getAllMeterIds(
                 NetworkTopologyConstants.sw3.getSwitchId());
 
-        Set<Integer> expectedCookies = new HashSet<>(Arrays.asList(
-                (int) forwardCreatedFlow.getCookie(),
-                (int) reverseCreatedFlow.getCookie()));
+        Set<Long> expectedCookies = new HashSet<>(Arrays.asList(
+                ResourceCache.FLOW_COOKIE_VALUE_MASK & forwardCreatedFlow.getCookie(),
+                ResourceCache.FLOW_COOKIE_VALUE_MASK & reverseCreatedFlow.getCookie()));
 
         Set<Integer> expectedVlanIds = new HashSet<>(Arrays.asList(
                 forwardCreatedFlow.getTransitVlan(),
@@ -187,7 +294,7 @@ public class ResourceCacheTest {
         resourceCache.deallocateFlow(new ImmutablePair<>(forwardCreatedFlow, reverseCreatedFlow));
         resourceCache.deallocateFlow(new ImmutablePair<>(forwardCreatedFlow, reverseCreatedFlow));
 
-        Set<Integer> allocatedCookies = resourceCache.getAllCookies();
+        Set<Long> allocatedCookies = resourceCache.getAllCookies();
         Set<Integer> allocatedVlanIds = resourceCache.getAllVlanIds();
         Set<Integer> allocatedMeterIds = resourceCache.getAllMeterIds(
                 NetworkTopologyConstants.sw3.getSwitchId());
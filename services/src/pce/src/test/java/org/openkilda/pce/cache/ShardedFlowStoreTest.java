@@ -0,0 +1,150 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.openkilda.messaging.error.CacheException;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.NetworkTopologyConstants;
+import org.openkilda.pce.provider.Auth;
+import org.openkilda.pce.provider.PathComputer;
+import org.openkilda.pce.provider.PathComputerMock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class ShardedFlowStoreTest {
+    private final ShardedFlowStore store = new ShardedFlowStore(2);
+
+    private final Flow firstFlow = new Flow("first-flow", 0, false, "first-flow", "sw1", 11, 100, "sw2", 11, 200);
+    private final Flow secondFlow = new Flow("second-flow", 0, false, "second-flow", "sw1", 12, 100, "sw2", 12, 200);
+    private final ImmutablePair<PathInfoData, PathInfoData> path = new ImmutablePair<>(
+            new PathInfoData(0L, Arrays.asList(new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1))),
+            new PathInfoData(0L, Arrays.asList(new PathNode("sw2", 2, 0), new PathNode("sw1", 1, 1))));
+
+    @Before
+    public void setUp() {
+        store.getNetworkCache().load(
+                new HashSet<>(Arrays.asList(NetworkTopologyConstants.sw1, NetworkTopologyConstants.sw2)),
+                new HashSet<>(Arrays.asList(NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl21)));
+    }
+
+    @Test
+    public void gatherShards() {
+        ImmutablePair<Flow, Flow> first = store.getShard(0).createFlow(firstFlow, path);
+        ImmutablePair<Flow, Flow> second = store.getShard(1).createFlow(secondFlow, path);
+
+        assertNotEquals(first.getLeft().getCookie(), second.getLeft().getCookie());
+        assertNotEquals(first.getLeft().getTransitVlan(), second.getLeft().getTransitVlan());
+        assertNotEquals(first.getLeft().getMeterId(), second.getLeft().getMeterId());
+
+        assertEquals(2, store.dumpFlows().size());
+        assertTrue(store.cacheContainsFlow(secondFlow.getFlowId()));
+        assertEquals(second, store.getFlow(secondFlow.getFlowId()));
+        assertFalse(store.getShard(0).cacheContainsFlow(secondFlow.getFlowId()));
+        assertEquals(2, store.getFlowsForEndpoint("sw1", 11).size());
+        assertEquals(2, store.getFlowsForEndpoint("sw2", 12).size());
+        assertEquals(0, store.getFlowsForEndpoint("sw1", 12, 200).size());
+        assertEquals(2, store.getFlowsForEndpoint("sw1", 12, 100).size());
+    }
+
+    @Test
+    public void clearShard() {
+        ImmutablePair<Flow, Flow> first = store.getShard(0).createFlow(firstFlow, path);
+        store.getShard(1).createFlow(secondFlow, path);
+
+        store.getShard(1).clear();
+        assertEquals(1, store.dumpFlows().size());
+
+        ImmutablePair<Flow, Flow> second = store.getShard(1).createFlow(secondFlow, path);
+        assertNotEquals(first.getLeft().getCookie(), second.getLeft().getCookie());
+        assertNotEquals(first.getLeft().getTransitVlan(), second.getLeft().getTransitVlan());
+    }
+
+    @Test
+    public void shardsShareBandwidth() {
+        Flow first = new Flow(firstFlow);
+        first.setBandwidth(6);
+        store.getShard(0).createFlow(first, path);
+
+        Flow second = new Flow(secondFlow);
+        second.setBandwidth(6);
+        try {
+            store.getShard(1).createFlow(second, path);
+            fail();
+        } catch (CacheException e) {
+            assertEquals("Can not reserve bandwidth", e.getMessage());
+        }
+
+        store.getShard(0).deleteFlow(first.getFlowId());
+        store.getShard(1).createFlow(second, path);
+        assertEquals(4, store.getNetworkCache().getAvailableBandwidth(NetworkTopologyConstants.isl12.getId()));
+    }
+
+    @Test
+    public void connectSharesNetworkCache() {
+        NetworkCache[] connected = new NetworkCache[1];
+        Auth auth = new Auth() {
+            @Override
+            public PathComputer connect() {
+                return connect(new NetworkCache());
+            }
+
+            @Override
+            public PathComputer connect(NetworkCache networkCache) {
+                connected[0] = networkCache;
+                return new PathComputerMock();
+            }
+        };
+
+        PathComputer pathComputer = store.connect(auth);
+        assertSame(store.getNetworkCache(), connected[0]);
+        assertSame(pathComputer, store.connect(auth));
+    }
+
+    @Test
+    public void shareByName() {
+        ShardedFlowStore shared = ShardedFlowStore.acquire("shared", 2);
+        assertSame(shared, ShardedFlowStore.acquire("shared", 2));
+
+        try {
+            ShardedFlowStore.acquire("shared", 3);
+            fail();
+        } catch (CacheException e) {
+            assertEquals("Can not share flow store", e.getMessage());
+        }
+
+        ShardedFlowStore.release("shared");
+        assertSame(shared, ShardedFlowStore.acquire("shared", 2));
+        ShardedFlowStore.release("shared");
+        ShardedFlowStore.release("shared");
+        assertNotSame(shared, ShardedFlowStore.acquire("shared", 2));
+        ShardedFlowStore.release("shared");
+    }
+}
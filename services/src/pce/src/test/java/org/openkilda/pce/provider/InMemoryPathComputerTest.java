@@ -0,0 +1,391 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.pce.NetworkTopologyConstants;
+import org.openkilda.pce.cache.NetworkCache;
+import org.openkilda.pce.graph.WeightFunction;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class InMemoryPathComputerTest {
+    private final NetworkCache networkCache = new NetworkCache();
+    private final PathComputer pathComputer = new InMemoryPathComputer(networkCache);
+
+    @Before
+    public void setUp() {
+        networkCache.load(
+                new HashSet<>(Arrays.asList(
+                        NetworkTopologyConstants.sw1, NetworkTopologyConstants.sw2, NetworkTopologyConstants.sw3,
+                        NetworkTopologyConstants.sw4, NetworkTopologyConstants.sw5)),
+                new HashSet<>(Arrays.asList(
+                        NetworkTopologyConstants.isl12, NetworkTopologyConstants.isl21,
+                        NetworkTopologyConstants.isl23, NetworkTopologyConstants.isl32,
+                        NetworkTopologyConstants.isl14, NetworkTopologyConstants.isl41,
+                        NetworkTopologyConstants.isl24, NetworkTopologyConstants.isl42,
+                        NetworkTopologyConstants.isl25, NetworkTopologyConstants.isl52,
+                        NetworkTopologyConstants.isl35, NetworkTopologyConstants.isl53)));
+    }
+
+    @Test
+    public void getPathByHops() throws Exception {
+        ImmutablePair<PathInfoData, PathInfoData> path =
+                pathComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS);
+
+        assertEquals(Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1),
+                new PathNode("sw2", 1, 2), new PathNode("sw3", 2, 3)), path.getLeft().getPath());
+        assertEquals(Arrays.asList(
+                new PathNode("sw3", 2, 0), new PathNode("sw2", 1, 1),
+                new PathNode("sw2", 2, 2), new PathNode("sw1", 1, 3)), path.getRight().getPath());
+        assertEquals(8L, path.getLeft().getLatency());
+        assertEquals(8L, path.getRight().getLatency());
+        assertEquals(Long.valueOf(3L), path.getLeft().getPath().get(0).getSegLatency());
+    }
+
+    @Test
+    public void getPathByCost() throws Exception {
+        PathComputer costComputer = new InMemoryPathComputer(networkCache) {
+            @Override
+            public Long getWeight(IslInfoData isl) {
+                return isl.getId().equals(NetworkTopologyConstants.isl12.getId()) ? 100L : 1L;
+            }
+        };
+
+        ImmutablePair<PathInfoData, PathInfoData> path =
+                costComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.COST);
+
+        assertEquals(Arrays.asList(
+                new PathNode("sw1", 2, 0), new PathNode("sw4", 1, 1),
+                new PathNode("sw4", 2, 2), new PathNode("sw2", 3, 3)), path.getLeft().getPath());
+    }
+
+    @Test
+    public void getPathByIslCost() throws Exception {
+        IslInfoData expensive = new IslInfoData(NetworkTopologyConstants.isl12);
+        expensive.setCost(1500L);
+        networkCache.updateIsl(expensive);
+
+        ImmutablePair<PathInfoData, PathInfoData> path =
+                pathComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.COST);
+
+        assertEquals(Arrays.asList(
+                new PathNode("sw1", 2, 0), new PathNode("sw4", 1, 1),
+                new PathNode("sw4", 2, 2), new PathNode("sw2", 3, 3)), path.getLeft().getPath());
+
+        expensive = new IslInfoData(NetworkTopologyConstants.isl12);
+        expensive.setCost(1300L);
+        networkCache.updateIsl(expensive);
+        assertEquals(2, pathComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.COST)
+                .getLeft().getPath().size());
+    }
+
+    @Test
+    public void getPathAvoidsReservedBandwidth() throws Exception {
+        networkCache.reserveBandwidth(new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1))), 8L);
+
+        ImmutablePair<PathInfoData, PathInfoData> path =
+                pathComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS);
+
+        assertEquals(Arrays.asList(
+                new PathNode("sw1", 2, 0), new PathNode("sw4", 1, 1),
+                new PathNode("sw4", 2, 2), new PathNode("sw2", 3, 3)), path.getLeft().getPath());
+
+        networkCache.releaseBandwidth(new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1))), 8L);
+        assertEquals(2, pathComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS)
+                .getLeft().getPath().size());
+    }
+
+    @Test
+    public void getPathByLatency() throws Exception {
+        networkCache.createIsl(new IslInfoData(100L, Arrays.asList(
+                new PathNode("sw1", 5, 0, 100L), new PathNode("sw3", 5, 1, 0L)), 10L, IslChangeType.DISCOVERED, 10L));
+
+        ImmutablePair<PathInfoData, PathInfoData> hops =
+                pathComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS);
+        ImmutablePair<PathInfoData, PathInfoData> latency =
+                pathComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.LATENCY);
+
+        assertEquals(2, hops.getLeft().getPath().size());
+        assertEquals(100L, hops.getLeft().getLatency());
+        assertEquals(4, latency.getLeft().getPath().size());
+        assertEquals(8L, latency.getLeft().getLatency());
+    }
+
+    @Test
+    public void getPathByExternalWeight() throws Exception {
+        WeightFunction weight = WeightFunction.HOPS.times(10L).plus(WeightFunction.availableBandwidth(1000L));
+        PathComputer externalComputer = new InMemoryPathComputer(networkCache, weight);
+        IslInfoData congested = new IslInfoData(NetworkTopologyConstants.isl12);
+        congested.setAvailableBandwidth(2L);
+        networkCache.updateIsl(congested);
+
+        ImmutablePair<PathInfoData, PathInfoData> path =
+                externalComputer.getPath(buildFlow("sw1", "sw2", 1), PathComputer.Strategy.EXTERNAL);
+
+        assertEquals("sw4", path.getLeft().getPath().get(1).getSwitchId());
+    }
+
+    @Test
+    public void getPathForOneSwitchFlow() throws Exception {
+        ImmutablePair<PathInfoData, PathInfoData> path =
+                pathComputer.getPath(buildFlow("sw1", "sw1", 5), PathComputer.Strategy.HOPS);
+
+        assertTrue(path.getLeft().getPath().isEmpty());
+        assertTrue(path.getRight().getPath().isEmpty());
+    }
+
+    @Test(expected = UnroutablePathException.class)
+    public void getPathThroughInoperableSwitch() throws Exception {
+        pathComputer.getPath(buildFlow("sw1", "sw5", 5), PathComputer.Strategy.HOPS);
+    }
+
+    @Test(expected = UnroutablePathException.class)
+    public void getPathWithNotEnoughBandwidth() throws Exception {
+        pathComputer.getPath(buildFlow("sw1", "sw3", 20), PathComputer.Strategy.HOPS);
+    }
+
+    @Test
+    public void getPathIgnoringBandwidth() throws Exception {
+        Flow flow = new Flow("flow", 20, true, "", "sw1", 10, 100, "sw3", 10, 100);
+
+        ImmutablePair<PathInfoData, PathInfoData> path = pathComputer.getPath(flow, PathComputer.Strategy.HOPS);
+
+        assertEquals(4, path.getLeft().getPath().size());
+    }
+
+    @Test
+    public void getPathsAccountsBatchBandwidth() throws Exception {
+        Flow first = new Flow("first", 6, false, "", "sw1", 10, 100, "sw2", 10, 100);
+        Flow second = new Flow("second", 6, false, "", "sw1", 11, 100, "sw2", 11, 100);
+        Flow third = new Flow("third", 6, false, "", "sw1", 12, 100, "sw2", 12, 100);
+        Flow single = new Flow("single", 6, false, "", "sw3", 12, 100, "sw3", 13, 100);
+
+        PathBatch paths =
+                pathComputer.getPaths(Arrays.asList(first, second, third, single), PathComputer.Strategy.HOPS);
+
+        assertEquals(Arrays.asList("first", "second", "single"), Arrays.asList(paths.getPaths().keySet().toArray()));
+        assertEquals(Collections.singletonList("third"), paths.getUnroutable());
+        assertEquals(2, paths.getPath("first").getLeft().getPath().size());
+        assertEquals("sw4", paths.getPath("second").getLeft().getPath().get(1).getSwitchId());
+        assertTrue(paths.getPath("single").getLeft().getPath().isEmpty());
+        assertNull(paths.getPath("third"));
+    }
+
+    @Test
+    public void getShortestPaths() throws Exception {
+        networkCache.createIsl(new IslInfoData(100L, Arrays.asList(
+                new PathNode("sw1", 5, 0, 100L), new PathNode("sw3", 5, 1, 0L)), 10L, IslChangeType.DISCOVERED, 10L));
+
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths =
+                pathComputer.getShortestPaths(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS, 5);
+
+        assertEquals(3, paths.size());
+        assertEquals(2, paths.get(0).getLeft().getPath().size());
+        assertEquals(4, paths.get(1).getLeft().getPath().size());
+        assertEquals(6, paths.get(2).getLeft().getPath().size());
+        assertEquals("sw4", paths.get(2).getLeft().getPath().get(1).getSwitchId());
+    }
+
+    @Test
+    public void getLinkDisjointPaths() throws Exception {
+        networkCache.createIsl(new IslInfoData(10L, Arrays.asList(
+                new PathNode("sw2", 6, 0, 10L), new PathNode("sw3", 6, 1, 0L)), 10L, IslChangeType.DISCOVERED, 10L));
+
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths = pathComputer.getDisjointPaths(
+                buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS, PathComputer.Disjointness.LINK);
+
+        assertEquals(2, paths.size());
+        List<PathNode> primary = paths.get(0).getLeft().getPath();
+        List<PathNode> backup = paths.get(1).getLeft().getPath();
+        assertEquals(4, primary.size());
+        assertEquals(6, backup.size());
+        assertEquals("sw4", backup.get(1).getSwitchId());
+        assertNotEquals(primary.get(2), backup.get(4));
+    }
+
+    @Test
+    public void getSwitchDisjointPaths() throws Exception {
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths = pathComputer.getDisjointPaths(
+                buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS, PathComputer.Disjointness.SWITCH);
+
+        assertEquals(Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1)), paths.get(0).getLeft().getPath());
+        assertEquals(Arrays.asList(
+                new PathNode("sw1", 2, 0), new PathNode("sw4", 1, 1),
+                new PathNode("sw4", 2, 2), new PathNode("sw2", 3, 3)), paths.get(1).getLeft().getPath());
+    }
+
+    @Test
+    public void getDisjointPathsForOneSwitchFlow() throws Exception {
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths = pathComputer.getDisjointPaths(
+                buildFlow("sw1", "sw1", 5), PathComputer.Strategy.HOPS, PathComputer.Disjointness.SWITCH);
+
+        assertEquals(1, paths.size());
+        assertTrue(paths.get(0).getLeft().getPath().isEmpty());
+        assertTrue(paths.get(0).getRight().getPath().isEmpty());
+    }
+
+    @Test(expected = UnroutablePathException.class)
+    public void getSwitchDisjointPathsThroughSharedSwitch() throws Exception {
+        networkCache.createIsl(new IslInfoData(10L, Arrays.asList(
+                new PathNode("sw2", 6, 0, 10L), new PathNode("sw3", 6, 1, 0L)), 10L, IslChangeType.DISCOVERED, 10L));
+
+        pathComputer.getDisjointPaths(
+                buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS, PathComputer.Disjointness.SWITCH);
+    }
+
+    @Test(expected = UnroutablePathException.class)
+    public void getLinkDisjointPathsThroughSharedIsl() throws Exception {
+        pathComputer.getDisjointPaths(
+                buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS, PathComputer.Disjointness.LINK);
+    }
+
+    @Test
+    public void getCachedPath() throws Exception {
+        PathCache pathCache = new PathCache(10, 5);
+        PathComputer cachingComputer = new InMemoryPathComputer(networkCache, WeightFunction.HOPS, pathCache);
+
+        ImmutablePair<PathInfoData, PathInfoData> first =
+                cachingComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS);
+        ImmutablePair<PathInfoData, PathInfoData> second =
+                cachingComputer.getPath(buildFlow("sw1", "sw3", 9), PathComputer.Strategy.HOPS);
+
+        assertEquals(first.getLeft().getPath(), second.getLeft().getPath());
+        assertEquals(1L, pathCache.getMissCount());
+        assertEquals(1L, pathCache.getHitCount());
+
+        cachingComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.LATENCY);
+        assertEquals(2L, pathCache.getMissCount());
+        assertEquals(2, pathCache.size());
+    }
+
+    @Test
+    public void getCachedPathAfterTopologyChange() throws Exception {
+        PathCache pathCache = new PathCache(10, 5);
+        PathComputer cachingComputer = new InMemoryPathComputer(networkCache, WeightFunction.HOPS, pathCache);
+
+        ImmutablePair<PathInfoData, PathInfoData> before =
+                cachingComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS);
+        networkCache.createIsl(new IslInfoData(100L, Arrays.asList(
+                new PathNode("sw1", 5, 0, 100L), new PathNode("sw3", 5, 1, 0L)), 10L, IslChangeType.DISCOVERED, 10L));
+        ImmutablePair<PathInfoData, PathInfoData> after =
+                cachingComputer.getPath(buildFlow("sw1", "sw3", 5), PathComputer.Strategy.HOPS);
+
+        assertEquals(4, before.getLeft().getPath().size());
+        assertEquals(2, after.getLeft().getPath().size());
+        assertEquals(0L, pathCache.getHitCount());
+        assertEquals(2L, pathCache.getMissCount());
+    }
+
+    @Test
+    public void getCachedPathWithNotEnoughBandwidth() throws Exception {
+        PathCache pathCache = new PathCache(10, 10);
+        PathComputer cachingComputer = new InMemoryPathComputer(networkCache, WeightFunction.HOPS, pathCache);
+        IslInfoData congested = new IslInfoData(NetworkTopologyConstants.isl12);
+        congested.setAvailableBandwidth(6L);
+        networkCache.updateIsl(congested);
+
+        ImmutablePair<PathInfoData, PathInfoData> narrow =
+                cachingComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS);
+        ImmutablePair<PathInfoData, PathInfoData> wide =
+                cachingComputer.getPath(buildFlow("sw1", "sw2", 8), PathComputer.Strategy.HOPS);
+
+        assertEquals(2, narrow.getLeft().getPath().size());
+        assertEquals("sw4", wide.getLeft().getPath().get(1).getSwitchId());
+        assertEquals(1L, pathCache.getHitCount());
+    }
+
+    @Test
+    public void getCachedPathAfterBandwidthReservation() throws Exception {
+        PathCache pathCache = new PathCache(10, 5);
+        PathComputer cachingComputer = new InMemoryPathComputer(networkCache, WeightFunction.HOPS, pathCache);
+        PathInfoData isl12 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1)));
+
+        ImmutablePair<PathInfoData, PathInfoData> before =
+                cachingComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS);
+        networkCache.reserveBandwidth(isl12, 8L);
+        ImmutablePair<PathInfoData, PathInfoData> reserved =
+                cachingComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS);
+        networkCache.releaseBandwidth(isl12, 8L);
+        ImmutablePair<PathInfoData, PathInfoData> released =
+                cachingComputer.getPath(buildFlow("sw1", "sw2", 5), PathComputer.Strategy.HOPS);
+
+        assertEquals(2, before.getLeft().getPath().size());
+        assertEquals("sw4", reserved.getLeft().getPath().get(1).getSwitchId());
+        assertEquals(before.getLeft().getPath(), released.getLeft().getPath());
+        assertEquals(1L, pathCache.getMissCount());
+        assertEquals(2L, pathCache.getHitCount());
+    }
+
+    @Test
+    public void getBandwidthWeightedPathAfterBandwidthReservation() throws Exception {
+        PathComputer weightedComputer = new InMemoryPathComputer(networkCache,
+                WeightFunction.availableBandwidth(100L));
+        PathInfoData isl12 = new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 1, 0), new PathNode("sw2", 2, 1)));
+
+        ImmutablePair<PathInfoData, PathInfoData> before =
+                weightedComputer.getPath(buildFlow("sw1", "sw2", 1), PathComputer.Strategy.EXTERNAL);
+        networkCache.reserveBandwidth(isl12, 8L);
+        ImmutablePair<PathInfoData, PathInfoData> reserved =
+                weightedComputer.getPath(buildFlow("sw1", "sw2", 1), PathComputer.Strategy.EXTERNAL);
+
+        assertEquals(2, before.getLeft().getPath().size());
+        assertEquals("sw4", reserved.getLeft().getPath().get(1).getSwitchId());
+    }
+
+    @Test
+    public void getUncachedUnroutablePath() throws Exception {
+        PathCache pathCache = new PathCache(10, 5);
+        PathComputer cachingComputer = new InMemoryPathComputer(networkCache, WeightFunction.HOPS, pathCache);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                cachingComputer.getPath(buildFlow("sw1", "sw5", 5), PathComputer.Strategy.HOPS);
+                fail("Path between disconnected switches");
+            } catch (UnroutablePathException e) {
+                assertEquals(0, pathCache.size());
+            }
+        }
+        assertEquals(2L, pathCache.getMissCount());
+    }
+
+    private Flow buildFlow(String source, String destination, int bandwidth) {
+        return new Flow("flow", bandwidth, false, "", source, 10, 100, destination, 10, 100);
+    }
+}
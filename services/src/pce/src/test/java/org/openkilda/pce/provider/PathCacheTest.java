@@ -0,0 +1,73 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.pce.provider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.openkilda.messaging.model.Flow;
+
+import org.junit.Test;
+
+public class PathCacheTest {
+    private final PathCache pathCache = new PathCache(2, 100);
+
+    @Test
+    public void getByBandwidthBucket() {
+        pathCache.put(buildFlow("sw1", "sw2", 120), PathComputer.Strategy.HOPS, 1L, new int[] {1, 2});
+
+        assertArrayEquals(new int[] {1, 2},
+                pathCache.get(buildFlow("sw1", "sw2", 199), PathComputer.Strategy.HOPS, 1L));
+        assertNull(pathCache.get(buildFlow("sw1", "sw2", 200), PathComputer.Strategy.HOPS, 1L));
+        assertNull(pathCache.get(buildFlow("sw1", "sw2", 120), PathComputer.Strategy.COST, 1L));
+        assertNull(pathCache.get(buildFlow("sw2", "sw1", 120), PathComputer.Strategy.HOPS, 1L));
+        assertEquals(1L, pathCache.getHitCount());
+        assertEquals(3L, pathCache.getMissCount());
+    }
+
+    @Test
+    public void getStaleGeneration() {
+        pathCache.put(buildFlow("sw1", "sw2", 120), PathComputer.Strategy.HOPS, 1L, new int[] {1, 2});
+
+        assertNull(pathCache.get(buildFlow("sw1", "sw2", 120), PathComputer.Strategy.HOPS, 2L));
+        assertEquals(1L, pathCache.getMissCount());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        pathCache.put(buildFlow("sw1", "sw2", 0), PathComputer.Strategy.HOPS, 1L, new int[] {1});
+        pathCache.put(buildFlow("sw1", "sw3", 0), PathComputer.Strategy.HOPS, 1L, new int[] {2});
+        pathCache.get(buildFlow("sw1", "sw2", 0), PathComputer.Strategy.HOPS, 1L);
+        pathCache.put(buildFlow("sw1", "sw4", 0), PathComputer.Strategy.HOPS, 1L, new int[] {3});
+
+        assertEquals(2, pathCache.size());
+        assertEquals(1L, pathCache.getEvictionCount());
+        assertNull(pathCache.get(buildFlow("sw1", "sw3", 0), PathComputer.Strategy.HOPS, 1L));
+        assertArrayEquals(new int[] {1}, pathCache.get(buildFlow("sw1", "sw2", 0), PathComputer.Strategy.HOPS, 1L));
+    }
+
+    @Test
+    public void getSearchBandwidth() {
+        assertEquals(100L, pathCache.getSearchBandwidth(buildFlow("sw1", "sw2", 199)));
+        assertEquals(Long.MIN_VALUE,
+                pathCache.getSearchBandwidth(new Flow("flow", 199, true, "", "sw1", 10, 100, "sw2", 10, 100)));
+    }
+
+    private Flow buildFlow(String source, String destination, int bandwidth) {
+        return new Flow("flow", bandwidth, false, "", source, 10, 100, destination, 10, 100);
+    }
+}
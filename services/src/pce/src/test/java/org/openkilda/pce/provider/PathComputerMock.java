@@ -71,6 +71,18 @@ public class PathComputerMock implements PathComputer {
                 path(destination, source, flow.getBandwidth()));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The mock computes single paths only, so no flow has a disjoint pair.
+     */
+    @Override
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getDisjointPaths(Flow flow, Strategy strategy,
+                                                                            Disjointness disjointness)
+            throws UnroutablePathException {
+        throw new UnroutablePathException(flow);
+    }
+
     @Override
     public List<FlowInfo> getFlowInfo() {
         return new ArrayList<>();
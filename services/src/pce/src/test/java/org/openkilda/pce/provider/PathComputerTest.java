@@ -6,7 +6,16 @@ import static org.junit.Assert.assertEquals;
 import org.junit.*;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.hash.Hashing;
 
 import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.Driver;
@@ -16,6 +25,10 @@ import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.io.fs.FileUtils;
 import org.neo4j.kernel.configuration.BoltConnector;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserFunction;
 
 
 import org.openkilda.messaging.info.event.PathInfoData;
@@ -24,6 +37,9 @@ import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.neo.NeoUtils;
 import org.openkilda.neo.OkNode;
 import org.openkilda.neo.NeoUtils.OkRels;
+import org.openkilda.pce.cache.FlowDigest;
+import org.openkilda.pce.cache.NetworkCache;
+import org.openkilda.pce.cache.ResourceCache;
 
 /**
  * The primary goals of this test package are to emulate the Acceptance Tests in the ATDD module.
@@ -51,6 +67,10 @@ public class PathComputerTest {
                 .setConfig( bolt.listen_address, "localhost:7878" )
                 .newGraphDatabase();
 
+        // APOC is not deployed to the embedded database, so register the functions the queries use
+        ((GraphDatabaseAPI) graphDb).getDependencyResolver().resolveDependency(Procedures.class)
+                .registerFunction(ApocFunctions.class);
+
         // Shuts down nicely when the VM exits
         Runtime.getRuntime().addShutdownHook( new Thread(() -> {
             System.out.println("Killing Elephants \uD83D\uDC18");
@@ -111,21 +131,99 @@ public class PathComputerTest {
 
     }
 
+    @Test
+    public void testGetFlowDigest() {
+        List<FlowInfo> flows = Arrays.asList(
+                flowInfo("f1", ResourceCache.FORWARD_FLOW_COOKIE_MASK | 1, 1, 100, "00:01"),
+                flowInfo("f1", ResourceCache.REVERSE_FLOW_COOKIE_MASK | 1, 1, 101, "00:02"),
+                flowInfo("f2", ResourceCache.FORWARD_FLOW_COOKIE_MASK | 0xFFFFFFFEL, 2, 4000, "00:01"),
+                flowInfo("f2", ResourceCache.REVERSE_FLOW_COOKIE_MASK | 0xFFFFFFFEL, 2, 4001, "00:02"),
+                flowInfo("f3", -7L, 3, 200, "00:02"),
+                flowInfo("f4", Long.MIN_VALUE | 0x80000005L, 4, 300, "00:01"));
+        try ( Transaction tx = graphDb.beginTx() ) {
+            Node node1 = createNode("00:01");
+            Node node2 = createNode("00:02");
+            for (FlowInfo flow : flows) {
+                boolean forward = flow.getSrcSwitchId().equals("00:01");
+                addFlow(forward ? node1 : node2, forward ? node2 : node1, flow);
+            }
+            tx.success();
+        }
+
+        int buckets = 16;
+        FlowDigest expected = new FlowDigest(buckets);
+        flows.forEach(expected::add);
+
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver);
+        FlowDigest digest = nd.getFlowDigest(buckets);
+        Assert.assertEquals(flows.size(), digest.size());
+        Assert.assertEquals(new HashSet<Integer>(), expected.diff(digest));
+
+        Set<Integer> selected = new HashSet<>(Arrays.asList(
+                FlowDigest.getBucket(-7L, buckets), FlowDigest.getBucket(0xFFFFFFFEL, buckets)));
+        Set<String> expectedRecords = flows.stream()
+                .filter(flow -> selected.contains(FlowDigest.getBucket(flow.getCookie(), buckets)))
+                .map(PathComputerTest::toRecord)
+                .collect(Collectors.toSet());
+        Set<String> records = nd.getFlowInfo(selected, buckets).stream()
+                .map(PathComputerTest::toRecord)
+                .collect(Collectors.toSet());
+        Assert.assertEquals(3, expectedRecords.size());
+        Assert.assertEquals(expectedRecords, records);
+    }
+
+    private FlowInfo flowInfo(String flowId, long cookie, int meterId, int transitVlan, String srcSwitch) {
+        return new FlowInfo()
+                .setFlowId(flowId)
+                .setCookie(cookie)
+                .setMeterId(meterId)
+                .setTransitVlanId(transitVlan)
+                .setSrcSwitchId(srcSwitch);
+    }
+
+    private static String toRecord(FlowInfo flow) {
+        return String.join("/", flow.getFlowId(), Long.toString(flow.getCookie()),
+                Integer.toString(flow.getMeterId()), Integer.toString(flow.getTransitVlanId()), flow.getSrcSwitchId());
+    }
+
+    private Relationship addFlow(Node src, Node dst, FlowInfo flow) {
+        Relationship rel = src.createRelationshipTo(dst, RelationshipType.withName("flow"));
+        rel.setProperty("flowid", flow.getFlowId());
+        rel.setProperty("cookie", flow.getCookie());
+        rel.setProperty("meter_id", flow.getMeterId());
+        rel.setProperty("transit_vlan", flow.getTransitVlanId());
+        rel.setProperty("src_switch", flow.getSrcSwitchId());
+        return rel;
+    }
+
+    /**
+     * Stand-ins for the APOC functions, same as the APOC implementations.
+     */
+    public static class ApocFunctions {
+        @UserFunction("apoc.util.md5")
+        public String md5(@Name("values") List<Object> values) {
+            String value = values.stream().map(v -> Objects.toString(v, "")).collect(Collectors.joining());
+            return Hashing.md5().hashString(value, StandardCharsets.UTF_8).toString();
+        }
+    }
+
     private Node createNode(String name) {
         Node n = graphDb.createNode(Label.label("switch"));
         n.setProperty("name", name);
         n.setProperty("state", "active");
         return n;
     }
-    private Relationship addRel (Node n1, Node n2, String status, int cost, int bw){
+    private Relationship addRel (Node n1, Node n2, String status, int cost, int bw, int latency, int srcPort,
+                                 int dstPort){
         Relationship rel;
         rel = n1.createRelationshipTo(n2, RelationshipType.withName("isl"));
         rel.setProperty("status",status);
         if (cost >= 0) {rel.setProperty("cost", cost);}
         rel.setProperty("available_bandwidth", bw);
-        rel.setProperty("latency", 5);
-        rel.setProperty("src_port", 5);
-        rel.setProperty("dst_port", 5);
+        rel.setProperty("latency", latency);
+        rel.setProperty("src_port", srcPort);
+        rel.setProperty("dst_port", dstPort);
         rel.setProperty("src_switch", n1.getProperty("name"));
         rel.setProperty("dst_switch", n2.getProperty("name"));
         return rel;
@@ -140,14 +238,14 @@ public class PathComputerTest {
             nodeB = createNode("00:02");
             nodeC = createNode("00:03");
             nodeD = createNode("00:04");
-            addRel(nodeA, nodeB, pathBstatus, pathBcost, 1000);
-            addRel(nodeA, nodeC, "active", pathCcost, 1000);
-            addRel(nodeB, nodeD, pathBstatus, pathBcost, 1000);
-            addRel(nodeC, nodeD, "active", pathCcost, 1000);
-            addRel(nodeB, nodeA, pathBstatus, pathBcost, 1000);
-            addRel(nodeC, nodeA, "active", pathCcost, 1000);
-            addRel(nodeD, nodeB, pathBstatus, pathBcost, 1000);
-            addRel(nodeD, nodeC, "active", pathCcost, 1000);
+            addRel(nodeA, nodeB, pathBstatus, pathBcost, 1000, 5, 1, 1);
+            addRel(nodeB, nodeA, pathBstatus, pathBcost, 1000, 5, 1, 1);
+            addRel(nodeA, nodeC, "active", pathCcost, 1000, 5, 2, 1);
+            addRel(nodeC, nodeA, "active", pathCcost, 1000, 5, 1, 2);
+            addRel(nodeB, nodeD, pathBstatus, pathBcost, 1000, 5, 2, 1);
+            addRel(nodeD, nodeB, pathBstatus, pathBcost, 1000, 5, 1, 2);
+            addRel(nodeC, nodeD, "active", pathCcost, 1000, 5, 2, 2);
+            addRel(nodeD, nodeC, "active", pathCcost, 1000, 5, 2, 2);
             tx.success();
         }
     }
@@ -213,6 +311,192 @@ public class PathComputerTest {
     }
 
 
+    @Test
+    public void testGetPathByLatency() throws UnroutablePathException {
+        try ( Transaction tx = graphDb.beginTx() ) {
+            // A - B - D, lower latency than A - D, while A - C - D is the lowest but inactive
+            Node nodeA = createNode("00:01");
+            Node nodeB = createNode("00:02");
+            Node nodeC = createNode("00:03");
+            Node nodeD = createNode("00:04");
+            addRel(nodeA, nodeD, "active", 10, 1000, 100, 1, 1);
+            addRel(nodeD, nodeA, "active", 10, 1000, 100, 1, 1);
+            addRel(nodeA, nodeB, "active", 10, 1000, 5, 2, 1);
+            addRel(nodeB, nodeA, "active", 10, 1000, 5, 1, 2);
+            addRel(nodeB, nodeD, "active", 10, 1000, 5, 2, 2);
+            addRel(nodeD, nodeB, "active", 10, 1000, 5, 2, 2);
+            addRel(nodeA, nodeC, "inactive", 10, 1000, 1, 3, 1);
+            addRel(nodeC, nodeA, "inactive", 10, 1000, 1, 1, 3);
+            addRel(nodeC, nodeD, "inactive", 10, 1000, 1, 2, 3);
+            addRel(nodeD, nodeC, "inactive", 10, 1000, 1, 3, 2);
+            tx.success();
+        }
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver);
+        Flow f = new Flow();
+        f.setSourceSwitch("00:01");
+        f.setDestinationSwitch("00:04");
+        f.setBandwidth(100);
+
+        ImmutablePair<PathInfoData, PathInfoData> hops = nd.getPath(f, PathComputer.Strategy.HOPS);
+        Assert.assertEquals(2, hops.left.getPath().size());
+
+        ImmutablePair<PathInfoData, PathInfoData> path = nd.getPath(f, PathComputer.Strategy.LATENCY);
+        Assert.assertEquals(4, path.left.getPath().size());
+        Assert.assertEquals("00:02", path.left.getPath().get(1).getSwitchId()); // longer path B is faster
+        Assert.assertEquals(10L, path.left.getLatency());
+        Assert.assertEquals(10L, path.right.getLatency());
+    }
+
+    @Test
+    public void testGetPathByLatencyAfterTopologyChange() throws UnroutablePathException {
+        Relationship fast;
+        try ( Transaction tx = graphDb.beginTx() ) {
+            // A - B - D is faster than A - D until it runs out of bandwidth
+            Node nodeA = createNode("00:01");
+            Node nodeB = createNode("00:02");
+            Node nodeD = createNode("00:04");
+            addRel(nodeA, nodeD, "active", 10, 1000, 100, 1, 1);
+            addRel(nodeD, nodeA, "active", 10, 1000, 100, 1, 1);
+            fast = addRel(nodeA, nodeB, "active", 10, 1000, 5, 2, 1);
+            addRel(nodeB, nodeA, "active", 10, 1000, 5, 1, 2);
+            addRel(nodeB, nodeD, "active", 10, 1000, 5, 2, 2);
+            addRel(nodeD, nodeB, "active", 10, 1000, 5, 2, 2);
+            tx.success();
+        }
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver, new NetworkCache(), 0);
+        Flow f = new Flow();
+        f.setSourceSwitch("00:01");
+        f.setDestinationSwitch("00:04");
+        f.setBandwidth(100);
+
+        Assert.assertEquals(4, nd.getPath(f, PathComputer.Strategy.LATENCY).left.getPath().size());
+        Assert.assertEquals(4, nd.getPath(f, PathComputer.Strategy.LATENCY).left.getPath().size());
+
+        try ( Transaction tx = graphDb.beginTx() ) {
+            graphDb.getRelationshipById(fast.getId()).setProperty("available_bandwidth", 50);
+            tx.success();
+        }
+        ImmutablePair<PathInfoData, PathInfoData> path = nd.getPath(f, PathComputer.Strategy.LATENCY);
+        Assert.assertEquals(2, path.left.getPath().size());
+        Assert.assertEquals(100L, path.left.getLatency());
+    }
+
+    @Test
+    public void testGetPathByLatencyIsCachedAcrossBandwidthChange() throws UnroutablePathException {
+        Relationship fast;
+        try ( Transaction tx = graphDb.beginTx() ) {
+            Node nodeA = createNode("00:01");
+            Node nodeB = createNode("00:02");
+            Node nodeD = createNode("00:04");
+            addRel(nodeA, nodeD, "active", 10, 1000, 100, 1, 1);
+            addRel(nodeD, nodeA, "active", 10, 1000, 100, 1, 1);
+            fast = addRel(nodeA, nodeB, "active", 10, 1000, 5, 2, 1);
+            addRel(nodeB, nodeA, "active", 10, 1000, 5, 1, 2);
+            addRel(nodeB, nodeD, "active", 10, 1000, 5, 2, 2);
+            addRel(nodeD, nodeB, "active", 10, 1000, 5, 2, 2);
+            tx.success();
+        }
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver, new NetworkCache(), 0);
+        Flow f = new Flow();
+        f.setSourceSwitch("00:01");
+        f.setDestinationSwitch("00:04");
+        f.setBandwidth(100);
+
+        Assert.assertEquals(4, nd.getPath(f, PathComputer.Strategy.LATENCY).left.getPath().size());
+        Assert.assertEquals(Long.valueOf(0L), nd.getMetrics().get("hits"));
+
+        // the flow still fits, so the path cached before the change is used
+        try ( Transaction tx = graphDb.beginTx() ) {
+            graphDb.getRelationshipById(fast.getId()).setProperty("available_bandwidth", 500);
+            tx.success();
+        }
+        Assert.assertEquals(4, nd.getPath(f, PathComputer.Strategy.LATENCY).left.getPath().size());
+        Assert.assertEquals(Long.valueOf(1L), nd.getMetrics().get("hits"));
+        Assert.assertEquals(Long.valueOf(1L), nd.getMetrics().get("misses"));
+    }
+
+    @Test
+    public void testGetPathByLatencyChecksDatabaseOncePerInterval() throws UnroutablePathException {
+        Relationship fast;
+        try ( Transaction tx = graphDb.beginTx() ) {
+            Node nodeA = createNode("00:01");
+            Node nodeB = createNode("00:02");
+            Node nodeD = createNode("00:04");
+            addRel(nodeA, nodeD, "active", 10, 1000, 100, 1, 1);
+            addRel(nodeD, nodeA, "active", 10, 1000, 100, 1, 1);
+            fast = addRel(nodeA, nodeB, "active", 10, 1000, 5, 2, 1);
+            addRel(nodeB, nodeA, "active", 10, 1000, 5, 1, 2);
+            addRel(nodeB, nodeD, "active", 10, 1000, 5, 2, 2);
+            addRel(nodeD, nodeB, "active", 10, 1000, 5, 2, 2);
+            tx.success();
+        }
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver, new NetworkCache(), TimeUnit.HOURS.toMillis(1));
+        Flow f = new Flow();
+        f.setSourceSwitch("00:01");
+        f.setDestinationSwitch("00:04");
+        f.setBandwidth(100);
+
+        Assert.assertEquals(4, nd.getPath(f, PathComputer.Strategy.LATENCY).left.getPath().size());
+
+        // the change is not seen until the interval passes
+        try ( Transaction tx = graphDb.beginTx() ) {
+            graphDb.getRelationshipById(fast.getId()).setProperty("available_bandwidth", 50);
+            tx.success();
+        }
+        Assert.assertEquals(4, nd.getPath(f, PathComputer.Strategy.LATENCY).left.getPath().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPathByExternalIsRejected() throws UnroutablePathException {
+        createDiamond("active", 10, 20);
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver);
+        Flow f = new Flow();
+        f.setSourceSwitch("00:01");
+        f.setDestinationSwitch("00:04");
+        f.setBandwidth(100);
+        nd.getPath(f, PathComputer.Strategy.EXTERNAL);
+    }
+
+    @Test
+    public void testGetPathsReportsUnroutable() {
+        createDiamond("active", 10, 20);
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver);
+        List<Flow> flows = Arrays.asList(
+                new Flow("first", 600, false, "", "00:01", 1, 100, "00:04", 1, 100),
+                new Flow("second", 600, false, "", "00:01", 2, 100, "00:04", 2, 100),
+                new Flow("third", 600, false, "", "00:01", 3, 100, "00:04", 3, 100));
+
+        PathBatch paths = nd.getPaths(flows, PathComputer.Strategy.COST);
+
+        Assert.assertEquals("00:02", paths.getPath("first").left.getPath().get(1).getSwitchId());
+        Assert.assertEquals("00:03", paths.getPath("second").left.getPath().get(1).getSwitchId());
+        Assert.assertEquals(Arrays.asList("third"), paths.getUnroutable());
+    }
+
+    @Test
+    public void testGetDisjointPaths() throws UnroutablePathException {
+        createDiamond("active", 10, 20);
+        Driver driver = GraphDatabase.driver( "bolt://localhost:7878", AuthTokens.basic( "neo4j", "password" ) );
+        NeoDriver nd = new NeoDriver(driver);
+        Flow f = new Flow();
+        f.setSourceSwitch("00:01");
+        f.setDestinationSwitch("00:04");
+        f.setBandwidth(100);
+        List<ImmutablePair<PathInfoData, PathInfoData>> paths =
+                nd.getDisjointPaths(f, PathComputer.Strategy.COST, PathComputer.Disjointness.SWITCH);
+        Assert.assertEquals(2, paths.size());
+        Assert.assertEquals("00:02", paths.get(0).left.getPath().get(1).getSwitchId()); // primary is path B
+        Assert.assertEquals("00:03", paths.get(1).left.getPath().get(1).getSwitchId());
+        Assert.assertEquals("00:04", paths.get(1).left.getPath().get(3).getSwitchId());
+    }
+
+
     /* ==========> TESTING DIJKSTRA
      * THE FOLLOWING CAN BE USED DIRECTLY IN THE NEO4J BROWSER.
 
@@ -351,7 +635,7 @@ return p
          */
         try ( Transaction tx = graphDb.beginTx() )
         {
-//            graphDb.findNodes().
+            graphDb.execute("MATCH (n) DETACH DELETE n");
             tx.success();
         }
     }
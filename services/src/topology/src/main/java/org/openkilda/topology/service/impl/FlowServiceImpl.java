@@ -26,6 +26,7 @@ import org.openkilda.messaging.info.flow.FlowPathResponse;
 import org.openkilda.messaging.info.flow.FlowResponse;
 import org.openkilda.messaging.info.flow.FlowsResponse;
 import org.openkilda.messaging.payload.ResourcePool;
+import org.openkilda.messaging.payload.SparseResourcePool;
 import org.openkilda.messaging.payload.flow.FlowEndpointPayload;
 import org.openkilda.messaging.payload.flow.FlowIdStatusPayload;
 import org.openkilda.messaging.payload.flow.FlowPathPayload;
@@ -106,7 +107,7 @@ public class FlowServiceImpl implements FlowService {
     /**
      * Cookie resource allocator.
      */
-    private static final ResourcePool cookiePool = new ResourcePool(MIN_COOKIE_VALUE, MAX_COOKIE_VALUE);
+    private static final SparseResourcePool cookiePool = new SparseResourcePool(MIN_COOKIE_VALUE, MAX_COOKIE_VALUE);
 
     /**
      * Inventory repository.
@@ -303,7 +304,7 @@ public class FlowServiceImpl implements FlowService {
         for (Flow flow : flows) {
             response.addAll(flow.getDeletionCommands(correlationId));
             flowRepository.delete(flow);
-            cookiePool.deallocate((int) (flow.getCookie()));
+            cookiePool.deallocate(flow.getCookie() & COOKIE_MASK);
             transitVlanIdPool.deallocate(flow.getTransitVlan());
             logger.debug("Flow deleted: {}", flows);
         }
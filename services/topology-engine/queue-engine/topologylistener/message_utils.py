@@ -155,7 +155,8 @@ class Message(object):
 def send_to_topic(payload, correlation_id,
                   message_type,
                   destination="WFM",
-                  topic=config.KAFKA_FLOW_TOPIC):
+                  topic=config.KAFKA_FLOW_TOPIC,
+                  key=None):
     message = Message()
     message.payload = payload
     message.clazz = message_type
@@ -163,8 +164,9 @@ def send_to_topic(payload, correlation_id,
     message.timestamp = get_timestamp()
     message.correlation_id = correlation_id
     kafka_message = b'{}'.format(message.to_json())
-    logger.debug('Send message: topic=%s, message=%s', topic, kafka_message)
-    message_result = producer.send(topic, kafka_message)
+    logger.debug('Send message: topic=%s, key=%s, message=%s',
+                 topic, key, kafka_message)
+    message_result = producer.send(topic, kafka_message, key=key)
     message_result.get(timeout=5)
 
 
@@ -172,8 +174,9 @@ def send_info_message(payload, correlation_id):
     send_to_topic(payload, correlation_id, MT_INFO)
 
 
-def send_cache_message(payload, correlation_id):
-    send_to_topic(payload, correlation_id, MT_INFO, "WFM_CACHE", config.KAFKA_CACHE_TOPIC)
+def send_cache_message(payload, correlation_id, key=None):
+    send_to_topic(payload, correlation_id, MT_INFO, "WFM_CACHE",
+                  config.KAFKA_CACHE_TOPIC, key)
 
 
 def send_error_message(correlation_id, error_type, error_message,
@@ -37,6 +37,9 @@ MT_FLOW_RESPONSE  = "org.openkilda.messaging.info.flow.FlowResponse"
 MT_NETWORK = "org.openkilda.messaging.info.discovery.NetworkInfoData"
 CD_NETWORK = "org.openkilda.messaging.command.discovery.NetworkCommandData"
 
+# Kafka key of the network dump chunks, keeps them in one partition in order
+NETWORK_DUMP_KEY = b"network-dump"
+
 
 class MessageItem(object):
     def __init__(self, **kwargs):
@@ -58,6 +61,36 @@ class MessageItem(object):
     def get_command(self):
         return self.payload.get('clazz', 'unknown')
 
+    @staticmethod
+    def send_network_chunks(switches, isls, flows, chunk_size,
+                            correlation_id):
+        """
+        Sends the network dump as numbered chunks of at most chunk_size
+        entries. Switches go first and flows last, so every chunk only
+        refers to switches sent before it. The last chunk is marked.
+        All chunks share one Kafka key, so they land in one partition and
+        arrive in order.
+        """
+        entries = ([('switches', x) for x in switches] +
+                   [('isls', x) for x in isls] +
+                   [('flows', x) for x in flows])
+        chunks = [entries[i:i + chunk_size]
+                  for i in range(0, len(entries), chunk_size)] or [[]]
+
+        for number, chunk in enumerate(chunks):
+            payload = {
+                'switches': [x for kind, x in chunk if kind == 'switches'],
+                'isls': [x for kind, x in chunk if kind == 'isls'],
+                'flows': [x for kind, x in chunk if kind == 'flows'],
+                'chunk_number': number,
+                'last_chunk': number == len(chunks) - 1,
+                'clazz': MT_NETWORK}
+            message_utils.send_cache_message(payload, correlation_id,
+                                             NETWORK_DUMP_KEY)
+
+        logger.info('Network dump sent in %d chunks: correlation_id=%s',
+                    len(chunks), correlation_id)
+
     def get_message_type(self):
         return self.payload.get('clazz', 'unknown')
 
@@ -593,6 +626,7 @@ class MessageItem(object):
                     'speed': int(link['speed']),
                     'latency_ns': int(link['latency']),
                     'available_bandwidth': int(link['available_bandwidth']),
+                    'cost': int(link['cost'] or 0),
                     'state': "DISCOVERED",
                     'path': [
                         {'switch_id': str(link['src_switch']),
@@ -657,12 +691,17 @@ class MessageItem(object):
             logger.debug("%s: %s", step, flows)
 
             step = "Send"
-            payload = {
-                'switches': switches,
-                'isls': isls,
-                'flows': flows,
-                'clazz': MT_NETWORK}
-            message_utils.send_cache_message(payload, correlation_id)
+            chunk_size = self.payload.get('chunk_size')
+            if chunk_size:
+                self.send_network_chunks(
+                    switches, isls, flows, chunk_size, correlation_id)
+            else:
+                payload = {
+                    'switches': switches,
+                    'isls': isls,
+                    'flows': flows,
+                    'clazz': MT_NETWORK}
+                message_utils.send_cache_message(payload, correlation_id)
 
         except Exception as e:
             logger.exception('Can not dump network: %s', e.message)
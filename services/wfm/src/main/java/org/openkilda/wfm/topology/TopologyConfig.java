@@ -19,6 +19,12 @@ public class TopologyConfig {
     private Integer discoveryLimit;
     private float discoverySpeakerFailureTimeout;
     private String filterDirectory;
+    private String stateDirectory;
+    private Integer rerouteDelay;
+    private Integer rerouteMaxDelay;
+    private Integer rerouteRate;
+    private Integer networkDumpChunkSize;
+    private Integer networkDumpTimeout;
     private Level loggerLevel;
     private String loggerWatermark;
 
@@ -72,6 +78,12 @@ public class TopologyConfig {
         discoveryLimit = config.getInteger("discovery.limit");
         discoverySpeakerFailureTimeout = config.getFloat("discovery.speaker-failure-timeout");
         filterDirectory = config.getString("filter.directory");
+        stateDirectory = config.getString("state.directory");
+        rerouteDelay = (int)(config.getFloat("reroute.delay") * 1000);
+        rerouteMaxDelay = (int)(config.getFloat("reroute.delay.max") * 1000);
+        rerouteRate = config.getInteger("reroute.rate");
+        networkDumpChunkSize = config.getInteger("network.dump.chunk.size");
+        networkDumpTimeout = config.getInteger("network.dump.timeout");
         loggerLevel = Level.valueOf(config.getString("logger.level"));
         loggerWatermark = config.getString("logger.watermark");
 
@@ -155,6 +167,30 @@ public class TopologyConfig {
         return filterDirectory;
     }
 
+    public String getStateDirectory() {
+        return stateDirectory;
+    }
+
+    public Integer getRerouteDelay() {
+        return rerouteDelay;
+    }
+
+    public Integer getRerouteMaxDelay() {
+        return rerouteMaxDelay;
+    }
+
+    public Integer getRerouteRate() {
+        return rerouteRate;
+    }
+
+    public Integer getNetworkDumpChunkSize() {
+        return networkDumpChunkSize;
+    }
+
+    public Integer getNetworkDumpTimeout() {
+        return networkDumpTimeout;
+    }
+
     public Level getLoggerLevel() {
         return loggerLevel;
     }
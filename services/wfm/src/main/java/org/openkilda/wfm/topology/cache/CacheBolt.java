@@ -28,7 +28,6 @@ import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
-import org.openkilda.messaging.BaseMessage;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.Utils;
@@ -44,6 +43,8 @@ import org.openkilda.messaging.ctrl.state.NetworkDump;
 import org.openkilda.messaging.error.CacheException;
 import org.openkilda.messaging.info.InfoData;
 import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.InfoMessageDispatcher;
+import org.openkilda.messaging.info.InfoMessageDispatcher.Handler;
 import org.openkilda.messaging.info.discovery.NetworkInfoData;
 import org.openkilda.messaging.info.event.IslInfoData;
 import org.openkilda.messaging.info.event.PathNode;
@@ -56,6 +57,7 @@ import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.messaging.payload.flow.FlowState;
 import org.openkilda.pce.cache.Cache;
+import org.openkilda.pce.cache.CacheJournal;
 import org.openkilda.pce.cache.FlowCache;
 import org.openkilda.pce.cache.NetworkCache;
 import org.openkilda.pce.cache.ResourceCache;
@@ -63,11 +65,15 @@ import org.openkilda.wfm.ctrl.CtrlAction;
 import org.openkilda.wfm.ctrl.ICtrlBolt;
 import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.cache.service.CacheWarmingService;
+import org.openkilda.wfm.topology.cache.service.RerouteScheduler;
 import org.openkilda.wfm.topology.utils.AbstractTickStatefulBolt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -97,6 +103,11 @@ public class CacheBolt
      */
     private static final Logger logger = LoggerFactory.getLogger(CacheBolt.class);
 
+    /**
+     * Metrics reporting interval in seconds.
+     */
+    private static final int METRICS_INTERVAL = 60;
+
     /**
      * Network cache.
      */
@@ -133,13 +144,68 @@ public class CacheBolt
      */
     private final int discoveryInterval;
 
+    /**
+     * Directory the caches are journaled to, or empty if the caches are not journaled.
+     */
+    private final String stateDirectory;
+
+    /**
+     * Journals of the caches.
+     */
+    private final List<CacheJournal> journals = new ArrayList<>();
+
+    /**
+     * Reroute debounce delay, maximum delay in milliseconds and maximum number of reroutes per second.
+     */
+    private final int rerouteDelay;
+    private final int rerouteMaxDelay;
+    private final int rerouteRate;
+
+    /**
+     * Maximum number of switches, isls and flows in a network dump chunk.
+     */
+    private final int networkDumpChunkSize;
+
+    /**
+     * Seconds without a network dump chunk before the network dump is requested again.
+     */
+    private final int networkDumpTimeout;
+
+    /**
+     * Scheduler of reroutes caused by network events.
+     */
+    private transient RerouteScheduler rerouteScheduler;
+
+    /**
+     * Dispatcher of the input messages to their handlers.
+     */
+    private transient InfoMessageDispatcher<Tuple> dispatcher;
+
+    /**
+     * Whether the message being handled is a network dump chunk.
+     */
+    private transient boolean isNetworkDump;
+
     /**
      * Instance constructor.
      *
-     * @param discoveryInterval discovery interval
+     * @param discoveryInterval    discovery interval
+     * @param stateDirectory       directory the caches are journaled to, or empty if the caches are not journaled
+     * @param rerouteDelay         reroute debounce delay in milliseconds
+     * @param rerouteMaxDelay      reroute maximum delay in milliseconds
+     * @param rerouteRate          maximum number of reroutes per second
+     * @param networkDumpChunkSize maximum number of switches, isls and flows in a network dump chunk
+     * @param networkDumpTimeout   seconds without a network dump chunk before the network dump is requested again
      */
-    CacheBolt(int discoveryInterval) {
+    CacheBolt(int discoveryInterval, String stateDirectory, int rerouteDelay, int rerouteMaxDelay, int rerouteRate,
+              int networkDumpChunkSize, int networkDumpTimeout) {
         this.discoveryInterval = discoveryInterval;
+        this.stateDirectory = stateDirectory;
+        this.rerouteDelay = rerouteDelay;
+        this.rerouteMaxDelay = rerouteMaxDelay;
+        this.rerouteRate = rerouteRate;
+        this.networkDumpChunkSize = networkDumpChunkSize;
+        this.networkDumpTimeout = networkDumpTimeout;
     }
 
     /**
@@ -147,6 +213,31 @@ public class CacheBolt
      */
     private boolean isReceivedCacheInfo = false;
 
+    /**
+     * Whether the caches were recovered from the journals with a topology, so the network dump is not requested.
+     */
+    private boolean isRecoveredFromJournal = false;
+
+    /**
+     * Number of the network dump chunk expected next, chunks out of sequence are dropped until a new dump starts.
+     */
+    private int expectedDumpChunk = 0;
+
+    /**
+     * Whether the network dump is requested and its first chunk is not received yet.
+     */
+    private boolean isDumpRequested = false;
+
+    /**
+     * Seconds since the network dump was requested or its last chunk was received.
+     */
+    private int dumpIdleTime = 0;
+
+    /**
+     * Flows of the network dump being received, restored once the last chunk arrives.
+     */
+    private List<ImmutablePair<Flow, Flow>> dumpFlows = new ArrayList<>();
+
     /**
      * {@inheritDoc}
      */
@@ -164,6 +255,7 @@ public class CacheBolt
         if (flowCache == null) {
             flowCache = new FlowCache();
             this.state.put(FLOW_CACHE, flowCache);
+            attachJournals();
         }
 
         cacheWarmingService = new CacheWarmingService(networkCache);
@@ -177,6 +269,61 @@ public class CacheBolt
     public void prepare(Map map, TopologyContext topologyContext, OutputCollector outputCollector) {
         this.context = topologyContext;
         this.outputCollector = outputCollector;
+
+        rerouteScheduler = new RerouteScheduler(rerouteDelay, rerouteMaxDelay, rerouteRate);
+        topologyContext.registerMetric("reroute-scheduler", rerouteScheduler::getMetrics, METRICS_INTERVAL);
+
+        dispatcher = new InfoMessageDispatcher<Tuple>()
+                .register(NetworkInfoData.class, (data, tuple) -> {
+                    logger.debug("Storage content message {}", tuple);
+                    isNetworkDump = true;
+                    if (handleNetworkDump(data, tuple)) {
+                        isReceivedCacheInfo = true;
+                    }
+                })
+                .register(SwitchInfoData.class, whenInitialized((data, tuple) -> {
+                    logger.info("Cache update switch info data: {}", data);
+                    handleSwitchEvent(data, tuple);
+                }))
+                .register(IslInfoData.class, whenInitialized((data, tuple) -> {
+                    logger.info("Cache update isl info data: {}", data);
+                    handleIslEvent(data, tuple);
+                }))
+                .register(PortInfoData.class, whenInitialized((data, tuple) -> {
+                    logger.info("Cache update port info data: {}", data);
+                    handlePortEvent(data, tuple);
+                }))
+                .register(FlowInfoData.class, whenInitialized((data, tuple) -> {
+                    logger.info("Cache update flow data: {}", data);
+                    handleFlowEvent(data, tuple);
+                }));
+    }
+
+    /**
+     * Wraps cache update handler to skip the updates until the cache is initialized from the network dump.
+     *
+     * @param handler cache update handler
+     * @param <T>     cache update type
+     * @return handler of the cache update
+     */
+    private <T extends InfoData> Handler<T, Tuple> whenInitialized(Handler<T, Tuple> handler) {
+        return (data, tuple) -> {
+            if (isReceivedCacheInfo) {
+                handler.handle(data, tuple);
+            } else {
+                logger.debug("Cache message fail due bolt not initialized: "
+                                + "component={}, stream={}, tuple={}",
+                        tuple.getSourceComponent(), tuple.getSourceStreamId(), tuple);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanup() {
+        closeJournals();
     }
 
     /**
@@ -191,51 +338,11 @@ public class CacheBolt
         logger.trace("State before: {}", state);
 
         String json = tuple.getString(0);
-        String source = tuple.getSourceComponent();
-
-        /*
-          (carmine) Hack Alert
-          1) merged two kafka topics into one;
-          2) previous logic used topic source to determine how to parse the message
-          3) new logic tries to parse it one way, then the next. Slightly inefficient.
-         */
-        // TODO: Eliminate the inefficiency introduced through the hack
+        isNetworkDump = false;
+
         try {
             logger.info("Received cache data={}", tuple);
-            BaseMessage bm = MAPPER.readValue(json, BaseMessage.class);
-            if (bm instanceof InfoMessage) {
-                InfoMessage message = (InfoMessage) bm;
-                InfoData data = message.getData();
-
-                if (data instanceof NetworkInfoData) {
-                    logger.debug("Storage content message {}", json);
-                    handleNetworkDump(data, tuple);
-                    isReceivedCacheInfo = true;
-                } else if (!isReceivedCacheInfo) {
-                    logger.debug("Cache message fail due bolt not initialized: "
-                                    + "component={}, stream={}, tuple={}",
-                            tuple.getSourceComponent(), tuple.getSourceStreamId(), tuple);
-                } else if (data instanceof SwitchInfoData) {
-                    logger.info("Cache update switch info data: {}", data);
-                    handleSwitchEvent((SwitchInfoData) data, tuple);
-
-                } else if (data instanceof IslInfoData) {
-                    logger.info("Cache update isl info data: {}", data);
-                    handleIslEvent((IslInfoData) data, tuple);
-
-                } else if (data instanceof PortInfoData) {
-                    logger.info("Cache update port info data: {}", data);
-                    handlePortEvent((PortInfoData) data, tuple);
-
-                } else if (data instanceof FlowInfoData) {
-                    logger.info("Cache update flow data: {}", data);
-
-                    FlowInfoData flowData = (FlowInfoData) data;
-                    handleFlowEvent(flowData, tuple);
-                } else {
-                    logger.error("Skip undefined info data type {}", json);
-                }
-            } else {
+            if (!dispatcher.dispatch(json, tuple)) {
                 logger.error("Skip undefined message type {}", json);
             }
 
@@ -245,7 +352,7 @@ public class CacheBolt
         } catch (IOException exception) {
             logger.error("Could not deserialize message {}", tuple, exception);
         } finally {
-            if (isReceivedCacheInfo) {
+            if (isReceivedCacheInfo || isNetworkDump) {
                 outputCollector.ack(tuple);
             } else {
                 outputCollector.fail(tuple);
@@ -260,18 +367,26 @@ public class CacheBolt
      */
     @Override
     protected void doTick(Tuple tuple) {
-        // FIXME(dbogun): tick only once, because timePassed never reset
+        // the dump is requested once, a lost or stalled dump is requested again on the dump timeout
         if (timePassed == discoveryInterval) {
-            Values values = getNetworkRequest();
-            if (values != null) {
-                outputCollector.emit(StreamType.TPE.toString(), tuple, values);
+            if (isRecoveredFromJournal) {
+                logger.info("Caches are recovered from the journals, skip network dump request");
             } else {
-                logger.error("Could not send network cache request");
+                emitNetworkRequest(tuple);
             }
         }
         if (timePassed <= discoveryInterval) {
             timePassed += 1;
         }
+
+        if ((isDumpRequested || expectedDumpChunk != 0) && ++dumpIdleTime >= networkDumpTimeout) {
+            logger.warn("No network dump chunk received for {} seconds, requesting dump again", dumpIdleTime);
+            expectedDumpChunk = 0;
+            dumpFlows = new ArrayList<>();
+            emitNetworkRequest(tuple);
+        }
+
+        emitRerouteCommands();
     }
 
     /**
@@ -286,21 +401,60 @@ public class CacheBolt
         output.declareStream(STREAM_ID_CTRL, AbstractTopology.fieldMessage);
     }
 
-    private void handleNetworkDump(InfoData info, Tuple tuple) {
-        if (info instanceof NetworkInfoData) {
-            NetworkInfoData data = (NetworkInfoData) info;
-            logger.info("Fill network state {}", data);
+    /**
+     * Applies network dump or its chunk to the caches and emits restore commands for the dump flows.
+     *
+     * <p>Chunks are applied as they arrive, but the flows are restored once the dump is complete: a flow restored
+     * from an early chunk must not take a cookie, meter or vlan still held by a flow of a later chunk.
+     *
+     * <p>A chunk out of sequence means a chunk was lost, the first one included if no dump is being received, so the
+     * dump is requested again and chunks are dropped until the new dump starts. Chunks of the dump being replaced do
+     * not request it once more, a dump which never starts is requested again on the dump timeout.
+     *
+     * @param data  network dump or its chunk
+     * @param tuple tuple the dump came with
+     * @return true if the dump is complete
+     */
+    private boolean handleNetworkDump(NetworkInfoData data, Tuple tuple) {
+        Integer chunkNumber = data.getChunkNumber();
+        if (chunkNumber == null || chunkNumber == 0) {
+            dumpFlows = new ArrayList<>();
+            isDumpRequested = false;
+        } else if (chunkNumber != expectedDumpChunk) {
+            if (!isDumpRequested) {
+                logger.warn("Network dump chunk {} received while {} expected, requesting dump again",
+                        chunkNumber, expectedDumpChunk);
+                emitNetworkRequest(tuple);
+            }
+            expectedDumpChunk = 0;
+            dumpFlows = new ArrayList<>();
+            return false;
+        }
+        dumpIdleTime = 0;
+
+        logger.info("Fill network state {}", data);
+        if (data.getSwitches() != null) {
             data.getSwitches().forEach(networkCache::createOrUpdateSwitch);
+        }
+        if (data.getIsls() != null) {
             data.getIsls().forEach(networkCache::createOrUpdateIsl);
+        }
+        if (data.getFlows() != null) {
             logger.info("Load flows {}", data.getFlows().size());
             data.getFlows().forEach(flowCache::putFlow);
             logger.info("Loaded flows {}", flowCache);
-            emitRestoreCommands(data.getFlows(), tuple);
-            logger.info("Flows restore commands sent");
+            dumpFlows.addAll(data.getFlows());
+        }
 
-        } else {
-            logger.warn("Incorrect network state {}", info);
+        boolean complete = chunkNumber == null || Boolean.TRUE.equals(data.getLastChunk());
+        expectedDumpChunk = complete ? 0 : chunkNumber + 1;
+        if (complete) {
+            logger.info("Network dump received");
+            emitRestoreCommands(dumpFlows, tuple, new ResourceCache());
+            logger.info("Flows restore commands sent");
+            dumpFlows = new ArrayList<>();
         }
+        return complete;
     }
 
     private void handleSwitchEvent(SwitchInfoData sw, Tuple tuple) throws IOException {
@@ -321,7 +475,8 @@ public class CacheBolt
                 }
 
                 affectedFlows = flowCache.getActiveFlowsWithAffectedPath(sw.getSwitchId());
-                emitRerouteCommands(affectedFlows, tuple, UUID.randomUUID().toString(), FlowOperation.UPDATE);
+                scheduleReroutes(affectedFlows, UUID.randomUUID().toString(),
+                        Collections.singleton(sw.getSwitchId()), Collections.emptySet());
                 break;
 
             case CACHED:
@@ -348,7 +503,7 @@ public class CacheBolt
                 }
 
                 affectedFlows = getFlowsForRerouting(isl);
-                emitRerouteCommands(affectedFlows, tuple, UUID.randomUUID().toString(), FlowOperation.UPDATE);
+                scheduleReroutes(affectedFlows, UUID.randomUUID().toString());
                 break;
 
             case FAILED:
@@ -358,7 +513,10 @@ public class CacheBolt
                     logger.warn("{}:{}", exception.getErrorMessage(), exception.getErrorDescription());
                 }
                 affectedFlows = flowCache.getActiveFlowsWithAffectedPath(isl);
-                emitRerouteCommands(affectedFlows, tuple, UUID.randomUUID().toString(), FlowOperation.UPDATE);
+                scheduleReroutes(affectedFlows, UUID.randomUUID().toString(), Collections.emptySet(),
+                        isl.getPath().stream()
+                                .map(node -> RerouteScheduler.getPortKey(node.getSwitchId(), node.getPortNo()))
+                                .collect(Collectors.toSet()));
                 break;
 
             case OTHER_UPDATE:
@@ -409,10 +567,9 @@ public class CacheBolt
         logger.info("Flow command message sent");
     }
 
-    private void emitRestoreCommands(Set<ImmutablePair<Flow, Flow>> flows, Tuple tuple) {
+    private void emitRestoreCommands(Collection<ImmutablePair<Flow, Flow>> flows, Tuple tuple,
+                                     ResourceCache resourceCache) {
         if (flows != null) {
-
-            ResourceCache resourceCache = new ResourceCache();
             for (ImmutablePair<Flow, Flow> flow : flows) {
                 resourceCache.allocateFlow(flow);
             }
@@ -435,31 +592,88 @@ public class CacheBolt
         }
     }
 
-    private void emitRerouteCommands(Set<ImmutablePair<Flow, Flow>> flows, Tuple tuple,
-                                     String correlationId, FlowOperation operation) {
+    private void scheduleReroutes(Set<ImmutablePair<Flow, Flow>> flows, String correlationId) {
+        scheduleReroutes(flows, correlationId, null, null);
+    }
+
+    /**
+     * Schedules reroutes of the flows.
+     *
+     * @param failedSwitches switches failed, null if the reroutes are not caused by a failure
+     * @param failedPorts    ports failed, null if the reroutes are not caused by a failure
+     */
+    private void scheduleReroutes(Set<ImmutablePair<Flow, Flow>> flows, String correlationId,
+                                  Set<String> failedSwitches, Set<String> failedPorts) {
+        long now = System.currentTimeMillis();
         for (ImmutablePair<Flow, Flow> flow : flows) {
+            flowCache.setFlowState(flow.getLeft().getFlowId(), FlowState.DOWN);
+            flow.getLeft().setState(FlowState.DOWN);
+            if (failedSwitches == null && failedPorts == null) {
+                rerouteScheduler.schedule(flow.getLeft(), correlationId, now);
+            } else {
+                rerouteScheduler.schedule(flow.getLeft(), correlationId, failedSwitches, failedPorts, now);
+            }
+        }
+        logger.debug("Reroutes scheduled: {}", rerouteScheduler.getMetrics());
+    }
+
+    /**
+     * Emits reroute commands for the scheduled reroutes which are due.
+     *
+     * <p>Commands are not anchored: a reroute is scheduled from the flow cache state, after the events which caused
+     * it have been coalesced and acked. The flow is looked up in the flow cache again, a reroute of a flow removed
+     * since it was scheduled, or moved off the failed switches and ports, is dropped.
+     */
+    private void emitRerouteCommands() {
+        for (RerouteScheduler.Reroute reroute : rerouteScheduler.poll(System.currentTimeMillis())) {
+            Flow scheduled = reroute.getFlow();
+            if (!flowCache.cacheContainsFlow(scheduled.getFlowId())) {
+                logger.info("Flow {} reroute dropped, the flow is removed", scheduled.getFlowId());
+                continue;
+            }
+            ImmutablePair<Flow, Flow> current = flowCache.getFlow(scheduled.getFlowId());
+            Flow flow = current.getLeft();
+            if (!reroute.isAffected(flow) && (current.getRight() == null || !reroute.isAffected(current.getRight()))) {
+                logger.info("Flow {} reroute dropped, the flow path is not affected any more", scheduled.getFlowId());
+                continue;
+            }
+
             try {
-                flow.getLeft().setState(FlowState.DOWN);
-                flow.getRight().setState(FlowState.DOWN);
-                FlowRerouteRequest request = new FlowRerouteRequest(flow.getLeft(), operation);
+                FlowRerouteRequest request = new FlowRerouteRequest(flow, FlowOperation.UPDATE);
 
                 Values values = new Values(Utils.MAPPER.writeValueAsString(new CommandMessage(
-                        request, System.currentTimeMillis(), correlationId, Destination.WFM)));
-                outputCollector.emit(StreamType.WFM_DUMP.toString(), tuple, values);
+                        request, System.currentTimeMillis(), reroute.getCorrelationId(), Destination.WFM)));
+                outputCollector.emit(StreamType.WFM_DUMP.toString(), values);
 
                 logger.debug("Flow {} reroute command message sent with correlationId {}",
-                        flow.getLeft().getFlowId(), correlationId);
+                        flow.getFlowId(), reroute.getCorrelationId());
             } catch (JsonProcessingException exception) {
                 logger.error("Could not format flow reroute request by flow={}", flow, exception);
             }
         }
+
+        if (rerouteScheduler.getBacklog() > 0) {
+            logger.info("Reroutes held back by the dispatch rate: {}", rerouteScheduler.getBacklog());
+        }
+    }
+
+    private void emitNetworkRequest(Tuple tuple) {
+        isDumpRequested = true;
+        dumpIdleTime = 0;
+
+        Values values = getNetworkRequest();
+        if (values != null) {
+            outputCollector.emit(StreamType.TPE.toString(), tuple, values);
+        } else {
+            logger.error("Could not send network cache request");
+        }
     }
 
     private Values getNetworkRequest() {
         Values values = null;
 
         try {
-            CommandMessage command = new CommandMessage(new NetworkCommandData(),
+            CommandMessage command = new CommandMessage(new NetworkCommandData(null, networkDumpChunkSize),
                     System.currentTimeMillis(), Utils.SYSTEM_CORRELATION_ID, Destination.TOPOLOGY_ENGINE);
             values = new Values(Utils.MAPPER.writeValueAsString(command));
         } catch (IOException exception) {
@@ -632,11 +846,52 @@ public class CacheBolt
         }
     }
 
+    /**
+     * Recovers the caches from their journals and starts journaling them, if the state directory is configured.
+     *
+     * <p>Caches recovered with a topology do not wait for the network dump to handle events, and the dump is not
+     * requested, so the recovered flows are not restored on the switches again.
+     */
+    private void attachJournals() {
+        closeJournals();
+        if (StringUtils.isEmpty(stateDirectory)) {
+            return;
+        }
+
+        File directory = new File(stateDirectory,
+                String.format("%s-%d", context.getThisComponentId(), context.getThisTaskId()));
+        try {
+            CacheJournal networkJournal = new CacheJournal(new File(directory, NETWORK_CACHE));
+            journals.add(networkJournal);
+            networkCache.attachJournal(networkJournal);
+
+            CacheJournal flowJournal = new CacheJournal(new File(directory, FLOW_CACHE));
+            journals.add(flowJournal);
+            flowCache.attachJournal(flowJournal);
+        } catch (IOException e) {
+            logger.error("Can not recover caches from {}", directory, e);
+        }
+
+        isReceivedCacheInfo = !networkCache.dumpSwitches().isEmpty();
+        isRecoveredFromJournal = isReceivedCacheInfo;
+    }
+
+    private void closeJournals() {
+        for (CacheJournal journal : journals) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Can not close {}", journal, e);
+            }
+        }
+        journals.clear();
+    }
+
     @Override
     public AbstractDumpState dumpState() {
-        NetworkDump networkDump = new NetworkDump(
-                networkCache.dumpSwitches(), networkCache.dumpIsls());
-        FlowDump flowDump = new FlowDump(flowCache.dumpFlows());
+        NetworkCache.Snapshot network = networkCache.snapshot();
+        NetworkDump networkDump = new NetworkDump(network.dumpSwitches(), network.dumpIsls());
+        FlowDump flowDump = new FlowDump(flowCache.snapshot().dumpFlows());
         return new CacheBoltState(networkDump, flowDump);
     }
 
@@ -644,8 +899,16 @@ public class CacheBolt
     @Override
     public void clearState() {
         logger.info("State clear request from test");
+        networkCache.clear();
+        flowCache.clear();
         initState(new InMemoryKeyValueState<>());
         isReceivedCacheInfo = false;
+        isRecoveredFromJournal = false;
+        expectedDumpChunk = 0;
+        isDumpRequested = false;
+        dumpIdleTime = 0;
+        dumpFlows = new ArrayList<>();
+        rerouteScheduler.clear();
         timePassed = 0;
     }
 
@@ -83,7 +83,9 @@ public class CacheTopology extends AbstractTopology {
         /*
          * Stores network cache.
          */
-        CacheBolt cacheBolt = new CacheBolt(config.getDiscoveryTimeout());
+        CacheBolt cacheBolt = new CacheBolt(config.getDiscoveryTimeout(), config.getStateDirectory(),
+                config.getRerouteDelay(), config.getRerouteMaxDelay(), config.getRerouteRate(),
+                config.getNetworkDumpChunkSize(), config.getNetworkDumpTimeout());
         boltSetup = builder.setBolt(BOLT_ID_CACHE, cacheBolt, parallelism)
                 .shuffleGrouping(SPOUT_ID_COMMON)
 // (carmine) as per above comment, only a single input streamt
@@ -0,0 +1,360 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.cache.service;
+
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Schedules flow reroutes caused by network events.
+ *
+ * <p>A reroute is held for the debounce delay after the last event affecting the flow, but no longer than the maximum
+ * delay after the first one, and further events coalesce into the pending reroute. Due reroutes are dispatched at
+ * most at the configured rate, flows with higher bandwidth first, the rest stay queued until the next dispatch.
+ * A flow is pending at most once, so the queue is bounded by the number of flows.
+ *
+ * <p>Coalescing does not search the queues: the reroute gets a new version and is queued again, the queued entries of
+ * the older versions are skipped when they are polled. The queues are compacted once the skipped entries outnumber the
+ * pending reroutes.
+ *
+ * <p>The scheduler is not thread safe, it is driven by the bolt executor thread.
+ */
+public class RerouteScheduler {
+    /**
+     * Higher bandwidth first, then earlier scheduled first.
+     */
+    private static final Comparator<Entry> PRIORITY = Comparator
+            .comparingLong((Entry entry) -> -entry.bandwidth)
+            .thenComparingLong(entry -> entry.reroute.firstTime);
+
+    /**
+     * Number of stale queue entries tolerated regardless of the number of pending reroutes.
+     */
+    private static final int STALE_ENTRIES_SLACK = 64;
+
+    private final long delay;
+    private final long maxDelay;
+    private final int rate;
+
+    /**
+     * Reroutes by flow id, either delayed or ready.
+     */
+    private final Map<String, Reroute> pending = new HashMap<>();
+
+    /**
+     * Delayed reroutes by due time.
+     */
+    private final PriorityQueue<Entry> delayed = new PriorityQueue<>(
+            Comparator.comparingLong((Entry entry) -> entry.dueTime));
+
+    /**
+     * Due reroutes by priority.
+     */
+    private final PriorityQueue<Entry> ready = new PriorityQueue<>(PRIORITY);
+
+    /**
+     * Number of due reroutes.
+     */
+    private int readyCount;
+
+    /**
+     * Number of queue entries of the older reroute versions.
+     */
+    private int staleCount;
+
+    /**
+     * Dispatch token bucket.
+     */
+    private double tokens;
+    private long refillTime = -1;
+
+    private long coalesced;
+    private long dispatched;
+
+    /**
+     * Instance constructor.
+     *
+     * @param delay    debounce delay in milliseconds
+     * @param maxDelay maximum delay of a reroute in milliseconds
+     * @param rate     maximum number of reroutes dispatched per second
+     */
+    public RerouteScheduler(long delay, long maxDelay, int rate) {
+        this.delay = delay;
+        this.maxDelay = Math.max(delay, maxDelay);
+        this.rate = rate;
+    }
+
+    /**
+     * Schedules flow reroute not caused by a failure, or coalesces it into the flow reroute already pending.
+     *
+     * @param flow          flow to reroute
+     * @param correlationId correlation id of the event
+     * @param now           current time in milliseconds
+     */
+    public void schedule(Flow flow, String correlationId, long now) {
+        enqueue(flow, correlationId, null, null, now).isUnconditional = true;
+    }
+
+    /**
+     * Schedules flow reroute caused by failed switches or ports, or coalesces it into the flow reroute already
+     * pending, see {@link Reroute#isAffected(Flow)}.
+     *
+     * @param flow           flow to reroute
+     * @param correlationId  correlation id of the event
+     * @param failedSwitches ids of the failed switches
+     * @param failedPorts    failed ports, see {@link #getPortKey(String, int)}
+     * @param now            current time in milliseconds
+     */
+    public void schedule(Flow flow, String correlationId, Collection<String> failedSwitches,
+                         Collection<String> failedPorts, long now) {
+        enqueue(flow, correlationId, failedSwitches, failedPorts, now);
+    }
+
+    /**
+     * Gets the key of the switch port.
+     *
+     * @param switchId switch id
+     * @param port     port number
+     * @return port key
+     */
+    public static String getPortKey(String switchId, int port) {
+        return switchId + "_" + port;
+    }
+
+    private Reroute enqueue(Flow flow, String correlationId, Collection<String> failedSwitches,
+                            Collection<String> failedPorts, long now) {
+        Reroute reroute = pending.get(flow.getFlowId());
+        if (reroute == null) {
+            reroute = new Reroute(flow, correlationId, now, now + delay);
+            reroute.addFailures(failedSwitches, failedPorts);
+            pending.put(flow.getFlowId(), reroute);
+            delayed.add(new Entry(reroute));
+            return reroute;
+        }
+
+        reroute.addFailures(failedSwitches, failedPorts);
+        coalesced++;
+        staleCount++;
+        reroute.version++;
+        reroute.flow = flow;
+        reroute.correlationId = correlationId;
+        if (reroute.isReady) {
+            ready.add(new Entry(reroute));
+        } else {
+            reroute.dueTime = Math.min(now + delay, reroute.firstTime + maxDelay);
+            delayed.add(new Entry(reroute));
+        }
+
+        if (staleCount > pending.size() + STALE_ENTRIES_SLACK) {
+            compact();
+        }
+        return reroute;
+    }
+
+    /**
+     * Takes due reroutes allowed by the dispatch rate.
+     *
+     * @param now current time in milliseconds
+     * @return reroutes in priority order
+     */
+    public List<Reroute> poll(long now) {
+        while (!delayed.isEmpty() && delayed.peek().dueTime <= now) {
+            Entry entry = delayed.poll();
+            if (entry.isStale()) {
+                staleCount--;
+                continue;
+            }
+            entry.reroute.isReady = true;
+            readyCount++;
+            ready.add(entry);
+        }
+
+        refill(now);
+        List<Reroute> result = new ArrayList<>();
+        while (!ready.isEmpty() && tokens >= 1) {
+            Entry entry = ready.poll();
+            if (entry.isStale()) {
+                staleCount--;
+                continue;
+            }
+            pending.remove(entry.reroute.flow.getFlowId());
+            readyCount--;
+            result.add(entry.reroute);
+            tokens -= 1;
+        }
+        dispatched += result.size();
+        return result;
+    }
+
+    /**
+     * Drops the queue entries of the older reroute versions.
+     */
+    private void compact() {
+        delayed.removeIf(Entry::isStale);
+        ready.removeIf(Entry::isStale);
+        staleCount = 0;
+    }
+
+    private void refill(long now) {
+        if (refillTime < 0) {
+            tokens = rate;
+        } else {
+            tokens = Math.min(rate, tokens + (now - refillTime) * rate / 1000.0);
+        }
+        refillTime = now;
+    }
+
+    /**
+     * Drops all pending reroutes.
+     */
+    public void clear() {
+        pending.clear();
+        delayed.clear();
+        ready.clear();
+        readyCount = 0;
+        staleCount = 0;
+    }
+
+    /**
+     * Gets number of pending reroutes.
+     *
+     * @return queue depth
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Gets number of due reroutes held back by the dispatch rate.
+     *
+     * @return backlog size
+     */
+    public int getBacklog() {
+        return readyCount;
+    }
+
+    /**
+     * Gets scheduler metrics: queue depth, backlog and the numbers of coalesced and dispatched reroutes.
+     *
+     * @return metric values by name
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("queue-depth", (long) size());
+        metrics.put("backlog", (long) getBacklog());
+        metrics.put("coalesced", coalesced);
+        metrics.put("dispatched", dispatched);
+        return metrics;
+    }
+
+    /**
+     * Scheduled flow reroute.
+     */
+    public static final class Reroute {
+        private Flow flow;
+        private String correlationId;
+        private final long firstTime;
+        private long dueTime;
+        private boolean isReady;
+        private long version;
+        private boolean isUnconditional;
+        private final Set<String> failedSwitches = new HashSet<>();
+        private final Set<String> failedPorts = new HashSet<>();
+
+        private Reroute(Flow flow, String correlationId, long firstTime, long dueTime) {
+            this.flow = flow;
+            this.correlationId = correlationId;
+            this.firstTime = firstTime;
+            this.dueTime = dueTime;
+        }
+
+        public Flow getFlow() {
+            return flow;
+        }
+
+        public String getCorrelationId() {
+            return correlationId;
+        }
+
+        /**
+         * Checks whether the flow still needs the reroute: the reroute is not caused by a failure, or the flow
+         * crosses a failed switch or port.
+         *
+         * @param flow flow, one direction of it
+         * @return true if the flow is affected
+         */
+        public boolean isAffected(Flow flow) {
+            if (isUnconditional) {
+                return true;
+            }
+            if (failedSwitches.contains(flow.getSourceSwitch())
+                    || failedSwitches.contains(flow.getDestinationSwitch())) {
+                return true;
+            }
+            if (flow.getFlowPath() == null) {
+                return false;
+            }
+            for (PathNode node : flow.getFlowPath().getPath()) {
+                if (failedSwitches.contains(node.getSwitchId())
+                        || failedPorts.contains(getPortKey(node.getSwitchId(), node.getPortNo()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void addFailures(Collection<String> switches, Collection<String> ports) {
+            if (switches != null) {
+                failedSwitches.addAll(switches);
+            }
+            if (ports != null) {
+                failedPorts.addAll(ports);
+            }
+        }
+    }
+
+    /**
+     * Queued version of a reroute. The ordering fields are copied, so the entry keeps its place in the queue while
+     * the reroute changes.
+     */
+    private static final class Entry {
+        private final Reroute reroute;
+        private final long version;
+        private final long dueTime;
+        private final long bandwidth;
+
+        private Entry(Reroute reroute) {
+            this.reroute = reroute;
+            this.version = reroute.version;
+            this.dueTime = reroute.dueTime;
+            this.bandwidth = reroute.flow.getBandwidth();
+        }
+
+        private boolean isStale() {
+            return version != reroute.version;
+        }
+    }
+}
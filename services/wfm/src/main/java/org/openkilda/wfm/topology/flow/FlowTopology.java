@@ -67,6 +67,7 @@ public class FlowTopology extends AbstractTopology {
     public FlowTopology(LaunchEnvironment env) throws ConfigurationException {
         super(env);
         pathComputerAuth = new AuthNeo4j(config.getNeo4jHost(), config.getNeo4jLogin(), config.getNeo4jPassword());
+        checkFlowStorePlacement();
 
         logger.debug("Topology built {}: zookeeper={}, kafka={}, parallelism={}, workers={}" +
                 ", neo4j_url{}, neo4j_user{}, neo4j_pswd{}",
@@ -77,12 +78,33 @@ public class FlowTopology extends AbstractTopology {
     public FlowTopology(LaunchEnvironment env, Auth pathComputerAuth) throws ConfigurationException {
         super(env);
         this.pathComputerAuth = pathComputerAuth;
+        checkFlowStorePlacement();
 
         logger.debug("Topology built {}: zookeeper={}, kafka={}, parallelism={}, workers={}",
                 getTopologyName(), config.getZookeeperHosts(), config.getKafkaHosts(), config.getParallelism(),
                 config.getWorkers());
     }
 
+    /**
+     * Checks that all {@link CrudBolt} tasks run in one JVM.
+     *
+     * <p>The tasks share the flow store and the flow resources within the JVM, tasks spread over several workers
+     * would allocate colliding cookies, meters and vlans and see only a part of the flows.
+     *
+     * @throws ConfigurationException if the bolt parallelism is spread over several workers
+     */
+    private void checkFlowStorePlacement() throws ConfigurationException {
+        if (config.getLocal()) {
+            return;
+        }
+        int workers = config.getWorkers(getTopologyName());
+        if (config.getParallelism() > 1 && workers > 1) {
+            throw new ConfigurationException(String.format(
+                    "Topology %s: parallelism %d can not be spread over %d workers, the flow store is shared "
+                            + "within a worker", getTopologyName(), config.getParallelism(), workers));
+        }
+    }
+
     @Override
     public StormTopology createTopology() throws StreamNameCollisionException {
         logger.info("Creating Topology: {}", topologyName);
@@ -109,14 +131,15 @@ public class FlowTopology extends AbstractTopology {
 
         /*
          * Bolt handles flow CRUD operations.
-         * It groups requests by flow-id.
+         * It groups requests by flow-id, every task owns a shard of the flow store shared by the tasks of the worker,
+         * see checkFlowStorePlacement.
          */
-        CrudBolt crudBolt = new CrudBolt(pathComputerAuth);
+        CrudBolt crudBolt = new CrudBolt(pathComputerAuth, config.getStateDirectory());
         ComponentObject.serialized_java(org.apache.storm.utils.Utils.javaSerialize(pathComputerAuth));
 
         boltSetup = builder.setBolt(ComponentType.CRUD_BOLT.toString(), crudBolt, parallelism)
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.CREATE.toString(), fieldFlowId)
-                // TODO: this READ is used for single and for all flows. But all flows shouldn't be fieldsGrouping.
+                // READ of all flows and CACHE_SYNC have no flow id, the task receiving them queries all shards
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.READ.toString(), fieldFlowId)
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.UPDATE.toString(), fieldFlowId)
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.DELETE.toString(), fieldFlowId)
@@ -126,7 +149,6 @@ public class FlowTopology extends AbstractTopology {
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.RESTORE.toString(), fieldFlowId)
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.REROUTE.toString(), fieldFlowId)
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId)
-                // TODO: this CACHE_SYNC shouldn't be fields-grouping - there is no field - it should be all - but tackle during multi instance testing
                 .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.CACHE_SYNC.toString(), fieldFlowId)
                 .fieldsGrouping(ComponentType.TRANSACTION_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId)
                 .fieldsGrouping(ComponentType.SPEAKER_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId)
@@ -19,6 +19,7 @@ import static java.lang.String.format;
 import static org.openkilda.messaging.Utils.MAPPER;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.storm.Config;
 import org.apache.storm.state.InMemoryKeyValueState;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
@@ -26,6 +27,7 @@ import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.topology.base.BaseStatefulBolt;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.Utils;
@@ -50,10 +52,14 @@ import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.messaging.payload.flow.FlowCacheSyncResults;
 import org.openkilda.messaging.payload.flow.FlowIdStatusPayload;
 import org.openkilda.messaging.payload.flow.FlowState;
+import org.openkilda.pce.cache.CacheJournal;
 import org.openkilda.pce.cache.FlowCache;
+import org.openkilda.pce.cache.FlowDigest;
 import org.openkilda.pce.cache.ResourceCache;
+import org.openkilda.pce.cache.ShardedFlowStore;
 import org.openkilda.pce.provider.Auth;
 import org.openkilda.pce.provider.FlowInfo;
+import org.openkilda.pce.provider.PathBatch;
 import org.openkilda.pce.provider.PathComputer;
 import org.openkilda.pce.provider.PathComputer.Strategy;
 import org.openkilda.pce.provider.UnroutablePathException;
@@ -68,6 +74,7 @@ import org.openkilda.wfm.topology.flow.validation.FlowValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -88,6 +95,21 @@ public class CrudBolt
      */
     private static final String FLOW_CACHE = "flow";
 
+    /**
+     * Interval in seconds the pending reroute requests are placed at.
+     */
+    private static final int REROUTE_BATCH_INTERVAL = 1;
+
+    /**
+     * Maximum number of reroute requests placed in one batch.
+     */
+    private static final int REROUTE_BATCH_SIZE = 100;
+
+    /**
+     * Metrics reporting interval in seconds.
+     */
+    private static final int METRICS_INTERVAL = 60;
+
     /**
      * Path computation instance.
      */
@@ -103,17 +125,44 @@ public class CrudBolt
     private OutputCollector outputCollector;
 
     /**
-     * Flow cache.
+     * Flow store shared by the bolt tasks.
+     */
+    private ShardedFlowStore flowStore;
+
+    /**
+     * Name the flow store is shared by.
+     */
+    private String flowStoreName;
+
+    /**
+     * Flow cache, the shard of the flow store owned by the task.
      */
     private FlowCache flowCache;
 
+    /**
+     * Directory the flow cache is journaled to, or empty if the flow cache is not journaled.
+     */
+    private final String stateDirectory;
+
+    /**
+     * Journal of the flow cache.
+     */
+    private CacheJournal journal;
+
+    /**
+     * Reroute requests waiting to be placed in one batch, see {@link #flushReroutes()}.
+     */
+    private transient List<ImmutablePair<CommandMessage, Tuple>> pendingReroutes;
+
     /**
      * Instance constructor.
      *
      * @param pathComputerAuth {@link Auth} instance
+     * @param stateDirectory   directory the flow cache is journaled to, or empty if the flow cache is not journaled
      */
-    public CrudBolt(Auth pathComputerAuth) {
+    public CrudBolt(Auth pathComputerAuth, String stateDirectory) {
         this.pathComputerAuth = pathComputerAuth;
+        this.stateDirectory = stateDirectory;
     }
 
     /**
@@ -127,8 +176,9 @@ public class CrudBolt
         //  The reason for the qestion .. we are only putting in one object.
         flowCache = state.get(FLOW_CACHE);
         if (flowCache == null) {
-            flowCache = new FlowCache();
+            flowCache = flowStore.getShard(context.getThisTaskIndex());
             this.caches.put(FLOW_CACHE, flowCache);
+            attachJournal();
         }
     }
 
@@ -154,8 +204,67 @@ public class CrudBolt
     public void prepare(Map map, TopologyContext topologyContext, OutputCollector outputCollector) {
         this.context = topologyContext;
         this.outputCollector = outputCollector;
+        this.pendingReroutes = new ArrayList<>();
+
+        // flows are grouped by flow id, so every task owns a shard and queries all of them
+        String componentId = topologyContext.getThisComponentId();
+        List<Integer> tasks = topologyContext.getComponentTasks(componentId);
+        flowStoreName = format("%s/%s", topologyContext.getStormId(), componentId);
+        flowStore = ShardedFlowStore.acquire(flowStoreName, tasks.size());
+        // the store and its resources are per JVM, see FlowTopology, a local cluster runs all workers in one JVM
+        if (!"local".equals(map.get(Config.STORM_CLUSTER_MODE))
+                && !topologyContext.getThisWorkerTasks().containsAll(tasks)) {
+            ShardedFlowStore.release(flowStoreName);
+            throw new IllegalStateException(format("Tasks of %s run in several workers, the flow store is shared "
+                    + "within a worker", componentId));
+        }
+
+        pathComputer = flowStore.connect(pathComputerAuth);
+        // the path computer is shared by the tasks, so a single task reports its metrics
+        if (topologyContext.getThisTaskIndex() == 0) {
+            topologyContext.registerMetric("path-computer", pathComputer::getMetrics, METRICS_INTERVAL);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanup() {
+        closeJournal();
+        ShardedFlowStore.release(flowStoreName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        return TupleUtils.putTickFrequencyIntoComponentConfig(
+                super.getComponentConfiguration(), REROUTE_BATCH_INTERVAL);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The pending reroute requests are placed before the state is committed.
+     */
+    @Override
+    public void preCommit(long txid) {
+        flushReroutes();
+    }
 
-        pathComputer = pathComputerAuth.connect();
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The pending reroute requests are failed, they are replayed on top of the rolled back state.
+     */
+    @Override
+    public void preRollback() {
+        for (ImmutablePair<CommandMessage, Tuple> request : pendingReroutes) {
+            outputCollector.fail(request.getRight());
+        }
+        pendingReroutes.clear();
     }
 
     /**
@@ -164,6 +273,11 @@ public class CrudBolt
     @Override
     public void execute(Tuple tuple) {
 
+        if (TupleUtils.isTick(tuple)) {
+            flushReroutes();
+            return;
+        }
+
         if (CtrlAction.boltHandlerEntrance(this, tuple))
             return;
 
@@ -173,6 +287,7 @@ public class CrudBolt
         StreamType streamId = StreamType.valueOf(tuple.getSourceStreamId());
         String flowId = tuple.getStringByField(Utils.FLOW_ID);
         String correlationId = Utils.DEFAULT_CORRELATION_ID;
+        boolean deferred = false;
 
         try {
             logger.debug("Request tuple={}", tuple);
@@ -212,7 +327,7 @@ public class CrudBolt
                             handleRestoreRequest(cmsg, tuple);
                             break;
                         case REROUTE:
-                            handleRerouteRequest(cmsg, tuple);
+                            deferred = handleRerouteRequest(cmsg, tuple);
                             break;
                         case STATUS:
                             handleStatusRequest(flowId, cmsg, tuple);
@@ -272,24 +387,18 @@ public class CrudBolt
                     break;
             }
         } catch (CacheException exception) {
-            String logMessage = format("%s: %s", exception.getErrorMessage(), exception.getErrorDescription());
-            logger.error("{}, {}={}, {}={}, component={}, stream={}", logMessage, Utils.CORRELATION_ID,
-                    correlationId, Utils.FLOW_ID, flowId, componentId, streamId, exception);
-
-            ErrorMessage errorMessage = buildErrorMessage(correlationId, exception.getErrorType(),
-                    logMessage, componentId.toString().toLowerCase());
-
-            Values error = new Values(errorMessage, exception.getErrorType());
-            outputCollector.emit(StreamType.ERROR.toString(), tuple, error);
+            emitError(tuple, correlationId, flowId, componentId, streamId, exception);
 
         } catch (IOException exception) {
             logger.error("Could not deserialize message {}", tuple, exception);
 
         } finally {
-            logger.debug("Command message ack: component={}, stream={}, tuple={}",
-                    tuple.getSourceComponent(), tuple.getSourceStreamId(), tuple);
+            if (!deferred) {
+                logger.debug("Command message ack: component={}, stream={}, tuple={}",
+                        tuple.getSourceComponent(), tuple.getSourceStreamId(), tuple);
 
-            outputCollector.ack(tuple);
+                outputCollector.ack(tuple);
+            }
         }
 
         logger.trace("Flow Cache after: {}", flowCache);
@@ -298,16 +407,21 @@ public class CrudBolt
     private void handleCacheSyncRequest(CommandMessage message, Tuple tuple) throws IOException {
         logger.info("CACHE SYNCE: {}", message);
 
-        // NB: This is going to be a "bulky" operation - get all flows from DB, and synchronize
-        //      with the cache.
-
+        // NB: Only the digest buckets the cache and the DB disagree on are fetched from DB and compared,
+        //      flows of the matching buckets are unchanged.
+        FlowDigest cacheDigest = flowStore.getDigest();
+        FlowDigest dbDigest = pathComputer.getFlowDigest(FlowDigest.DEFAULT_BUCKETS);
+        Set<Integer> buckets = cacheDigest.diff(dbDigest);
+        logger.info("Cache sync: {} of {} buckets differ, cache {}, db {}",
+                buckets.size(), FlowDigest.DEFAULT_BUCKETS, cacheDigest, dbDigest);
 
         List<String> droppedFlows = new ArrayList<>();
         List<String> addedFlows = new ArrayList<>();
         List<String> modifiedFlows = new ArrayList<>();
-        List<String> unchangedFlows = new ArrayList<>();
+        List<String> unchangedFlows = new ArrayList<>(flowStore.getFlowIdsOutOfBuckets(buckets));
 
-        List<FlowInfo> flowInfos = pathComputer.getFlowInfo();
+        List<FlowInfo> flowInfos = buckets.isEmpty()
+                ? Collections.emptyList() : pathComputer.getFlowInfo(buckets, FlowDigest.DEFAULT_BUCKETS);
 
         // Instead of determining left/right .. store based on flowid_& cookie
         HashMap<String,FlowInfo> flowToInfo = new HashMap<>();
@@ -318,12 +432,12 @@ public class CrudBolt
         // We first look at comparing what is in the DB to what is in the Cache
         for (FlowInfo fi : flowInfos){
             String flowid = fi.getFlowId();
-            if (flowCache.cacheContainsFlow(flowid)){
+            if (flowStore.cacheContainsFlow(flowid)){
                 // TODO: better, more holistic comparison
                 // TODO: if the flow is modified, then just leverage drop / add primitives.
                 // TODO: Ensure that the DB is always the source of truth - cache and db ops part of transaction.
                 // Need to compare both sides
-                ImmutablePair<Flow,Flow> fc = flowCache.getFlow(flowid);
+                ImmutablePair<Flow,Flow> fc = flowStore.getFlow(flowid);
 
                 int count = modifiedFlows.size();
                 if (fi.getCookie() != fc.left.getCookie() && fi.getCookie() != fc.right.getCookie())
@@ -343,7 +457,7 @@ public class CrudBolt
         }
 
         // Now we see if the cache holds things not in the DB
-        for (ImmutablePair<Flow, Flow> flow : flowCache.dumpFlows()){
+        for (ImmutablePair<Flow, Flow> flow : flowStore.getFlowsInBuckets(buckets)){
             String key = flow.left.getFlowId() + flow.left.getCookie();
             // compare the left .. if it is in, then check the right .. o/w remove it (no need to check right
             if (!flowToInfo.containsKey(key)){
@@ -420,20 +534,21 @@ public class CrudBolt
 
         ImmutablePair<PathInfoData, PathInfoData> path;
         try {
-            new FlowValidator(flowCache).checkFlowForEndpointConflicts(requestedFlow);
+            checkFlowForEndpointConflicts(requestedFlow, message, ErrorType.CREATION_FAILURE, "Could not create flow");
 
             path = pathComputer.getPath(requestedFlow, Strategy.COST);
             logger.info("Created flow path: {}", path);
 
-        } catch (FlowValidationException e) {
-            throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
-                    ErrorType.CREATION_FAILURE, "Could not create flow", e.getMessage());
         } catch (UnroutablePathException e) {
             throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
                     ErrorType.CREATION_FAILURE, "Could not create flow", "Path was not found");
         }
 
-        ImmutablePair<Flow, Flow> flow = flowCache.createFlow(requestedFlow, path);
+        ImmutablePair<Flow, Flow> flow;
+        synchronized (flowStore.getEndpointLock()) {
+            checkFlowForEndpointConflicts(requestedFlow, message, ErrorType.CREATION_FAILURE, "Could not create flow");
+            flow = flowCache.createFlow(requestedFlow, path);
+        }
         logger.info("Created flow: {}", flow);
 
         FlowInfoData data = new FlowInfoData(requestedFlow.getFlowId(), flow, FlowOperation.CREATE,
@@ -447,7 +562,14 @@ public class CrudBolt
         outputCollector.emit(StreamType.RESPONSE.toString(), tuple, northbound);
     }
 
-    private void handleRerouteRequest(CommandMessage message, Tuple tuple) throws IOException {
+    /**
+     * Handles reroute request.
+     *
+     * <p>Update requests are deferred and placed in a batch by {@link #flushReroutes()}, the tuple is acked there.
+     *
+     * @return true if the request is deferred
+     */
+    private boolean handleRerouteRequest(CommandMessage message, Tuple tuple) {
         FlowRerouteRequest request = (FlowRerouteRequest) message.getData();
         Flow requestedFlow = request.getPayload();
         final String flowId = requestedFlow.getFlowId();
@@ -457,60 +579,120 @@ public class CrudBolt
         switch (request.getOperation()) {
 
             case UPDATE:
-                flow = flowCache.getFlow(flowId);
-
-                try {
-                    ImmutablePair<PathInfoData, PathInfoData> path =
-                            pathComputer.getPath(flow.getLeft(), Strategy.COST);
-                    logger.info("Rerouted flow path: {}", path);
-                    //no need to emit changes if path wasn't changed and flow is active.
-                    if (!path.getLeft().equals(flow.getLeft().getFlowPath()) || !isFlowActive(flow)) {
-                        flow.getLeft().setState(FlowState.DOWN);
-                        flow.getRight().setState(FlowState.DOWN);
-
-                        flow = flowCache.updateFlow(flow.getLeft(), path);
-                        logger.info("Rerouted flow: {}", flow);
-
-                        FlowInfoData data = new FlowInfoData(flowId, flow, FlowOperation.UPDATE,
-                                message.getCorrelationId());
-                        InfoMessage infoMessage = new InfoMessage(data, System.currentTimeMillis(),
-                                message.getCorrelationId());
-                        Values topology = new Values(MAPPER.writeValueAsString(infoMessage));
-                        outputCollector.emit(StreamType.UPDATE.toString(), tuple, topology);
-                    } else {
-                        logger.debug("Reroute was unsuccessful: can't find new path");
-                    }
-
-                    logger.debug("Sending response to NB. Correlation id {}", message.getCorrelationId());
-                    Values response = new Values(new InfoMessage(new FlowPathResponse(flow.left.getFlowPath()),
-                            message.getTimestamp(), message.getCorrelationId(), Destination.NORTHBOUND));
-                    outputCollector.emit(StreamType.RESPONSE.toString(), tuple, response);
-                } catch (UnroutablePathException e) {
-                    flow.getLeft().setState(FlowState.DOWN);
-                    flow.getRight().setState(FlowState.DOWN);
-                    throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
-                            ErrorType.UPDATE_FAILURE, "Could not reroute flow", "Path was not found");
+                // a flow is placed once per batch
+                if (pendingReroutes.stream().anyMatch(pending -> flowId.equals(getRerouteFlowId(pending.getLeft())))) {
+                    flushReroutes();
                 }
-                break;
+                pendingReroutes.add(new ImmutablePair<>(message, tuple));
+                if (pendingReroutes.size() >= REROUTE_BATCH_SIZE) {
+                    flushReroutes();
+                }
+                return true;
 
             case CREATE:
-                flow = flowCache.getFlow(flowId);
+                flow = flowCache.setFlowState(flowId, FlowState.UP);
                 logger.info("State flow: {}={}", flow.getLeft().getFlowId(), FlowState.UP);
-                flow.getLeft().setState(FlowState.UP);
-                flow.getRight().setState(FlowState.UP);
                 break;
 
             case DELETE:
-                flow = flowCache.getFlow(flowId);
+                flow = flowCache.setFlowState(flowId, FlowState.DOWN);
                 logger.info("State flow: {}={}", flow.getLeft().getFlowId(), FlowState.DOWN);
-                flow.getLeft().setState(FlowState.DOWN);
-                flow.getRight().setState(FlowState.DOWN);
                 break;
 
             default:
                 logger.warn("Flow {} undefined reroute operation", request.getOperation());
                 break;
         }
+        return false;
+    }
+
+    /**
+     * Places the pending reroute requests in one batch, so the flows rerouted together account the bandwidth
+     * of each other, and acks their tuples. The tuples are failed if the batch could not be placed at all.
+     */
+    private void flushReroutes() {
+        if (pendingReroutes.isEmpty()) {
+            return;
+        }
+        List<ImmutablePair<CommandMessage, Tuple>> requests = new ArrayList<>(pendingReroutes);
+        pendingReroutes.clear();
+
+        PathBatch paths;
+        try {
+            List<Flow> flows = new ArrayList<>(requests.size());
+            for (ImmutablePair<CommandMessage, Tuple> request : requests) {
+                String flowId = getRerouteFlowId(request.getLeft());
+                if (flowCache.cacheContainsFlow(flowId)) {
+                    flows.add(flowCache.getFlow(flowId).getLeft());
+                }
+            }
+            paths = pathComputer.getPaths(flows, Strategy.COST);
+        } catch (RuntimeException exception) {
+            logger.error("Could not place reroute batch of {} requests", requests.size(), exception);
+            for (ImmutablePair<CommandMessage, Tuple> request : requests) {
+                outputCollector.fail(request.getRight());
+            }
+            return;
+        }
+        logger.info("Reroute batch of {} requests: {}", requests.size(), paths);
+
+        for (ImmutablePair<CommandMessage, Tuple> request : requests) {
+            CommandMessage message = request.getLeft();
+            Tuple tuple = request.getRight();
+            String flowId = getRerouteFlowId(message);
+            try {
+                rerouteFlow(flowId, paths.getPath(flowId), message, tuple);
+            } catch (CacheException exception) {
+                emitError(tuple, message.getCorrelationId(), flowId,
+                        ComponentType.valueOf(tuple.getSourceComponent()), StreamType.REROUTE, exception);
+            } catch (IOException exception) {
+                logger.error("Could not serialize reroute of flow {}", flowId, exception);
+            } finally {
+                outputCollector.ack(tuple);
+            }
+        }
+    }
+
+    /**
+     * Applies the path found for the flow by the reroute batch.
+     *
+     * @param path forward and reverse {@link PathInfoData} instances, or null if the flow is unroutable
+     */
+    private void rerouteFlow(String flowId, ImmutablePair<PathInfoData, PathInfoData> path, CommandMessage message,
+                             Tuple tuple) throws IOException {
+        ImmutablePair<Flow, Flow> flow = flowCache.getFlow(flowId);
+        if (path == null) {
+            flowCache.setFlowState(flowId, FlowState.DOWN);
+            throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
+                    ErrorType.UPDATE_FAILURE, "Could not reroute flow", "Path was not found");
+        }
+
+        logger.info("Rerouted flow path: {}", path);
+        //no need to emit changes if path wasn't changed and flow is active.
+        if (!path.getLeft().equals(flow.getLeft().getFlowPath()) || !isFlowActive(flow)) {
+            flow = flowCache.setFlowState(flowId, FlowState.DOWN);
+
+            flow = flowCache.updateFlow(flow.getLeft(), path);
+            logger.info("Rerouted flow: {}", flow);
+
+            FlowInfoData data = new FlowInfoData(flowId, flow, FlowOperation.UPDATE,
+                    message.getCorrelationId());
+            InfoMessage infoMessage = new InfoMessage(data, System.currentTimeMillis(),
+                    message.getCorrelationId());
+            Values topology = new Values(MAPPER.writeValueAsString(infoMessage));
+            outputCollector.emit(StreamType.UPDATE.toString(), tuple, topology);
+        } else {
+            logger.debug("Reroute was unsuccessful: can't find new path");
+        }
+
+        logger.debug("Sending response to NB. Correlation id {}", message.getCorrelationId());
+        Values response = new Values(new InfoMessage(new FlowPathResponse(flow.left.getFlowPath()),
+                message.getTimestamp(), message.getCorrelationId(), Destination.NORTHBOUND));
+        outputCollector.emit(StreamType.RESPONSE.toString(), tuple, response);
+    }
+
+    private static String getRerouteFlowId(CommandMessage message) {
+        return ((FlowRerouteRequest) message.getData()).getPayload().getFlowId();
     }
 
     private void handleRestoreRequest(CommandMessage message, Tuple tuple) throws IOException {
@@ -543,20 +725,21 @@ public class CrudBolt
 
         ImmutablePair<PathInfoData, PathInfoData> path;
         try {
-            new FlowValidator(flowCache).checkFlowForEndpointConflicts(requestedFlow);
+            checkFlowForEndpointConflicts(requestedFlow, message, ErrorType.UPDATE_FAILURE, "Could not update flow");
 
             path = pathComputer.getPath(requestedFlow, Strategy.COST);
             logger.info("Updated flow path: {}", path);
 
-        } catch (FlowValidationException e) {
-            throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
-                    ErrorType.UPDATE_FAILURE, "Could not update flow", e.getMessage());
         } catch (UnroutablePathException e) {
             throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
                     ErrorType.UPDATE_FAILURE, "Could not update flow", "Path was not found");
         }
 
-        ImmutablePair<Flow, Flow> flow = flowCache.updateFlow(requestedFlow, path);
+        ImmutablePair<Flow, Flow> flow;
+        synchronized (flowStore.getEndpointLock()) {
+            checkFlowForEndpointConflicts(requestedFlow, message, ErrorType.UPDATE_FAILURE, "Could not update flow");
+            flow = flowCache.updateFlow(requestedFlow, path);
+        }
         logger.info("Updated flow: {}", flow);
 
         FlowInfoData data = new FlowInfoData(requestedFlow.getFlowId(), flow, FlowOperation.UPDATE,
@@ -571,7 +754,7 @@ public class CrudBolt
     }
 
     private void handleDumpRequest(CommandMessage message, Tuple tuple) {
-        List<Flow> flows = flowCache.dumpFlows().stream().map(this::buildFlowResponse).collect(Collectors.toList());
+        List<Flow> flows = flowStore.dumpFlows().stream().map(this::buildFlowResponse).collect(Collectors.toList());
 
         logger.info("Dump flows: {}", flows);
 
@@ -619,10 +802,8 @@ public class CrudBolt
      * update from the TransactionBolt.
      */
     private void handleStateRequest(String flowId, FlowState state, Tuple tuple) throws IOException {
-        ImmutablePair<Flow, Flow> flow = flowCache.getFlow(flowId);
         logger.info("State flow: {}={}", flowId, state);
-        flow.getLeft().setState(state);
-        flow.getRight().setState(state);
+        ImmutablePair<Flow, Flow> flow = flowCache.setFlowState(flowId, state);
 
         final String correlationId = UUID.randomUUID().toString();
         FlowInfoData data = new FlowInfoData(flowId, flow, FlowOperation.STATE, correlationId);
@@ -663,6 +844,26 @@ public class CrudBolt
         outputCollector.emit(StreamType.ERROR.toString(), tuple, error);
     }
 
+    /**
+     * Checks the flow for endpoint conflicts with the flows of all shards. Flows of other shards may change
+     * concurrently, so the check is repeated under the endpoint lock right before the flow is stored.
+     *
+     * @param flow          flow to check
+     * @param message       request message
+     * @param errorType     error type of the conflict
+     * @param errorMessage  error message of the conflict
+     * @throws MessageException if flow endpoints conflict with existing flows
+     */
+    private void checkFlowForEndpointConflicts(Flow flow, CommandMessage message, ErrorType errorType,
+                                               String errorMessage) {
+        try {
+            new FlowValidator(flowStore).checkFlowForEndpointConflicts(flow);
+        } catch (FlowValidationException e) {
+            throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
+                    errorType, errorMessage, e.getMessage());
+        }
+    }
+
     /**
      * Builds response flow.
      *
@@ -675,6 +876,19 @@ public class CrudBolt
         return response;
     }
 
+    private void emitError(Tuple tuple, String correlationId, String flowId, ComponentType componentId,
+                           StreamType streamId, CacheException exception) {
+        String logMessage = format("%s: %s", exception.getErrorMessage(), exception.getErrorDescription());
+        logger.error("{}, {}={}, {}={}, component={}, stream={}", logMessage, Utils.CORRELATION_ID,
+                correlationId, Utils.FLOW_ID, flowId, componentId, streamId, exception);
+
+        ErrorMessage errorMessage = buildErrorMessage(correlationId, exception.getErrorType(),
+                logMessage, componentId.toString().toLowerCase());
+
+        Values error = new Values(errorMessage, exception.getErrorType());
+        outputCollector.emit(StreamType.ERROR.toString(), tuple, error);
+    }
+
     private ErrorMessage buildErrorMessage(String correlationId, ErrorType type, String message, String description) {
         return new ErrorMessage(new ErrorData(type, message, description),
                 System.currentTimeMillis(), correlationId, Destination.NORTHBOUND);
@@ -694,9 +908,42 @@ public class CrudBolt
     @Override
     public void clearState() {
         logger.info("State clear request from test");
+        flowCache.clear();
         initState(new InMemoryKeyValueState<>());
     }
 
+    /**
+     * Recovers the flow cache from its journal and starts journaling it, if the state directory is configured.
+     */
+    private void attachJournal() {
+        closeJournal();
+        if (stateDirectory == null || stateDirectory.isEmpty()) {
+            return;
+        }
+
+        File directory = new File(stateDirectory,
+                format("%s-%d/%s", context.getThisComponentId(), context.getThisTaskId(), FLOW_CACHE));
+        try {
+            journal = new CacheJournal(directory);
+            flowCache.attachJournal(journal);
+        } catch (IOException e) {
+            logger.error("Can not recover flow cache from {}", directory, e);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.error("Can not close {}", journal, e);
+        }
+        journal = null;
+    }
+
 
     @Override
     public String getCtrlStreamId() {
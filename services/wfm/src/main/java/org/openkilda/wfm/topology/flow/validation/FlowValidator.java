@@ -18,7 +18,7 @@ package org.openkilda.wfm.topology.flow.validation;
 import static java.lang.String.format;
 
 import org.openkilda.messaging.model.Flow;
-import org.openkilda.pce.cache.FlowCache;
+import org.openkilda.pce.cache.ShardedFlowStore;
 
 import java.util.Optional;
 import java.util.Set;
@@ -28,10 +28,10 @@ import java.util.Set;
  */
 public class FlowValidator {
 
-    private final FlowCache flowCache;
+    private final ShardedFlowStore flowStore;
 
-    public FlowValidator(FlowCache flowCache) {
-        this.flowCache = flowCache;
+    public FlowValidator(ShardedFlowStore flowStore) {
+        this.flowStore = flowStore;
     }
 
     /**
@@ -44,11 +44,11 @@ public class FlowValidator {
         // Check the source
         Set<Flow> conflictsOnSource;
         if (requestedFlow.getSourceVlan() == 0) {
-            conflictsOnSource = flowCache.getFlowsForEndpoint(
+            conflictsOnSource = flowStore.getFlowsForEndpoint(
                     requestedFlow.getSourceSwitch(),
                     requestedFlow.getSourcePort());
         } else {
-            conflictsOnSource = flowCache.getFlowsForEndpoint(
+            conflictsOnSource = flowStore.getFlowsForEndpoint(
                     requestedFlow.getSourceSwitch(),
                     requestedFlow.getSourcePort(),
                     requestedFlow.getSourceVlan());
@@ -68,11 +68,11 @@ public class FlowValidator {
         // Check the destination
         Set<Flow> conflictsOnDest;
         if (requestedFlow.getSourceVlan() == 0) {
-            conflictsOnDest = flowCache.getFlowsForEndpoint(
+            conflictsOnDest = flowStore.getFlowsForEndpoint(
                     requestedFlow.getDestinationSwitch(),
                     requestedFlow.getDestinationPort());
         } else {
-            conflictsOnDest = flowCache.getFlowsForEndpoint(
+            conflictsOnDest = flowStore.getFlowsForEndpoint(
                     requestedFlow.getDestinationSwitch(),
                     requestedFlow.getDestinationPort(),
                     requestedFlow.getDestinationVlan());
@@ -0,0 +1,137 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.storm.state.InMemoryKeyValueState;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.tuple.Tuple;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.flow.FlowRestoreRequest;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.NetworkInfoData;
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.messaging.payload.flow.FlowState;
+import org.openkilda.pce.cache.ResourceCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class CacheBoltTest {
+    private CacheBolt bolt;
+    private OutputCollector collector;
+
+    @Before
+    public void setUp() {
+        collector = mock(OutputCollector.class);
+        bolt = new CacheBolt(1, "", 0, 0, 100, 100, 10);
+        bolt.prepare(Collections.emptyMap(), mock(TopologyContext.class), collector);
+        bolt.initState(new InMemoryKeyValueState<>());
+    }
+
+    @Test
+    public void flowsRestoredOnceDumpIsComplete() throws Exception {
+        ImmutablePair<Flow, Flow> first = buildFlow("first-flow", 1, 1);
+        ImmutablePair<Flow, Flow> second = buildFlow("second-flow", 2, 2);
+
+        bolt.doWork(dumpChunk(first, 0, false));
+        verify(collector, never()).emit(eq(StreamType.WFM_DUMP.toString()), any(Tuple.class), anyList());
+
+        bolt.doWork(dumpChunk(second, 1, true));
+        List<ImmutablePair<Flow, Flow>> restored = getRestoredFlows();
+        assertEquals(2, restored.size());
+
+        // resources are moved in the order of the restore commands,
+        // so a restored flow must not take resources of the flows restored after it
+        List<ImmutablePair<Flow, Flow>> dumped = new ArrayList<>();
+        for (ImmutablePair<Flow, Flow> flow : restored) {
+            dumped.add(flow.getLeft().getFlowId().equals(first.getLeft().getFlowId()) ? first : second);
+        }
+        Set<Long> cookies = new HashSet<>();
+        for (int i = 0; i < restored.size(); i++) {
+            Flow flow = restored.get(i).getLeft();
+            assertTrue(cookies.add(getCookie(flow)));
+            for (ImmutablePair<Flow, Flow> held : dumped.subList(i + 1, dumped.size())) {
+                assertNotEquals(getCookie(held.getLeft()), getCookie(flow));
+                assertNotEquals(held.getLeft().getMeterId(), flow.getMeterId());
+                assertNotEquals(held.getRight().getMeterId(), restored.get(i).getRight().getMeterId());
+            }
+        }
+    }
+
+    private List<ImmutablePair<Flow, Flow>> getRestoredFlows() throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object>> values = ArgumentCaptor.forClass(List.class);
+        verify(collector, atLeast(0)).emit(eq(StreamType.WFM_DUMP.toString()), any(Tuple.class), values.capture());
+
+        List<ImmutablePair<Flow, Flow>> flows = new ArrayList<>();
+        for (List<Object> value : values.getAllValues()) {
+            CommandMessage message = Utils.MAPPER.readValue((String) value.get(0), CommandMessage.class);
+            if (message.getData() instanceof FlowRestoreRequest) {
+                flows.add(((FlowRestoreRequest) message.getData()).getPayload());
+            }
+        }
+        return flows;
+    }
+
+    private static long getCookie(Flow flow) {
+        return flow.getCookie() & ResourceCache.FLOW_COOKIE_VALUE_MASK;
+    }
+
+    private static Tuple dumpChunk(ImmutablePair<Flow, Flow> flow, int chunkNumber, boolean lastChunk)
+            throws Exception {
+        NetworkInfoData data = new NetworkInfoData("wfm", Collections.emptySet(), Collections.emptySet(),
+                Collections.emptySet(), Collections.singleton(flow), chunkNumber, lastChunk);
+        String json = Utils.MAPPER.writeValueAsString(
+                new InfoMessage(data, System.currentTimeMillis(), "dump", Destination.WFM_CACHE));
+
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.getSourceComponent()).thenReturn("kafka-spout");
+        when(tuple.getString(0)).thenReturn(json);
+        return tuple;
+    }
+
+    private static ImmutablePair<Flow, Flow> buildFlow(String flowId, long cookie, int meterId) {
+        PathInfoData path = new PathInfoData(0L, Collections.emptyList());
+        Flow forward = new Flow(flowId, 1, false, cookie | ResourceCache.FORWARD_FLOW_COOKIE_MASK, flowId, null,
+                "sw1", "sw2", 1, 1, 100, 200, meterId, 0, path, FlowState.UP);
+        Flow reverse = new Flow(flowId, 1, false, cookie | ResourceCache.REVERSE_FLOW_COOKIE_MASK, flowId, null,
+                "sw2", "sw1", 1, 1, 200, 100, meterId, 0, path, FlowState.UP);
+        return new ImmutablePair<>(forward, reverse);
+    }
+}
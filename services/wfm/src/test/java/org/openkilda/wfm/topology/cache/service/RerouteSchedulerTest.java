@@ -0,0 +1,138 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.cache.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.openkilda.messaging.info.event.PathInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.model.Flow;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RerouteSchedulerTest {
+    private final RerouteScheduler scheduler = new RerouteScheduler(1000, 3000, 2);
+
+    @Test
+    public void debounceAndCoalesce() {
+        scheduler.schedule(makeFlow("flow", 10), "first", 0);
+        scheduler.schedule(makeFlow("flow", 10), "second", 500);
+        assertEquals(1, scheduler.size());
+
+        assertTrue(scheduler.poll(1000).isEmpty());
+
+        List<RerouteScheduler.Reroute> reroutes = scheduler.poll(1500);
+        assertEquals(1, reroutes.size());
+        assertEquals("second", reroutes.get(0).getCorrelationId());
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void maxDelay() {
+        for (long time = 0; time < 3000; time += 500) {
+            scheduler.schedule(makeFlow("flow", 10), "flapping", time);
+            assertTrue(scheduler.poll(time).isEmpty());
+        }
+        assertEquals(1, scheduler.poll(3000).size());
+        assertTrue(scheduler.poll(10000).isEmpty());
+        assertEquals(Long.valueOf(5), scheduler.getMetrics().get("coalesced"));
+    }
+
+    @Test
+    public void rateAndPriority() {
+        scheduler.schedule(makeFlow("small", 10), "event", 0);
+        scheduler.schedule(makeFlow("large", 1000), "event", 0);
+        scheduler.schedule(makeFlow("medium", 100), "event", 0);
+
+        assertEquals(3, scheduler.size());
+        assertEquals(2, scheduler.poll(0).size() + scheduler.poll(1000).size());
+        assertEquals(1, scheduler.getBacklog());
+
+        scheduler.schedule(makeFlow("huge", 10000), "event", 1000);
+        assertEquals(0, scheduler.poll(1000).size());
+
+        List<String> flowIds = scheduler.poll(3000).stream()
+                .map(reroute -> reroute.getFlow().getFlowId())
+                .collect(Collectors.toList());
+        assertEquals(2, flowIds.size());
+        assertEquals("huge", flowIds.get(0));
+        assertEquals("small", flowIds.get(1));
+        assertEquals(0, scheduler.size());
+        assertEquals(Long.valueOf(4), scheduler.getMetrics().get("dispatched"));
+    }
+
+    @Test
+    public void coalesceManyEvents() {
+        for (int i = 0; i < 1000; i++) {
+            scheduler.schedule(makeFlow("flow" + i, i), "first", 0);
+        }
+        for (long time = 100; time < 1000; time += 100) {
+            for (int i = 0; i < 1000; i++) {
+                scheduler.schedule(makeFlow("flow" + i, i), "flapping", time);
+            }
+        }
+        assertEquals(1000, scheduler.size());
+
+        assertEquals(2, scheduler.poll(2000).size());
+        assertEquals(998, scheduler.getBacklog());
+        List<RerouteScheduler.Reroute> reroutes = scheduler.poll(2500);
+        assertEquals(1, reroutes.size());
+        assertEquals("flow997", reroutes.get(0).getFlow().getFlowId());
+        assertEquals("flapping", reroutes.get(0).getCorrelationId());
+        assertEquals(997, scheduler.size());
+    }
+
+    @Test
+    public void failedElementsAffectFlow() {
+        Flow flow = makeFlow("flow", 10);
+        flow.setFlowPath(new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 3, 0), new PathNode("sw3", 4, 1),
+                new PathNode("sw3", 5, 2), new PathNode("sw2", 6, 3))));
+        scheduler.schedule(flow, "isl", Collections.emptySet(),
+                Collections.singleton(RerouteScheduler.getPortKey("sw3", 5)), 0);
+        scheduler.schedule(flow, "switch", Collections.singleton("sw4"), Collections.emptySet(), 0);
+        RerouteScheduler.Reroute reroute = scheduler.poll(1000).get(0);
+        assertTrue(reroute.isAffected(flow));
+
+        Flow moved = makeFlow("flow", 10);
+        moved.setFlowPath(new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 7, 0), new PathNode("sw5", 8, 1),
+                new PathNode("sw5", 9, 2), new PathNode("sw2", 10, 3))));
+        assertFalse(reroute.isAffected(moved));
+
+        moved.setFlowPath(new PathInfoData(0L, Arrays.asList(
+                new PathNode("sw1", 7, 0), new PathNode("sw4", 8, 1),
+                new PathNode("sw4", 9, 2), new PathNode("sw2", 10, 3))));
+        assertTrue(reroute.isAffected(moved));
+    }
+
+    @Test
+    public void rerouteWithoutFailureAffectsFlow() {
+        scheduler.schedule(makeFlow("flow", 10), "discovered", 0);
+        assertTrue(scheduler.poll(1000).get(0).isAffected(makeFlow("flow", 10)));
+    }
+
+    private static Flow makeFlow(String flowId, int bandwidth) {
+        return new Flow(flowId, bandwidth, false, flowId, "sw1", 1, 0, "sw2", 2, 0);
+    }
+}
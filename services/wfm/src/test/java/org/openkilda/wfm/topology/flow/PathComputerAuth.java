@@ -1,5 +1,6 @@
 package org.openkilda.wfm.topology.flow;
 
+import org.openkilda.pce.cache.NetworkCache;
 import org.openkilda.pce.provider.Auth;
 
 public class PathComputerAuth implements Auth {
@@ -7,4 +8,10 @@ public class PathComputerAuth implements Auth {
     public PathComputerMock connect() {
         return new PathComputerMock();
     }
+
+    @Override
+    public PathComputerMock connect(NetworkCache networkCache) {
+        // the mock paths have no isls, so nothing is reserved on the network cache
+        return connect();
+    }
 }
@@ -20,7 +20,9 @@ import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.model.ImmutablePair;
 import org.openkilda.pce.provider.PathComputer;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 public class PathComputerMock implements PathComputer {
     @Override
@@ -28,6 +30,12 @@ public class PathComputerMock implements PathComputer {
         return emptyPath();
     }
 
+    @Override
+    public List<ImmutablePair<PathInfoData, PathInfoData>> getDisjointPaths(Flow flow, Strategy strategy,
+                                                                            Disjointness disjointness) {
+        return Arrays.asList(emptyPath(), emptyPath());
+    }
+
     private static ImmutablePair<PathInfoData, PathInfoData> emptyPath() {
         return new ImmutablePair<>(
                 new PathInfoData(0L, Collections.emptyList()),